@@ -0,0 +1,19 @@
+package cn.zzb.mybatis.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 返回 Map 的查询方法用它指定作为 key 的结果属性，结果按该属性值组成 Map
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface MapKey {
+
+    String value();
+
+}
@@ -0,0 +1,21 @@
+package cn.zzb.mybatis.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 指定 Mapper 方法参数在 SQL 中的名字，如 #{userId}
+ * <p>
+ * 没有标注时多个参数按 arg0、arg1… 或 param1、param2… 引用。
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface Param {
+
+    String value();
+
+}
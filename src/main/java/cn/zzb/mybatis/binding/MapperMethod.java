@@ -1,39 +1,114 @@
 package cn.zzb.mybatis.binding;
 
+import cn.zzb.mybatis.annotations.MapKey;
+import cn.zzb.mybatis.annotations.Param;
+import cn.zzb.mybatis.columnar.ColumnarResult;
+import cn.zzb.mybatis.cursor.Cursor;
 import cn.zzb.mybatis.mapping.MappedStatement;
 import cn.zzb.mybatis.mapping.SqlCommandType;
 import cn.zzb.mybatis.session.Configuration;
+import cn.zzb.mybatis.session.KeysetBounds;
+import cn.zzb.mybatis.session.KeysetPage;
+import cn.zzb.mybatis.session.RowBounds;
 import cn.zzb.mybatis.session.SqlSession;
 
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 public class MapperMethod {
 
     private final SqlCommand sqlCommand;
-
+    private final MethodSignature method;
 
     public MapperMethod(Class<?> mapperClass, Method method, Configuration configuration) {
-        sqlCommand = new SqlCommand(mapperClass, method, configuration);
+        this.sqlCommand = new SqlCommand(mapperClass, method, configuration);
+        this.method = new MethodSignature(method);
+        if ((this.method.returnsCursor() || this.method.returnsPublisher() || this.method.returnsKeysetPage()
+                || this.method.returnsColumnar()) && sqlCommand.getType() != SqlCommandType.SELECT) {
+            throw new RuntimeException("Only select statements can return " + method.getReturnType().getSimpleName() + ": " + sqlCommand.getName());
+        }
     }
 
     public Object execute(SqlSession sqlSession, Object[] args) {
-        Object result = null;
+        Object param = method.convertArgsToSqlCommandParam(args);
+        RowBounds rowBounds = method.extractRowBounds(args);
+        KeysetBounds keysetBounds = method.extractKeysetBounds(args);
+        if (method.returnsFuture()) {
+            return sqlSession.submit(() -> executeSync(sqlSession, param, rowBounds, keysetBounds));
+        }
+        if (method.returnsCursor()) {
+            return sqlSession.selectCursor(sqlCommand.getName(), param);
+        }
+        if (method.returnsPublisher()) {
+            return PublisherFactory.create(sqlSession.getConfiguration(), sqlCommand.getName(), param);
+        }
+        return executeSync(sqlSession, param, rowBounds, keysetBounds);
+    }
+
+    private Object executeSync(SqlSession sqlSession, Object param, RowBounds rowBounds, KeysetBounds keysetBounds) {
+        Object result;
         switch (sqlCommand.getType()) {
             case INSERT:
+                result = rowCountResult(sqlSession.insert(sqlCommand.getName(), param));
                 break;
             case DELETE:
+                result = rowCountResult(sqlSession.delete(sqlCommand.getName(), param));
                 break;
             case UPDATE:
+            case UPSERT:
+                result = rowCountResult(sqlSession.update(sqlCommand.getName(), param));
                 break;
             case SELECT:
-                result = sqlSession.selectOne(sqlCommand.getName(), args);
+                if (method.returnsKeysetPage()) {
+                    if (keysetBounds == null) {
+                        throw new RuntimeException("Mapper method '" + sqlCommand.getName() + "' returns KeysetPage but no KeysetBounds was passed");
+                    }
+                    result = sqlSession.selectKeysetPage(sqlCommand.getName(), param, keysetBounds);
+                } else if (method.returnsColumnar()) {
+                    result = sqlSession.selectColumnar(sqlCommand.getName(), param, rowBounds);
+                } else if (method.returnsMany()) {
+                    result = sqlSession.selectList(sqlCommand.getName(), param, rowBounds);
+                } else if (method.returnsMap()) {
+                    result = sqlSession.selectMap(sqlCommand.getName(), param, method.getMapKey(), rowBounds);
+                } else {
+                    result = sqlSession.selectOne(sqlCommand.getName(), param);
+                }
                 break;
             default:
                 throw new RuntimeException("Unknown execution method for: " + sqlCommand.getName());
         }
+        if (result == null && method.getResultType().isPrimitive() && !method.returnsVoid()) {
+            throw new RuntimeException("Mapper method '" + sqlCommand.getName()
+                    + "' attempted to return null from a method with a primitive return type (" + method.getResultType() + ").");
+        }
         return result;
     }
 
+    // 把影响行数转换成方法声明的返回类型
+    private Object rowCountResult(int rowCount) {
+        Class<?> resultType = method.getResultType();
+        if (method.returnsVoid()) {
+            return null;
+        } else if (Integer.class.equals(resultType) || Integer.TYPE.equals(resultType)) {
+            return rowCount;
+        } else if (Long.class.equals(resultType) || Long.TYPE.equals(resultType)) {
+            return (long) rowCount;
+        } else if (Boolean.class.equals(resultType) || Boolean.TYPE.equals(resultType)) {
+            return rowCount > 0;
+        } else {
+            throw new RuntimeException("Mapper method '" + sqlCommand.getName() + "' has an unsupported return type: " + resultType);
+        }
+    }
+
     public static class SqlCommand {
 
         private final String name;
@@ -54,4 +129,241 @@ public class MapperMethod {
             return type;
         }
     }
+
+    /**
+     * 创建 CursorPublisher：它实现 Java 9 的 Flow.Publisher，单独按 Java 9 编译（pom.xml 中的 compile-java9），
+     * 这里按类名反射加载，Java 8 上 MapperMethod 不会链接到 Flow；只有第一次调用返回 Flow.Publisher 的方法时才加载
+     */
+    private static final class PublisherFactory {
+
+        private static final Constructor<?> CONSTRUCTOR;
+
+        static {
+            try {
+                CONSTRUCTOR = Class.forName("cn.zzb.mybatis.cursor.reactive.CursorPublisher")
+                        .getConstructor(Configuration.class, String.class, Object.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        static Object create(Configuration configuration, String statement, Object parameter) {
+            try {
+                return CONSTRUCTOR.newInstance(configuration, statement, parameter);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+            } catch (ReflectiveOperationException e) {
+                throw new RuntimeException("Error creating publisher for " + statement + ". Cause: " + e, e);
+            }
+        }
+
+    }
+
+    /**
+     * Mapper 方法签名：返回类型决定调用 SqlSession 的哪个方法，参数按名字组织成 SQL 参数对象
+     */
+    public static class MethodSignature {
+
+        // Flow 是 Java 9 的 API，按类名判断，Java 8 上不加载它（核心代码按 Java 8 编译，不能引用 Flow）
+        private static final String FLOW_PUBLISHER = "java.util.concurrent.Flow$Publisher";
+
+        // 返回 CompletableFuture / CompletionStage 的方法在会话的异步执行器上执行，结果类型取其泛型参数
+        private final boolean returnsFuture;
+        // 返回 Cursor 的方法逐行读取结果
+        private final boolean returnsCursor;
+        // 返回 Flow.Publisher 的方法按订阅者的请求逐行推送，使用专用连接
+        private final boolean returnsPublisher;
+        private final Class<?> resultType;
+        private final boolean returnsVoid;
+        private final boolean returnsMany;
+        private final String mapKey;
+        private final boolean returnsMap;
+        // 返回 KeysetPage 的方法按键集分页，分页边界由 KeysetBounds 参数传入
+        private final boolean returnsKeysetPage;
+        // 返回 ColumnarResult 的方法按列读取结果，不映射结果对象
+        private final boolean returnsColumnar;
+        // 每个参数在 SQL 中的名字：@Param 的值，没有标注时为 arg0、arg1…；RowBounds/KeysetBounds 参数不是 SQL 参数，为 null
+        private final String[] paramNames;
+        private final boolean hasParamAnnotation;
+        // RowBounds 类型参数的下标，没有时为 -1
+        private final int rowBoundsIndex;
+        // KeysetBounds 类型参数的下标，没有时为 -1
+        private final int keysetBoundsIndex;
+        // SQL 参数的个数，只有一个时记录它的下标
+        private final int sqlParamCount;
+        private final int singleParamIndex;
+
+        public MethodSignature(Method method) {
+            Class<?> returnType = method.getReturnType();
+            Type genericReturnType = method.getGenericReturnType();
+            this.returnsFuture = returnType == CompletableFuture.class || returnType == CompletionStage.class;
+            this.returnsCursor = returnType == Cursor.class;
+            this.returnsPublisher = FLOW_PUBLISHER.equals(returnType.getName());
+            if (returnsFuture) {
+                genericReturnType = genericReturnType instanceof ParameterizedType
+                        ? ((ParameterizedType) genericReturnType).getActualTypeArguments()[0] : Object.class;
+                returnType = rawClass(genericReturnType);
+            }
+            this.resultType = returnType;
+            this.returnsVoid = void.class.equals(returnType) || Void.class.equals(returnType);
+            this.returnsMany = Collection.class.isAssignableFrom(returnType);
+            MapKey mapKeyAnnotation = method.getAnnotation(MapKey.class);
+            this.mapKey = mapKeyAnnotation == null ? null : mapKeyAnnotation.value();
+            this.returnsMap = mapKey != null && Map.class.isAssignableFrom(returnType);
+            this.returnsKeysetPage = KeysetPage.class.equals(returnType);
+            this.returnsColumnar = ColumnarResult.class.equals(returnType);
+
+            Annotation[][] annotations = method.getParameterAnnotations();
+            this.paramNames = new String[annotations.length];
+            boolean annotated = false;
+            this.rowBoundsIndex = uniqueIndex(method, RowBounds.class);
+            this.keysetBoundsIndex = uniqueIndex(method, KeysetBounds.class);
+            int count = 0;
+            int single = -1;
+            for (int i = 0; i < annotations.length; i++) {
+                if (i == rowBoundsIndex || i == keysetBoundsIndex) {
+                    continue;
+                }
+                count++;
+                single = i;
+                paramNames[i] = "arg" + i;
+                for (Annotation annotation : annotations[i]) {
+                    if (annotation instanceof Param) {
+                        paramNames[i] = ((Param) annotation).value();
+                        annotated = true;
+                    }
+                }
+            }
+            this.hasParamAnnotation = annotated;
+            this.sqlParamCount = count;
+            this.singleParamIndex = single;
+        }
+
+        private static int uniqueIndex(Method method, Class<?> type) {
+            int index = -1;
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (type.isAssignableFrom(parameterTypes[i])) {
+                    if (index >= 0) {
+                        throw new RuntimeException(method.getName() + " cannot have multiple " + type.getSimpleName() + " parameters");
+                    }
+                    index = i;
+                }
+            }
+            return index;
+        }
+
+        private static Class<?> rawClass(Type type) {
+            if (type instanceof Class) {
+                return (Class<?>) type;
+            } else if (type instanceof ParameterizedType) {
+                return (Class<?>) ((ParameterizedType) type).getRawType();
+            }
+            return Object.class;
+        }
+
+        /**
+         * 把方法实参转换成 SQL 参数对象
+         * <p>
+         * 没有参数时为 null；只有一个且没有 @Param 时就是这个参数本身（#{id} 直接取值，JavaBean/Map 按属性取值）；
+         * 其余情况组成 ParamMap，可以用 @Param 的名字、arg0… 或 param1… 引用。RowBounds/KeysetBounds 参数不算作 SQL 参数。
+         */
+        public Object convertArgsToSqlCommandParam(Object[] args) {
+            if (args == null || sqlParamCount == 0) {
+                return null;
+            }
+            if (sqlParamCount == 1 && !hasParamAnnotation) {
+                return args[singleParamIndex];
+            }
+            ParamMap<Object> param = new ParamMap<>();
+            int position = 0;
+            for (int i = 0; i < args.length; i++) {
+                if (paramNames[i] == null) {
+                    continue;
+                }
+                param.put(paramNames[i], args[i]);
+                String genericName = "param" + (++position);
+                if (!param.containsKey(genericName)) {
+                    param.put(genericName, args[i]);
+                }
+            }
+            return param;
+        }
+
+        /**
+         * 方法声明了 RowBounds 参数时返回传入的分页边界，没有声明或传入 null 时不分页
+         */
+        public RowBounds extractRowBounds(Object[] args) {
+            if (rowBoundsIndex < 0 || args[rowBoundsIndex] == null) {
+                return RowBounds.DEFAULT;
+            }
+            return (RowBounds) args[rowBoundsIndex];
+        }
+
+        /**
+         * 方法声明了 KeysetBounds 参数时返回传入的键集分页边界，否则为 null
+         */
+        public KeysetBounds extractKeysetBounds(Object[] args) {
+            return keysetBoundsIndex < 0 ? null : (KeysetBounds) args[keysetBoundsIndex];
+        }
+
+        public boolean returnsFuture() {
+            return returnsFuture;
+        }
+
+        public boolean returnsCursor() {
+            return returnsCursor;
+        }
+
+        public boolean returnsPublisher() {
+            return returnsPublisher;
+        }
+
+        public Class<?> getResultType() {
+            return resultType;
+        }
+
+        public boolean returnsVoid() {
+            return returnsVoid;
+        }
+
+        public boolean returnsMany() {
+            return returnsMany;
+        }
+
+        public boolean returnsKeysetPage() {
+            return returnsKeysetPage;
+        }
+
+        public boolean returnsColumnar() {
+            return returnsColumnar;
+        }
+
+        public boolean returnsMap() {
+            return returnsMap;
+        }
+
+        public String getMapKey() {
+            return mapKey;
+        }
+    }
+
+    /**
+     * 多个参数组成的 Map，引用不存在的参数名时报错而不是当作 null
+     */
+    public static class ParamMap<V> extends HashMap<String, V> {
+
+        private static final long serialVersionUID = -2212268410512043556L;
+
+        @Override
+        public V get(Object key) {
+            if (!super.containsKey(key)) {
+                throw new RuntimeException("Parameter '" + key + "' not found. Available parameters are " + keySet());
+            }
+            return super.get(key);
+        }
+
+    }
+
 }
@@ -2,6 +2,8 @@ package cn.zzb.mybatis.builder.xml;
 
 import cn.zzb.mybatis.builder.BaseBuilder;
 import cn.zzb.mybatis.datasource.DataSourceFactory;
+import cn.zzb.mybatis.datasource.routing.MySqlReplicaLagGuard;
+import cn.zzb.mybatis.datasource.routing.ReadWriteRoutingDataSource;
 import cn.zzb.mybatis.io.Resources;
 import cn.zzb.mybatis.mapping.Environment;
 import cn.zzb.mybatis.session.Configuration;
@@ -162,15 +164,13 @@ public class XMLConfigBuilder extends BaseBuilder {
                 TransactionFactory txFactory = (TransactionFactory) typeAliasRegistry.resolveAlias(e.element("transactionManager").attributeValue("type")).newInstance();
 
                 // 数据源
-                Element dataSourceElement = e.element("dataSource");
-                DataSourceFactory dataSourceFactory = (DataSourceFactory) typeAliasRegistry.resolveAlias(dataSourceElement.attributeValue("type")).newInstance();
-                List<Element> propertyList = dataSourceElement.elements("property");
-                Properties props = new Properties();
-                for (Element property : propertyList) {
-                    props.setProperty(property.attributeValue("name"), property.attributeValue("value"));
+                DataSource dataSource = dataSourceElement(e.element("dataSource"));
+
+                // 从库（读写分离）
+                Element replicasElement = e.element("replicas");
+                if (replicasElement != null) {
+                    dataSource = replicasElement(replicasElement, dataSource);
                 }
-                dataSourceFactory.setProperties(props);
-                DataSource dataSource = dataSourceFactory.getDataSource();
 
                 // 构建环境
                 Environment.Builder environmentBuilder = new Environment.Builder(id)
@@ -182,6 +182,42 @@ public class XMLConfigBuilder extends BaseBuilder {
         }
     }
 
+    private DataSource dataSourceElement(Element dataSourceElement) throws Exception {
+        DataSourceFactory dataSourceFactory = (DataSourceFactory) typeAliasRegistry.resolveAlias(dataSourceElement.attributeValue("type")).newInstance();
+        List<Element> propertyList = dataSourceElement.elements("property");
+        Properties props = new Properties();
+        for (Element property : propertyList) {
+            props.setProperty(property.attributeValue("name"), property.attributeValue("value"));
+        }
+        dataSourceFactory.setProperties(props);
+        return dataSourceFactory.getDataSource();
+    }
+
+    /**
+     * 解析从库配置，把主库和从库包装成读写分离数据源
+     * <pre>
+     * &lt;replicas maxLagSeconds="5" lagCheckIntervalMillis="1000"&gt;
+     *   &lt;dataSource type="POOLED" weight="2"&gt;...&lt;/dataSource&gt;
+     *   &lt;dataSource type="POOLED" weight="1"&gt;...&lt;/dataSource&gt;
+     * &lt;/replicas&gt;
+     * </pre>
+     * 配置了 maxLagSeconds 时通过 SHOW SLAVE STATUS 检查从库延迟，超过阈值的从库暂时不参与读。
+     */
+    private DataSource replicasElement(Element replicasElement, DataSource primary) throws Exception {
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(primary);
+        List<Element> replicaList = replicasElement.elements("dataSource");
+        for (Element replica : replicaList) {
+            String weight = replica.attributeValue("weight");
+            routingDataSource.addReplica(dataSourceElement(replica), weight == null ? 1 : Integer.parseInt(weight));
+        }
+        String maxLagSeconds = replicasElement.attributeValue("maxLagSeconds");
+        if (maxLagSeconds != null) {
+            String interval = replicasElement.attributeValue("lagCheckIntervalMillis");
+            routingDataSource.setLagGuard(new MySqlReplicaLagGuard(Long.parseLong(maxLagSeconds), interval == null ? 1000 : Long.parseLong(interval)));
+        }
+        return routingDataSource;
+    }
+
     /**
      * 解析 Mapper 映射文件引用（mappers 标签）
      * <p>
@@ -3,6 +3,11 @@ package cn.zzb.mybatis.builder.xml;
 
 import cn.zzb.mybatis.builder.BaseBuilder;
 import cn.zzb.mybatis.io.Resources;
+import cn.zzb.mybatis.mapping.FetchType;
+import cn.zzb.mybatis.mapping.ResultFlag;
+import cn.zzb.mybatis.mapping.ResultMap;
+import cn.zzb.mybatis.mapping.ResultMapping;
+import cn.zzb.mybatis.reflection.MetaClass;
 import cn.zzb.mybatis.session.Configuration;
 import org.dom4j.Document;
 import org.dom4j.DocumentException;
@@ -10,13 +15,20 @@ import org.dom4j.Element;
 import org.dom4j.io.SAXReader;
 
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * XML映射构建器
  */
 public class XMLMapperBuilder extends BaseBuilder {
 
+    private static final List<String> STATEMENT_ELEMENTS = Arrays.asList("select", "insert", "update", "delete", "upsert");
+    private static final List<String> RESULT_MAPPING_ELEMENTS = Arrays.asList("id", "result", "association", "collection");
+    private static final List<String> CONSTRUCTOR_ARG_ELEMENTS = Arrays.asList("idArg", "arg");
+
     private Element element;
     private String resource;
     private String currentNamespace;
@@ -58,13 +70,117 @@ public class XMLMapperBuilder extends BaseBuilder {
             throw new RuntimeException("Mapper's namespace cannot be empty");
         }
 
-        // 2.配置select|insert|update|delete
-        buildStatementFromContext(element.elements("select"));
+        // 2.配置resultMap，先于语句解析，语句可以引用同一文件中写在后面的结果映射
+        resultMapElements(element.elements("resultMap"));
+
+        // 3.配置select|insert|update|delete|upsert，按在文件中出现的顺序解析
+        buildStatementFromContext(element.elements());
+    }
+
+    // 配置resultMap
+    // <resultMap id="userMap" type="cn.zzb.mybatis.test.po.User">
+    //   <constructor><idArg column="id" javaType="long"/><arg column="user_id" javaType="string"/></constructor>
+    //   <id property="id" column="id"/>
+    //   <result property="userId" column="user_id"/>
+    //   <association property="profile" column="id" select="queryProfileByUserId"/>
+    //   <collection property="orders" column="id" select="queryOrdersByUserId"/>
+    //   <collection property="items" ofType="Item" columnPrefix="item_"><id property="id" column="id"/></collection>
+    // </resultMap>
+    private void resultMapElements(List<Element> list) {
+        for (Element resultMapNode : list) {
+            String id = currentNamespace + "." + resultMapNode.attributeValue("id");
+            Class<?> type = resolveAlias(resultMapNode.attributeValue("type"));
+            if (type == null) {
+                throw new RuntimeException("ResultMap " + id + " requires a type");
+            }
+            resultMapElement(id, type, resultMapNode);
+        }
+    }
+
+    private void resultMapElement(String id, Class<?> type, Element resultMapNode) {
+        MetaClass metaClass = MetaClass.forClass(type);
+        List<ResultMapping> resultMappings = new ArrayList<>();
+        List<Element> children = resultMapNode.elements();
+        for (Element child : children) {
+            if ("constructor".equals(child.getName())) {
+                List<Element> args = child.elements();
+                for (Element arg : args) {
+                    if (CONSTRUCTOR_ARG_ELEMENTS.contains(arg.getName())) {
+                        resultMappings.add(buildResultMapping(id, arg, metaClass));
+                    }
+                }
+                continue;
+            }
+            if (!RESULT_MAPPING_ELEMENTS.contains(child.getName())) {
+                continue;
+            }
+            resultMappings.add(buildResultMapping(id, child, metaClass));
+        }
+        configuration.addResultMap(new ResultMap.Builder(configuration, id, type, resultMappings).build());
+    }
+
+    private ResultMapping buildResultMapping(String resultMapId, Element node, MetaClass metaClass) {
+        boolean constructorArg = CONSTRUCTOR_ARG_ELEMENTS.contains(node.getName());
+        // 构造函数参数的 name 可选，记录类中和组件名相同
+        String property = node.attributeValue(constructorArg ? "name" : "property");
+        String column = node.attributeValue("column");
+        Class<?> javaType = resolveAlias(node.attributeValue("javaType"));
+        if (javaType == null && property != null && metaClass.hasSetter(property)) {
+            javaType = metaClass.getSetterType(property);
+        }
+        String select = node.attributeValue("select");
+        if (constructorArg && (select != null || node.attributeValue("resultMap") != null)) {
+            throw new RuntimeException("Constructor argument " + (property == null ? "" : "'" + property + "' ") + "in " + resultMapId + " does not support nested select or result map");
+        }
+        if (select != null && column == null) {
+            throw new RuntimeException("Nested select of property '" + property + "' in " + resultMapId + " requires a column");
+        }
+        boolean collection = "collection".equals(node.getName());
+        String nestedResultMapId = applyCurrentNamespace(node.attributeValue("resultMap"));
+        // association/collection 内直接写映射时注册为匿名的结果映射
+        if (nestedResultMapId == null && select == null && !node.elements().isEmpty()) {
+            Class<?> nestedType = collection ? resolveAlias(node.attributeValue("ofType")) : javaType;
+            if (nestedType == null) {
+                throw new RuntimeException("Nested result map of property '" + property + "' in " + resultMapId + " requires " + (collection ? "ofType" : "javaType"));
+            }
+            nestedResultMapId = resultMapId + "_" + node.getName() + "[" + property + "]";
+            resultMapElement(nestedResultMapId, nestedType, node);
+        }
+        String fetchType = node.attributeValue("fetchType");
+        if (fetchType != null && !"lazy".equals(fetchType) && !"eager".equals(fetchType)) {
+            throw new RuntimeException("Unknown fetchType '" + fetchType + "' of property '" + property + "' in " + resultMapId + ", expected lazy or eager");
+        }
+        List<ResultFlag> flags = new ArrayList<>();
+        if ("id".equals(node.getName()) || "idArg".equals(node.getName())) {
+            flags.add(ResultFlag.ID);
+        }
+        if (constructorArg) {
+            flags.add(ResultFlag.CONSTRUCTOR);
+        }
+        return new ResultMapping.Builder(configuration, property, column, javaType)
+                .nestedQueryId(applyCurrentNamespace(select))
+                .nestedResultMapId(nestedResultMapId)
+                .columnPrefix(node.attributeValue("columnPrefix"))
+                .collection(collection)
+                .fetchType(fetchType == null ? FetchType.DEFAULT : FetchType.valueOf(fetchType.toUpperCase(Locale.ENGLISH)))
+                .flags(flags)
+                .build();
+    }
+
+    // 同一个 mapper 中的引用可以省略 namespace
+    private String applyCurrentNamespace(String reference) {
+        if (reference == null || reference.contains(".")) {
+            return reference;
+        }
+        return currentNamespace + "." + reference;
     }
 
-    // 配置select|insert|update|delete
+    // 配置select|insert|update|delete|upsert，其他元素跳过
     private void buildStatementFromContext(List<Element> list) {
         for (Element element : list) {
+            if (!STATEMENT_ELEMENTS.contains(element.getName())) {
+                continue;
+            }
             final XMLStatementBuilder statementParser = new XMLStatementBuilder(configuration, element, currentNamespace);
             statementParser.parseStatementNode();
         }
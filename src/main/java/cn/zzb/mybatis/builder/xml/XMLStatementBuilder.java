@@ -2,7 +2,12 @@ package cn.zzb.mybatis.builder.xml;
 
 
 import cn.zzb.mybatis.builder.BaseBuilder;
+import cn.zzb.mybatis.executor.keygen.Jdbc3KeyGenerator;
+import cn.zzb.mybatis.executor.keygen.KeyGenerator;
+import cn.zzb.mybatis.executor.keygen.NoKeyGenerator;
+import cn.zzb.mybatis.executor.keygen.SelectKeyGenerator;
 import cn.zzb.mybatis.mapping.MappedStatement;
+import cn.zzb.mybatis.mapping.ResultMap;
 import cn.zzb.mybatis.mapping.SqlCommandType;
 import cn.zzb.mybatis.mapping.SqlSource;
 import cn.zzb.mybatis.scripting.LanguageDriver;
@@ -48,7 +53,17 @@ public class XMLStatementBuilder extends BaseBuilder {
         // 结果类型
         String resultType = element.attributeValue("resultType");
         Class<?> resultTypeClass = resolveAlias(resultType);
-        // 获取命令类型(select|insert|update|delete)
+        // 结果映射，同一个 mapper 中的可以省略 namespace
+        ResultMap resultMap = null;
+        String resultMapId = element.attributeValue("resultMap");
+        if (resultMapId != null) {
+            resultMapId = resultMapId.contains(".") ? resultMapId : currentNamespace + "." + resultMapId;
+            resultMap = configuration.getResultMap(resultMapId);
+            if (resultMap == null) {
+                throw new RuntimeException("Could not find result map " + resultMapId + " referenced by " + currentNamespace + "." + id);
+            }
+        }
+        // 获取命令类型(select|insert|update|delete|upsert)
         String nodeName = element.getName();
         SqlCommandType sqlCommandType = SqlCommandType.valueOf(nodeName.toUpperCase(Locale.ENGLISH));
 
@@ -58,10 +73,51 @@ public class XMLStatementBuilder extends BaseBuilder {
 
         SqlSource sqlSource = langDriver.createSqlSource(configuration, element, parameterTypeClass);
 
-        MappedStatement mappedStatement = new MappedStatement.Builder(configuration, currentNamespace + "." + id, sqlCommandType, sqlSource, resultTypeClass).build();
+        // 读写分离时是否强制走主库
+        boolean forcePrimary = Boolean.parseBoolean(element.attributeValue("forcePrimary"));
+
+        // 主键生成：<selectKey> 优先，其次 useGeneratedKeys="true"（只对 insert 生效）
+        String keyProperty = element.attributeValue("keyProperty");
+        String keyColumn = element.attributeValue("keyColumn");
+        KeyGenerator keyGenerator = parseSelectKey(id, parameterTypeClass, langDriver);
+        if (keyGenerator == null) {
+            boolean useGeneratedKeys = Boolean.parseBoolean(element.attributeValue("useGeneratedKeys"));
+            keyGenerator = useGeneratedKeys && sqlCommandType == SqlCommandType.INSERT ? Jdbc3KeyGenerator.INSTANCE : NoKeyGenerator.INSTANCE;
+        }
+
+        MappedStatement mappedStatement = new MappedStatement.Builder(configuration, currentNamespace + "." + id, sqlCommandType, sqlSource, resultTypeClass)
+                .resultMap(resultMap)
+                .forcePrimary(forcePrimary)
+                .keyGenerator(keyGenerator)
+                .keyProperty(keyProperty)
+                .keyColumn(keyColumn)
+                // upsert：conflictColumns 为判断冲突的唯一键列，updateColumns 为冲突时更新的列
+                .conflictColumn(element.attributeValue("conflictColumns"))
+                .updateColumn(element.attributeValue("updateColumns"))
+                .build();
 
         // 添加解析 SQL
         configuration.addMappedStatement(mappedStatement);
     }
 
+    //解析 <selectKey keyProperty="id" resultType="long" order="BEFORE|AFTER">，注册为 id!selectKey 语句
+    private KeyGenerator parseSelectKey(String id, Class<?> parameterTypeClass, LanguageDriver langDriver) {
+        Element selectKey = element.element("selectKey");
+        if (selectKey == null) {
+            return null;
+        }
+        Class<?> resultTypeClass = resolveAlias(selectKey.attributeValue("resultType"));
+        boolean executeBefore = "BEFORE".equalsIgnoreCase(selectKey.attributeValue("order"));
+        SqlSource sqlSource = langDriver.createSqlSource(configuration, selectKey, parameterTypeClass);
+        // 取主键必须和 insert 在同一个主库事务里
+        MappedStatement keyStatement = new MappedStatement.Builder(configuration, currentNamespace + "." + id + SelectKeyGenerator.SELECT_KEY_SUFFIX,
+                SqlCommandType.SELECT, sqlSource, resultTypeClass)
+                .forcePrimary(true)
+                .keyProperty(selectKey.attributeValue("keyProperty"))
+                .keyColumn(selectKey.attributeValue("keyColumn"))
+                .build();
+        configuration.addMappedStatement(keyStatement);
+        return new SelectKeyGenerator(keyStatement, executeBefore);
+    }
+
 }
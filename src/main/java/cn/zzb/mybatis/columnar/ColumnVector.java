@@ -0,0 +1,419 @@
+package cn.zzb.mybatis.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+/**
+ * 一列的值：按列类型存放在基本类型数组中，NULL 记在位图里
+ * <p>
+ * 读取时数组按两倍扩容，读完后截到行数（{@link #trim}），{@link LongVector#values()} 等返回的数组长度就是行数。
+ * NULL 所在行的数组元素是 0（字符串列的编码是 -1），需要区分时先看 {@link #isNull(int)}。
+ */
+public abstract class ColumnVector {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final String name;
+    private final int jdbcType;
+    // NULL 位图，第 row 行对应 nulls[row >>> 6] 的第 (row & 63) 位
+    private long[] nulls = new long[1];
+    private boolean hasNulls;
+    protected int size;
+
+    protected ColumnVector(String name, int jdbcType) {
+        this.name = name;
+        this.jdbcType = jdbcType;
+    }
+
+    /**
+     * 按列的 JDBC 类型选择存储方式：
+     * BIGINT 和精度不超过 18 的整数 DECIMAL → long[]，INTEGER/SMALLINT/TINYINT → int[]，DOUBLE/FLOAT/REAL → double[]，
+     * 字符类型 → 字典编码的 int[]；其余类型（带小数的 DECIMAL、日期、二进制等）按对象存放。
+     */
+    static ColumnVector forColumn(String name, int jdbcType, int precision, int scale) {
+        switch (jdbcType) {
+            case Types.BIGINT:
+                return new LongVector(name, jdbcType, INITIAL_CAPACITY);
+            case Types.INTEGER:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+                return new IntVector(name, jdbcType, INITIAL_CAPACITY);
+            case Types.DOUBLE:
+            case Types.FLOAT:
+            case Types.REAL:
+                return new DoubleVector(name, jdbcType, INITIAL_CAPACITY);
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return scale == 0 && precision > 0 && precision <= 18
+                        ? new LongVector(name, jdbcType, INITIAL_CAPACITY)
+                        : new ObjectVector(name, jdbcType, INITIAL_CAPACITY);
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return new StringVector(name, jdbcType, INITIAL_CAPACITY);
+            default:
+                return new ObjectVector(name, jdbcType, INITIAL_CAPACITY);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return 列的 {@link Types} 类型
+     */
+    public int getJdbcType() {
+        return jdbcType;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isNull(int row) {
+        checkRow(row);
+        return (nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * @return 这一列是否有 NULL
+     */
+    public boolean hasNulls() {
+        return hasNulls;
+    }
+
+    /**
+     * @return 第 row 行的值，NULL 时返回 null
+     */
+    public abstract Object getObject(int row);
+
+    /**
+     * 读取结果集当前行这一列的值，追加为第 {@link #size()} 行
+     */
+    abstract void read(ResultSet resultSet, int columnIndex) throws SQLException;
+
+    /**
+     * 追加一行之前检查数组容量，写满时按两倍扩容，读取 n 行的总复制量不超过 2n
+     *
+     * @param length 当前数组长度
+     * @return 扩容后的长度，还有空位时返回 0
+     */
+    protected int grow(int length) {
+        if (size < length) {
+            return 0;
+        }
+        int newLength = Math.max(INITIAL_CAPACITY, length << 1);
+        if (newLength < 0) {
+            throw new RuntimeException("Column '" + name + "' has too many rows: " + size);
+        }
+        return newLength;
+    }
+
+    protected void setNull(int row) {
+        int word = row >>> 6;
+        if (word >= nulls.length) {
+            nulls = Arrays.copyOf(nulls, Math.max(word + 1, nulls.length << 1));
+        }
+        nulls[word] |= 1L << row;
+        hasNulls = true;
+    }
+
+    /**
+     * 读完之后把数组截到行数
+     */
+    void trim() {
+        int words = (size + 63) >>> 6;
+        if (nulls.length != words) {
+            nulls = Arrays.copyOf(nulls, Math.max(words, 1));
+        }
+    }
+
+    protected void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of column '" + name + "' with " + size + " rows");
+        }
+    }
+
+    /**
+     * long 列：BIGINT 和不带小数的 DECIMAL
+     */
+    public static final class LongVector extends ColumnVector {
+
+        private long[] values;
+
+        LongVector(String name, int jdbcType, int capacity) {
+            super(name, jdbcType);
+            this.values = new long[capacity];
+        }
+
+        public long get(int row) {
+            checkRow(row);
+            return values[row];
+        }
+
+        /**
+         * @return 每行的值，长度等于行数；不要修改
+         */
+        public long[] values() {
+            return values;
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        void read(ResultSet resultSet, int columnIndex) throws SQLException {
+            int capacity = grow(values.length);
+            if (capacity > 0) {
+                values = Arrays.copyOf(values, capacity);
+            }
+            long value = resultSet.getLong(columnIndex);
+            if (resultSet.wasNull()) {
+                setNull(size);
+            }
+            values[size++] = value;
+        }
+
+        @Override
+        void trim() {
+            super.trim();
+            if (values.length != size) {
+                values = Arrays.copyOf(values, size);
+            }
+        }
+
+    }
+
+    /**
+     * int 列：INTEGER、SMALLINT、TINYINT
+     */
+    public static final class IntVector extends ColumnVector {
+
+        private int[] values;
+
+        IntVector(String name, int jdbcType, int capacity) {
+            super(name, jdbcType);
+            this.values = new int[capacity];
+        }
+
+        public int get(int row) {
+            checkRow(row);
+            return values[row];
+        }
+
+        /**
+         * @return 每行的值，长度等于行数；不要修改
+         */
+        public int[] values() {
+            return values;
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        void read(ResultSet resultSet, int columnIndex) throws SQLException {
+            int capacity = grow(values.length);
+            if (capacity > 0) {
+                values = Arrays.copyOf(values, capacity);
+            }
+            int value = resultSet.getInt(columnIndex);
+            if (resultSet.wasNull()) {
+                setNull(size);
+            }
+            values[size++] = value;
+        }
+
+        @Override
+        void trim() {
+            super.trim();
+            if (values.length != size) {
+                values = Arrays.copyOf(values, size);
+            }
+        }
+
+    }
+
+    /**
+     * double 列：DOUBLE、FLOAT、REAL
+     */
+    public static final class DoubleVector extends ColumnVector {
+
+        private double[] values;
+
+        DoubleVector(String name, int jdbcType, int capacity) {
+            super(name, jdbcType);
+            this.values = new double[capacity];
+        }
+
+        public double get(int row) {
+            checkRow(row);
+            return values[row];
+        }
+
+        /**
+         * @return 每行的值，长度等于行数；不要修改
+         */
+        public double[] values() {
+            return values;
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        void read(ResultSet resultSet, int columnIndex) throws SQLException {
+            int capacity = grow(values.length);
+            if (capacity > 0) {
+                values = Arrays.copyOf(values, capacity);
+            }
+            double value = resultSet.getDouble(columnIndex);
+            if (resultSet.wasNull()) {
+                setNull(size);
+            }
+            values[size++] = value;
+        }
+
+        @Override
+        void trim() {
+            super.trim();
+            if (values.length != size) {
+                values = Arrays.copyOf(values, size);
+            }
+        }
+
+    }
+
+    /**
+     * 字典编码的字符串列：每个不同的字符串在字典中只存一次，每行存它在字典中的编码，NULL 的编码是 -1
+     */
+    public static final class StringVector extends ColumnVector {
+
+        private int[] codes;
+        private final StringDictionary dictionary = new StringDictionary();
+
+        StringVector(String name, int jdbcType, int capacity) {
+            super(name, jdbcType);
+            this.codes = new int[capacity];
+        }
+
+        public String get(int row) {
+            checkRow(row);
+            int code = codes[row];
+            return code < 0 ? null : dictionary.get(code);
+        }
+
+        /**
+         * @return 每行在字典中的编码，长度等于行数；不要修改
+         */
+        public int[] codes() {
+            return codes;
+        }
+
+        /**
+         * @return 按编码排列的字典
+         */
+        public String[] dictionary() {
+            return dictionary.toArray();
+        }
+
+        public int dictionarySize() {
+            return dictionary.size();
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return get(row);
+        }
+
+        @Override
+        void read(ResultSet resultSet, int columnIndex) throws SQLException {
+            int capacity = grow(codes.length);
+            if (capacity > 0) {
+                codes = Arrays.copyOf(codes, capacity);
+            }
+            String value = resultSet.getString(columnIndex);
+            if (value == null) {
+                setNull(size);
+                codes[size++] = -1;
+            } else {
+                codes[size++] = dictionary.encode(value);
+            }
+        }
+
+        @Override
+        void trim() {
+            super.trim();
+            if (codes.length != size) {
+                codes = Arrays.copyOf(codes, size);
+            }
+        }
+
+    }
+
+    /**
+     * 其他类型的列，按 {@link ResultSet#getObject(int)} 的值存放
+     */
+    public static final class ObjectVector extends ColumnVector {
+
+        private Object[] values;
+
+        ObjectVector(String name, int jdbcType, int capacity) {
+            super(name, jdbcType);
+            this.values = new Object[capacity];
+        }
+
+        public Object get(int row) {
+            checkRow(row);
+            return values[row];
+        }
+
+        /**
+         * @return 每行的值，长度等于行数；不要修改
+         */
+        public Object[] values() {
+            return values;
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return get(row);
+        }
+
+        @Override
+        void read(ResultSet resultSet, int columnIndex) throws SQLException {
+            int capacity = grow(values.length);
+            if (capacity > 0) {
+                values = Arrays.copyOf(values, capacity);
+            }
+            Object value = getJdbcType() == Types.DECIMAL || getJdbcType() == Types.NUMERIC
+                    ? resultSet.getBigDecimal(columnIndex) : resultSet.getObject(columnIndex);
+            if (value == null) {
+                setNull(size);
+            }
+            values[size++] = value;
+        }
+
+        @Override
+        void trim() {
+            super.trim();
+            if (values.length != size) {
+                values = Arrays.copyOf(values, size);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,118 @@
+package cn.zzb.mybatis.columnar;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 按列存放的查询结果
+ * <p>
+ * 不为每行创建结果对象：数字列读进 long[]/int[]/double[]，字符串列字典编码成 int[]，NULL 记在每列的位图里
+ * （存储方式见 {@link ColumnVector#forColumn}）。适合统计、导出等逐列扫描大量行的场景，内存约为对象列表的几分之一。
+ * <p>
+ * 直接按 JDBC 类型读取列值，不经过结果映射和类型处理器。
+ * 在 mapper 方法上声明返回类型为 ColumnarResult 即可（只支持 select），也可以调用 SqlSession#selectColumnar。
+ */
+public class ColumnarResult {
+
+    private final List<ColumnVector> columns;
+    // 列标签（大写）→ 列
+    private final Map<String, ColumnVector> columnsByName;
+    private final int rowCount;
+
+    private ColumnarResult(List<ColumnVector> columns, int rowCount) {
+        this.columns = Collections.unmodifiableList(columns);
+        this.columnsByName = new HashMap<>();
+        for (ColumnVector column : columns) {
+            columnsByName.putIfAbsent(column.getName().toUpperCase(Locale.ENGLISH), column);
+        }
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * 从结果集当前位置读取最多 limit 行，不关闭结果集
+     */
+    public static ColumnarResult read(ResultSet resultSet, int limit) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        ColumnVector[] vectors = new ColumnVector[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            vectors[i] = ColumnVector.forColumn(metaData.getColumnLabel(i + 1), metaData.getColumnType(i + 1),
+                    metaData.getPrecision(i + 1), metaData.getScale(i + 1));
+        }
+        int rows = 0;
+        while (rows < limit && resultSet.next()) {
+            for (int i = 0; i < columnCount; i++) {
+                vectors[i].read(resultSet, i + 1);
+            }
+            rows++;
+        }
+        List<ColumnVector> columns = new ArrayList<>(columnCount);
+        for (ColumnVector vector : vectors) {
+            vector.trim();
+            columns.add(vector);
+        }
+        return new ColumnarResult(columns, rows);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    public List<ColumnVector> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @param index 列序号，从 0 开始
+     */
+    public ColumnVector getColumn(int index) {
+        return columns.get(index);
+    }
+
+    /**
+     * 按列标签找列，忽略大小写；同名的列取第一个
+     */
+    public ColumnVector getColumn(String name) {
+        ColumnVector column = columnsByName.get(name.toUpperCase(Locale.ENGLISH));
+        if (column == null) {
+            throw new RuntimeException("There is no column named '" + name + "' in the result, columns are " + columnsByName.keySet());
+        }
+        return column;
+    }
+
+    public ColumnVector.LongVector getLongColumn(String name) {
+        return getColumn(name, ColumnVector.LongVector.class);
+    }
+
+    public ColumnVector.IntVector getIntColumn(String name) {
+        return getColumn(name, ColumnVector.IntVector.class);
+    }
+
+    public ColumnVector.DoubleVector getDoubleColumn(String name) {
+        return getColumn(name, ColumnVector.DoubleVector.class);
+    }
+
+    public ColumnVector.StringVector getStringColumn(String name) {
+        return getColumn(name, ColumnVector.StringVector.class);
+    }
+
+    private <V extends ColumnVector> V getColumn(String name, Class<V> type) {
+        ColumnVector column = getColumn(name);
+        if (!type.isInstance(column)) {
+            throw new RuntimeException("Column '" + name + "' is stored as " + column.getClass().getSimpleName() + ", not " + type.getSimpleName());
+        }
+        return type.cast(column);
+    }
+
+}
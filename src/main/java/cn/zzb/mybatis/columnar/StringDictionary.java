@@ -0,0 +1,71 @@
+package cn.zzb.mybatis.columnar;
+
+import java.util.Arrays;
+
+/**
+ * 字符串字典：字符串 → 从 0 开始的连续编码
+ * <p>
+ * 开放寻址表只存编码（int[]），查找时不装箱；字符串按编码存放在数组中，编码就是下标。
+ */
+final class StringDictionary {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] values = new String[INITIAL_CAPACITY];
+    // 槽位 → 编码 + 1，0 表示空槽
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+    private int size;
+
+    /**
+     * @return 字符串的编码，第一次出现时分配新编码
+     */
+    int encode(String value) {
+        int mask = slots.length - 1;
+        int i = mix(value.hashCode()) & mask;
+        for (int slot = slots[i]; slot != 0; slot = slots[i]) {
+            if (values[slot - 1].equals(value)) {
+                return slot - 1;
+            }
+            i = (i + 1) & mask;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size << 1);
+        }
+        values[size] = value;
+        slots[i] = ++size;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    String get(int code) {
+        return values[code];
+    }
+
+    int size() {
+        return size;
+    }
+
+    String[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    private void rehash() {
+        slots = new int[slots.length << 1];
+        int mask = slots.length - 1;
+        for (int code = 0; code < size; code++) {
+            int i = mix(values[code].hashCode()) & mask;
+            while (slots[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            slots[i] = code + 1;
+        }
+    }
+
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+}
@@ -0,0 +1,236 @@
+package cn.zzb.mybatis.columnar.arrow;
+
+import cn.zzb.mybatis.session.ResultSetSink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把结果集按 Arrow IPC 流格式写进通道
+ * <p>
+ * 输出是标准的 Arrow 流（Schema 消息、若干 RecordBatch 消息、结束标记），Spark、pyarrow 等可以直接读取。
+ * Schema 由 {@link ResultSetMetaData} 推出，类型对应见 {@link ArrowVector#forColumn}，所有列都可为 NULL。
+ * <p>
+ * 每读 batchRows 行写一个 RecordBatch：各列的值直接写进从 {@link DirectBufferPool} 取的直接缓冲区，
+ * 不创建结果对象，也不经过类型处理器；写出时一个批次的所有缓冲区一次 gather 写入（通道支持时）。
+ * 缓冲区在批次之间复用，导出结束后归还到池中，因此内存占用只和批次大小有关，和总行数无关。
+ * <p>
+ * 通道由调用方打开和关闭，写文件时传 FileChannel。写出失败时抛出的异常包装了 IOException。
+ */
+public class ArrowStreamWriter implements ResultSetSink<Long> {
+
+    public static final int DEFAULT_BATCH_ROWS = 8192;
+
+    private static final int CONTINUATION = 0xFFFFFFFF;
+    // MetadataVersion.V5
+    private static final short METADATA_VERSION = 4;
+    // MessageHeader 联合体的类型编号
+    private static final byte HEADER_SCHEMA = 1;
+    private static final byte HEADER_RECORD_BATCH = 3;
+    private static final ByteBuffer PADDING = ByteBuffer.allocate(8);
+
+    private final WritableByteChannel channel;
+    private final DirectBufferPool pool;
+    private final int batchRows;
+
+    public ArrowStreamWriter(WritableByteChannel channel, DirectBufferPool pool) {
+        this(channel, pool, DEFAULT_BATCH_ROWS);
+    }
+
+    public ArrowStreamWriter(WritableByteChannel channel, DirectBufferPool pool, int batchRows) {
+        if (batchRows <= 0) {
+            throw new IllegalArgumentException("batchRows must be positive: " + batchRows);
+        }
+        this.channel = channel;
+        this.pool = pool;
+        this.batchRows = batchRows;
+    }
+
+    /**
+     * @return 写出的行数
+     */
+    @Override
+    public Long consume(ResultSet resultSet, int limit) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        ArrowVector[] vectors = new ArrowVector[columnCount];
+        try {
+            for (int i = 0; i < columnCount; i++) {
+                vectors[i] = ArrowVector.forColumn(metaData.getColumnLabel(i + 1), metaData.getColumnType(i + 1),
+                        metaData.getPrecision(i + 1), metaData.getScale(i + 1), metaData.isSigned(i + 1), pool);
+            }
+            writeMessage(schema(vectors), new ArrayList<>());
+            long total = 0;
+            while (total < limit) {
+                int max = (int) Math.min(batchRows, limit - total);
+                int rows = 0;
+                while (rows < max && resultSet.next()) {
+                    for (int i = 0; i < columnCount; i++) {
+                        vectors[i].read(resultSet, i + 1);
+                    }
+                    rows++;
+                }
+                if (rows > 0) {
+                    writeRecordBatch(vectors, rows);
+                    total += rows;
+                }
+                if (rows < max) {
+                    break;
+                }
+                for (ArrowVector vector : vectors) {
+                    vector.reset();
+                }
+            }
+            // 结束标记：续接标记后跟长度 0
+            ByteBuffer end = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            end.putInt(CONTINUATION).putInt(0).flip();
+            write(new ByteBuffer[]{end});
+            return total;
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing Arrow stream. Cause: " + e, e);
+        } finally {
+            for (ArrowVector vector : vectors) {
+                if (vector != null) {
+                    vector.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Schema { endianness: Little; fields: [Field] }，每个 Field { name, nullable, type, children: [] }
+     */
+    private byte[] schema(ArrowVector[] vectors) {
+        FlatBufferBuilder builder = new FlatBufferBuilder(1024);
+        int[] fields = new int[vectors.length];
+        for (int i = 0; i < vectors.length; i++) {
+            int name = builder.createString(vectors[i].getName());
+            int type = vectors[i].writeType(builder);
+            int children = builder.createOffsetVector(new int[0]);
+            builder.startTable(7);
+            builder.addOffset(0, name);
+            builder.addOffset(3, type);
+            builder.addOffset(5, children);
+            builder.addByte(1, (byte) 1);
+            builder.addByte(2, vectors[i].getTypeType());
+            fields[i] = builder.endTable();
+        }
+        int fieldVector = builder.createOffsetVector(fields);
+        builder.startTable(4);
+        builder.addOffset(1, fieldVector);
+        builder.addShort(0, (short) 0);
+        int schema = builder.endTable();
+        return message(builder, HEADER_SCHEMA, schema, 0);
+    }
+
+    /**
+     * RecordBatch { length, nodes: [FieldNode], buffers: [Buffer] }，消息体是各列的缓冲区，每个按 8 字节对齐
+     */
+    private void writeRecordBatch(ArrowVector[] vectors, int rows) throws IOException {
+        long[] nodes = new long[vectors.length * 2];
+        List<long[]> bufferList = new ArrayList<>();
+        List<ByteBuffer> body = new ArrayList<>();
+        long bodyLength = 0;
+        for (int i = 0; i < vectors.length; i++) {
+            ArrowVector vector = vectors[i];
+            nodes[i * 2] = rows;
+            nodes[i * 2 + 1] = vector.getNullCount();
+            for (int b = 0; b < vector.bufferCount(); b++) {
+                int length = vector.bufferLength(b);
+                bufferList.add(new long[]{bodyLength, length});
+                if (length > 0) {
+                    ByteBuffer slice = vector.buffer(b).duplicate();
+                    slice.position(0).limit(length);
+                    body.add(slice);
+                    int padding = padding(length);
+                    if (padding > 0) {
+                        body.add(paddingBuffer(padding));
+                    }
+                    bodyLength += length + padding;
+                }
+            }
+        }
+        long[] buffers = new long[bufferList.size() * 2];
+        for (int i = 0; i < bufferList.size(); i++) {
+            buffers[i * 2] = bufferList.get(i)[0];
+            buffers[i * 2 + 1] = bufferList.get(i)[1];
+        }
+        FlatBufferBuilder builder = new FlatBufferBuilder(256 + buffers.length * 8 + nodes.length * 8);
+        int nodeVector = builder.createLongPairVector(nodes);
+        int bufferVector = builder.createLongPairVector(buffers);
+        builder.startTable(4);
+        builder.addLong(0, rows);
+        builder.addOffset(1, nodeVector);
+        builder.addOffset(2, bufferVector);
+        int recordBatch = builder.endTable();
+        writeMessage(message(builder, HEADER_RECORD_BATCH, recordBatch, bodyLength), body);
+    }
+
+    /**
+     * Message { version, header_type, header, bodyLength }
+     */
+    private static byte[] message(FlatBufferBuilder builder, byte headerType, int header, long bodyLength) {
+        builder.startTable(5);
+        builder.addLong(3, bodyLength);
+        builder.addOffset(2, header);
+        builder.addShort(0, METADATA_VERSION);
+        builder.addByte(1, headerType);
+        return builder.finish(builder.endTable());
+    }
+
+    /**
+     * 封装的消息：续接标记、消息头长度（补齐到 8 字节）、消息头、消息体
+     */
+    private void writeMessage(byte[] metadata, List<ByteBuffer> body) throws IOException {
+        int metadataLength = metadata.length + padding(metadata.length);
+        ByteBuffer prefix = ByteBuffer.allocate(8 + metadataLength).order(ByteOrder.LITTLE_ENDIAN);
+        prefix.putInt(CONTINUATION).putInt(metadataLength).put(metadata);
+        // 补齐的字节保持为 0
+        prefix.position(prefix.capacity());
+        prefix.flip();
+        ByteBuffer[] parts = new ByteBuffer[body.size() + 1];
+        parts[0] = prefix;
+        for (int i = 0; i < body.size(); i++) {
+            parts[i + 1] = body.get(i);
+        }
+        write(parts);
+    }
+
+    private void write(ByteBuffer[] parts) throws IOException {
+        if (channel instanceof GatheringByteChannel) {
+            GatheringByteChannel gathering = (GatheringByteChannel) channel;
+            int first = 0;
+            while (first < parts.length) {
+                gathering.write(parts, first, parts.length - first);
+                while (first < parts.length && !parts[first].hasRemaining()) {
+                    first++;
+                }
+            }
+            return;
+        }
+        for (ByteBuffer part : parts) {
+            while (part.hasRemaining()) {
+                channel.write(part);
+            }
+        }
+    }
+
+    private static int padding(int length) {
+        return (8 - (length & 7)) & 7;
+    }
+
+    private static ByteBuffer paddingBuffer(int length) {
+        ByteBuffer padding = PADDING.duplicate();
+        padding.clear().limit(length);
+        return padding;
+    }
+
+}
@@ -0,0 +1,568 @@
+package cn.zzb.mybatis.columnar.arrow;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 一列在当前批次中的 Arrow 缓冲区：有效位图 + 值（变长类型为偏移量 + 数据）
+ * <p>
+ * 缓冲区是从 {@link DirectBufferPool} 取的直接内存，写满时换一个两倍大的；每个批次写完后 {@link #reset} 从头复用，
+ * 导出结束时 {@link #release} 归还。按绝对下标写入，不移动缓冲区的 position。
+ */
+abstract class ArrowVector {
+
+    // Schema.fbs 中 Type 联合体的类型编号
+    static final byte TYPE_INT = 2;
+    static final byte TYPE_FLOATING_POINT = 3;
+    static final byte TYPE_BINARY = 4;
+    static final byte TYPE_UTF8 = 5;
+    static final byte TYPE_BOOL = 6;
+    static final byte TYPE_DECIMAL = 7;
+    static final byte TYPE_DATE = 8;
+    static final byte TYPE_TIMESTAMP = 10;
+
+    private final String name;
+    private final byte typeType;
+    protected final DirectBufferPool pool;
+    // 有效位图：第 row 行非 NULL 时第 row 位为 1
+    private ByteBuffer validity;
+    private int nullCount;
+    protected int rows;
+
+    ArrowVector(String name, byte typeType, DirectBufferPool pool) {
+        this.name = name;
+        this.typeType = typeType;
+        this.pool = pool;
+    }
+
+    /**
+     * 按列的 JDBC 类型选择 Arrow 类型：
+     * 整数 → Int（无符号列放宽一级），DOUBLE/FLOAT → Float64，REAL → Float32，DECIMAL（精度不超过 38）→ Decimal128，
+     * BOOLEAN/BIT → Bool，DATE → Date32（天），TIMESTAMP → 微秒、不带时区的 Timestamp，二进制 → Binary，其余按字符串 → Utf8。
+     */
+    static ArrowVector forColumn(String name, int jdbcType, int precision, int scale, boolean signed, DirectBufferPool pool) {
+        switch (jdbcType) {
+            case Types.TINYINT:
+                return new IntVector(name, signed ? 8 : 16, pool);
+            case Types.SMALLINT:
+                return new IntVector(name, signed ? 16 : 32, pool);
+            case Types.INTEGER:
+                return new IntVector(name, signed ? 32 : 64, pool);
+            case Types.BIGINT:
+                return signed ? new IntVector(name, 64, pool) : new DecimalVector(name, 20, 0, pool);
+            case Types.DOUBLE:
+            case Types.FLOAT:
+                return new FloatVector(name, true, pool);
+            case Types.REAL:
+                return new FloatVector(name, false, pool);
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return precision > 0 && precision <= DecimalVector.MAX_PRECISION && scale >= 0 && scale <= precision
+                        ? new DecimalVector(name, precision, scale, pool)
+                        : new VarWidthVector(name, true, pool);
+            case Types.BOOLEAN:
+                return new BoolVector(name, pool);
+            case Types.BIT:
+                return precision <= 1 ? new BoolVector(name, pool) : new VarWidthVector(name, false, pool);
+            case Types.DATE:
+                return new DateDayVector(name, pool);
+            case Types.TIMESTAMP:
+                return new TimestampVector(name, pool);
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return new VarWidthVector(name, false, pool);
+            default:
+                return new VarWidthVector(name, true, pool);
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    byte getTypeType() {
+        return typeType;
+    }
+
+    int getNullCount() {
+        return nullCount;
+    }
+
+    /**
+     * 读取结果集当前行这一列的值，追加为这个批次的下一行
+     */
+    void read(ResultSet resultSet, int columnIndex) throws SQLException {
+        int row = rows;
+        boolean valid = readValue(resultSet, columnIndex, row);
+        int index = row >>> 3;
+        if ((row & 7) == 0) {
+            validity = ensure(validity, index + 1);
+            validity.put(index, (byte) 0);
+        }
+        if (valid) {
+            validity.put(index, (byte) (validity.get(index) | (1 << (row & 7))));
+        } else {
+            nullCount++;
+        }
+        rows = row + 1;
+    }
+
+    /**
+     * 把第 row 行的值写进值缓冲区，NULL 时写入 0（或空值）
+     *
+     * @return 这一行是否不是 NULL
+     */
+    protected abstract boolean readValue(ResultSet resultSet, int columnIndex, int row) throws SQLException;
+
+    /**
+     * 写这一列的类型表（Int、Utf8 等），返回它的引用
+     */
+    abstract int writeType(FlatBufferBuilder builder);
+
+    /**
+     * @return 这个类型的缓冲区个数，包括有效位图
+     */
+    abstract int bufferCount();
+
+    /**
+     * 第 i 个缓冲区，第 0 个是有效位图；内容从下标 0 开始，长度见 {@link #bufferLength}
+     */
+    ByteBuffer buffer(int i) {
+        return validity;
+    }
+
+    /**
+     * 第 i 个缓冲区在当前批次中的有效字节数；没有 NULL 时有效位图的长度为 0（Arrow 允许省略）
+     */
+    int bufferLength(int i) {
+        return nullCount == 0 ? 0 : (rows + 7) >>> 3;
+    }
+
+    void reset() {
+        rows = 0;
+        nullCount = 0;
+    }
+
+    void release() {
+        pool.release(validity);
+        validity = null;
+    }
+
+    /**
+     * 保证缓冲区至少有 capacity 字节：不够时从池中取一个至少两倍大的，复制已有内容后归还旧的
+     */
+    protected ByteBuffer ensure(ByteBuffer buffer, int capacity) {
+        if (buffer != null && buffer.capacity() >= capacity) {
+            return buffer;
+        }
+        if (capacity < 0) {
+            throw new RuntimeException("Arrow buffer of column '" + name + "' exceeds 2GB, use a smaller batch size");
+        }
+        ByteBuffer grown = pool.acquire(buffer == null ? capacity : Math.max(capacity, buffer.capacity() << 1));
+        if (buffer != null) {
+            ByteBuffer old = buffer.duplicate();
+            old.clear();
+            grown.put(old);
+            grown.clear();
+            pool.release(buffer);
+        }
+        return grown;
+    }
+
+    /**
+     * 固定宽度的值：每行 width 字节
+     */
+    private abstract static class FixedWidthVector extends ArrowVector {
+
+        protected final int width;
+        protected ByteBuffer values;
+
+        FixedWidthVector(String name, byte typeType, int width, DirectBufferPool pool) {
+            super(name, typeType, pool);
+            this.width = width;
+        }
+
+        @Override
+        int bufferCount() {
+            return 2;
+        }
+
+        @Override
+        ByteBuffer buffer(int i) {
+            return i == 0 ? super.buffer(i) : values;
+        }
+
+        @Override
+        int bufferLength(int i) {
+            return i == 0 ? super.bufferLength(i) : rows * width;
+        }
+
+        @Override
+        void release() {
+            super.release();
+            pool.release(values);
+            values = null;
+        }
+
+        /**
+         * @return 第 row 行的值在缓冲区中的下标，缓冲区已经保证容量
+         */
+        protected int slot(int row) {
+            values = ensure(values, (row + 1) * width);
+            return row * width;
+        }
+
+    }
+
+    static final class IntVector extends FixedWidthVector {
+
+        private final int bitWidth;
+
+        IntVector(String name, int bitWidth, DirectBufferPool pool) {
+            super(name, TYPE_INT, bitWidth / 8, pool);
+            this.bitWidth = bitWidth;
+        }
+
+        @Override
+        protected boolean readValue(ResultSet resultSet, int columnIndex, int row) throws SQLException {
+            long value = resultSet.getLong(columnIndex);
+            int index = slot(row);
+            switch (bitWidth) {
+                case 8:
+                    values.put(index, (byte) value);
+                    break;
+                case 16:
+                    values.putShort(index, (short) value);
+                    break;
+                case 32:
+                    values.putInt(index, (int) value);
+                    break;
+                default:
+                    values.putLong(index, value);
+            }
+            return !resultSet.wasNull();
+        }
+
+        // table Int { bitWidth: int; is_signed: bool; }
+        @Override
+        int writeType(FlatBufferBuilder builder) {
+            builder.startTable(2);
+            builder.addInt(0, bitWidth);
+            builder.addByte(1, (byte) 1);
+            return builder.endTable();
+        }
+
+    }
+
+    static final class FloatVector extends FixedWidthVector {
+
+        FloatVector(String name, boolean doublePrecision, DirectBufferPool pool) {
+            super(name, TYPE_FLOATING_POINT, doublePrecision ? 8 : 4, pool);
+        }
+
+        @Override
+        protected boolean readValue(ResultSet resultSet, int columnIndex, int row) throws SQLException {
+            int index = slot(row);
+            if (width == 8) {
+                values.putDouble(index, resultSet.getDouble(columnIndex));
+            } else {
+                values.putFloat(index, resultSet.getFloat(columnIndex));
+            }
+            return !resultSet.wasNull();
+        }
+
+        // table FloatingPoint { precision: Precision; }，SINGLE = 1，DOUBLE = 2
+        @Override
+        int writeType(FlatBufferBuilder builder) {
+            builder.startTable(1);
+            builder.addShort(0, (short) (width == 8 ? 2 : 1));
+            return builder.endTable();
+        }
+
+    }
+
+    static final class DecimalVector extends FixedWidthVector {
+
+        static final int MAX_PRECISION = 38;
+
+        private final int precision;
+        private final int scale;
+
+        DecimalVector(String name, int precision, int scale, DirectBufferPool pool) {
+            super(name, TYPE_DECIMAL, 16, pool);
+            this.precision = precision;
+            this.scale = scale;
+        }
+
+        /**
+         * 非标度值按 128 位小端补码存放
+         */
+        @Override
+        protected boolean readValue(ResultSet resultSet, int columnIndex, int row) throws SQLException {
+            BigDecimal value = resultSet.getBigDecimal(columnIndex);
+            int index = slot(row);
+            if (value == null) {
+                values.putLong(index, 0L);
+                values.putLong(index + 8, 0L);
+                return false;
+            }
+            BigInteger unscaled = value.setScale(scale, RoundingMode.HALF_UP).unscaledValue();
+            if (unscaled.bitLength() > 127) {
+                throw new RuntimeException("Value " + value + " of column '" + getName() + "' does not fit in decimal(" + precision + ", " + scale + ")");
+            }
+            values.putLong(index, unscaled.longValue());
+            values.putLong(index + 8, unscaled.shiftRight(64).longValue());
+            return true;
+        }
+
+        // table Decimal { precision: int; scale: int; bitWidth: int = 128; }
+        @Override
+        int writeType(FlatBufferBuilder builder) {
+            builder.startTable(3);
+            builder.addInt(0, precision);
+            builder.addInt(1, scale);
+            builder.addInt(2, 128);
+            return builder.endTable();
+        }
+
+    }
+
+    static final class DateDayVector extends FixedWidthVector {
+
+        DateDayVector(String name, DirectBufferPool pool) {
+            super(name, TYPE_DATE, 4, pool);
+        }
+
+        @Override
+        protected boolean readValue(ResultSet resultSet, int columnIndex, int row) throws SQLException {
+            Date value = resultSet.getDate(columnIndex);
+            int index = slot(row);
+            values.putInt(index, value == null ? 0 : (int) value.toLocalDate().toEpochDay());
+            return value != null;
+        }
+
+        // table Date { unit: DateUnit = MILLISECOND; }，DAY = 0
+        @Override
+        int writeType(FlatBufferBuilder builder) {
+            builder.startTable(1);
+            builder.addShort(0, (short) 0);
+            return builder.endTable();
+        }
+
+    }
+
+    /**
+     * 不带时区的时间戳：数据库中的本地时间按 UTC 换算成微秒，和 Arrow 对无时区时间戳的约定一致
+     */
+    static final class TimestampVector extends FixedWidthVector {
+
+        TimestampVector(String name, DirectBufferPool pool) {
+            super(name, TYPE_TIMESTAMP, 8, pool);
+        }
+
+        @Override
+        protected boolean readValue(ResultSet resultSet, int columnIndex, int row) throws SQLException {
+            Timestamp value = resultSet.getTimestamp(columnIndex);
+            long micros = 0;
+            if (value != null) {
+                LocalDateTime time = value.toLocalDateTime();
+                micros = time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1000;
+            }
+            int index = slot(row);
+            values.putLong(index, micros);
+            return value != null;
+        }
+
+        // table Timestamp { unit: TimeUnit; timezone: string; }，MICROSECOND = 2
+        @Override
+        int writeType(FlatBufferBuilder builder) {
+            builder.startTable(2);
+            builder.addShort(0, (short) 2);
+            return builder.endTable();
+        }
+
+    }
+
+    /**
+     * 布尔值按位存放，和有效位图的布局相同
+     */
+    static final class BoolVector extends ArrowVector {
+
+        private ByteBuffer values;
+
+        BoolVector(String name, DirectBufferPool pool) {
+            super(name, TYPE_BOOL, pool);
+        }
+
+        @Override
+        protected boolean readValue(ResultSet resultSet, int columnIndex, int row) throws SQLException {
+            boolean value = resultSet.getBoolean(columnIndex);
+            int index = row >>> 3;
+            if ((row & 7) == 0) {
+                values = ensure(values, index + 1);
+                values.put(index, (byte) 0);
+            }
+            if (value) {
+                values.put(index, (byte) (values.get(index) | (1 << (row & 7))));
+            }
+            return !resultSet.wasNull();
+        }
+
+        @Override
+        int writeType(FlatBufferBuilder builder) {
+            builder.startTable(0);
+            return builder.endTable();
+        }
+
+        @Override
+        int bufferCount() {
+            return 2;
+        }
+
+        @Override
+        ByteBuffer buffer(int i) {
+            return i == 0 ? super.buffer(i) : values;
+        }
+
+        @Override
+        int bufferLength(int i) {
+            return i == 0 ? super.bufferLength(i) : (rows + 7) >>> 3;
+        }
+
+        @Override
+        void release() {
+            super.release();
+            pool.release(values);
+            values = null;
+        }
+
+    }
+
+    /**
+     * 变长值（Utf8、Binary）：int32 偏移量（行数 + 1 个）和连续存放的数据
+     * <p>
+     * 字符串直接编码成 UTF-8 写进数据缓冲区，不创建中间的 byte[]。
+     */
+    static final class VarWidthVector extends ArrowVector {
+
+        private final boolean utf8;
+        private ByteBuffer offsets;
+        private ByteBuffer data;
+        private int dataLength;
+
+        VarWidthVector(String name, boolean utf8, DirectBufferPool pool) {
+            super(name, utf8 ? TYPE_UTF8 : TYPE_BINARY, pool);
+            this.utf8 = utf8;
+        }
+
+        @Override
+        protected boolean readValue(ResultSet resultSet, int columnIndex, int row) throws SQLException {
+            offsets = ensure(offsets, (row + 2) * 4);
+            if (row == 0) {
+                offsets.putInt(0, 0);
+            }
+            boolean valid;
+            if (utf8) {
+                String value = resultSet.getString(columnIndex);
+                valid = value != null;
+                if (valid) {
+                    writeUtf8(value);
+                }
+            } else {
+                byte[] value = resultSet.getBytes(columnIndex);
+                valid = value != null;
+                if (valid) {
+                    data = ensure(data, dataLength + value.length);
+                    ByteBuffer target = data.duplicate();
+                    target.position(dataLength);
+                    target.put(value);
+                    dataLength += value.length;
+                }
+            }
+            if (dataLength < 0) {
+                throw new RuntimeException("Arrow data buffer of column '" + getName() + "' exceeds 2GB, use a smaller batch size");
+            }
+            offsets.putInt((row + 1) * 4, dataLength);
+            return valid;
+        }
+
+        private void writeUtf8(String value) {
+            int length = value.length();
+            // 一个 UTF-16 字符最多编码成 3 个字节（代理对是 2 个字符编码成 4 个字节）
+            data = ensure(data, dataLength + length * 3);
+            int position = dataLength;
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    data.put(position++, (byte) c);
+                } else if (c < 0x800) {
+                    data.put(position++, (byte) (0xC0 | (c >> 6)));
+                    data.put(position++, (byte) (0x80 | (c & 0x3F)));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    data.put(position++, (byte) (0xF0 | (codePoint >> 18)));
+                    data.put(position++, (byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                    data.put(position++, (byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                    data.put(position++, (byte) (0x80 | (codePoint & 0x3F)));
+                } else if (Character.isSurrogate(c)) {
+                    // 不成对的代理字符和 String.getBytes 一样替换成 '?'
+                    data.put(position++, (byte) '?');
+                } else {
+                    data.put(position++, (byte) (0xE0 | (c >> 12)));
+                    data.put(position++, (byte) (0x80 | ((c >> 6) & 0x3F)));
+                    data.put(position++, (byte) (0x80 | (c & 0x3F)));
+                }
+            }
+            dataLength = position;
+        }
+
+        @Override
+        int writeType(FlatBufferBuilder builder) {
+            builder.startTable(0);
+            return builder.endTable();
+        }
+
+        @Override
+        int bufferCount() {
+            return 3;
+        }
+
+        @Override
+        ByteBuffer buffer(int i) {
+            return i == 0 ? super.buffer(i) : i == 1 ? offsets : data;
+        }
+
+        @Override
+        int bufferLength(int i) {
+            return i == 0 ? super.bufferLength(i) : i == 1 ? (rows + 1) * 4 : dataLength;
+        }
+
+        @Override
+        void reset() {
+            super.reset();
+            dataLength = 0;
+        }
+
+        @Override
+        void release() {
+            super.release();
+            pool.release(offsets);
+            pool.release(data);
+            offsets = null;
+            data = null;
+        }
+
+    }
+
+}
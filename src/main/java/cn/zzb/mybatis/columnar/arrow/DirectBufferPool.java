@@ -0,0 +1,85 @@
+package cn.zzb.mybatis.columnar.arrow;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 直接内存缓冲区池
+ * <p>
+ * 缓冲区容量按 2 的幂分级（最小 4KB），取用时找同一级空闲的缓冲区，没有再分配；归还时超出池容量的缓冲区直接丢弃，由 GC 回收。
+ * 直接内存的分配和回收都比堆内存慢得多，导出时各列的缓冲区从池中取用，每次导出、每个批次不再重新分配。
+ * 超过 1GB 的缓冲区不池化。返回的缓冲区是小端字节序。线程安全。
+ */
+public class DirectBufferPool {
+
+    private static final int MIN_SHIFT = 12;
+    private static final int MAX_SHIFT = 30;
+
+    private final long maxPooledBytes;
+    private final AtomicLong pooledBytes = new AtomicLong();
+    @SuppressWarnings("unchecked")
+    private final ConcurrentLinkedQueue<ByteBuffer>[] free = new ConcurrentLinkedQueue[MAX_SHIFT - MIN_SHIFT + 1];
+
+    /**
+     * @param maxPooledBytes 池中最多保留的空闲缓冲区总字节数
+     */
+    public DirectBufferPool(long maxPooledBytes) {
+        this.maxPooledBytes = maxPooledBytes;
+        for (int i = 0; i < free.length; i++) {
+            free[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * 取一个容量至少为 minCapacity 的缓冲区，position 为 0，limit 为容量
+     */
+    public ByteBuffer acquire(int minCapacity) {
+        int shift = shiftOf(minCapacity);
+        if (shift > MAX_SHIFT) {
+            return ByteBuffer.allocateDirect(minCapacity).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        ByteBuffer buffer = free[shift - MIN_SHIFT].poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(1 << shift).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        pooledBytes.addAndGet(-buffer.capacity());
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * 归还缓冲区，归还之后调用方不能再使用它
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect()) {
+            return;
+        }
+        int capacity = buffer.capacity();
+        int shift = shiftOf(capacity);
+        if (shift > MAX_SHIFT || capacity != 1 << shift) {
+            return;
+        }
+        if (pooledBytes.addAndGet(capacity) > maxPooledBytes) {
+            pooledBytes.addAndGet(-capacity);
+            return;
+        }
+        free[shift - MIN_SHIFT].offer(buffer);
+    }
+
+    /**
+     * @return 池中空闲缓冲区的总字节数
+     */
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    private static int shiftOf(int capacity) {
+        if (capacity <= 1 << MIN_SHIFT) {
+            return MIN_SHIFT;
+        }
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1);
+    }
+
+}
@@ -0,0 +1,203 @@
+package cn.zzb.mybatis.columnar.arrow;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 最小的 FlatBuffers 编码器，只用于写 Arrow IPC 的 Schema/RecordBatch 消息头
+ * <p>
+ * 和官方实现一样从缓冲区末尾向前写：子对象（字符串、向量、子表）先写，引用它们的表后写，所有偏移量都指向更高的地址。
+ * 每个值按自身大小对齐；表的 vtable 不去重，消息头只有几百字节，不影响导出速度。
+ * 嵌套规则同官方实现：startTable 和 endTable 之间不能再创建字符串、向量或其他表。
+ */
+final class FlatBufferBuilder {
+
+    private ByteBuffer bb;
+    private int space;
+    private int minAlign = 1;
+    private int[] vtable;
+    private int objectStart;
+
+    FlatBufferBuilder(int initialSize) {
+        this.bb = ByteBuffer.allocate(initialSize).order(ByteOrder.LITTLE_ENDIAN);
+        this.space = initialSize;
+    }
+
+    /**
+     * @return 当前位置到缓冲区末尾的距离，作为已写对象的引用
+     */
+    int offset() {
+        return bb.capacity() - space;
+    }
+
+    void addByte(byte x) {
+        prep(1, 0);
+        bb.put(--space, x);
+    }
+
+    void addShort(short x) {
+        prep(2, 0);
+        space -= 2;
+        bb.putShort(space, x);
+    }
+
+    void addInt(int x) {
+        prep(4, 0);
+        space -= 4;
+        bb.putInt(space, x);
+    }
+
+    void addLong(long x) {
+        prep(8, 0);
+        space -= 8;
+        bb.putLong(space, x);
+    }
+
+    /**
+     * 写一个指向已写对象的 uoffset（相对这个字段自身的位置）
+     */
+    void addOffset(int off) {
+        prep(4, 0);
+        int relative = offset() - off + 4;
+        space -= 4;
+        bb.putInt(space, relative);
+    }
+
+    int createString(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        addByte((byte) 0);
+        startVector(1, bytes.length, 1);
+        space -= bytes.length;
+        for (int i = 0; i < bytes.length; i++) {
+            bb.put(space + i, bytes[i]);
+        }
+        return endVector(bytes.length);
+    }
+
+    /**
+     * 表的偏移量向量，元素按原顺序给出
+     */
+    int createOffsetVector(int[] offsets) {
+        startVector(4, offsets.length, 4);
+        for (int i = offsets.length - 1; i >= 0; i--) {
+            addOffset(offsets[i]);
+        }
+        return endVector(offsets.length);
+    }
+
+    /**
+     * 由两个 long 组成的结构体向量（Arrow 的 FieldNode、Buffer），values 依次是每个结构体的两个字段
+     */
+    int createLongPairVector(long[] values) {
+        int count = values.length / 2;
+        startVector(16, count, 8);
+        for (int i = count - 1; i >= 0; i--) {
+            prep(8, 16);
+            space -= 8;
+            bb.putLong(space, values[i * 2 + 1]);
+            space -= 8;
+            bb.putLong(space, values[i * 2]);
+        }
+        return endVector(count);
+    }
+
+    void startTable(int numFields) {
+        vtable = new int[numFields];
+        objectStart = offset();
+    }
+
+    void addByte(int field, byte x) {
+        addByte(x);
+        vtable[field] = offset();
+    }
+
+    void addShort(int field, short x) {
+        addShort(x);
+        vtable[field] = offset();
+    }
+
+    void addInt(int field, int x) {
+        addInt(x);
+        vtable[field] = offset();
+    }
+
+    void addLong(int field, long x) {
+        addLong(x);
+        vtable[field] = offset();
+    }
+
+    void addOffset(int field, int off) {
+        addOffset(off);
+        vtable[field] = offset();
+    }
+
+    /**
+     * 写表头（指向 vtable 的 soffset）和紧挨在它前面的 vtable
+     *
+     * @return 表的引用
+     */
+    int endTable() {
+        addInt(0);
+        int tableOffset = offset();
+        int last = vtable.length - 1;
+        while (last >= 0 && vtable[last] == 0) {
+            last--;
+        }
+        for (int i = last; i >= 0; i--) {
+            addShort((short) (vtable[i] != 0 ? tableOffset - vtable[i] : 0));
+        }
+        addShort((short) (tableOffset - objectStart));
+        addShort((short) ((last + 3) * 2));
+        bb.putInt(bb.capacity() - tableOffset, offset() - tableOffset);
+        vtable = null;
+        return tableOffset;
+    }
+
+    /**
+     * 写根表的引用，返回编码好的字节（长度是最大对齐的整数倍）
+     */
+    byte[] finish(int root) {
+        prep(minAlign, 4);
+        addOffset(root);
+        byte[] bytes = new byte[bb.capacity() - space];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = bb.get(space + i);
+        }
+        return bytes;
+    }
+
+    private void startVector(int elementSize, int count, int alignment) {
+        prep(4, elementSize * count);
+        prep(alignment, elementSize * count);
+    }
+
+    private int endVector(int count) {
+        space -= 4;
+        bb.putInt(space, count);
+        return offset();
+    }
+
+    /**
+     * 写入 additionalBytes 字节之后再写一个 size 字节的值时，这个值要按 size 对齐：先补齐对应的 0，空间不够时扩容
+     */
+    private void prep(int size, int additionalBytes) {
+        if (size > minAlign) {
+            minAlign = size;
+        }
+        int alignSize = (~(bb.capacity() - space + additionalBytes) + 1) & (size - 1);
+        while (space < alignSize + size + additionalBytes) {
+            int oldCapacity = bb.capacity();
+            ByteBuffer grown = ByteBuffer.allocate(oldCapacity << 1).order(ByteOrder.LITTLE_ENDIAN);
+            bb.clear();
+            grown.position(oldCapacity);
+            grown.put(bb);
+            bb = grown;
+            space += oldCapacity;
+        }
+        for (int i = 0; i < alignSize; i++) {
+            bb.put(--space, (byte) 0);
+        }
+    }
+
+}
@@ -0,0 +1,34 @@
+package cn.zzb.mybatis.cursor;
+
+import java.io.Closeable;
+
+/**
+ * 游标：逐行读取查询结果
+ * <p>
+ * 与一次性返回 List 不同，游标只在迭代时才从 ResultSet 取下一行并映射，内存中同时只有一行结果，
+ * 适合导出等大结果集场景。游标持有语句（以及底层连接上的结果集），用完必须 close()；
+ * 迭代到最后一行之后会自动关闭。游标只能迭代一次。
+ *
+ * @param <T> 结果对象类型
+ */
+public interface Cursor<T> extends Closeable, Iterable<T> {
+
+    /**
+     * @return 是否还没有关闭
+     */
+    boolean isOpen();
+
+    /**
+     * @return 是否已经读完所有行
+     */
+    boolean isConsumed();
+
+    /**
+     * @return 最近读取的一行的序号（从 0 开始），还没有读取时为 -1
+     */
+    int getCurrentIndex();
+
+    @Override
+    void close();
+
+}
@@ -0,0 +1,164 @@
+package cn.zzb.mybatis.cursor.defaults;
+
+import cn.zzb.mybatis.cursor.Cursor;
+import cn.zzb.mybatis.executor.resultset.DefaultResultSetHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 游标的默认实现
+ * <p>
+ * hasNext() 时才调用 ResultSet.next() 并用 {@link DefaultResultSetHandler#handleRow} 映射这一行
+ * （有嵌套结果映射时用 {@link DefaultResultSetHandler#nextJoinedObject} 读出一个根对象的所有行）；
+ * 读完或 close() 时关闭结果集和语句。连接不归游标管理，由打开它的会话负责。
+ *
+ * @param <T> 结果对象类型
+ */
+public class DefaultCursor<T> implements Cursor<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(DefaultCursor.class);
+
+    private final DefaultResultSetHandler resultSetHandler;
+    private final ResultSet resultSet;
+    private ResultSetMetaData metaData;
+
+    private boolean iteratorRetrieved;
+    private boolean closed;
+    private boolean consumed;
+    private int currentIndex = -1;
+
+    // 已经取出但还没有交给调用方的一行
+    private T next;
+    private boolean hasFetched;
+
+    public DefaultCursor(DefaultResultSetHandler resultSetHandler, ResultSet resultSet) {
+        this.resultSetHandler = resultSetHandler;
+        this.resultSet = resultSet;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    @Override
+    public boolean isConsumed() {
+        return consumed;
+    }
+
+    @Override
+    public int getCurrentIndex() {
+        return currentIndex;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        if (iteratorRetrieved) {
+            throw new IllegalStateException("Cannot open more than one iterator on a Cursor");
+        }
+        if (closed) {
+            throw new IllegalStateException("A Cursor is already closed.");
+        }
+        iteratorRetrieved = true;
+        return new CursorIterator();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        Statement statement = null;
+        try {
+            statement = resultSet.getStatement();
+            resultSet.close();
+        } catch (SQLException e) {
+            logger.warn("Error closing cursor result set. Cause: " + e);
+        } finally {
+            if (statement != null) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    logger.warn("Error closing cursor statement. Cause: " + e);
+                }
+            }
+        }
+    }
+
+    private boolean fetchNext() {
+        if (hasFetched) {
+            return true;
+        }
+        if (closed) {
+            return false;
+        }
+        try {
+            if (resultSetHandler.hasNestedResultMaps()) {
+                return fetchNextJoined();
+            }
+            if (!resultSet.next()) {
+                consumed = true;
+                close();
+                return false;
+            }
+            if (metaData == null) {
+                metaData = resultSet.getMetaData();
+            }
+            next = resultSetHandler.handleRow(resultSet, metaData);
+            hasFetched = true;
+            currentIndex++;
+            return true;
+        } catch (SQLException e) {
+            close();
+            throw new RuntimeException("Error fetching next row from cursor. Cause: " + e, e);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * 嵌套结果映射按根对象读取，一个根对象对应多行
+     */
+    @SuppressWarnings("unchecked")
+    private boolean fetchNextJoined() throws SQLException {
+        Object object = resultSetHandler.nextJoinedObject(resultSet);
+        if (object == null) {
+            consumed = true;
+            close();
+            return false;
+        }
+        next = (T) object;
+        hasFetched = true;
+        currentIndex++;
+        return true;
+    }
+
+    private class CursorIterator implements Iterator<T> {
+
+        @Override
+        public boolean hasNext() {
+            return fetchNext();
+        }
+
+        @Override
+        public T next() {
+            if (!fetchNext()) {
+                throw new NoSuchElementException();
+            }
+            T row = DefaultCursor.this.next;
+            DefaultCursor.this.next = null;
+            hasFetched = false;
+            return row;
+        }
+    }
+
+}
@@ -0,0 +1,191 @@
+package cn.zzb.mybatis.cursor.reactive;
+
+import cn.zzb.mybatis.cursor.Cursor;
+import cn.zzb.mybatis.session.Configuration;
+import cn.zzb.mybatis.session.SqlSession;
+import cn.zzb.mybatis.session.defaults.DefaultSqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于游标的 {@link Flow.Publisher}：按订阅者的 request(n) 逐行从 ResultSet 拉取
+ * <p>
+ * 每个订阅者独占一次查询：订阅后第一次 request 时才打开一个专用会话（连接）和游标，
+ * 只读取已请求的行数，下游消费慢时不会继续读，内存中的行数始终有界（背压）。
+ * 读完、出错或 cancel() 时关闭语句并归还连接。
+ * <p>
+ * 读取在 Configuration 的异步执行器上进行，不阻塞调用 request() 的线程；
+ * 同一订阅的所有信号（onNext/onComplete/onError）由一个排空循环串行发出，
+ * 订阅者在 onNext 中同步调用 request() 不会产生递归。
+ * <p>
+ * Flow 是 Java 9 的 API，只有 Mapper 方法声明返回 Flow.Publisher 时才会加载这个类。
+ *
+ * @param <T> 结果对象类型
+ */
+public class CursorPublisher<T> implements Flow.Publisher<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CursorPublisher.class);
+
+    private final Configuration configuration;
+    private final String statement;
+    private final Object parameter;
+
+    public CursorPublisher(Configuration configuration, String statement, Object parameter) {
+        this.configuration = configuration;
+        this.statement = statement;
+        this.parameter = parameter;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+        CursorSubscription subscription = new CursorSubscription(subscriber, configuration.getAsyncExecutor());
+        subscription.start();
+    }
+
+    private class CursorSubscription implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final Executor executor;
+
+        private final AtomicLong requested = new AtomicLong();
+        // 排空循环的工作计数：不为 0 时有且只有一个线程在执行 run()
+        private final AtomicInteger wip = new AtomicInteger(1);
+        private volatile boolean cancelled;
+        private volatile Throwable badRequest;
+
+        // 以下字段只在排空循环中访问
+        private SqlSession session;
+        private Cursor<T> cursor;
+        private Iterator<T> iterator;
+        private boolean done;
+
+        CursorSubscription(Flow.Subscriber<? super T> subscriber, Executor executor) {
+            this.subscriber = subscriber;
+            this.executor = executor;
+        }
+
+        void start() {
+            // onSubscribe 返回之前占住排空循环，避免另一个线程在它执行期间发出 onNext
+            try {
+                subscriber.onSubscribe(this);
+            } catch (Throwable e) {
+                logger.warn("Subscriber " + subscriber + " threw from onSubscribe, cancelling. Cause: " + e);
+                cancelled = true;
+            }
+            if (wip.decrementAndGet() != 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                badRequest = new IllegalArgumentException("Subscriber requested " + n + " rows, the request must be positive (rule 3.9)");
+                cancelled = true;
+            } else {
+                long current;
+                long next;
+                do {
+                    current = requested.get();
+                    if (current == Long.MAX_VALUE) {
+                        break;
+                    }
+                    next = current + n;
+                    if (next < 0) {
+                        next = Long.MAX_VALUE;
+                    }
+                } while (!requested.compareAndSet(current, next));
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (done) {
+                return;
+            }
+            if (cancelled) {
+                done = true;
+                closeResources();
+                Throwable error = badRequest;
+                if (error != null) {
+                    subscriber.onError(error);
+                }
+                return;
+            }
+            try {
+                while (requested.get() > 0 && !cancelled) {
+                    if (iterator == null) {
+                        open();
+                    }
+                    if (!iterator.hasNext()) {
+                        done = true;
+                        closeResources();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    T row = iterator.next();
+                    if (requested.get() != Long.MAX_VALUE) {
+                        requested.decrementAndGet();
+                    }
+                    subscriber.onNext(row);
+                }
+            } catch (Throwable e) {
+                done = true;
+                closeResources();
+                subscriber.onError(e);
+            }
+        }
+
+        private void open() {
+            session = new DefaultSqlSessionFactory(configuration).openSession();
+            cursor = session.selectCursor(statement, parameter);
+            iterator = cursor.iterator();
+        }
+
+        private void closeResources() {
+            try {
+                if (cursor != null) {
+                    cursor.close();
+                }
+            } finally {
+                if (session != null) {
+                    session.close();
+                }
+                cursor = null;
+                iterator = null;
+                session = null;
+            }
+        }
+    }
+
+}
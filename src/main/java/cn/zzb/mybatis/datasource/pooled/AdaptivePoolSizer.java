@@ -0,0 +1,155 @@
+package cn.zzb.mybatis.datasource.pooled;
+
+import cn.zzb.mybatis.datasource.pooled.metrics.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自适应连接池大小
+ * <p>
+ * 每个采样周期取一次池状态的直方图快照，和上一次相减得到这个周期内的分布，据此在 [min, max] 之间调整 poolMaximumActiveConnections：
+ * <ul>
+ *     <li>扩容：取连接的 p95 等待超过目标值，并且连接基本用满（或有线程在排队），说明请求在池上排队。
+ *     按 Little 定律估算需要的并发数 L = λ × W（λ 为周期内的取连接速率，W 为连接平均持有时间），扩到 L 加余量，至少加 1。</li>
+ *     <li>不扩容：如果上一次扩容之后连接持有时间明显变长，说明增加的并发让数据库变慢了，瓶颈在数据库而不是连接池，
+ *     继续加连接只会加重 MySQL 的负担，此时保持不变，直到持有时间回落。</li>
+ *     <li>缩容：连续若干个周期几乎没有等待，使用率又很低，每次缩小约 10%，不低于 L 加余量和下限。</li>
+ * </ul>
+ * 空闲连接上限按最初配置的比例随之调整，多出来的空闲连接会被关闭。
+ */
+public class AdaptivePoolSizer implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptivePoolSizer.class);
+
+    // 所有连接池共用一个守护线程
+    private static final ScheduledThreadPoolExecutor SCHEDULER = newScheduler();
+
+    // Little 定律估算值之上的余量
+    private static final double HEADROOM = 1.2;
+    // 扩容要求的使用率
+    private static final double GROW_IN_USE_RATIO = 0.9;
+    // 缩容要求的使用率
+    private static final double SHRINK_IN_USE_RATIO = 0.5;
+    // 持有时间超过扩容前的该倍数，认为数据库已经变慢
+    private static final double LATENCY_DEGRADED_FACTOR = 1.5;
+    // 连续空闲多少个周期才缩容
+    private static final int SHRINK_AFTER_IDLE_WINDOWS = 3;
+
+    private final PooledDataSource dataSource;
+    private final PoolState state;
+    private final int minActive;
+    private final int maxActive;
+    private final long intervalMillis;
+    private final double targetWaitMillis;
+    private final double idleRatio;
+
+    private LatencyHistogram.Snapshot lastWait;
+    private LatencyHistogram.Snapshot lastUsage;
+    // 上一次扩容时的持有时间 p50，-1 表示当前不在扩容过程中
+    private double usageBeforeGrow = -1;
+    private int idleWindows;
+    private ScheduledFuture<?> future;
+
+    public AdaptivePoolSizer(PooledDataSource dataSource, int minActive, int maxActive, long intervalMillis, double targetWaitMillis) {
+        if (minActive < 1 || maxActive < minActive) {
+            throw new IllegalArgumentException("Invalid adaptive pool bounds [" + minActive + ", " + maxActive + "]");
+        }
+        this.dataSource = dataSource;
+        this.state = dataSource.getPoolState();
+        this.minActive = minActive;
+        this.maxActive = maxActive;
+        this.intervalMillis = intervalMillis;
+        this.targetWaitMillis = targetWaitMillis;
+        this.idleRatio = Math.min(1.0, (double) dataSource.getPoolMaximumIdleConnections() / dataSource.getPoolMaximumActiveConnections());
+    }
+
+    public synchronized void start() {
+        if (future != null) {
+            return;
+        }
+        lastWait = state.getWaitTimeHistogram().snapshot();
+        lastUsage = state.getUsageTimeHistogram().snapshot();
+        future = SCHEDULER.scheduleWithFixedDelay(this, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (future != null) {
+            future.cancel(false);
+            future = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            adjust();
+        } catch (Throwable e) {
+            // 调度线程里的异常会让后续周期不再执行，这里只记录日志
+            logger.warn("Adaptive pool sizing failed: " + e.getMessage(), e);
+        }
+    }
+
+    synchronized void adjust() {
+        LatencyHistogram.Snapshot wait = state.getWaitTimeHistogram().snapshot();
+        LatencyHistogram.Snapshot usage = state.getUsageTimeHistogram().snapshot();
+        LatencyHistogram.Snapshot waitWindow = wait.minus(lastWait);
+        LatencyHistogram.Snapshot usageWindow = usage.minus(lastUsage);
+        lastWait = wait;
+        lastUsage = usage;
+
+        int current = dataSource.getPoolMaximumActiveConnections();
+        int active = state.getActiveConnectionCount();
+        int pending = state.getPendingThreadCount();
+        double waitP95 = waitWindow.getPercentile(95);
+        double usageP50 = usageWindow.getPercentile(50);
+        double arrivalsPerMilli = (double) waitWindow.getCount() / intervalMillis;
+        int required = (int) Math.ceil(arrivalsPerMilli * usageWindow.getMean() * HEADROOM);
+
+        int target = decide(current, active, pending, waitP95, usageP50, required);
+        if (target != current) {
+            logger.info("Adaptive pool sizing: maximum active connections " + current + " -> " + target
+                    + " (wait p95=" + waitP95 + "ms, active=" + active + ", pending=" + pending
+                    + ", usage p50=" + usageP50 + "ms, estimated=" + required + ")");
+            dataSource.resize(target, Math.max(1, (int) Math.round(target * idleRatio)));
+        }
+    }
+
+    int decide(int current, int active, int pending, double waitP95, double usageP50, int required) {
+        double inUseRatio = (double) active / current;
+        boolean saturated = pending > 0 || inUseRatio >= GROW_IN_USE_RATIO;
+        if (waitP95 > targetWaitMillis && saturated) {
+            idleWindows = 0;
+            if (usageBeforeGrow > 0 && usageP50 > usageBeforeGrow * LATENCY_DEGRADED_FACTOR) {
+                return current;
+            }
+            usageBeforeGrow = usageP50;
+            return Math.min(maxActive, Math.max(current + 1, required));
+        }
+        usageBeforeGrow = -1;
+        if (waitP95 <= targetWaitMillis / 2 && pending == 0 && inUseRatio < SHRINK_IN_USE_RATIO) {
+            if (++idleWindows < SHRINK_AFTER_IDLE_WINDOWS) {
+                return current;
+            }
+            idleWindows = 0;
+            int step = Math.max(1, current / 10);
+            return Math.max(minActive, Math.max(current - step, Math.max(active, required)));
+        }
+        idleWindows = 0;
+        return current;
+    }
+
+    private static ScheduledThreadPoolExecutor newScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "own-mybatis-pool-sizer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+}
@@ -0,0 +1,174 @@
+package cn.zzb.mybatis.datasource.pooled;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 连接泄漏检测
+ * <p>
+ * 配置了 poolLeakDetectionThreshold 后，每次借出连接都会记录借出线程和调用栈，并安排一个定时任务；
+ * 连接在阈值内归还则取消任务，否则打印借出时的调用栈、计入泄漏次数，并出现在 {@link #getLeakSuspects()} 中，
+ * 直到连接被归还或被连接池强制收回。
+ * <p>
+ * 调用栈只是创建一个 Throwable，真正展开堆栈要等到报告泄漏的时候，开销很小。
+ */
+public class LeakDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeakDetector.class);
+
+    // 所有连接池共用一个守护线程
+    private static final ScheduledThreadPoolExecutor SCHEDULER = newScheduler();
+
+    private final PoolState state;
+
+    // 已经报告过泄漏、但还没有归还的连接
+    private final Set<LeakTask> suspects = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    public LeakDetector(PoolState state) {
+        this.state = state;
+    }
+
+    /**
+     * 连接借出时调用
+     */
+    public LeakTask schedule(PooledConnection connection, long threshold) {
+        LeakTask task = new LeakTask(connection, threshold);
+        task.future = SCHEDULER.schedule(task, threshold, TimeUnit.MILLISECONDS);
+        return task;
+    }
+
+    /**
+     * 当前持有时间超过阈值的连接快照
+     */
+    public List<LeakSuspect> getLeakSuspects() {
+        List<LeakSuspect> list = new ArrayList<>(suspects.size());
+        for (LeakTask task : suspects) {
+            list.add(task.toSuspect());
+        }
+        return list;
+    }
+
+    private static ScheduledThreadPoolExecutor newScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "own-mybatis-leak-detector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 正常归还的连接会取消任务，取消后立即从队列移除，避免队列堆积
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * 一次借出对应的检测任务
+     */
+    public class LeakTask implements Runnable {
+
+        private final int connectionHashCode;
+        private final String threadName;
+        private final long checkoutTimestamp;
+        private final long threshold;
+        // 借出时的调用栈
+        private final Throwable checkoutTrace;
+
+        private volatile ScheduledFuture<?> future;
+        private volatile boolean reported;
+
+        LeakTask(PooledConnection connection, long threshold) {
+            this.connectionHashCode = connection.getRealHashCode();
+            this.threadName = Thread.currentThread().getName();
+            this.checkoutTimestamp = System.currentTimeMillis();
+            this.threshold = threshold;
+            this.checkoutTrace = new Throwable("Connection " + connectionHashCode + " checked out by thread " + threadName);
+        }
+
+        @Override
+        public void run() {
+            reported = true;
+            suspects.add(this);
+            state.recordLeak();
+            logger.warn("Connection leak detection triggered for connection " + connectionHashCode + " held by thread " + threadName
+                    + " for more than " + threshold + " ms, stack trace of the checkout follows", checkoutTrace);
+        }
+
+        /**
+         * 连接归还（或被强制收回）时调用
+         */
+        public void cancel() {
+            ScheduledFuture<?> f = future;
+            if (f != null) {
+                f.cancel(false);
+            }
+            if (reported) {
+                suspects.remove(this);
+                logger.info("Previously reported leaked connection " + connectionHashCode + " was returned after "
+                        + (System.currentTimeMillis() - checkoutTimestamp) + " ms.");
+            }
+        }
+
+        public boolean isReported() {
+            return reported;
+        }
+
+        public Throwable getCheckoutTrace() {
+            return checkoutTrace;
+        }
+
+        LeakSuspect toSuspect() {
+            return new LeakSuspect(connectionHashCode, threadName, checkoutTimestamp, checkoutTrace.getStackTrace());
+        }
+    }
+
+    /**
+     * 疑似泄漏的连接
+     */
+    public static class LeakSuspect {
+
+        private final int connectionHashCode;
+        private final String threadName;
+        private final long checkoutTimestamp;
+        private final StackTraceElement[] checkoutStackTrace;
+
+        public LeakSuspect(int connectionHashCode, String threadName, long checkoutTimestamp, StackTraceElement[] checkoutStackTrace) {
+            this.connectionHashCode = connectionHashCode;
+            this.threadName = threadName;
+            this.checkoutTimestamp = checkoutTimestamp;
+            this.checkoutStackTrace = checkoutStackTrace;
+        }
+
+        public int getConnectionHashCode() {
+            return connectionHashCode;
+        }
+
+        public String getThreadName() {
+            return threadName;
+        }
+
+        public long getCheckoutTimestamp() {
+            return checkoutTimestamp;
+        }
+
+        public long getHeldTime() {
+            return System.currentTimeMillis() - checkoutTimestamp;
+        }
+
+        public StackTraceElement[] getCheckoutStackTrace() {
+            return checkoutStackTrace;
+        }
+
+        @Override
+        public String toString() {
+            return "LeakSuspect{connection=" + connectionHashCode + ", thread=" + threadName + ", heldTime=" + getHeldTime() + "ms}";
+        }
+    }
+
+}
@@ -1,12 +1,18 @@
 package cn.zzb.mybatis.datasource.pooled;
 
+import cn.zzb.mybatis.datasource.pooled.metrics.LatencyHistogram;
+import cn.zzb.mybatis.datasource.pooled.metrics.LatencySummary;
+
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  池状态
+ <p>
+ 计数器都是 LongAdder，统计时不需要加锁；空闲/活跃链接列表仍然由 PooledDataSource 在 synchronized (state) 中维护。
  */
-public class PoolState {
+public class PoolState implements PoolStateMXBean {
 
     protected PooledDataSource dataSource;
 
@@ -16,62 +22,144 @@ public class PoolState {
     protected final List<PooledConnection> activeConnections = new ArrayList<>();
 
     // 请求次数
-    protected long requestCount = 0;
+    protected final LongAdder requestCount = new LongAdder();
     // 总请求时间
-    protected long accumulatedRequestTime = 0;
-    protected long accumulatedCheckoutTime = 0;
-    protected long claimedOverdueConnectionCount = 0;
-    protected long accumulatedCheckoutTimeOfOverdueConnections = 0;
+    protected final LongAdder accumulatedRequestTime = new LongAdder();
+    protected final LongAdder accumulatedCheckoutTime = new LongAdder();
+    protected final LongAdder claimedOverdueConnectionCount = new LongAdder();
+    protected final LongAdder accumulatedCheckoutTimeOfOverdueConnections = new LongAdder();
 
     // 总等待时间
-    protected long accumulatedWaitTime = 0;
+    protected final LongAdder accumulatedWaitTime = new LongAdder();
     // 要等待的次数
-    protected long hadToWaitCount = 0;
+    protected final LongAdder hadToWaitCount = new LongAdder();
     // 失败连接次数
-    protected long badConnectionCount = 0;
+    protected final LongAdder badConnectionCount = new LongAdder();
+    // 持有时间超过泄漏检测阈值的次数
+    protected final LongAdder leakedConnectionCount = new LongAdder();
+    // 等满 poolTimeToWait 仍没有拿到连接的次数
+    protected final LongAdder timeoutCount = new LongAdder();
+    // 正在等待获取连接的线程数
+    protected final LongAdder pendingThreadCount = new LongAdder();
+
+    // 获取连接耗时
+    protected final LatencyHistogram waitTime = new LatencyHistogram();
+    // 连接持有时间
+    protected final LatencyHistogram usageTime = new LatencyHistogram();
+    // 新建物理连接耗时
+    protected final LatencyHistogram creationTime = new LatencyHistogram();
 
     public PoolState(PooledDataSource dataSource) {
         this.dataSource = dataSource;
     }
 
-    public synchronized long getRequestCount() {
-        return requestCount;
+    @Override
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    public long getAverageRequestTime() {
+        long requests = requestCount.sum();
+        return requests == 0 ? 0 : accumulatedRequestTime.sum() / requests;
+    }
+
+    public long getAverageWaitTime() {
+        long waits = hadToWaitCount.sum();
+        return waits == 0 ? 0 : accumulatedWaitTime.sum() / waits;
+    }
+
+    @Override
+    public long getHadToWaitCount() {
+        return hadToWaitCount.sum();
     }
 
-    public synchronized long getAverageRequestTime() {
-        return requestCount == 0 ? 0 : accumulatedRequestTime / requestCount;
+    @Override
+    public long getBadConnectionCount() {
+        return badConnectionCount.sum();
     }
 
-    public synchronized long getAverageWaitTime() {
-        return hadToWaitCount == 0 ? 0 : accumulatedWaitTime / hadToWaitCount;
+    @Override
+    public long getLeakedConnectionCount() {
+        return leakedConnectionCount.sum();
     }
 
-    public synchronized long getHadToWaitCount() {
-        return hadToWaitCount;
+    void recordLeak() {
+        leakedConnectionCount.increment();
+        dataSource.getMetricsTracker().recordConnectionLeak();
     }
 
-    public synchronized long getBadConnectionCount() {
-        return badConnectionCount;
+    @Override
+    public long getClaimedOverdueConnectionCount() {
+        return claimedOverdueConnectionCount.sum();
     }
 
-    public synchronized long getClaimedOverdueConnectionCount() {
-        return claimedOverdueConnectionCount;
+    public long getAverageOverdueCheckoutTime() {
+        long overdue = claimedOverdueConnectionCount.sum();
+        return overdue == 0 ? 0 : accumulatedCheckoutTimeOfOverdueConnections.sum() / overdue;
     }
 
-    public synchronized long getAverageOverdueCheckoutTime() {
-        return claimedOverdueConnectionCount == 0 ? 0 : accumulatedCheckoutTimeOfOverdueConnections / claimedOverdueConnectionCount;
+    public long getAverageCheckoutTime() {
+        long requests = requestCount.sum();
+        return requests == 0 ? 0 : accumulatedCheckoutTime.sum() / requests;
     }
 
-    public synchronized long getAverageCheckoutTime() {
-        return requestCount == 0 ? 0 : accumulatedCheckoutTime / requestCount;
+    @Override
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
     }
 
+    @Override
+    public int getPendingThreadCount() {
+        return pendingThreadCount.intValue();
+    }
+
+    @Override
+    public int getMaximumActiveConnections() {
+        return dataSource.getPoolMaximumActiveConnections();
+    }
+
+    @Override
     public synchronized int getIdleConnectionCount() {
         return idleConnections.size();
     }
 
+    @Override
     public synchronized int getActiveConnectionCount() {
         return activeConnections.size();
     }
 
+    @Override
+    public LatencySummary getWaitTime() {
+        return LatencySummary.of(waitTime);
+    }
+
+    @Override
+    public LatencySummary getUsageTime() {
+        return LatencySummary.of(usageTime);
+    }
+
+    @Override
+    public LatencySummary getCreationTime() {
+        return LatencySummary.of(creationTime);
+    }
+
+    public LatencyHistogram getWaitTimeHistogram() {
+        return waitTime;
+    }
+
+    public LatencyHistogram getUsageTimeHistogram() {
+        return usageTime;
+    }
+
+    public LatencyHistogram getCreationTimeHistogram() {
+        return creationTime;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolState{active=" + getActiveConnectionCount() + ", idle=" + getIdleConnectionCount()
+                + ", pending=" + getPendingThreadCount() + ", requests=" + getRequestCount()
+                + ", wait[" + getWaitTime() + "], usage[" + getUsageTime() + "], creation[" + getCreationTime() + "]}";
+    }
+
 }
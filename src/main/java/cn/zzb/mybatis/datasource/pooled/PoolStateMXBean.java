@@ -0,0 +1,48 @@
+package cn.zzb.mybatis.datasource.pooled;
+
+import cn.zzb.mybatis.datasource.pooled.metrics.LatencySummary;
+
+/**
+ * 连接池 JMX 视图，开启 registerMbeans 后注册到 cn.zzb.mybatis:type=PooledDataSource,name=poolName
+ */
+public interface PoolStateMXBean {
+
+    int getActiveConnectionCount();
+
+    int getIdleConnectionCount();
+
+    /**
+     * 正在等待获取连接的线程数
+     */
+    int getPendingThreadCount();
+
+    int getMaximumActiveConnections();
+
+    long getRequestCount();
+
+    long getHadToWaitCount();
+
+    long getBadConnectionCount();
+
+    long getClaimedOverdueConnectionCount();
+
+    long getLeakedConnectionCount();
+
+    long getTimeoutCount();
+
+    /**
+     * 获取连接的耗时分布
+     */
+    LatencySummary getWaitTime();
+
+    /**
+     * 连接从借出到归还的持有时间分布
+     */
+    LatencySummary getUsageTime();
+
+    /**
+     * 新建物理连接的耗时分布
+     */
+    LatencySummary getCreationTime();
+
+}
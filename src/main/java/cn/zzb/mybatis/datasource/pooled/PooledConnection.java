@@ -1,32 +1,29 @@
 package cn.zzb.mybatis.datasource.pooled;
 
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
 import java.sql.Connection;
-import java.sql.SQLException;
 
 /**
  池化代理的链接
  */
-public class PooledConnection implements InvocationHandler {
-
-    private static final String CLOSE = "close";
-    private static final Class<?>[] IFACES = new Class<?>[]{Connection.class};
+public class PooledConnection {
 
     private int hashCode = 0;
     private PooledDataSource dataSource;
 
     // 真实的连接
     private Connection realConnection;
-    // 代理的连接
-    private Connection proxyConnection;
+    // 代理的连接（直接委派的包装类，不走反射）
+    private ProxyConnection proxyConnection;
 
     private long checkoutTimestamp;
     private long createdTimestamp;
     private long lastUsedTimestamp;
     private int connectionTypeCode;
     private boolean valid;
+    // 物理连接上的语句缓存，连接归还后由新的 PooledConnection 继续持有
+    private StatementCache statementCache;
+    // 泄漏检测任务，未开启泄漏检测时为 null
+    private LeakDetector.LeakTask leakTask;
 
     public PooledConnection(Connection connection, PooledDataSource dataSource) {
         this.hashCode = connection.hashCode();
@@ -35,34 +32,14 @@ public class PooledConnection implements InvocationHandler {
         this.createdTimestamp = System.currentTimeMillis();
         this.lastUsedTimestamp = System.currentTimeMillis();
         this.valid = true;
-        this.proxyConnection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), IFACES, this);
-    }
-
-    @Override
-    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-        String methodName = method.getName();
-        // 如果是调用 CLOSE 关闭链接方法，则将链接加入连接池中，并返回null
-        if (CLOSE.hashCode() == methodName.hashCode() && CLOSE.equals(methodName)) {
-            dataSource.pushConnection(this);
-            return null;
-        } else {
-            if (!Object.class.equals(method.getDeclaringClass())) {
-                // 除了toString()方法，其他方法调用之前要检查connection是否还是合法的,不合法要抛出SQLException
-                checkConnection();
-            }
-            // 其他方法交给connection去调用
-            return method.invoke(realConnection, args);
-        }
-    }
-
-    private void checkConnection() throws SQLException {
-        if (!valid) {
-            throw new SQLException("Error accessing PooledConnection. Connection is invalid.");
-        }
+        // 调用包装连接的 close() 时，会把链接归还到连接池中
+        this.proxyConnection = new ProxyConnection(this, dataSource, connection);
     }
 
     public void invalidate() {
         valid = false;
+        // 包装连接随之失效，之后的任何调用都会抛出 SQLException
+        proxyConnection.invalidate();
     }
 
     public boolean isValid() {
@@ -89,6 +66,31 @@ public class PooledConnection implements InvocationHandler {
         this.connectionTypeCode = connectionTypeCode;
     }
 
+    public StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    public void setStatementCache(StatementCache statementCache) {
+        this.statementCache = statementCache;
+    }
+
+    public LeakDetector.LeakTask getLeakTask() {
+        return leakTask;
+    }
+
+    public void setLeakTask(LeakDetector.LeakTask leakTask) {
+        this.leakTask = leakTask;
+    }
+
+    /**
+     * 连接归还或被收回时结束泄漏检测
+     */
+    public void cancelLeakTask() {
+        if (leakTask != null) {
+            leakTask.cancel();
+        }
+    }
+
     public long getCreatedTimestamp() {
         return createdTimestamp;
     }
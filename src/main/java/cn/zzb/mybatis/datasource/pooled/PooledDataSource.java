@@ -1,13 +1,16 @@
 package cn.zzb.mybatis.datasource.pooled;
 
+import cn.zzb.mybatis.datasource.pooled.metrics.PoolMetricsTracker;
 import cn.zzb.mybatis.datasource.unpooled.UnpooledDataSource;
 import org.slf4j.LoggerFactory;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import javax.sql.DataSource;
 import java.io.PrintWriter;
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Proxy;
+import java.lang.management.ManagementFactory;
 import java.sql.*;
+import java.util.List;
 import java.util.logging.Logger;
 
 /**
@@ -22,10 +25,13 @@ public class PooledDataSource implements DataSource {
 
     private final UnpooledDataSource dataSource;
 
+    // 连接泄漏检测
+    private final LeakDetector leakDetector = new LeakDetector(state);
+
     // 活跃连接数
-    protected int poolMaximumActiveConnections = 10;
+    protected volatile int poolMaximumActiveConnections = 10;
     // 空闲连接数
-    protected int poolMaximumIdleConnections = 5;
+    protected volatile int poolMaximumIdleConnections = 5;
     // 在被强制返回之前,池中连接被检查的时间
     protected int poolMaximumCheckoutTime = 20000;
     // 这是给连接池一个打印日志状态机会的低层次设置,还有重新尝试获得连接, 这些情况下往往需要很长时间 为了避免连接池没有配置时静默失败)。
@@ -36,21 +42,53 @@ public class PooledDataSource implements DataSource {
     protected boolean poolPingEnabled = false;
     // 用来配置 poolPingQuery 多次时间被用一次
     protected int poolPingConnectionsNotUsedFor = 0;
+    // 每个物理连接缓存的 PreparedStatement 数量，0 表示不缓存
+    protected int poolPreparedStatementCacheSize = 0;
+    // 连接借出超过该时间（毫秒）视为疑似泄漏，打印借出时的调用栈，0 表示不检测
+    protected int poolLeakDetectionThreshold = 0;
+
+    // 开启后由 AdaptivePoolSizer 根据等待时间和持有时间在上下限之间调整活跃连接数
+    protected boolean poolAdaptiveSizingEnabled = false;
+    // 自适应调整的下限
+    protected int poolMinimumActiveConnections = 2;
+    // 自适应调整的上限，0 表示取初始 poolMaximumActiveConnections 的 4 倍
+    protected int poolAdaptiveMaximumActiveConnections = 0;
+    // 自适应调整的采样周期（毫秒）
+    protected int poolAdaptiveIntervalMillis = 5000;
+    // 取连接的 p95 等待超过该值（毫秒）才考虑扩容
+    protected int poolAdaptiveTargetWaitMillis = 10;
+
+    // 连接池名称，用于日志和 JMX ObjectName
+    protected String poolName;
+    // 是否把池状态注册为 MXBean
+    protected boolean registerMbeans = false;
 
     private int expectedConnectionTypeCode;
 
+    private static final PoolMetricsTracker NO_OP_TRACKER = new PoolMetricsTracker() {
+    };
+    // 外部指标收集，默认什么也不做
+    private volatile PoolMetricsTracker metricsTracker = NO_OP_TRACKER;
+    private volatile ObjectName mbeanName;
+    private volatile AdaptivePoolSizer adaptivePoolSizer;
+
     public PooledDataSource() {
         this.dataSource = new UnpooledDataSource();
     }
 
     protected void pushConnection(PooledConnection connection) throws SQLException {
+        connection.cancelLeakTask();
+        // 直方图和 metricsTracker 在锁外记录，慢的 tracker 不会让借还连接排队
+        long usageMillis = -1;
         synchronized (state) {
             state.activeConnections.remove(connection);
             // 判断链接是否有效
             if (connection.isValid()) {
                 // 如果空闲链接小于设定数量，也就是太少时
+                long checkoutTime = connection.getCheckoutTime();
+                state.accumulatedCheckoutTime.add(checkoutTime);
+                usageMillis = checkoutTime;
                 if (state.idleConnections.size() < poolMaximumIdleConnections && connection.getConnectionTypeCode() == expectedConnectionTypeCode) {
-                    state.accumulatedCheckoutTime += connection.getCheckoutTime();
                     // 它首先检查数据库连接是否处于自动提交模式，如果不是，则调用rollback()方法执行回滚操作。
                     // 在MyBatis中，如果没有开启自动提交模式，则需要手动提交或回滚事务。因此，这段代码可能是在确保操作完成后，如果没有开启自动提交模式，则执行回滚操作。
                     // 总的来说，这段代码用于保证数据库的一致性，确保操作完成后，如果未开启自动提交模式，则执行回滚操作。
@@ -59,6 +97,7 @@ public class PooledDataSource implements DataSource {
                     }
                     // 实例化一个新的DB连接，加入到idle列表
                     PooledConnection newConnection = new PooledConnection(connection.getRealConnection(), this);
+                    newConnection.setStatementCache(connection.getStatementCache());
                     state.idleConnections.add(newConnection);
                     newConnection.setCreatedTimestamp(connection.getCreatedTimestamp());
                     newConnection.setLastUsedTimestamp(connection.getLastUsedTimestamp());
@@ -70,106 +109,159 @@ public class PooledDataSource implements DataSource {
                 }
                 // 否则，空闲链接还比较充足
                 else {
-                    state.accumulatedCheckoutTime += connection.getCheckoutTime();
                     if (!connection.getRealConnection().getAutoCommit()) {
                         connection.getRealConnection().rollback();
                     }
                     // 将connection关闭
+                    closeStatementCache(connection);
                     connection.getRealConnection().close();
                     logger.info("Closed connection " + connection.getRealHashCode() + ".");
                     connection.invalidate();
                 }
             } else {
                 logger.info("A bad connection (" + connection.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
-                state.badConnectionCount++;
+                state.badConnectionCount.increment();
             }
         }
+        if (usageMillis >= 0) {
+            state.usageTime.recordMillis(usageMillis);
+            metricsTracker.recordConnectionUsageMillis(usageMillis);
+        }
     }
 
     private PooledConnection popConnection(String username, String password) throws SQLException {
+        if (registerMbeans && mbeanName == null) {
+            registerMBean();
+        }
+        if (poolAdaptiveSizingEnabled && adaptivePoolSizer == null) {
+            startAdaptiveSizing();
+        }
         boolean countedWait = false;
         PooledConnection conn = null;
         long t = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
         int localBadConnectionCount = 0;
 
-        while (conn == null) {
-            synchronized (state) {
-                // 如果有空闲链接：返回第一个
-                if (!state.idleConnections.isEmpty()) {
-                    conn = state.idleConnections.remove(0);
-                    logger.info("Checked out connection " + conn.getRealHashCode() + " from pool.");
-                }
-                // 如果无空闲链接：创建新的链接
-                else {
-                    // 活跃连接数不足
-                    if (state.activeConnections.size() < poolMaximumActiveConnections) {
-                        conn = new PooledConnection(dataSource.getConnection(), this);
-                        logger.info("Created connection " + conn.getRealHashCode() + ".");
+        state.pendingThreadCount.increment();
+        try {
+            while (conn == null) {
+                // 本轮需要记录的耗时，出了锁再记录
+                long createNanos = -1;
+                long overdueMillis = -1;
+                long acquireNanos = -1;
+                boolean timedOut = false;
+                synchronized (state) {
+                    // 如果有空闲链接：返回第一个
+                    if (!state.idleConnections.isEmpty()) {
+                        conn = state.idleConnections.remove(0);
+                        logger.info("Checked out connection " + conn.getRealHashCode() + " from pool.");
                     }
-                    // 活跃连接数已满
+                    // 如果无空闲链接：创建新的链接
                     else {
-                        // 取得活跃链接列表的第一个，也就是最老的一个连接
-                        PooledConnection oldestActiveConnection = state.activeConnections.get(0);
-                        long longestCheckoutTime = oldestActiveConnection.getCheckoutTime();
-                        // 如果checkout时间过长，则这个链接标记为过期
-                        if (longestCheckoutTime > poolMaximumCheckoutTime) {
-                            state.claimedOverdueConnectionCount++;
-                            state.accumulatedCheckoutTimeOfOverdueConnections += longestCheckoutTime;
-                            state.accumulatedCheckoutTime += longestCheckoutTime;
-                            state.activeConnections.remove(oldestActiveConnection);
-                            if (!oldestActiveConnection.getRealConnection().getAutoCommit()) {
-                                oldestActiveConnection.getRealConnection().rollback();
+                        // 活跃连接数不足
+                        if (state.activeConnections.size() < poolMaximumActiveConnections) {
+                            long createStart = System.nanoTime();
+                            conn = new PooledConnection(dataSource.getConnection(), this);
+                            createNanos = System.nanoTime() - createStart;
+                            if (poolPreparedStatementCacheSize > 0) {
+                                conn.setStatementCache(new StatementCache(poolPreparedStatementCacheSize));
                             }
-                            // 删掉最老的链接，然后重新实例化一个新的链接
-                            conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this);
-                            oldestActiveConnection.invalidate();
-                            logger.info("Claimed overdue connection " + conn.getRealHashCode() + ".");
+                            logger.info("Created connection " + conn.getRealHashCode() + ".");
                         }
-                        // 如果checkout超时时间不够长，则等待
+                        // 活跃连接数已满
                         else {
-                            try {
-                                if (!countedWait) {
-                                    state.hadToWaitCount++;
-                                    countedWait = true;
+                            // 取得活跃链接列表的第一个，也就是最老的一个连接
+                            PooledConnection oldestActiveConnection = state.activeConnections.get(0);
+                            long longestCheckoutTime = oldestActiveConnection.getCheckoutTime();
+                            // 如果checkout时间过长，则这个链接标记为过期
+                            if (longestCheckoutTime > poolMaximumCheckoutTime) {
+                                state.claimedOverdueConnectionCount.increment();
+                                state.accumulatedCheckoutTimeOfOverdueConnections.add(longestCheckoutTime);
+                                state.accumulatedCheckoutTime.add(longestCheckoutTime);
+                                overdueMillis = longestCheckoutTime;
+                                state.activeConnections.remove(oldestActiveConnection);
+                                oldestActiveConnection.cancelLeakTask();
+                                logOverdueClaim(oldestActiveConnection, longestCheckoutTime);
+                                if (!oldestActiveConnection.getRealConnection().getAutoCommit()) {
+                                    oldestActiveConnection.getRealConnection().rollback();
+                                }
+                                // 删掉最老的链接，然后重新实例化一个新的链接
+                                conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this);
+                                conn.setStatementCache(oldestActiveConnection.getStatementCache());
+                                oldestActiveConnection.invalidate();
+                                logger.info("Claimed overdue connection " + conn.getRealHashCode() + ".");
+                            }
+                            // 如果checkout超时时间不够长，则等待
+                            else {
+                                try {
+                                    if (!countedWait) {
+                                        state.hadToWaitCount.increment();
+                                        countedWait = true;
+                                    }
+                                    logger.info("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
+                                    long wt = System.currentTimeMillis();
+                                    state.wait(poolTimeToWait);
+                                    long waited = System.currentTimeMillis() - wt;
+                                    state.accumulatedWaitTime.add(waited);
+                                    if (waited >= poolTimeToWait) {
+                                        state.timeoutCount.increment();
+                                        timedOut = true;
+                                    }
+                                } catch (InterruptedException e) {
+                                    break;
                                 }
-                                logger.info("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
-                                long wt = System.currentTimeMillis();
-                                state.wait(poolTimeToWait);
-                                state.accumulatedWaitTime += System.currentTimeMillis() - wt;
-                            } catch (InterruptedException e) {
-                                break;
                             }
-                        }
 
-                    }
-                }
-                // 获得到链接
-                if (conn != null) {
-                    if (conn.isValid()) {
-                        if (!conn.getRealConnection().getAutoCommit()) {
-                            conn.getRealConnection().rollback();
                         }
-                        conn.setConnectionTypeCode(assembleConnectionTypeCode(dataSource.getUrl(), username, password));
-                        // 记录checkout时间
-                        conn.setCheckoutTimestamp(System.currentTimeMillis());
-                        conn.setLastUsedTimestamp(System.currentTimeMillis());
-                        state.activeConnections.add(conn);
-                        state.requestCount++;
-                        state.accumulatedRequestTime += System.currentTimeMillis() - t;
-                    } else {
-                        logger.info("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
-                        // 如果没拿到，统计信息：失败链接 +1
-                        state.badConnectionCount++;
-                        localBadConnectionCount++;
-                        conn = null;
-                        // 失败次数较多，抛异常
-                        if (localBadConnectionCount > (poolMaximumIdleConnections + 3)) {
-                            logger.debug("PooledDataSource: Could not get a good connection to the database.");
-                            throw new SQLException("PooledDataSource: Could not get a good connection to the database.");
+                    }
+                    // 获得到链接
+                    if (conn != null) {
+                        if (conn.isValid()) {
+                            if (!conn.getRealConnection().getAutoCommit()) {
+                                conn.getRealConnection().rollback();
+                            }
+                            conn.setConnectionTypeCode(assembleConnectionTypeCode(dataSource.getUrl(), username, password));
+                            // 记录checkout时间
+                            conn.setCheckoutTimestamp(System.currentTimeMillis());
+                            conn.setLastUsedTimestamp(System.currentTimeMillis());
+                            if (poolLeakDetectionThreshold > 0) {
+                                conn.setLeakTask(leakDetector.schedule(conn, poolLeakDetectionThreshold));
+                            }
+                            state.activeConnections.add(conn);
+                            state.requestCount.increment();
+                            state.accumulatedRequestTime.add(System.currentTimeMillis() - t);
+                            acquireNanos = System.nanoTime() - startNanos;
+                        } else {
+                            logger.info("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
+                            // 如果没拿到，统计信息：失败链接 +1
+                            state.badConnectionCount.increment();
+                            localBadConnectionCount++;
+                            conn = null;
+                            // 失败次数较多，抛异常
+                            if (localBadConnectionCount > (poolMaximumIdleConnections + 3)) {
+                                logger.debug("PooledDataSource: Could not get a good connection to the database.");
+                                throw new SQLException("PooledDataSource: Could not get a good connection to the database.");
+                            }
                         }
                     }
                 }
+                if (createNanos >= 0) {
+                    state.creationTime.recordNanos(createNanos);
+                    metricsTracker.recordConnectionCreatedNanos(createNanos);
+                }
+                if (overdueMillis >= 0) {
+                    state.usageTime.recordMillis(overdueMillis);
+                }
+                if (timedOut) {
+                    metricsTracker.recordConnectionTimeout();
+                }
+                if (acquireNanos >= 0) {
+                    state.waitTime.recordNanos(acquireNanos);
+                    metricsTracker.recordConnectionAcquiredNanos(acquireNanos);
+                }
             }
+        } finally {
+            state.pendingThreadCount.decrement();
         }
 
         if (conn == null) {
@@ -188,6 +280,8 @@ public class PooledDataSource implements DataSource {
                 try {
                     PooledConnection conn = state.activeConnections.remove(i - 1);
                     conn.invalidate();
+                    conn.cancelLeakTask();
+                    closeStatementCache(conn);
 
                     Connection realConn = conn.getRealConnection();
                     if (!realConn.getAutoCommit()) {
@@ -203,11 +297,13 @@ public class PooledDataSource implements DataSource {
                 try {
                     PooledConnection conn = state.idleConnections.remove(i - 1);
                     conn.invalidate();
+                    closeStatementCache(conn);
 
                     Connection realConn = conn.getRealConnection();
                     if (!realConn.getAutoCommit()) {
                         realConn.rollback();
                     }
+                    realConn.close();
                 } catch (Exception ignore) {
 
                 }
@@ -256,12 +352,120 @@ public class PooledDataSource implements DataSource {
         return result;
     }
 
-    public static Connection unwrapConnection(Connection conn) {
-        if (Proxy.isProxyClass(conn.getClass())) {
-            InvocationHandler handler = Proxy.getInvocationHandler(conn);
-            if (handler instanceof PooledConnection) {
-                return ((PooledConnection) handler).getRealConnection();
+    /**
+     * 强制收回超时连接时，持有者的事务会被回滚，这里打印持有者借出连接时的调用栈，便于定位问题
+     */
+    private void logOverdueClaim(PooledConnection conn, long checkoutTime) {
+        LeakDetector.LeakTask leakTask = conn.getLeakTask();
+        if (leakTask != null) {
+            logger.warn("Claiming overdue connection " + conn.getRealHashCode() + " checked out " + checkoutTime
+                    + " ms ago, its in-flight work is rolled back. Stack trace of the checkout follows", leakTask.getCheckoutTrace());
+        } else {
+            logger.warn("Claiming overdue connection " + conn.getRealHashCode() + " checked out " + checkoutTime
+                    + " ms ago, its in-flight work is rolled back. Set poolLeakDetectionThreshold to find the holder.");
+        }
+    }
+
+    /**
+     * 当前持有时间超过泄漏检测阈值的连接
+     */
+    public List<LeakDetector.LeakSuspect> getLeakSuspects() {
+        return leakDetector.getLeakSuspects();
+    }
+
+    public PoolState getPoolState() {
+        return state;
+    }
+
+    /**
+     * 把池状态注册为 MXBean，重复注册或注册失败只打日志，不影响取连接
+     */
+    private synchronized void registerMBean() {
+        if (mbeanName != null) {
+            return;
+        }
+        try {
+            ObjectName name = new ObjectName("cn.zzb.mybatis:type=PooledDataSource,name=" + ObjectName.quote(getPoolName()));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(state, name);
             }
+            mbeanName = name;
+        } catch (Exception e) {
+            logger.warn("Failed to register pool MXBean for " + getPoolName() + ": " + e.getMessage());
+            registerMbeans = false;
+        }
+    }
+
+    /**
+     * 注销 MXBean，数据源不再使用时调用
+     */
+    public synchronized void unregisterMBean() {
+        if (mbeanName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbeanName);
+        } catch (Exception e) {
+            logger.warn("Failed to unregister pool MXBean " + mbeanName + ": " + e.getMessage());
+        }
+        mbeanName = null;
+    }
+
+    private synchronized void startAdaptiveSizing() {
+        if (adaptivePoolSizer != null) {
+            return;
+        }
+        int max = poolAdaptiveMaximumActiveConnections > 0 ? poolAdaptiveMaximumActiveConnections : poolMaximumActiveConnections * 4;
+        int min = Math.min(poolMinimumActiveConnections, max);
+        AdaptivePoolSizer sizer = new AdaptivePoolSizer(this, min, max, poolAdaptiveIntervalMillis, poolAdaptiveTargetWaitMillis);
+        sizer.start();
+        adaptivePoolSizer = sizer;
+        logger.info("Adaptive pool sizing started for " + getPoolName() + ", bounds [" + min + ", " + max + "].");
+    }
+
+    /**
+     * 停止自适应调整，当前的活跃/空闲上限保持不变
+     */
+    public synchronized void stopAdaptiveSizing() {
+        if (adaptivePoolSizer != null) {
+            adaptivePoolSizer.stop();
+            adaptivePoolSizer = null;
+        }
+        poolAdaptiveSizingEnabled = false;
+    }
+
+    /**
+     * 调整活跃/空闲连接上限：多出来的空闲连接立即关闭，多出来的活跃连接在归还时关闭；扩容时唤醒正在等待的线程
+     */
+    protected void resize(int maximumActiveConnections, int maximumIdleConnections) {
+        synchronized (state) {
+            poolMaximumActiveConnections = maximumActiveConnections;
+            poolMaximumIdleConnections = Math.min(maximumIdleConnections, maximumActiveConnections);
+            while (state.idleConnections.size() > poolMaximumIdleConnections) {
+                PooledConnection conn = state.idleConnections.remove(state.idleConnections.size() - 1);
+                try {
+                    conn.invalidate();
+                    closeStatementCache(conn);
+                    conn.getRealConnection().close();
+                    logger.info("Closed idle connection " + conn.getRealHashCode() + " while shrinking the pool.");
+                } catch (SQLException ignore) {
+                }
+            }
+            state.notifyAll();
+        }
+    }
+
+    private void closeStatementCache(PooledConnection conn) {
+        StatementCache statementCache = conn.getStatementCache();
+        if (statementCache != null) {
+            statementCache.closeAll();
+        }
+    }
+
+    public static Connection unwrapConnection(Connection conn) {
+        if (conn instanceof ProxyConnection) {
+            return ((ProxyConnection) conn).getPoolEntry().getRealConnection();
         }
         return conn;
     }
@@ -351,7 +555,11 @@ public class PooledDataSource implements DataSource {
     }
 
     public void setPoolMaximumActiveConnections(int poolMaximumActiveConnections) {
-        this.poolMaximumActiveConnections = poolMaximumActiveConnections;
+        synchronized (state) {
+            this.poolMaximumActiveConnections = poolMaximumActiveConnections;
+            // 上限调大后让等待中的线程重新尝试
+            state.notifyAll();
+        }
     }
 
     public int getPoolMaximumIdleConnections() {
@@ -402,6 +610,90 @@ public class PooledDataSource implements DataSource {
         this.poolPingConnectionsNotUsedFor = poolPingConnectionsNotUsedFor;
     }
 
+    public int getPoolPreparedStatementCacheSize() {
+        return poolPreparedStatementCacheSize;
+    }
+
+    public void setPoolPreparedStatementCacheSize(int poolPreparedStatementCacheSize) {
+        this.poolPreparedStatementCacheSize = poolPreparedStatementCacheSize;
+        forceCloseAll();
+    }
+
+    public int getPoolLeakDetectionThreshold() {
+        return poolLeakDetectionThreshold;
+    }
+
+    public void setPoolLeakDetectionThreshold(int poolLeakDetectionThreshold) {
+        this.poolLeakDetectionThreshold = poolLeakDetectionThreshold;
+    }
+
+    public boolean isPoolAdaptiveSizingEnabled() {
+        return poolAdaptiveSizingEnabled;
+    }
+
+    public void setPoolAdaptiveSizingEnabled(boolean poolAdaptiveSizingEnabled) {
+        if (!poolAdaptiveSizingEnabled) {
+            stopAdaptiveSizing();
+        }
+        this.poolAdaptiveSizingEnabled = poolAdaptiveSizingEnabled;
+    }
+
+    public int getPoolMinimumActiveConnections() {
+        return poolMinimumActiveConnections;
+    }
+
+    public void setPoolMinimumActiveConnections(int poolMinimumActiveConnections) {
+        this.poolMinimumActiveConnections = poolMinimumActiveConnections;
+    }
+
+    public int getPoolAdaptiveMaximumActiveConnections() {
+        return poolAdaptiveMaximumActiveConnections;
+    }
+
+    public void setPoolAdaptiveMaximumActiveConnections(int poolAdaptiveMaximumActiveConnections) {
+        this.poolAdaptiveMaximumActiveConnections = poolAdaptiveMaximumActiveConnections;
+    }
+
+    public int getPoolAdaptiveIntervalMillis() {
+        return poolAdaptiveIntervalMillis;
+    }
+
+    public void setPoolAdaptiveIntervalMillis(int poolAdaptiveIntervalMillis) {
+        this.poolAdaptiveIntervalMillis = poolAdaptiveIntervalMillis;
+    }
+
+    public int getPoolAdaptiveTargetWaitMillis() {
+        return poolAdaptiveTargetWaitMillis;
+    }
+
+    public void setPoolAdaptiveTargetWaitMillis(int poolAdaptiveTargetWaitMillis) {
+        this.poolAdaptiveTargetWaitMillis = poolAdaptiveTargetWaitMillis;
+    }
+
+    public String getPoolName() {
+        return poolName != null ? poolName : "pool-" + Integer.toHexString(System.identityHashCode(this));
+    }
+
+    public void setPoolName(String poolName) {
+        this.poolName = poolName;
+    }
+
+    public boolean isRegisterMbeans() {
+        return registerMbeans;
+    }
+
+    public void setRegisterMbeans(boolean registerMbeans) {
+        this.registerMbeans = registerMbeans;
+    }
+
+    public PoolMetricsTracker getMetricsTracker() {
+        return metricsTracker;
+    }
+
+    public void setMetricsTracker(PoolMetricsTracker metricsTracker) {
+        this.metricsTracker = metricsTracker == null ? NO_OP_TRACKER : metricsTracker;
+    }
+
     public int getExpectedConnectionTypeCode() {
         return expectedConnectionTypeCode;
     }
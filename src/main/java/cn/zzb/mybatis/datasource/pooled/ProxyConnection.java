@@ -0,0 +1,441 @@
+package cn.zzb.mybatis.datasource.pooled;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+/**
+ * 池化连接的包装类
+ * <p>
+ * 取代原来基于 java.lang.reflect.Proxy + Method.invoke 的动态代理：每个 JDBC 方法都是直接委派给真实连接，
+ * 调用路径上没有反射。连接被连接池回收（invalidate）后，委派目标会被替换为一个只会抛异常的“已关闭连接”，
+ * 因此也不需要在每次调用前检查连接是否合法。
+ * <p>
+ * 通过本连接创建的 Statement 都会被跟踪，连接归还连接池时统一关闭，避免语句泄漏到下一个使用者。
+ */
+public class ProxyConnection implements Connection {
+
+    private static final Connection CLOSED_CONNECTION = closedConnection();
+
+    private final PooledConnection poolEntry;
+    private final PooledDataSource dataSource;
+
+    // 真实的连接，回收后替换为 CLOSED_CONNECTION；回收发生在其他线程（popConnection 回收超时连接），必须 volatile 才能让持有线程看到
+    private volatile Connection delegate;
+
+    // 当前连接上还没有关闭的语句
+    private final List<Statement> openStatements = new ArrayList<>();
+
+    ProxyConnection(PooledConnection poolEntry, PooledDataSource dataSource, Connection delegate) {
+        this.poolEntry = poolEntry;
+        this.dataSource = dataSource;
+        this.delegate = delegate;
+    }
+
+    /**
+     * 连接被连接池收回，此后对本包装类的任何调用都会抛出 SQLException
+     */
+    void invalidate() {
+        delegate = CLOSED_CONNECTION;
+    }
+
+    boolean isInvalidated() {
+        return delegate == CLOSED_CONNECTION;
+    }
+
+    Connection getDelegate() {
+        return delegate;
+    }
+
+    PooledConnection getPoolEntry() {
+        return poolEntry;
+    }
+
+    <T extends Statement> T trackStatement(T statement) {
+        openStatements.add(statement);
+        return statement;
+    }
+
+    void untrackStatement(Statement statement) {
+        // 语句通常按创建的逆序关闭，从尾部开始找
+        for (int i = openStatements.size() - 1; i >= 0; i--) {
+            if (openStatements.get(i) == statement) {
+                openStatements.remove(i);
+                return;
+            }
+        }
+    }
+
+    private void closeStatements() {
+        int size = openStatements.size();
+        if (size == 0) {
+            return;
+        }
+        // 倒序关闭，Statement.close() 会回调 untrackStatement
+        for (int i = size - 1; i >= 0; i--) {
+            try {
+                openStatements.get(i).close();
+            } catch (SQLException ignore) {
+                // 语句关闭失败不影响连接归还
+            }
+        }
+        openStatements.clear();
+    }
+
+    /* --------以下方法需要特殊处理------ */
+
+    /**
+     * 关闭连接：关闭所有未关闭的语句，并把连接归还连接池
+     */
+    @Override
+    public void close() throws SQLException {
+        if (isInvalidated()) {
+            // 已经归还或被连接池收回，重复 close 什么也不做
+            return;
+        }
+        closeStatements();
+        dataSource.pushConnection(poolEntry);
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return isInvalidated() || delegate.isClosed();
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        return trackStatement(new ProxyStatement(this, delegate.createStatement()));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        return trackStatement(new ProxyStatement(this, delegate.createStatement(resultSetType, resultSetConcurrency)));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return trackStatement(new ProxyStatement(this, delegate.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability)));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return prepareCachedStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, Statement.NO_GENERATED_KEYS);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        return prepareCachedStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, autoGeneratedKeys);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        return trackStatement(new ProxyPreparedStatement(this, delegate.prepareStatement(sql, columnIndexes), null));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        return trackStatement(new ProxyPreparedStatement(this, delegate.prepareStatement(sql, columnNames), null));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return prepareCachedStatement(sql, resultSetType, resultSetConcurrency, Statement.NO_GENERATED_KEYS);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return trackStatement(new ProxyPreparedStatement(this, delegate.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability), null));
+    }
+
+    /**
+     * 开启了语句缓存时，优先从物理连接的缓存中取 PreparedStatement，关闭时再放回缓存
+     */
+    private PreparedStatement prepareCachedStatement(String sql, int resultSetType, int resultSetConcurrency, int autoGeneratedKeys) throws SQLException {
+        StatementCache statementCache = poolEntry.getStatementCache();
+        if (statementCache == null) {
+            return trackStatement(new ProxyPreparedStatement(this, doPrepareStatement(sql, resultSetType, resultSetConcurrency, autoGeneratedKeys), null));
+        }
+        StatementCache.Key key = new StatementCache.Key(sql, resultSetType, resultSetConcurrency, autoGeneratedKeys);
+        PreparedStatement statement = statementCache.take(key);
+        if (statement == null) {
+            statement = doPrepareStatement(sql, resultSetType, resultSetConcurrency, autoGeneratedKeys);
+        }
+        return trackStatement(new ProxyPreparedStatement(this, statement, key));
+    }
+
+    private PreparedStatement doPrepareStatement(String sql, int resultSetType, int resultSetConcurrency, int autoGeneratedKeys) throws SQLException {
+        if (autoGeneratedKeys != Statement.NO_GENERATED_KEYS) {
+            return delegate.prepareStatement(sql, autoGeneratedKeys);
+        }
+        if (resultSetType == ResultSet.TYPE_FORWARD_ONLY && resultSetConcurrency == ResultSet.CONCUR_READ_ONLY) {
+            return delegate.prepareStatement(sql);
+        }
+        return delegate.prepareStatement(sql, resultSetType, resultSetConcurrency);
+    }
+
+    /**
+     * 缓存的语句使用完毕，放回物理连接的缓存；连接已经失效时直接关闭
+     */
+    void returnToCache(StatementCache.Key key, PreparedStatement statement) throws SQLException {
+        StatementCache statementCache = poolEntry.getStatementCache();
+        if (statementCache == null || isInvalidated()) {
+            statement.close();
+            return;
+        }
+        statementCache.offer(key, statement);
+    }
+
+    // 存储过程语句不做包装，但同样跟踪，连接归还时关闭
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        return trackStatement(delegate.prepareCall(sql));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return trackStatement(delegate.prepareCall(sql, resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return trackStatement(delegate.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(delegate)) {
+            return iface.cast(delegate);
+        }
+        return delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(delegate) || delegate.isWrapperFor(iface);
+    }
+
+    @Override
+    public String toString() {
+        return "ProxyConnection wrapping " + delegate;
+    }
+
+    /* --------以下方法直接委派给真实连接------ */
+
+    @Override
+    public void abort(Executor executor) throws SQLException {
+        delegate.abort(executor);
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        delegate.clearWarnings();
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        delegate.commit();
+    }
+
+    @Override
+    public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
+        return delegate.createArrayOf(typeName, elements);
+    }
+
+    @Override
+    public Blob createBlob() throws SQLException {
+        return delegate.createBlob();
+    }
+
+    @Override
+    public Clob createClob() throws SQLException {
+        return delegate.createClob();
+    }
+
+    @Override
+    public NClob createNClob() throws SQLException {
+        return delegate.createNClob();
+    }
+
+    @Override
+    public SQLXML createSQLXML() throws SQLException {
+        return delegate.createSQLXML();
+    }
+
+    @Override
+    public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+        return delegate.createStruct(typeName, attributes);
+    }
+
+    @Override
+    public boolean getAutoCommit() throws SQLException {
+        return delegate.getAutoCommit();
+    }
+
+    @Override
+    public String getCatalog() throws SQLException {
+        return delegate.getCatalog();
+    }
+
+    @Override
+    public Properties getClientInfo() throws SQLException {
+        return delegate.getClientInfo();
+    }
+
+    @Override
+    public String getClientInfo(String name) throws SQLException {
+        return delegate.getClientInfo(name);
+    }
+
+    @Override
+    public int getHoldability() throws SQLException {
+        return delegate.getHoldability();
+    }
+
+    @Override
+    public DatabaseMetaData getMetaData() throws SQLException {
+        return delegate.getMetaData();
+    }
+
+    @Override
+    public int getNetworkTimeout() throws SQLException {
+        return delegate.getNetworkTimeout();
+    }
+
+    @Override
+    public String getSchema() throws SQLException {
+        return delegate.getSchema();
+    }
+
+    @Override
+    public int getTransactionIsolation() throws SQLException {
+        return delegate.getTransactionIsolation();
+    }
+
+    @Override
+    public Map<String, Class<?>> getTypeMap() throws SQLException {
+        return delegate.getTypeMap();
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        return delegate.getWarnings();
+    }
+
+    @Override
+    public boolean isReadOnly() throws SQLException {
+        return delegate.isReadOnly();
+    }
+
+    @Override
+    public boolean isValid(int timeout) throws SQLException {
+        return delegate.isValid(timeout);
+    }
+
+    @Override
+    public String nativeSQL(String sql) throws SQLException {
+        return delegate.nativeSQL(sql);
+    }
+
+    @Override
+    public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+        delegate.releaseSavepoint(savepoint);
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+        delegate.rollback();
+    }
+
+    @Override
+    public void rollback(Savepoint savepoint) throws SQLException {
+        delegate.rollback(savepoint);
+    }
+
+    @Override
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        delegate.setAutoCommit(autoCommit);
+    }
+
+    @Override
+    public void setCatalog(String catalog) throws SQLException {
+        delegate.setCatalog(catalog);
+    }
+
+    @Override
+    public void setClientInfo(Properties properties) throws SQLClientInfoException {
+        delegate.setClientInfo(properties);
+    }
+
+    @Override
+    public void setClientInfo(String name, String value) throws SQLClientInfoException {
+        delegate.setClientInfo(name, value);
+    }
+
+    @Override
+    public void setHoldability(int holdability) throws SQLException {
+        delegate.setHoldability(holdability);
+    }
+
+    @Override
+    public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+        delegate.setNetworkTimeout(executor, milliseconds);
+    }
+
+    @Override
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        delegate.setReadOnly(readOnly);
+    }
+
+    @Override
+    public Savepoint setSavepoint() throws SQLException {
+        return delegate.setSavepoint();
+    }
+
+    @Override
+    public Savepoint setSavepoint(String name) throws SQLException {
+        return delegate.setSavepoint(name);
+    }
+
+    @Override
+    public void setSchema(String schema) throws SQLException {
+        delegate.setSchema(schema);
+    }
+
+    @Override
+    public void setTransactionIsolation(int level) throws SQLException {
+        delegate.setTransactionIsolation(level);
+    }
+
+    @Override
+    public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+        delegate.setTypeMap(map);
+    }
+
+    /**
+     * 已关闭连接：只在连接被回收之后才会被调用到，因此这里用动态代理实现不会影响正常调用路径的性能
+     */
+    private static Connection closedConnection() {
+        InvocationHandler handler = (proxy, method, args) -> {
+            String methodName = method.getName();
+            if ("isClosed".equals(methodName)) {
+                return Boolean.TRUE;
+            } else if ("isValid".equals(methodName)) {
+                return Boolean.FALSE;
+            } else if ("toString".equals(methodName)) {
+                return "ClosedConnection";
+            } else if ("hashCode".equals(methodName)) {
+                return System.identityHashCode(proxy);
+            } else if ("equals".equals(methodName)) {
+                return proxy == args[0];
+            }
+            throw new SQLException("Error accessing PooledConnection. Connection is invalid.");
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+    }
+
+}
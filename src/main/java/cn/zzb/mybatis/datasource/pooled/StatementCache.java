@@ -0,0 +1,163 @@
+package cn.zzb.mybatis.datasource.pooled;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 物理连接级别的 PreparedStatement LRU 缓存
+ * <p>
+ * 缓存跟随真实连接，而不是某一次借出的 PooledConnection，所以连接归还连接池、被下一个会话借出后依然有效，
+ * 同一条 SQL 不需要重新 prepare（配合 MySQL 的 useServerPrepStmts 可以省掉服务端的解析和执行计划）。
+ * <p>
+ * 语句被借出时从缓存中移除，关闭时再放回，因此同一条 SQL 在一个连接上同时打开两次也不会拿到同一个对象。
+ * 超出容量时淘汰最久未使用的语句并关闭它。
+ * <p>
+ * 缓存由持有连接的线程读写，但连接被回收（超时连接被其他线程收回、连接池关闭）时会在其他线程上转移或关闭，
+ * 因此所有操作都在缓存自身的锁内进行；{@link #closeAll()} 之后放回的语句直接关闭。
+ */
+public class StatementCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementCache.class);
+
+    private final int maxSize;
+
+    private final LinkedHashMap<Key, PreparedStatement> cache;
+
+    private long hits;
+    private long misses;
+    private boolean closed;
+
+    public StatementCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.cache = new LinkedHashMap<Key, PreparedStatement>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+                if (size() > StatementCache.this.maxSize) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 取出一个缓存的语句，没有则返回 null
+     */
+    public synchronized PreparedStatement take(Key key) {
+        PreparedStatement statement = cache.remove(key);
+        if (statement != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return statement;
+    }
+
+    /**
+     * 语句使用完毕，放回缓存
+     */
+    public synchronized void offer(Key key, PreparedStatement statement) {
+        if (closed) {
+            closeQuietly(statement);
+            return;
+        }
+        PreparedStatement previous = cache.put(key, statement);
+        if (previous != null && previous != statement) {
+            // 同一条 SQL 被同时打开过两次，只保留一个
+            closeQuietly(previous);
+        }
+    }
+
+    public synchronized void closeAll() {
+        closed = true;
+        Iterator<PreparedStatement> iterator = cache.values().iterator();
+        while (iterator.hasNext()) {
+            closeQuietly(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            logger.debug("Error closing cached statement. Cause: " + e);
+        }
+    }
+
+    /**
+     * 缓存键：SQL + 结果集类型 + 并发类型 + 是否返回自增主键
+     */
+    public static final class Key {
+
+        private final String sql;
+        private final int resultSetType;
+        private final int resultSetConcurrency;
+        private final int autoGeneratedKeys;
+        private final int hashCode;
+
+        public Key(String sql, int resultSetType, int resultSetConcurrency, int autoGeneratedKeys) {
+            this.sql = sql;
+            this.resultSetType = resultSetType;
+            this.resultSetConcurrency = resultSetConcurrency;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+            int h = sql.hashCode();
+            h = 31 * h + resultSetType;
+            h = 31 * h + resultSetConcurrency;
+            h = 31 * h + autoGeneratedKeys;
+            this.hashCode = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hashCode == other.hashCode
+                    && resultSetType == other.resultSetType
+                    && resultSetConcurrency == other.resultSetConcurrency
+                    && autoGeneratedKeys == other.autoGeneratedKeys
+                    && sql.equals(other.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return sql;
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package cn.zzb.mybatis.datasource.pooled.metrics;
+
+/**
+ * 直方图的只读摘要（单位：毫秒），作为 MXBean 属性时会被映射成 CompositeData
+ */
+public class LatencySummary {
+
+    private final long count;
+    private final double mean;
+    private final double p50;
+    private final double p95;
+    private final double p99;
+    private final double max;
+
+    public LatencySummary(long count, double mean, double p50, double p95, double p99, double max) {
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    public static LatencySummary of(LatencyHistogram histogram) {
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        return new LatencySummary(snapshot.getCount(), histogram.getMean(),
+                snapshot.getPercentile(50), snapshot.getPercentile(95), snapshot.getPercentile(99), histogram.getMax());
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getP50() {
+        return p50;
+    }
+
+    public double getP95() {
+        return p95;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, mean=%.3fms, p50=%.3fms, p95=%.3fms, p99=%.3fms, max=%.3fms", count, mean, p50, p95, p99, max);
+    }
+
+}
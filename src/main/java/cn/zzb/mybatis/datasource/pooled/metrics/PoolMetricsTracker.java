@@ -0,0 +1,41 @@
+package cn.zzb.mybatis.datasource.pooled.metrics;
+
+/**
+ * 连接池指标 SPI
+ * <p>
+ * 连接池内置的直方图和计数器通过 JMX 暴露；如果需要把指标接入 Micrometer、Prometheus 等监控系统，
+ * 实现本接口并通过 PooledDataSource.setMetricsTracker 注册即可。所有方法都在获取或归还连接的调用路径上执行，实现必须足够轻量且线程安全。
+ */
+public interface PoolMetricsTracker {
+
+    /**
+     * 一次获取连接的等待耗时（包括需要新建连接的情况）
+     */
+    default void recordConnectionAcquiredNanos(long elapsedNanos) {
+    }
+
+    /**
+     * 连接从借出到归还的持有时间
+     */
+    default void recordConnectionUsageMillis(long elapsedMillis) {
+    }
+
+    /**
+     * 新建一个物理连接的耗时
+     */
+    default void recordConnectionCreatedNanos(long elapsedNanos) {
+    }
+
+    /**
+     * 等待超过 poolTimeToWait 仍没有拿到连接
+     */
+    default void recordConnectionTimeout() {
+    }
+
+    /**
+     * 连接持有时间超过泄漏检测阈值
+     */
+    default void recordConnectionLeak() {
+    }
+
+}
@@ -0,0 +1,111 @@
+package cn.zzb.mybatis.datasource.routing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 基于 SHOW REPLICA STATUS 的 MySQL 从库延迟守卫
+ * <p>
+ * 先执行 SHOW REPLICA STATUS（MySQL 8.0.22+，8.4 起 SHOW SLAVE STATUS 已被移除），失败时退回 SHOW SLAVE STATUS 并记住该从库使用旧语句；
+ * 延迟列优先读取 Seconds_Behind_Source，没有时读取 Seconds_Behind_Master（旧版本以及 MariaDB）。
+ * 延迟超过 maxLagSeconds、复制线程停止（值为 NULL）或者查询失败时，认为从库不可用。
+ * 检查结果缓存 checkIntervalMillis 毫秒，同一时刻每个从库只有一个线程去刷新，其余线程直接使用上一次的结果。
+ */
+public class MySqlReplicaLagGuard implements ReplicaLagGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(MySqlReplicaLagGuard.class);
+
+    private final long maxLagSeconds;
+    private final long checkIntervalMillis;
+    private final Map<DataSource, LagStatus> statuses = new ConcurrentHashMap<>();
+
+    public MySqlReplicaLagGuard(long maxLagSeconds, long checkIntervalMillis) {
+        this.maxLagSeconds = maxLagSeconds;
+        this.checkIntervalMillis = checkIntervalMillis;
+    }
+
+    @Override
+    public boolean isAvailable(DataSource replica) {
+        LagStatus status = statuses.computeIfAbsent(replica, k -> new LagStatus());
+        long now = System.currentTimeMillis();
+        if (now - status.checkedAt > checkIntervalMillis && status.refreshing.compareAndSet(false, true)) {
+            try {
+                status.available = check(replica, status);
+                status.checkedAt = System.currentTimeMillis();
+            } finally {
+                status.refreshing.set(false);
+            }
+        }
+        return status.available;
+    }
+
+    private boolean check(DataSource replica, LagStatus status) {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement()) {
+            if (!status.legacy) {
+                try (ResultSet rs = statement.executeQuery("SHOW REPLICA STATUS")) {
+                    return check(replica, rs);
+                } catch (SQLException e) {
+                    // 8.0.22 之前的版本不认识 SHOW REPLICA STATUS，旧语句也失败时按原来的错误处理
+                    try (ResultSet rs = statement.executeQuery("SHOW SLAVE STATUS")) {
+                        status.legacy = true;
+                        return check(replica, rs);
+                    } catch (SQLException legacyError) {
+                        e.addSuppressed(legacyError);
+                        throw e;
+                    }
+                }
+            }
+            try (ResultSet rs = statement.executeQuery("SHOW SLAVE STATUS")) {
+                return check(replica, rs);
+            }
+        } catch (SQLException e) {
+            logger.warn("Failed to check replica lag of " + replica + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean check(DataSource replica, ResultSet rs) throws SQLException {
+        if (!rs.next()) {
+            // 不是从库（例如本地开发直接指向主库），不做限制
+            return true;
+        }
+        long lag = rs.getLong(lagColumn(rs.getMetaData()));
+        if (rs.wasNull()) {
+            logger.warn("Replica " + replica + " is not replicating, routing reads away from it.");
+            return false;
+        }
+        if (lag > maxLagSeconds) {
+            logger.warn("Replica " + replica + " is " + lag + "s behind source (max " + maxLagSeconds + "s), routing reads away from it.");
+            return false;
+        }
+        return true;
+    }
+
+    private static String lagColumn(ResultSetMetaData metaData) throws SQLException {
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if ("Seconds_Behind_Source".equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                return "Seconds_Behind_Source";
+            }
+        }
+        return "Seconds_Behind_Master";
+    }
+
+    private static class LagStatus {
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile long checkedAt = Long.MIN_VALUE / 2;
+        private volatile boolean available = true;
+        private volatile boolean legacy;
+    }
+
+}
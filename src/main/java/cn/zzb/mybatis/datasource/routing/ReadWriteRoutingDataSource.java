@@ -0,0 +1,164 @@
+package cn.zzb.mybatis.datasource.routing;
+
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+
+/**
+ * 读写分离数据源
+ * <p>
+ * getConnection() 始终返回主库连接；getReadConnection() 按权重随机选择一个从库，跳过被 {@link ReplicaLagGuard} 判定为延迟过大的从库，
+ * 从库全部不可用或者都取不到连接时退回主库。具体哪些语句走从库由 JdbcTransaction 和 Executor 决定：
+ * 只有不在写事务中的 SELECT 才会调用 getReadConnection()。
+ */
+public class ReadWriteRoutingDataSource implements DataSource {
+
+    private org.slf4j.Logger logger = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new CopyOnWriteArrayList<>();
+    private volatile ReplicaLagGuard lagGuard = ReplicaLagGuard.NONE;
+
+    public ReadWriteRoutingDataSource(DataSource primary) {
+        this.primary = primary;
+    }
+
+    public ReadWriteRoutingDataSource addReplica(DataSource replica, int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Replica weight must be positive, but was " + weight);
+        }
+        replicas.add(new Replica(replica, weight));
+        return this;
+    }
+
+    /**
+     * 读连接：按权重选从库，取不到时退回主库
+     */
+    public Connection getReadConnection() throws SQLException {
+        List<Replica> candidates = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (lagGuard.isAvailable(replica.dataSource)) {
+                candidates.add(replica);
+            }
+        }
+        while (!candidates.isEmpty()) {
+            Replica replica = choose(candidates);
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                logger.warn("Failed to get connection from replica " + replica.dataSource + ", trying next: " + e.getMessage());
+                candidates.remove(replica);
+            }
+        }
+        if (!replicas.isEmpty()) {
+            logger.warn("No replica available, reading from primary.");
+        }
+        return primary.getConnection();
+    }
+
+    private Replica choose(List<Replica> candidates) {
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        int totalWeight = 0;
+        for (Replica replica : candidates) {
+            totalWeight += replica.weight;
+        }
+        int r = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Replica replica : candidates) {
+            r -= replica.weight;
+            if (r < 0) {
+                return replica;
+            }
+        }
+        return candidates.get(candidates.size() - 1);
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public List<DataSource> getReplicas() {
+        List<DataSource> list = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            list.add(replica.dataSource);
+        }
+        return list;
+    }
+
+    public ReplicaLagGuard getLagGuard() {
+        return lagGuard;
+    }
+
+    public void setLagGuard(ReplicaLagGuard lagGuard) {
+        this.lagGuard = lagGuard == null ? ReplicaLagGuard.NONE : lagGuard;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    private static class Replica {
+        private final DataSource dataSource;
+        private final int weight;
+
+        Replica(DataSource dataSource, int weight) {
+            this.dataSource = dataSource;
+            this.weight = weight;
+        }
+    }
+
+}
@@ -0,0 +1,17 @@
+package cn.zzb.mybatis.datasource.routing;
+
+import javax.sql.DataSource;
+
+/**
+ * 从库延迟守卫：判断一个从库当前是否可以承接读请求
+ */
+public interface ReplicaLagGuard {
+
+    /**
+     * 不做检查，所有从库都可用
+     */
+    ReplicaLagGuard NONE = replica -> true;
+
+    boolean isAvailable(DataSource replica);
+
+}
@@ -0,0 +1,40 @@
+package cn.zzb.mybatis.datasource.routing;
+
+/**
+ * 读写分离的线程级提示
+ * <p>
+ * 在作用域内执行的查询一律走主库，适用于刚写完就要读、不能接受从库延迟的场景：
+ * <pre>
+ * try (RoutingHint.Scope ignored = RoutingHint.forcePrimary()) {
+ *     userDao.queryUserInfoById(1L);
+ * }
+ * </pre>
+ * 作用域可以嵌套，最外层关闭后才恢复默认路由。
+ */
+public final class RoutingHint {
+
+    private static final ThreadLocal<int[]> FORCE_PRIMARY_DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    private RoutingHint() {
+    }
+
+    public static Scope forcePrimary() {
+        int[] depth = FORCE_PRIMARY_DEPTH.get();
+        depth[0]++;
+        return () -> {
+            if (--depth[0] <= 0) {
+                FORCE_PRIMARY_DEPTH.remove();
+            }
+        };
+    }
+
+    public static boolean isForcePrimary() {
+        return FORCE_PRIMARY_DEPTH.get()[0] > 0;
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+}
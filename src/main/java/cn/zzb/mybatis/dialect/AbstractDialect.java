@@ -0,0 +1,108 @@
+package cn.zzb.mybatis.dialect;
+
+import cn.zzb.mybatis.parsing.SqlClauseParser;
+import cn.zzb.mybatis.parsing.SqlClauses;
+import cn.zzb.mybatis.session.RowBounds;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 方言基类：判断语句能否改写，子类只负责拼接分页子句
+ * <p>
+ * 只改写顶层是单个 SELECT、没有 LIMIT 和加锁子句的语句，其余情况（UNION、已经手写了 LIMIT 等）返回 null。
+ * upsert 同样在这里解析 INSERT 的列清单、算出要更新的列，子类只负责拼接各自的语法；渲染结果按 SQL 缓存。
+ */
+public abstract class AbstractDialect implements Dialect {
+
+    // 缓存的 upsert 语句条数上限，动态 SQL 拼出很多不同的语句时不再缓存新的
+    private static final int MAX_CACHED_UPSERTS = 1024;
+
+    private final ConcurrentMap<String, String> upsertCache = new ConcurrentHashMap<>();
+
+    @Override
+    public String getLimitSql(String sql, RowBounds rowBounds, List<Object> parameters) {
+        if (!rowBounds.isBounded()) {
+            return null;
+        }
+        SqlClauses clauses = SqlClauseParser.parse(sql);
+        if (clauses == null || clauses.getLimit() != null || clauses.isLocking()) {
+            return null;
+        }
+        StringBuilder limitSql = new StringBuilder(sql.length() + 24).append(trimEnd(sql));
+        appendLimit(limitSql, rowBounds.getOffset(), rowBounds.getLimit(), parameters);
+        return limitSql.toString();
+    }
+
+    @Override
+    public String getUpsertSql(String insertSql, String[] conflictColumns, String[] updateColumns) {
+        String key = insertSql + '\0' + Arrays.toString(conflictColumns) + '\0' + Arrays.toString(updateColumns);
+        String upsertSql = upsertCache.get(key);
+        if (upsertSql != null) {
+            return upsertSql;
+        }
+        String sql = trimEnd(insertSql);
+        int[] columnList = SqlClauseParser.findInsertColumns(sql);
+        if (columnList == null) {
+            return null;
+        }
+        List<String> conflicts = conflictColumns == null ? new ArrayList<>() : Arrays.asList(conflictColumns);
+        List<String> updates = new ArrayList<>();
+        if (updateColumns != null) {
+            updates.addAll(Arrays.asList(updateColumns));
+        } else {
+            for (String column : sql.substring(columnList[0] + 1, columnList[1] - 1).split(",")) {
+                if (!containsColumn(conflicts, column)) {
+                    updates.add(column.trim());
+                }
+            }
+        }
+        upsertSql = renderUpsert(sql, columnList, conflicts, updates);
+        if (upsertSql != null && upsertCache.size() < MAX_CACHED_UPSERTS) {
+            upsertCache.putIfAbsent(key, upsertSql);
+        }
+        return upsertSql;
+    }
+
+    /**
+     * 拼接 upsert 语句，默认不支持
+     *
+     * @param insertSql       去掉结尾分号的 INSERT
+     * @param columnList      INSERT 列清单括号的位置 {'(' 位置, ')' 之后的位置}
+     * @param conflictColumns 判断冲突的唯一键列，可能为空
+     * @param updateColumns   冲突时更新的列，可能为空（所有列都是冲突列）
+     */
+    protected String renderUpsert(String insertSql, int[] columnList, List<String> conflictColumns, List<String> updateColumns) {
+        return null;
+    }
+
+    /**
+     * 追加分页子句，limit 为 {@link RowBounds#NO_ROW_LIMIT} 时表示只跳过 offset 行
+     */
+    protected abstract void appendLimit(StringBuilder sql, int offset, int limit, List<Object> parameters);
+
+    // 列名比较时去掉表名前缀和反引号，不区分大小写
+    private static boolean containsColumn(List<String> columns, String column) {
+        String name = SqlClauseParser.simpleName(column).toLowerCase(Locale.ENGLISH);
+        for (String candidate : columns) {
+            if (SqlClauseParser.simpleName(candidate).toLowerCase(Locale.ENGLISH).equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 去掉结尾的分号和空白，分页子句拼在语句最后
+    private static String trimEnd(String sql) {
+        int end = sql.length();
+        while (end > 0 && (Character.isWhitespace(sql.charAt(end - 1)) || sql.charAt(end - 1) == ';')) {
+            end--;
+        }
+        return sql.substring(0, end);
+    }
+
+}
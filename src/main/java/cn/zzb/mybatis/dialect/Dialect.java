@@ -0,0 +1,58 @@
+package cn.zzb.mybatis.dialect;
+
+import cn.zzb.mybatis.executor.bulk.BatchInsertBulkLoader;
+import cn.zzb.mybatis.executor.bulk.BulkLoader;
+import cn.zzb.mybatis.session.RowBounds;
+
+import java.util.List;
+
+/**
+ * 数据库方言：把 RowBounds 分页改写成数据库自己的分页语法，让数据库只返回需要的那一页
+ * <p>
+ * 偏移量和行数以 ? 占位符拼接（而不是直接拼数字），不同页的 SQL 文本相同，可以复用语句缓存和数据库的执行计划。
+ * 方言同时决定批量导入（SqlSession#bulkLoad）的方式。
+ */
+public interface Dialect {
+
+    /**
+     * 为查询拼接分页子句
+     *
+     * @param sql        原始 SQL
+     * @param rowBounds  分页边界
+     * @param parameters 按占位符顺序追加的分页参数值
+     * @return 改写后的 SQL；不能改写（不是单个 SELECT、已经带有 LIMIT、带加锁子句等）时返回 null，
+     * 由调用方退回 setMaxRows + 跳过 offset 行的方式
+     */
+    String getLimitSql(String sql, RowBounds rowBounds, List<Object> parameters);
+
+    /**
+     * 把 upsert 语句中写的单行 INSERT 渲染成数据库自己的插入或更新语法
+     *
+     * @param insertSql       INSERT INTO t (列, ...) VALUES (...)
+     * @param conflictColumns 判断冲突的唯一键列，可以为 null（MySQL 按表上所有唯一键判断）
+     * @param updateColumns   冲突时更新的列，为 null 时更新 INSERT 中除冲突列以外的所有列
+     * @return 渲染后的 SQL；数据库不支持或语句无法渲染时返回 null
+     */
+    default String getUpsertSql(String insertSql, String[] conflictColumns, String[] updateColumns) {
+        return null;
+    }
+
+    /**
+     * 按驱动返回的影响行数统计一批 upsert 中插入和更新的行数
+     *
+     * @param updateCounts 每次 addBatch 的影响行数
+     * @param rows         这一批的行数，多行插入时大于 updateCounts.length
+     * @return {插入行数, 更新行数}；影响行数无法区分插入和更新时返回 null
+     */
+    default long[] countUpserts(int[] updateCounts, int rows) {
+        return null;
+    }
+
+    /**
+     * 批量导入器，默认分块执行 JDBC 批量插入
+     */
+    default BulkLoader getBulkLoader() {
+        return BatchInsertBulkLoader.INSTANCE;
+    }
+
+}
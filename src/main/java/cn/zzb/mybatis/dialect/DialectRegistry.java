@@ -0,0 +1,50 @@
+package cn.zzb.mybatis.dialect;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 方言注册器：按 JDBC 连接的数据库产品名（DatabaseMetaData#getDatabaseProductName）找到方言
+ * <p>
+ * 内置 MySQL、MariaDB、H2、PostgreSQL，没有注册的数据库返回 null，分页退回 setMaxRows 的方式。
+ * 通过 {@link #setDialect} 指定方言后不再按连接探测。
+ */
+public class DialectRegistry {
+
+    private final Map<String, Dialect> dialects = new ConcurrentHashMap<>();
+    private volatile Dialect dialect;
+
+    public DialectRegistry() {
+        register("MySQL", new MySqlDialect());
+        register("MariaDB", new MySqlDialect());
+        register("H2", new H2Dialect());
+        register("PostgreSQL", new PostgreSqlDialect());
+    }
+
+    public void register(String productName, Dialect dialect) {
+        dialects.put(productName.toLowerCase(Locale.ENGLISH), dialect);
+    }
+
+    /**
+     * 指定所有连接使用的方言，为 null 时恢复按数据库产品名探测
+     */
+    public void setDialect(Dialect dialect) {
+        this.dialect = dialect;
+    }
+
+    public Dialect getDialect(String productName) {
+        return productName == null ? null : dialects.get(productName.toLowerCase(Locale.ENGLISH));
+    }
+
+    public Dialect getDialect(Connection connection) throws SQLException {
+        Dialect fixed = dialect;
+        if (fixed != null) {
+            return fixed;
+        }
+        return getDialect(connection.getMetaData().getDatabaseProductName());
+    }
+
+}
@@ -0,0 +1,84 @@
+package cn.zzb.mybatis.dialect;
+
+import cn.zzb.mybatis.parsing.SqlClauseParser;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * H2 方言：与 PostgreSQL 相同的 LIMIT ? OFFSET ? 语法（MySQL 兼容模式下同样支持）；upsert 必须指定 conflictColumns：
+ * <ul>
+ *     <li>冲突时更新除冲突列以外的所有列（默认）：MERGE INTO t (列, ...) KEY (k) VALUES (...)；</li>
+ *     <li>只更新部分列或不更新：MERGE INTO t AS target USING (VALUES (...)) AS excluded (列, ...) ON target.k = excluded.k
+ *     WHEN MATCHED THEN UPDATE SET c = excluded.c WHEN NOT MATCHED THEN INSERT ...，和 MySQL、PostgreSQL 上更新的列相同。</li>
+ * </ul>
+ */
+public class H2Dialect extends PostgreSqlDialect {
+
+    @Override
+    protected String renderUpsert(String insertSql, int[] columnList, List<String> conflictColumns, List<String> updateColumns) {
+        if (conflictColumns.isEmpty()) {
+            return null;
+        }
+        String head = insertSql.substring(0, columnList[0]);
+        String upperHead = head.toUpperCase(Locale.ENGLISH);
+        int insert = upperHead.indexOf("INSERT");
+        int into = upperHead.indexOf("INTO", insert);
+        if (insert < 0 || into < 0) {
+            return null;
+        }
+        List<String> columns = new ArrayList<>();
+        for (String column : insertSql.substring(columnList[0] + 1, columnList[1] - 1).split(",")) {
+            columns.add(column.trim());
+        }
+        List<String> nonConflict = new ArrayList<>();
+        for (String column : columns) {
+            if (!names(conflictColumns).contains(name(column))) {
+                nonConflict.add(column);
+            }
+        }
+        // MERGE ... KEY 在冲突时更新 INSERT 中的所有列
+        if (names(updateColumns).equals(names(nonConflict))) {
+            return head.substring(0, insert) + "MERGE" + insertSql.substring(insert + "INSERT".length(), columnList[1])
+                    + " KEY (" + String.join(", ", conflictColumns) + ")" + insertSql.substring(columnList[1]);
+        }
+        String table = head.substring(into + "INTO".length()).trim();
+        StringJoiner source = new StringJoiner(", ", " AS excluded (", ")");
+        StringJoiner values = new StringJoiner(", ", " VALUES (", ")");
+        for (String column : columns) {
+            source.add(SqlClauseParser.simpleName(column));
+            values.add("excluded." + SqlClauseParser.simpleName(column));
+        }
+        StringJoiner on = new StringJoiner(" AND ", " ON ", "");
+        for (String column : conflictColumns) {
+            on.add("target." + SqlClauseParser.simpleName(column) + " = excluded." + SqlClauseParser.simpleName(column));
+        }
+        StringBuilder sql = new StringBuilder(head.substring(0, insert)).append("MERGE INTO ").append(table).append(" AS target USING (")
+                .append(insertSql.substring(columnList[1]).trim()).append(')').append(source).append(on);
+        if (!updateColumns.isEmpty()) {
+            StringJoiner assignments = new StringJoiner(", ", " WHEN MATCHED THEN UPDATE SET ", "");
+            for (String column : updateColumns) {
+                assignments.add(SqlClauseParser.simpleName(column) + " = excluded." + SqlClauseParser.simpleName(column));
+            }
+            sql.append(assignments);
+        }
+        return sql.append(" WHEN NOT MATCHED THEN INSERT ").append(insertSql, columnList[0], columnList[1]).append(values).toString();
+    }
+
+    private static Set<String> names(List<String> columns) {
+        Set<String> names = new HashSet<>();
+        for (String column : columns) {
+            names.add(name(column));
+        }
+        return names;
+    }
+
+    private static String name(String column) {
+        return SqlClauseParser.simpleName(column.trim()).toLowerCase(Locale.ENGLISH);
+    }
+
+}
@@ -0,0 +1,79 @@
+package cn.zzb.mybatis.dialect;
+
+import cn.zzb.mybatis.executor.bulk.BulkLoader;
+import cn.zzb.mybatis.executor.bulk.LoadDataBulkLoader;
+import cn.zzb.mybatis.session.RowBounds;
+
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * MySQL / MariaDB 方言：LIMIT ? 或 LIMIT ?, ?；批量导入使用 LOAD DATA LOCAL INFILE；
+ * upsert 渲染成 INSERT ... ON DUPLICATE KEY UPDATE c = VALUES(c)，按表上的主键和唯一键判断冲突
+ */
+public class MySqlDialect extends AbstractDialect {
+
+    // MySQL 没有单独的 OFFSET 语法，只跳过行时用一个足够大的行数
+    private static final long MAX_ROW_COUNT = Long.MAX_VALUE;
+
+    @Override
+    protected void appendLimit(StringBuilder sql, int offset, int limit, List<Object> parameters) {
+        if (offset > 0) {
+            sql.append(" LIMIT ?, ?");
+            parameters.add(offset);
+            parameters.add(limit == RowBounds.NO_ROW_LIMIT ? MAX_ROW_COUNT : (long) limit);
+        } else {
+            sql.append(" LIMIT ?");
+            parameters.add(limit);
+        }
+    }
+
+    @Override
+    protected String renderUpsert(String insertSql, int[] columnList, List<String> conflictColumns, List<String> updateColumns) {
+        StringJoiner assignments = new StringJoiner(", ", insertSql + " ON DUPLICATE KEY UPDATE ", "");
+        for (String column : updateColumns) {
+            assignments.add(column + " = VALUES(" + column + ")");
+        }
+        if (updateColumns.isEmpty()) {
+            // 没有要更新的列时写一个不改变值的赋值，重复的行被忽略
+            String column = conflictColumns.isEmpty() ? firstColumn(insertSql, columnList) : conflictColumns.get(0);
+            assignments.add(column + " = " + column);
+        }
+        return assignments.toString();
+    }
+
+    /**
+     * 单行语句插入时影响行数为 1，更新时为 2，值没有变化时为 0（已存在的行，算作更新）。
+     * <p>
+     * 多行插入只返回整条语句的合计，值没有变化的行使合计无法拆分，此时返回 null；影响行数不是 0、1、2 时同样返回 null。
+     * Connector/J 默认（useAffectedRows=false）时值没有变化的行也返回 1，会被算作插入；需要精确区分时在连接 URL 上加 useAffectedRows=true。
+     */
+    @Override
+    public long[] countUpserts(int[] updateCounts, int rows) {
+        if (updateCounts.length != rows) {
+            return null;
+        }
+        long inserted = 0;
+        long updated = 0;
+        for (int count : updateCounts) {
+            if (count == 1) {
+                inserted++;
+            } else if (count == 2 || count == 0) {
+                updated++;
+            } else {
+                return null;
+            }
+        }
+        return new long[]{inserted, updated};
+    }
+
+    private static String firstColumn(String insertSql, int[] columnList) {
+        return insertSql.substring(columnList[0] + 1, columnList[1] - 1).split(",")[0].trim();
+    }
+
+    @Override
+    public BulkLoader getBulkLoader() {
+        return LoadDataBulkLoader.INSTANCE;
+    }
+
+}
@@ -0,0 +1,44 @@
+package cn.zzb.mybatis.dialect;
+
+import cn.zzb.mybatis.parsing.SqlClauseParser;
+import cn.zzb.mybatis.session.RowBounds;
+
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * PostgreSQL 方言：LIMIT ? OFFSET ?，不限制行数时只有 OFFSET ?；
+ * upsert 渲染成 INSERT ... ON CONFLICT (k) DO UPDATE SET c = EXCLUDED.c，必须指定 conflictColumns。
+ * 插入和更新的行影响行数都是 1，批次结果中不区分
+ */
+public class PostgreSqlDialect extends AbstractDialect {
+
+    @Override
+    protected void appendLimit(StringBuilder sql, int offset, int limit, List<Object> parameters) {
+        if (limit != RowBounds.NO_ROW_LIMIT) {
+            sql.append(" LIMIT ?");
+            parameters.add(limit);
+        }
+        if (offset > 0) {
+            sql.append(" OFFSET ?");
+            parameters.add(offset);
+        }
+    }
+
+    @Override
+    protected String renderUpsert(String insertSql, int[] columnList, List<String> conflictColumns, List<String> updateColumns) {
+        if (conflictColumns.isEmpty()) {
+            return null;
+        }
+        String conflict = insertSql + " ON CONFLICT (" + String.join(", ", conflictColumns) + ")";
+        if (updateColumns.isEmpty()) {
+            return conflict + " DO NOTHING";
+        }
+        StringJoiner assignments = new StringJoiner(", ", conflict + " DO UPDATE SET ", "");
+        for (String column : updateColumns) {
+            assignments.add(column + " = EXCLUDED." + SqlClauseParser.simpleName(column));
+        }
+        return assignments.toString();
+    }
+
+}
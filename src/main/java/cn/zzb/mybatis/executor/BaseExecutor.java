@@ -2,14 +2,26 @@ package cn.zzb.mybatis.executor;
 
 
 
+import cn.zzb.mybatis.cursor.Cursor;
+import cn.zzb.mybatis.datasource.routing.RoutingHint;
+import cn.zzb.mybatis.dialect.Dialect;
+import cn.zzb.mybatis.executor.bulk.BatchInsertBulkLoader;
+import cn.zzb.mybatis.executor.bulk.BulkLoader;
 import cn.zzb.mybatis.mapping.BoundSql;
 import cn.zzb.mybatis.mapping.MappedStatement;
+import cn.zzb.mybatis.mapping.SqlCommandType;
+import cn.zzb.mybatis.parsing.SqlClauseParser;
+import cn.zzb.mybatis.session.BulkLoad;
 import cn.zzb.mybatis.session.Configuration;
 import cn.zzb.mybatis.session.ResultHandler;
+import cn.zzb.mybatis.session.ResultSetSink;
+import cn.zzb.mybatis.session.RowBounds;
 import cn.zzb.mybatis.transaction.Transaction;
 import org.slf4j.LoggerFactory;
 
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -32,13 +44,73 @@ public abstract class BaseExecutor implements Executor {
     }
 
     @Override
-    public <E> List<E> query(MappedStatement ms, Object parameter, ResultHandler resultHandler, BoundSql boundSql) {
+    public int update(MappedStatement ms, Object parameter) {
         if (closed) {
             throw new RuntimeException("Executor was closed.");
         }
-        return doQuery(ms, parameter, resultHandler, boundSql);
+        // selectKey order="BEFORE" 在生成 BoundSql 之前把主键写回参数
+        ms.getKeyGenerator().processBefore(this, ms, null, parameter);
+        return doUpdate(ms, parameter);
     }
 
+    @Override
+    public <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) {
+        if (closed) {
+            throw new RuntimeException("Executor was closed.");
+        }
+        return doQuery(ms, parameter, rowBounds, resultHandler, boundSql);
+    }
+
+    @Override
+    public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, BoundSql boundSql) {
+        if (closed) {
+            throw new RuntimeException("Executor was closed.");
+        }
+        return doQueryCursor(ms, parameter, boundSql);
+    }
+
+    @Override
+    public <T> T queryToSink(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultSetSink<T> sink, BoundSql boundSql) {
+        if (closed) {
+            throw new RuntimeException("Executor was closed.");
+        }
+        return doQueryToSink(ms, parameter, rowBounds, sink, boundSql);
+    }
+
+
+    /**
+     * 执行批量执行器中还没有执行的批次，非批量执行器返回空列表
+     */
+    @Override
+    public List<BatchResult> flushStatements() {
+        return flushStatements(false);
+    }
+
+    protected List<BatchResult> flushStatements(boolean isRollBack) {
+        if (closed) {
+            throw new RuntimeException("Executor was closed.");
+        }
+        return doFlushStatements(isRollBack);
+    }
+
+    /**
+     * 批量导入：先执行还没有执行的批次保证写入顺序，再按主库连接的方言选择导入方式
+     */
+    @Override
+    public <T> long bulkLoad(BulkLoad<T> bulkLoad, Iterator<? extends T> rows) {
+        if (closed) {
+            throw new RuntimeException("Executor was closed.");
+        }
+        flushStatements();
+        try {
+            Connection connection = transaction.getConnection();
+            Dialect dialect = configuration.getDialectRegistry().getDialect(connection);
+            BulkLoader bulkLoader = dialect == null ? BatchInsertBulkLoader.INSTANCE : dialect.getBulkLoader();
+            return bulkLoader.load(configuration, connection, bulkLoad, rows);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error bulk loading into " + bulkLoad.getTable() + ". Cause: " + e, e);
+        }
+    }
 
     @Override
     public Transaction getTransaction() {
@@ -53,6 +125,7 @@ public abstract class BaseExecutor implements Executor {
         if (closed) {
             throw new RuntimeException("Cannot commit, transaction is already closed");
         }
+        flushStatements();
         if (required) {
             transaction.commit();
         }
@@ -61,8 +134,13 @@ public abstract class BaseExecutor implements Executor {
     @Override
     public void rollback(boolean required) throws SQLException {
         if (!closed) {
-            if (required) {
-                transaction.rollback();
+            try {
+                // 未执行的批次直接丢弃
+                flushStatements(true);
+            } finally {
+                if (required) {
+                    transaction.rollback();
+                }
             }
         }
     }
@@ -83,7 +161,64 @@ public abstract class BaseExecutor implements Executor {
         }
     }
 
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+
+    /**
+     * 写语句的 BoundSql：upsert 语句按连接的方言把其中的 INSERT 渲染成数据库自己的插入或更新语法
+     */
+    protected BoundSql getUpdateBoundSql(MappedStatement ms, Object parameter, Connection connection) throws SQLException {
+        BoundSql boundSql = ms.getSqlSource().getBoundSql(parameter);
+        if (ms.getSqlCommandType() != SqlCommandType.UPSERT) {
+            return boundSql;
+        }
+        Dialect dialect = configuration.getDialectRegistry().getDialect(connection);
+        String sql = dialect == null ? null : dialect.getUpsertSql(boundSql.getSql(), ms.getConflictColumns(), ms.getUpdateColumns());
+        if (sql == null) {
+            throw new RuntimeException("Upsert " + ms.getId() + " is not supported on " + connection.getMetaData().getDatabaseProductName()
+                    + " (the statement must be a single-row INSERT with a column list; conflictColumns is required except on MySQL)");
+        }
+        return boundSql.withSql(sql);
+    }
+
+    /**
+     * 按语句选择连接：SELECT 在没有强制主库时走读连接（读写分离时可能是从库），其余语句走主库连接
+     */
+    protected Connection getConnection(MappedStatement ms) throws SQLException {
+        return getConnection(ms, null, transaction);
+    }
+
+    protected Connection getConnection(MappedStatement ms, BoundSql boundSql) throws SQLException {
+        return getConnection(ms, boundSql, transaction);
+    }
+
+    protected Connection getConnection(MappedStatement ms, BoundSql boundSql, Transaction transaction) throws SQLException {
+        if (isReadOnly(ms, boundSql)) {
+            return transaction.getReadConnection();
+        }
+        return transaction.getConnection();
+    }
+
+    /**
+     * 可以走读连接的语句：没有强制主库、也不加锁的 SELECT。
+     * SELECT ... FOR UPDATE / LOCK IN SHARE MODE 必须在主库上执行，否则锁加在从库上，而且从库连接是自动提交的，锁随即释放
+     */
+    protected boolean isReadOnly(MappedStatement ms, BoundSql boundSql) {
+        return ms.getSqlCommandType() == SqlCommandType.SELECT && !ms.isForcePrimary() && !RoutingHint.isForcePrimary()
+                && (boundSql == null || !SqlClauseParser.isLocking(boundSql.getSql()));
+    }
+
+    protected abstract int doUpdate(MappedStatement ms, Object parameter);
+
+    protected abstract <E> List<E> doQuery(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql);
+
+    protected abstract <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, BoundSql boundSql);
+
+    protected abstract <T> T doQueryToSink(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultSetSink<T> sink, BoundSql boundSql);
 
-    protected abstract <E> List<E> doQuery(MappedStatement ms, Object parameter, ResultHandler resultHandler, BoundSql boundSql);
+    protected abstract List<BatchResult> doFlushStatements(boolean isRollback);
 
 }
\ No newline at end of file
@@ -0,0 +1,219 @@
+package cn.zzb.mybatis.executor;
+
+import cn.zzb.mybatis.cursor.Cursor;
+import cn.zzb.mybatis.dialect.Dialect;
+import cn.zzb.mybatis.executor.keygen.Jdbc3KeyGenerator;
+import cn.zzb.mybatis.executor.keygen.KeyGenerator;
+import cn.zzb.mybatis.executor.keygen.NoKeyGenerator;
+import cn.zzb.mybatis.executor.keygen.SelectKeyGenerator;
+import cn.zzb.mybatis.executor.statement.StatementHandler;
+import cn.zzb.mybatis.mapping.BoundSql;
+import cn.zzb.mybatis.mapping.MappedStatement;
+import cn.zzb.mybatis.mapping.SqlCommandType;
+import cn.zzb.mybatis.session.Configuration;
+import cn.zzb.mybatis.session.ResultHandler;
+import cn.zzb.mybatis.session.ResultSetSink;
+import cn.zzb.mybatis.session.RowBounds;
+import cn.zzb.mybatis.transaction.Transaction;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 批量执行器（Batch Executor）
+ * <p>
+ * insert/update/delete 不立即执行，而是加入 JDBC 批次（addBatch）：同一个 MappedStatement 连续执行、SQL 相同时复用同一个
+ * PreparedStatement，否则开始一个新批次。查询、提交、flushStatements() 之前统一 executeBatch()，一个批次只有一次网络往返。
+ * <p>
+ * 批次执行完后，useGeneratedKeys 的语句用一次 getGeneratedKeys() 按 addBatch 的顺序把主键写回这一批的每个参数对象；
+ * selectKey order="AFTER" 的语句（如 SELECT LAST_INSERT_ID()）只能在 insert 刚执行完时查到这一行的主键，不加入批次：
+ * 先执行之前的批次保持顺序，再立即执行这一条并查询主键，影响行数同样在 flushStatements() 的结果中。
+ * 回滚或关闭时未执行的批次直接丢弃。
+ * <p>
+ * 写方法返回 {@link #BATCH_UPDATE_RETURN_VALUE}，真实的影响行数在 flushStatements() 返回的 {@link BatchResult} 中；
+ * upsert 语句的批次结果中还有按方言从影响行数区分出的插入、更新行数。
+ *
+ * @author zzb
+ */
+public class BatchExecutor extends SimpleExecutor {
+
+    public static final int BATCH_UPDATE_RETURN_VALUE = Integer.MIN_VALUE + 1002;
+
+    private final List<Statement> statementList = new ArrayList<>();
+    private final List<BatchResult> batchResultList = new ArrayList<>();
+    // 已经执行、但还没有被 flushStatements() 返回的结果
+    private final List<BatchResult> executedResultList = new ArrayList<>();
+    private String currentSql;
+    private MappedStatement currentStatement;
+
+    public BatchExecutor(Configuration configuration, Transaction transaction) {
+        super(configuration, transaction);
+    }
+
+    @Override
+    protected int doUpdate(MappedStatement ms, Object parameter) {
+        if (isSelectKeyAfter(ms)) {
+            return updateImmediately(ms, parameter);
+        }
+        try {
+            Connection connection = getConnection(ms);
+            BoundSql boundSql = getUpdateBoundSql(ms, parameter, connection);
+            String sql = boundSql.getSql();
+            StatementHandler handler = configuration.newStatementHandler(this, ms, parameter, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, boundSql);
+            Statement stmt;
+            if (sql.equals(currentSql) && ms == currentStatement) {
+                int last = statementList.size() - 1;
+                stmt = statementList.get(last);
+                batchResultList.get(last).addParameterObject(parameter);
+            } else {
+                stmt = handler.prepare(connection);
+                currentSql = sql;
+                currentStatement = ms;
+                statementList.add(stmt);
+                BatchResult batchResult = new BatchResult(ms, sql);
+                batchResult.addParameterObject(parameter);
+                batchResultList.add(batchResult);
+            }
+            handler.parameterize(stmt);
+            handler.batch(stmt);
+            return BATCH_UPDATE_RETURN_VALUE;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error adding batch (" + ms.getId() + "). Cause: " + e, e);
+        }
+    }
+
+    private static boolean isSelectKeyAfter(MappedStatement ms) {
+        KeyGenerator keyGenerator = ms.getKeyGenerator();
+        return keyGenerator instanceof SelectKeyGenerator && !((SelectKeyGenerator) keyGenerator).isExecuteBefore();
+    }
+
+    /**
+     * 不加入批次，立即执行并查询主键；之前的批次先执行
+     */
+    private int updateImmediately(MappedStatement ms, Object parameter) {
+        executedResultList.addAll(executeBatches(false));
+        try {
+            Connection connection = getConnection(ms);
+            BoundSql boundSql = getUpdateBoundSql(ms, parameter, connection);
+            int updateCount = doUpdate(ms, parameter, boundSql, connection);
+            BatchResult batchResult = new BatchResult(ms, boundSql.getSql());
+            batchResult.addParameterObject(parameter);
+            batchResult.setUpdateCounts(new int[]{updateCount});
+            executedResultList.add(batchResult);
+            return BATCH_UPDATE_RETURN_VALUE;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating database (" + ms.getId() + "). Cause: " + e, e);
+        }
+    }
+
+    /**
+     * 按方言从影响行数中区分 upsert 插入和更新的行数
+     */
+    private void countUpserts(Statement stmt, BatchResult batchResult) throws SQLException {
+        Dialect dialect = configuration.getDialectRegistry().getDialect(stmt.getConnection());
+        long[] counts = dialect == null ? null : dialect.countUpserts(batchResult.getUpdateCounts(), batchResult.getParameterObjects().size());
+        if (counts != null) {
+            batchResult.setUpsertCounts(counts[0], counts[1]);
+        }
+    }
+
+    /**
+     * 把一个已经加入了批次的语句追加到待执行列表，之后的写语句不会复用它
+     */
+    protected void addStatement(Statement stmt, BatchResult batchResult) {
+        statementList.add(stmt);
+        batchResultList.add(batchResult);
+        currentSql = null;
+        currentStatement = null;
+    }
+
+    /**
+     * 查询之前先执行未执行的批次，保证能读到之前的写入
+     */
+    @Override
+    protected <E> List<E> doQuery(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) {
+        flushStatements();
+        return super.doQuery(ms, parameter, rowBounds, resultHandler, boundSql);
+    }
+
+    @Override
+    protected <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, BoundSql boundSql) {
+        flushStatements();
+        return super.doQueryCursor(ms, parameter, boundSql);
+    }
+
+    @Override
+    protected <T> T doQueryToSink(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultSetSink<T> sink, BoundSql boundSql) {
+        flushStatements();
+        return super.doQueryToSink(ms, parameter, rowBounds, sink, boundSql);
+    }
+
+    @Override
+    protected List<BatchResult> doFlushStatements(boolean isRollback) {
+        try {
+            if (isRollback) {
+                return executeBatches(true);
+            }
+            List<BatchResult> results = new ArrayList<>(executedResultList);
+            results.addAll(executeBatches(false));
+            return results;
+        } finally {
+            executedResultList.clear();
+        }
+    }
+
+    /**
+     * 依次执行待执行的批次并写回主键，回滚时直接丢弃
+     */
+    private List<BatchResult> executeBatches(boolean isRollback) {
+        try {
+            if (isRollback || statementList.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<BatchResult> results = new ArrayList<>(batchResultList.size());
+            for (int i = 0; i < statementList.size(); i++) {
+                Statement stmt = statementList.get(i);
+                BatchResult batchResult = batchResultList.get(i);
+                MappedStatement ms = batchResult.getMappedStatement();
+                try {
+                    batchResult.setUpdateCounts(stmt.executeBatch());
+                } catch (BatchUpdateException e) {
+                    StringBuilder message = new StringBuilder(ms.getId()).append(" (batch index #").append(i + 1).append(") failed.");
+                    if (i > 0) {
+                        message.append(' ').append(i).append(" prior sub executor(s) completed successfully, but will be rolled back.");
+                    }
+                    throw new RuntimeException(message + " Cause: " + e, e);
+                }
+                if (ms.getSqlCommandType() == SqlCommandType.UPSERT) {
+                    countUpserts(stmt, batchResult);
+                }
+                KeyGenerator keyGenerator = ms.getKeyGenerator();
+                if (keyGenerator instanceof Jdbc3KeyGenerator) {
+                    ((Jdbc3KeyGenerator) keyGenerator).processBatch(ms, stmt, batchResult.getParameterObjects(), batchResult.getUpdateCounts());
+                } else if (!(keyGenerator instanceof NoKeyGenerator)) {
+                    for (Object parameter : batchResult.getParameterObjects()) {
+                        keyGenerator.processAfter(this, ms, stmt, parameter);
+                    }
+                }
+                results.add(batchResult);
+            }
+            return results;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error flushing statements. Cause: " + e, e);
+        } finally {
+            for (Statement stmt : statementList) {
+                closeStatement(stmt);
+            }
+            currentSql = null;
+            currentStatement = null;
+            statementList.clear();
+            batchResultList.clear();
+        }
+    }
+
+}
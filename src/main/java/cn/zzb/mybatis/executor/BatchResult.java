@@ -0,0 +1,77 @@
+package cn.zzb.mybatis.executor;
+
+import cn.zzb.mybatis.mapping.MappedStatement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一个批次的执行结果：同一条 SQL 连续加入批次的参数对象，以及每个参数对应的影响行数
+ * <p>
+ * 多行插入改写后一次 addBatch 对应多个参数对象，影响行数按执行的语句（每一块）给出，不再和参数对象一一对应
+ */
+public class BatchResult {
+
+    private final MappedStatement mappedStatement;
+    private final String sql;
+    private final List<Object> parameterObjects;
+    private int[] updateCounts;
+    // upsert 插入和更新的行数，无法区分时为 -1
+    private long insertedCount = -1;
+    private long updatedCount = -1;
+
+    public BatchResult(MappedStatement mappedStatement, String sql) {
+        this.mappedStatement = mappedStatement;
+        this.sql = sql;
+        this.parameterObjects = new ArrayList<>();
+    }
+
+    public MappedStatement getMappedStatement() {
+        return mappedStatement;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<Object> getParameterObjects() {
+        return parameterObjects;
+    }
+
+    public void addParameterObject(Object parameterObject) {
+        this.parameterObjects.add(parameterObject);
+    }
+
+    /**
+     * 每条语句（每次 addBatch）的影响行数，驱动无法得知时为 Statement.SUCCESS_NO_INFO。
+     * BATCH 中一个参数一条语句；REWRITE_BATCH 中一条多行插入包含多个参数，如 4 个参数每块 2 行时为 [2, 2]，
+     * 个数与 {@link #getParameterObjects()} 不一定相同
+     */
+    public int[] getUpdateCounts() {
+        return updateCounts;
+    }
+
+    public void setUpdateCounts(int[] updateCounts) {
+        this.updateCounts = updateCounts;
+    }
+
+    /**
+     * upsert 语句这一批中插入的行数；不是 upsert，或者数据库返回的影响行数无法区分插入和更新时为 -1
+     */
+    public long getInsertedCount() {
+        return insertedCount;
+    }
+
+    /**
+     * upsert 语句这一批中因为冲突而更新的行数；不是 upsert，或者无法区分时为 -1
+     */
+    public long getUpdatedCount() {
+        return updatedCount;
+    }
+
+    public void setUpsertCounts(long insertedCount, long updatedCount) {
+        this.insertedCount = insertedCount;
+        this.updatedCount = updatedCount;
+    }
+
+}
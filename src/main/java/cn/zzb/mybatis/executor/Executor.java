@@ -1,12 +1,17 @@
 package cn.zzb.mybatis.executor;
 
 
+import cn.zzb.mybatis.cursor.Cursor;
 import cn.zzb.mybatis.mapping.BoundSql;
 import cn.zzb.mybatis.mapping.MappedStatement;
+import cn.zzb.mybatis.session.BulkLoad;
 import cn.zzb.mybatis.session.ResultHandler;
+import cn.zzb.mybatis.session.ResultSetSink;
+import cn.zzb.mybatis.session.RowBounds;
 import cn.zzb.mybatis.transaction.Transaction;
 
 import java.sql.SQLException;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -16,7 +21,17 @@ public interface Executor {
 
     ResultHandler NO_RESULT_HANDLER = null;
 
-    <E> List<E> query(MappedStatement ms, Object parameter, ResultHandler resultHandler, BoundSql boundSql);
+    int update(MappedStatement ms, Object parameter);
+
+    <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql);
+
+    <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, BoundSql boundSql);
+
+    <T> T queryToSink(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultSetSink<T> sink, BoundSql boundSql);
+
+    List<BatchResult> flushStatements();
+
+    <T> long bulkLoad(BulkLoad<T> bulkLoad, Iterator<? extends T> rows);
 
     Transaction getTransaction();
 
@@ -26,4 +41,6 @@ public interface Executor {
 
     void close(boolean forceRollback);
 
+    boolean isClosed();
+
 }
\ No newline at end of file
@@ -0,0 +1,192 @@
+package cn.zzb.mybatis.executor;
+
+import cn.zzb.mybatis.parsing.SqlClauseParser;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 多行插入改写器
+ * <p>
+ * 把单行的 INSERT INTO t (a, b) VALUES (?, ?) 拆成"前缀 + 一行值 + 后缀"三段（{@link InsertShape}），
+ * 按行数拼出 INSERT INTO t (a, b) VALUES (?, ?),(?, ?),... 。每条 SQL 只解析一次，每个行数的 SQL 也只拼一次，都缓存起来。
+ * <p>
+ * 一条多行插入的行数受三个预算限制：
+ * <ul>
+ *   <li>maxParameters：占位符总数（MySQL 预编译语句最多 65535 个）</li>
+ *   <li>maxPacketBytes：估算的语句大小（不能超过服务端的 max_allowed_packet）</li>
+ *   <li>maxRows：行数上限，避免一条语句持有太多行锁、太大的 undo</li>
+ * </ul>
+ *
+ * @author zzb
+ */
+public class MultiRowInsertRewriter {
+
+    public static final int DEFAULT_MAX_PARAMETERS = 65535;
+    public static final long DEFAULT_MAX_PACKET_BYTES = 4L * 1024 * 1024;
+    public static final int DEFAULT_MAX_ROWS = 1000;
+
+    // 缓存的 SQL 条数上限，动态 SQL 拼出很多不同的语句时不再缓存新的
+    private static final int MAX_CACHED_SHAPES = 1024;
+    // 不能改写的 SQL 也缓存，避免每次都重新解析
+    private static final InsertShape NOT_REWRITABLE = new InsertShape("", "", "", 0);
+
+    private final ConcurrentMap<String, InsertShape> shapes = new ConcurrentHashMap<>();
+    private volatile int maxParameters = DEFAULT_MAX_PARAMETERS;
+    private volatile long maxPacketBytes = DEFAULT_MAX_PACKET_BYTES;
+    private volatile int maxRows = DEFAULT_MAX_ROWS;
+
+    /**
+     * @return 单行插入的 SQL 拆分结果；不是单行 INSERT ... VALUES，或者占位符不全在那一行值里时返回 null
+     */
+    public InsertShape getShape(String sql) {
+        InsertShape shape = shapes.get(sql);
+        if (shape == null) {
+            shape = parse(sql);
+            if (shapes.size() < MAX_CACHED_SHAPES) {
+                shapes.putIfAbsent(sql, shape);
+            }
+        }
+        return shape == NOT_REWRITABLE ? null : shape;
+    }
+
+    /**
+     * 计算一条多行插入最多放多少行
+     *
+     * @param shape       语句拆分结果
+     * @param maxRowBytes 这一批中最大的一行（值的 SQL 文本加上参数值）的估算字节数
+     */
+    public int rowsPerStatement(InsertShape shape, long maxRowBytes) {
+        int rows = maxRows;
+        if (shape.getParametersPerRow() > 0) {
+            rows = Math.min(rows, maxParameters / shape.getParametersPerRow());
+        }
+        // 每一行还要算上行之间的逗号
+        long budget = maxPacketBytes - shape.getFixedLength();
+        rows = (int) Math.min(rows, budget / Math.max(1, maxRowBytes + 1));
+        return Math.max(1, rows);
+    }
+
+    /**
+     * 估算一个参数值发送给服务端时占用的字节数：字符串按 UTF-8 最坏情况（每个字符 3 字节）加引号，
+     * 二进制按十六进制文本，其余类型按固定长度。宁可块小一点，也不要超过 max_allowed_packet
+     */
+    public static long estimateBytes(Object value) {
+        if (value == null) {
+            return 4;
+        }
+        if (value instanceof CharSequence) {
+            return ((CharSequence) value).length() * 3L + 2;
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length * 2L + 3;
+        }
+        return 32;
+    }
+
+    private static InsertShape parse(String sql) {
+        int[] row = SqlClauseParser.findValuesRow(sql);
+        if (row == null) {
+            return NOT_REWRITABLE;
+        }
+        int parameters = SqlClauseParser.countPlaceholders(sql, sql.length());
+        int beforeRow = SqlClauseParser.countPlaceholders(sql, row[0]);
+        int inRow = SqlClauseParser.countPlaceholders(sql, row[1]) - beforeRow;
+        // 前缀或后缀（如 ON DUPLICATE KEY UPDATE a = ?）里有占位符时，参数没法按行依次绑定
+        if (beforeRow != 0 || inRow != parameters) {
+            return NOT_REWRITABLE;
+        }
+        String suffix = sql.substring(row[1]);
+        if (suffix.trim().endsWith(";")) {
+            suffix = suffix.substring(0, suffix.lastIndexOf(';'));
+        }
+        return new InsertShape(sql.substring(0, row[0]), sql.substring(row[0], row[1]), suffix, parameters);
+    }
+
+    public int getMaxParameters() {
+        return maxParameters;
+    }
+
+    public void setMaxParameters(int maxParameters) {
+        if (maxParameters <= 0) {
+            throw new IllegalArgumentException("maxParameters must be greater than 0, but was " + maxParameters);
+        }
+        this.maxParameters = maxParameters;
+    }
+
+    public long getMaxPacketBytes() {
+        return maxPacketBytes;
+    }
+
+    public void setMaxPacketBytes(long maxPacketBytes) {
+        if (maxPacketBytes <= 0) {
+            throw new IllegalArgumentException("maxPacketBytes must be greater than 0, but was " + maxPacketBytes);
+        }
+        this.maxPacketBytes = maxPacketBytes;
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    public void setMaxRows(int maxRows) {
+        if (maxRows <= 0) {
+            throw new IllegalArgumentException("maxRows must be greater than 0, but was " + maxRows);
+        }
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * 单行插入拆成的三段：前缀（到 VALUES 为止）、一行值、后缀（如 ON DUPLICATE KEY UPDATE a = VALUES(a)）
+     */
+    public static final class InsertShape {
+
+        private final String prefix;
+        private final String row;
+        private final String suffix;
+        private final int parametersPerRow;
+        // 行数 → 拼好的多行插入 SQL
+        private final ConcurrentMap<Integer, String> sqlByRows = new ConcurrentHashMap<>();
+
+        InsertShape(String prefix, String row, String suffix, int parametersPerRow) {
+            this.prefix = prefix;
+            this.row = row;
+            this.suffix = suffix;
+            this.parametersPerRow = parametersPerRow;
+        }
+
+        /**
+         * 有 rows 行值的插入语句
+         */
+        public String getSql(int rows) {
+            return sqlByRows.computeIfAbsent(rows, n -> {
+                StringBuilder sql = new StringBuilder(prefix.length() + suffix.length() + (row.length() + 1) * n);
+                sql.append(prefix).append(row);
+                for (int i = 1; i < n; i++) {
+                    sql.append(',').append(row);
+                }
+                return sql.append(suffix).toString();
+            });
+        }
+
+        public int getParametersPerRow() {
+            return parametersPerRow;
+        }
+
+        /**
+         * 一行值的 SQL 文本长度
+         */
+        public int getRowLength() {
+            return row.length();
+        }
+
+        /**
+         * 与行数无关的前缀和后缀的长度
+         */
+        public int getFixedLength() {
+            return prefix.length() + suffix.length();
+        }
+
+    }
+
+}
@@ -0,0 +1,181 @@
+package cn.zzb.mybatis.executor;
+
+import cn.zzb.mybatis.executor.keygen.Jdbc3KeyGenerator;
+import cn.zzb.mybatis.executor.keygen.KeyGenerator;
+import cn.zzb.mybatis.executor.keygen.NoKeyGenerator;
+import cn.zzb.mybatis.executor.keygen.SelectKeyGenerator;
+import cn.zzb.mybatis.executor.statement.StatementHandler;
+import cn.zzb.mybatis.mapping.BoundSql;
+import cn.zzb.mybatis.mapping.MappedStatement;
+import cn.zzb.mybatis.mapping.SqlCommandType;
+import cn.zzb.mybatis.scripting.defaults.DefaultParameterHandler;
+import cn.zzb.mybatis.session.Configuration;
+import cn.zzb.mybatis.session.RowBounds;
+import cn.zzb.mybatis.transaction.Transaction;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 多行插入批量执行器
+ * <p>
+ * 在 {@link BatchExecutor} 的基础上，把同一个 MappedStatement 连续执行、SQL 相同的单行 INSERT 先攒起来，
+ * 遇到其它写语句、查询、提交或 flushStatements() 时合并成 INSERT ... VALUES (...),(...),... 加入批次。
+ * 服务端每一块只解析一次，不依赖驱动的 rewriteBatchedStatements 之类的参数。
+ * <p>
+ * 每块的行数由 {@link MultiRowInsertRewriter} 按占位符个数、估算的语句大小和行数上限计算，
+ * 整块共用一条预编译语句（多次 addBatch），最后不满一块的行单独一条。
+ * <p>
+ * useGeneratedKeys 的插入依赖驱动对多行插入按行返回全部自增主键（MySQL、H2 都是这样）；
+ * selectKey order="AFTER" 只能查到最后一行的主键，这样的语句不合并，按普通批次执行。
+ * <p>
+ * upsert 渲染成 INSERT ... ON DUPLICATE KEY UPDATE（MySQL）或 ON CONFLICT（PostgreSQL）时同样合并；
+ * PostgreSQL 不允许一条语句两次更新同一行，同一批中有重复的键时应使用 BATCH。
+ *
+ * @author zzb
+ */
+public class RewriteBatchExecutor extends BatchExecutor {
+
+    private final MultiRowInsertRewriter rewriter;
+    private final List<PendingRow> pendingRows = new ArrayList<>();
+    private MappedStatement pendingStatement;
+    private String pendingSql;
+    private MultiRowInsertRewriter.InsertShape pendingShape;
+    // 攒下的行中最大的一行的估算字节数
+    private long pendingMaxRowBytes;
+
+    public RewriteBatchExecutor(Configuration configuration, Transaction transaction) {
+        super(configuration, transaction);
+        this.rewriter = configuration.getMultiRowInsertRewriter();
+    }
+
+    @Override
+    protected int doUpdate(MappedStatement ms, Object parameter) {
+        SqlCommandType sqlCommandType = ms.getSqlCommandType();
+        if ((sqlCommandType == SqlCommandType.INSERT || sqlCommandType == SqlCommandType.UPSERT) && isRewritable(ms.getKeyGenerator())) {
+            BoundSql boundSql;
+            try {
+                boundSql = getUpdateBoundSql(ms, parameter, getConnection(ms));
+            } catch (SQLException e) {
+                throw new RuntimeException("Error adding batch (" + ms.getId() + "). Cause: " + e, e);
+            }
+            String sql = boundSql.getSql();
+            if (ms != pendingStatement || !sql.equals(pendingSql)) {
+                MultiRowInsertRewriter.InsertShape shape = rewriter.getShape(sql);
+                if (shape != null) {
+                    addPendingRows();
+                    pendingStatement = ms;
+                    pendingSql = sql;
+                    pendingShape = shape;
+                }
+            }
+            if (ms == pendingStatement && sql.equals(pendingSql)) {
+                DefaultParameterHandler parameterHandler = new DefaultParameterHandler(ms, parameter, boundSql);
+                List<Object> values = parameterHandler.getParameterValues();
+                if (values.size() == pendingShape.getParametersPerRow()) {
+                    long rowBytes = pendingShape.getRowLength();
+                    for (Object value : values) {
+                        rowBytes += MultiRowInsertRewriter.estimateBytes(value);
+                    }
+                    pendingMaxRowBytes = Math.max(pendingMaxRowBytes, rowBytes);
+                    pendingRows.add(new PendingRow(parameter, boundSql, parameterHandler, values));
+                    return BATCH_UPDATE_RETURN_VALUE;
+                }
+            }
+        }
+        addPendingRows();
+        return super.doUpdate(ms, parameter);
+    }
+
+    @Override
+    protected List<BatchResult> doFlushStatements(boolean isRollback) {
+        if (isRollback) {
+            clearPendingRows();
+        } else {
+            addPendingRows();
+        }
+        return super.doFlushStatements(isRollback);
+    }
+
+    private static boolean isRewritable(KeyGenerator keyGenerator) {
+        return keyGenerator instanceof NoKeyGenerator
+                || keyGenerator instanceof Jdbc3KeyGenerator
+                || keyGenerator instanceof SelectKeyGenerator && ((SelectKeyGenerator) keyGenerator).isExecuteBefore();
+    }
+
+    /**
+     * 把攒下的行合并成多行插入加入批次：先是若干满块（共用一条语句），再是剩下的不满一块的行
+     */
+    private void addPendingRows() {
+        if (pendingRows.isEmpty()) {
+            clearPendingRows();
+            return;
+        }
+        try {
+            int total = pendingRows.size();
+            int rows = rewriter.rowsPerStatement(pendingShape, pendingMaxRowBytes);
+            int fullChunks = total / rows;
+            if (fullChunks > 0) {
+                addChunks(0, rows, fullChunks);
+            }
+            if (total % rows > 0) {
+                addChunks(fullChunks * rows, total % rows, 1);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error adding multi-row batch (" + pendingStatement.getId() + "). Cause: " + e, e);
+        } finally {
+            clearPendingRows();
+        }
+    }
+
+    private void addChunks(int from, int rows, int chunks) throws SQLException {
+        MappedStatement ms = pendingStatement;
+        String sql = pendingShape.getSql(rows);
+        PendingRow first = pendingRows.get(from);
+        StatementHandler handler = configuration.newStatementHandler(this, ms, first.parameter, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, first.boundSql.withSql(sql));
+        PreparedStatement ps = (PreparedStatement) handler.prepare(getConnection(ms));
+        BatchResult batchResult = new BatchResult(ms, sql);
+        int parametersPerRow = pendingShape.getParametersPerRow();
+        try {
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                for (int i = 0; i < rows; i++) {
+                    PendingRow row = pendingRows.get(from + chunk * rows + i);
+                    row.parameterHandler.setParameters(ps, i * parametersPerRow, row.values);
+                    batchResult.addParameterObject(row.parameter);
+                }
+                ps.addBatch();
+            }
+        } catch (SQLException | RuntimeException e) {
+            closeStatement(ps);
+            throw e;
+        }
+        addStatement(ps, batchResult);
+    }
+
+    private void clearPendingRows() {
+        pendingRows.clear();
+        pendingStatement = null;
+        pendingSql = null;
+        pendingShape = null;
+        pendingMaxRowBytes = 0;
+    }
+
+    private static final class PendingRow {
+
+        private final Object parameter;
+        private final BoundSql boundSql;
+        private final DefaultParameterHandler parameterHandler;
+        private final List<Object> values;
+
+        PendingRow(Object parameter, BoundSql boundSql, DefaultParameterHandler parameterHandler, List<Object> values) {
+            this.parameter = parameter;
+            this.boundSql = boundSql;
+            this.parameterHandler = parameterHandler;
+            this.values = values;
+        }
+
+    }
+
+}
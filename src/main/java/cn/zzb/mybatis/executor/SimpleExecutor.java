@@ -2,16 +2,22 @@ package cn.zzb.mybatis.executor;
 
 
 
+import cn.zzb.mybatis.cursor.Cursor;
+import cn.zzb.mybatis.dialect.Dialect;
 import cn.zzb.mybatis.executor.statement.StatementHandler;
 import cn.zzb.mybatis.mapping.BoundSql;
 import cn.zzb.mybatis.mapping.MappedStatement;
 import cn.zzb.mybatis.session.Configuration;
 import cn.zzb.mybatis.session.ResultHandler;
+import cn.zzb.mybatis.session.ResultSetSink;
+import cn.zzb.mybatis.session.RowBounds;
 import cn.zzb.mybatis.transaction.Transaction;
 
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -29,7 +35,8 @@ import java.util.List;
  * 与其他执行器的区别：
  * - SimpleExecutor：每次创建新 Statement（当前实现）
  * - ReuseExecutor：复用 Statement，减少预编译开销
- * - BatchExecutor：批量执行，适合批量插入/更新
+ * - BatchExecutor：写语句加入 JDBC 批次统一执行，适合批量插入/更新
+ * - RewriteBatchExecutor：在批次的基础上把单行 INSERT 合并成多行插入
  *
  * @author zzb
  */
@@ -45,6 +52,39 @@ public class SimpleExecutor extends BaseExecutor {
         super(configuration, transaction);
     }
 
+    /**
+     * 执行更新操作（insert/update/delete）
+     * <p>
+     * 写操作总是使用主库连接，执行后立即关闭 Statement。
+     *
+     * @param ms        SQL 映射语句对象
+     * @param parameter SQL 参数对象
+     * @return 影响的行数
+     */
+    @Override
+    protected int doUpdate(MappedStatement ms, Object parameter) {
+        try {
+            Connection connection = getConnection(ms);
+            return doUpdate(ms, parameter, getUpdateBoundSql(ms, parameter, connection), connection);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating database (" + ms.getId() + "). Cause: " + e, e);
+        }
+    }
+
+    /**
+     * 在指定连接上执行更新，分片执行器复用这段流程
+     */
+    protected int doUpdate(MappedStatement ms, Object parameter, BoundSql boundSql, Connection connection) throws SQLException {
+        StatementHandler handler = configuration.newStatementHandler(this, ms, parameter, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, boundSql);
+        Statement stmt = handler.prepare(connection);
+        try {
+            handler.parameterize(stmt);
+            return handler.update(stmt);
+        } finally {
+            closeStatement(stmt);
+        }
+    }
+
     /**
      * 执行查询操作的核心方法
      * <p>
@@ -55,35 +95,137 @@ public class SimpleExecutor extends BaseExecutor {
      * 4. 设置 SQL 参数（将 #{} 占位符替换为实际值）
      * 5. 执行 SQL 查询
      * 6. 通过 ResultSetHandler 将 ResultSet 转换为 Java 对象
-     * 7. 返回结果列表
+     * 7. 返回结果列表，关闭 Statement
      * <p>
      * 注意：每次调用都会创建新的 Statement，不会复用
      *
      * @param ms            SQL 映射语句对象，包含 SQL 配置信息
      * @param parameter     SQL 参数对象
+     * @param rowBounds     分页边界，按方言改写成 LIMIT/OFFSET，不能改写时驱动最多返回 offset + limit 行
      * @param resultHandler 结果处理器（当前版本未使用）
      * @param boundSql      绑定的 SQL 对象，包含最终 SQL 和参数映射
      * @param <E>           返回结果的元素类型
-     * @return 查询结果列表，如果发生异常则返回 null
+     * @return 查询结果列表
      */
     @Override
-    protected <E> List<E> doQuery(MappedStatement ms, Object parameter, ResultHandler resultHandler, BoundSql boundSql) {
+    protected <E> List<E> doQuery(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) {
         try {
-            // 1. 获取全局配置对象
-            Configuration configuration = ms.getConfiguration();
-            // 2. 创建语句处理器（封装 Statement 的创建和执行）
-            StatementHandler handler = configuration.newStatementHandler(this, ms, parameter, resultHandler, boundSql);
-            // 3. 从事务中获取数据库连接
-            Connection connection = transaction.getConnection();
-            // 4. 创建 Statement 对象（PreparedStatement）
-            Statement stmt = handler.prepare(connection);
-            // 5. 设置 SQL 参数（将参数绑定到 ? 占位符）
+            // 从事务中获取数据库连接（读写分离时 SELECT 可能拿到从库连接）
+            Connection connection = getConnection(ms, boundSql);
+            return doQuery(ms, parameter, rowBounds, resultHandler, boundSql, connection);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error querying database (" + ms.getId() + "). Cause: " + e, e);
+        }
+    }
+
+    /**
+     * 在指定连接上执行查询，分片等需要自己选择连接的执行器复用这段流程
+     */
+    protected <E> List<E> doQuery(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql, Connection connection) throws SQLException {
+        // 1. 获取全局配置对象
+        Configuration configuration = ms.getConfiguration();
+        // 有分页边界时优先按方言改写成 LIMIT/OFFSET，数据库只返回这一页；改写之后不再需要 setMaxRows 和跳过行
+        // 嵌套结果映射的一个对象对应多行，limit 按对象计数，由结果集处理器截断
+        if (rowBounds.isBounded() && !ms.hasNestedResultMaps()) {
+            BoundSql limitSql = limitBoundSql(connection, rowBounds, boundSql);
+            if (limitSql != null) {
+                boundSql = limitSql;
+                rowBounds = RowBounds.DEFAULT;
+            }
+        }
+        // 2. 创建语句处理器（封装 Statement 的创建和执行）
+        StatementHandler handler = configuration.newStatementHandler(this, ms, parameter, rowBounds, resultHandler, boundSql);
+        // 3. 创建 Statement 对象（PreparedStatement）
+        Statement stmt = handler.prepare(connection);
+        try {
+            // 4. 设置 SQL 参数（将参数绑定到 ? 占位符）
             handler.parameterize(stmt);
-            // 6. 执行查询并处理结果集，返回结果列表
+            // 5. 执行查询并处理结果集，返回结果列表
             return handler.query(stmt, resultHandler);
+        } finally {
+            closeStatement(stmt);
+        }
+    }
+
+    /**
+     * 游标查询：语句保持打开，由游标逐行读取，游标关闭时关闭语句
+     */
+    @Override
+    protected <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, BoundSql boundSql) {
+        try {
+            return doQueryCursor(ms, parameter, boundSql, getConnection(ms, boundSql));
         } catch (SQLException e) {
-            e.printStackTrace();
-            return null;
+            throw new RuntimeException("Error opening cursor for " + ms.getId() + ". Cause: " + e, e);
+        }
+    }
+
+    protected <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, BoundSql boundSql, Connection connection) throws SQLException {
+        StatementHandler handler = ms.getConfiguration().newStatementHandler(this, ms, parameter, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, boundSql);
+        Statement stmt = handler.prepare(connection);
+        try {
+            handler.parameterize(stmt);
+            return handler.queryCursor(stmt);
+        } catch (SQLException | RuntimeException e) {
+            stmt.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 结果集交给接收器：分页边界和普通查询一样优先改写成 LIMIT/OFFSET，接收器读完后关闭语句
+     */
+    @Override
+    protected <T> T doQueryToSink(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultSetSink<T> sink, BoundSql boundSql) {
+        try {
+            return doQueryToSink(ms, parameter, rowBounds, sink, boundSql, getConnection(ms, boundSql));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error querying database (" + ms.getId() + "). Cause: " + e, e);
+        }
+    }
+
+    protected <T> T doQueryToSink(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultSetSink<T> sink, BoundSql boundSql, Connection connection) throws SQLException {
+        if (rowBounds.isBounded()) {
+            BoundSql limitSql = limitBoundSql(connection, rowBounds, boundSql);
+            if (limitSql != null) {
+                boundSql = limitSql;
+                rowBounds = RowBounds.DEFAULT;
+            }
+        }
+        StatementHandler handler = ms.getConfiguration().newStatementHandler(this, ms, parameter, rowBounds, Executor.NO_RESULT_HANDLER, boundSql);
+        Statement stmt = handler.prepare(connection);
+        try {
+            handler.parameterize(stmt);
+            return handler.queryToSink(stmt, sink);
+        } finally {
+            closeStatement(stmt);
+        }
+    }
+
+    /**
+     * 按连接的方言把分页边界改写成 LIMIT/OFFSET
+     *
+     * @return 改写后的 SQL，方言不支持时返回 null
+     */
+    private BoundSql limitBoundSql(Connection connection, RowBounds rowBounds, BoundSql boundSql) throws SQLException {
+        Dialect dialect = configuration.getDialectRegistry().getDialect(connection);
+        List<Object> limitParameters = new ArrayList<>(2);
+        String limitSql = dialect == null ? null : dialect.getLimitSql(boundSql.getSql(), rowBounds, limitParameters);
+        return limitSql == null ? null : boundSql.withAppendedParameters(limitSql, limitParameters);
+    }
+
+    /**
+     * 语句执行完立即关闭，没有需要执行的批次
+     */
+    @Override
+    protected List<BatchResult> doFlushStatements(boolean isRollback) {
+        return Collections.emptyList();
+    }
+
+    protected void closeStatement(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignore) {
+            // 结果已经取完，关闭失败不影响本次执行
         }
     }
 
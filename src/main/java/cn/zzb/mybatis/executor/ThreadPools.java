@@ -0,0 +1,77 @@
+package cn.zzb.mybatis.executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 扩散查询、异步会话等使用的线程池
+ * <p>
+ * 都是有界线程池，线程数即最大并行度，队列长度为线程数的 16 倍，不会无限堆积：
+ * <ul>
+ *     <li>扩散查询（{@link #newBoundedPool}）：队列满时由调用线程自己执行（CallerRunsPolicy），调用方本来就在等待结果；</li>
+ *     <li>异步会话（{@link #newAsyncPool}）：队列满时拒绝（AbortPolicy），返回的 CompletableFuture 以 RejectedExecutionException 失败，
+ *     不会把 JDBC 调用放到调用线程上执行、阻塞“非阻塞”的调用方。</li>
+ * </ul>
+ * 运行在 JDK 21+ 上时扩散查询可以改用虚拟线程（通过反射调用 Thread.ofVirtual，编译目标仍是 Java 8），同样最多 parallelism 个线程：
+ * PooledDataSource 在 synchronized 块中等待空闲连接，虚拟线程在其中等待时占住载体线程，
+ * 不限制并发时等待连接的虚拟线程可能占满载体线程，持有连接的线程反而无法运行、归还连接。
+ */
+public final class ThreadPools {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThreadPools.class);
+
+    private ThreadPools() {
+    }
+
+    public static ExecutorService newBoundedPool(String threadNamePrefix, int parallelism) {
+        return newPool(parallelism, daemonThreadFactory(threadNamePrefix), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * 异步会话的线程池：队列满时拒绝提交，不在调用线程上执行
+     */
+    public static ExecutorService newAsyncPool(String threadNamePrefix, int parallelism) {
+        return newPool(parallelism, daemonThreadFactory(threadNamePrefix), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 虚拟线程可用时返回最多 parallelism 个虚拟线程的线程池，否则退回有界线程池
+     */
+    public static ExecutorService newVirtualThreadPoolOrBounded(String threadNamePrefix, int parallelism) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 1L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return newPool(parallelism, factory, new ThreadPoolExecutor.CallerRunsPolicy());
+        } catch (ReflectiveOperationException e) {
+            logger.info("Virtual threads are not available on this JVM, using a bounded pool of " + parallelism + " threads (" + threadNamePrefix + ").");
+            return newBoundedPool(threadNamePrefix, parallelism);
+        }
+    }
+
+    private static ExecutorService newPool(int parallelism, ThreadFactory threadFactory, RejectedExecutionHandler rejectedHandler) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(parallelism * 16), threadFactory, rejectedHandler);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+}
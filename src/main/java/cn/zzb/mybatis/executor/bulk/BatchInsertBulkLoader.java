@@ -0,0 +1,81 @@
+package cn.zzb.mybatis.executor.bulk;
+
+import cn.zzb.mybatis.session.BulkLoad;
+import cn.zzb.mybatis.session.Configuration;
+import cn.zzb.mybatis.type.TypeHandler;
+import cn.zzb.mybatis.type.TypeHandlerRegistry;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+
+/**
+ * 通用的批量导入：INSERT INTO t (c1, c2) VALUES (?, ?)，每 batchSize 行执行一次 JDBC 批量插入
+ * <p>
+ * 任何数据库都可用（如测试中代替 MySQL 的 H2），也是驱动不支持 LOAD DATA 输入流时的退路。
+ * 内存中最多只有一批的参数。
+ */
+public class BatchInsertBulkLoader implements BulkLoader {
+
+    public static final BatchInsertBulkLoader INSTANCE = new BatchInsertBulkLoader();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> long load(Configuration configuration, Connection connection, BulkLoad<T> bulkLoad, Iterator<? extends T> rows) throws SQLException {
+        BulkLoadRows values = new BulkLoadRows(bulkLoad);
+        TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+        long total = 0;
+        try (PreparedStatement ps = connection.prepareStatement(insertSql(bulkLoad))) {
+            int pending = 0;
+            while (rows.hasNext()) {
+                T row = rows.next();
+                for (int i = 0; i < values.size(); i++) {
+                    Object value = values.getValue(row, i);
+                    TypeHandler<Object> typeHandler = null;
+                    if (value != null) {
+                        typeHandler = (TypeHandler<Object>) typeHandlerRegistry.getTypeHandler(value.getClass(), null);
+                    }
+                    if (typeHandler == null) {
+                        typeHandler = typeHandlerRegistry.getUnknownTypeHandler();
+                    }
+                    typeHandler.setParameter(ps, i + 1, value, null);
+                }
+                ps.addBatch();
+                if (++pending == bulkLoad.getBatchSize()) {
+                    total += sum(ps.executeBatch());
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                total += sum(ps.executeBatch());
+            }
+        }
+        return total;
+    }
+
+    static String insertSql(BulkLoad<?> bulkLoad) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(bulkLoad.getTable()).append(" (");
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < bulkLoad.getColumns().size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+                placeholders.append(", ");
+            }
+            sql.append(bulkLoad.getColumns().get(i));
+            placeholders.append('?');
+        }
+        return sql.append(") VALUES (").append(placeholders).append(')').toString();
+    }
+
+    private static long sum(int[] updateCounts) {
+        long sum = 0;
+        for (int count : updateCounts) {
+            // 驱动不返回行数时按每条插入一行计算
+            sum += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+        }
+        return sum;
+    }
+
+}
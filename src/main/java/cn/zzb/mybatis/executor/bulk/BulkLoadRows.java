@@ -0,0 +1,70 @@
+package cn.zzb.mybatis.executor.bulk;
+
+import cn.zzb.mybatis.reflection.Reflector;
+import cn.zzb.mybatis.reflection.invoker.Invoker;
+import cn.zzb.mybatis.session.BulkLoad;
+
+import java.time.temporal.Temporal;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 按 BulkLoad 的属性顺序从对象上取值，getter 只在开始时查找一次
+ */
+final class BulkLoadRows {
+
+    private final Invoker[] getters;
+    private final Class<?>[] types;
+    private final List<String> properties;
+
+    BulkLoadRows(BulkLoad<?> bulkLoad) {
+        Reflector reflector = Reflector.forClass(bulkLoad.getType());
+        this.properties = bulkLoad.getProperties();
+        this.getters = new Invoker[properties.size()];
+        this.types = new Class<?>[properties.size()];
+        for (int i = 0; i < getters.length; i++) {
+            getters[i] = reflector.getGetInvoker(properties.get(i));
+            types[i] = reflector.getGetterType(properties.get(i));
+        }
+    }
+
+    int size() {
+        return getters.length;
+    }
+
+    /**
+     * byte[] 属性：LOAD DATA 中按十六进制文本写出，再由 UNHEX 还原
+     */
+    boolean isBinary(int index) {
+        return types[index] == byte[].class;
+    }
+
+    /**
+     * @return 第一个不能编码成 LOAD DATA 文本的属性（如 Object 或自定义类型，需要类型处理器绑定），都可以时返回 null
+     */
+    String findNonTextProperty() {
+        for (int i = 0; i < types.length; i++) {
+            if (!isTextType(types[i])) {
+                return properties.get(i) + " (" + types[i].getName() + ")";
+            }
+        }
+        return null;
+    }
+
+    private static boolean isTextType(Class<?> type) {
+        return type.isPrimitive() || type.isEnum() || type == byte[].class
+                || Number.class.isAssignableFrom(type)
+                || CharSequence.class.isAssignableFrom(type)
+                || type == Boolean.class || type == Character.class
+                || Date.class.isAssignableFrom(type) || Temporal.class.isAssignableFrom(type);
+    }
+
+    Object getValue(Object row, int index) {
+        try {
+            return getters[index].invoke(row, null);
+        } catch (Exception e) {
+            throw new RuntimeException("Could not get property '" + properties.get(index) + "' from " + row.getClass().getName() + ". Cause: " + e, e);
+        }
+    }
+
+}
@@ -0,0 +1,24 @@
+package cn.zzb.mybatis.executor.bulk;
+
+import cn.zzb.mybatis.session.BulkLoad;
+import cn.zzb.mybatis.session.Configuration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+
+/**
+ * 批量导入器：把一批对象写入一张表，由方言决定具体方式（{@link cn.zzb.mybatis.dialect.Dialect#getBulkLoader()}）
+ */
+public interface BulkLoader {
+
+    /**
+     * @param configuration 全局配置，用于取类型处理器
+     * @param connection    当前事务的主库连接
+     * @param bulkLoad      目标表、属性和列
+     * @param rows          要导入的对象，边读边写，不会一次性放进内存
+     * @return 影响的行数
+     */
+    <T> long load(Configuration configuration, Connection connection, BulkLoad<T> bulkLoad, Iterator<? extends T> rows) throws SQLException;
+
+}
@@ -0,0 +1,165 @@
+package cn.zzb.mybatis.executor.bulk;
+
+import cn.zzb.mybatis.session.BulkLoad;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.Iterator;
+
+/**
+ * 把对象边读边编码成 TSV/CSV 文本的输入流，供 LOAD DATA LOCAL INFILE 读取
+ * <p>
+ * 每次缓冲区读完才从迭代器取下一批行编码（约 8KB），整个导入过程中内存里只有这一小段文本，不需要临时文件。
+ * 转义规则与 {@link LoadDataBulkLoader} 生成的 FIELDS/LINES 子句一致：\ 转义制表符、换行、回车和 \ 本身，NULL 写作 \N；
+ * CSV 的值用双引号括起来，值中的双引号写作 \"。byte[] 写成十六进制文本，由 LOAD DATA 的 SET 子句用 UNHEX 还原。
+ */
+public class DelimitedRowInputStream extends InputStream {
+
+    private static final int BUFFER_CHARS = 8192;
+    private static final byte[] EMPTY = new byte[0];
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final Iterator<?> rows;
+    private final BulkLoadRows values;
+    private final BulkLoad<?> bulkLoad;
+    private final boolean csv;
+    private final StringBuilder text = new StringBuilder(BUFFER_CHARS + 256);
+    private byte[] buffer = EMPTY;
+    private int position;
+    private long rowCount;
+
+    public DelimitedRowInputStream(BulkLoad<?> bulkLoad, Iterator<?> rows) {
+        this.bulkLoad = bulkLoad;
+        this.rows = rows;
+        this.values = new BulkLoadRows(bulkLoad);
+        this.csv = bulkLoad.getFormat() == BulkLoad.Format.CSV;
+    }
+
+    @Override
+    public int read() {
+        if (position >= buffer.length && !fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        int read = 0;
+        while (read < len) {
+            if (position >= buffer.length && !fill()) {
+                break;
+            }
+            int n = Math.min(len - read, buffer.length - position);
+            System.arraycopy(buffer, position, b, off + read, n);
+            position += n;
+            read += n;
+        }
+        return read == 0 ? -1 : read;
+    }
+
+    @Override
+    public int available() {
+        return buffer.length - position;
+    }
+
+    /**
+     * 已经编码的行数
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    private boolean fill() {
+        text.setLength(0);
+        while (text.length() < BUFFER_CHARS && rows.hasNext()) {
+            appendRow(rows.next());
+            rowCount++;
+        }
+        if (text.length() == 0) {
+            return false;
+        }
+        buffer = text.toString().getBytes(bulkLoad.getCharset());
+        position = 0;
+        return true;
+    }
+
+    private void appendRow(Object row) {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                text.append(csv ? ',' : '\t');
+            }
+            Object value = values.getValue(row, i);
+            if (value == null) {
+                text.append("\\N");
+            } else if (values.isBinary(i)) {
+                appendHex((byte[]) value);
+            } else if (csv) {
+                text.append('"');
+                appendEscaped(format(value));
+                text.append('"');
+            } else {
+                appendEscaped(format(value));
+            }
+        }
+        text.append('\n');
+    }
+
+    // 十六进制只有数字和字母，不需要转义，CSV 中也不用括起来
+    private void appendHex(byte[] value) {
+        for (byte b : value) {
+            text.append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+        }
+    }
+
+    private void appendEscaped(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    text.append("\\\\");
+                    break;
+                case '\t':
+                    text.append("\\t");
+                    break;
+                case '\n':
+                    text.append("\\n");
+                    break;
+                case '\r':
+                    text.append("\\r");
+                    break;
+                case '\0':
+                    text.append("\\0");
+                    break;
+                case '"':
+                    text.append(csv ? "\\\"" : "\"");
+                    break;
+                default:
+                    text.append(c);
+            }
+        }
+    }
+
+    private static String format(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value ? "1" : "0";
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        // java.sql 的日期类型 toString() 就是 yyyy-MM-dd HH:mm:ss.f 格式，java.util.Date 转成 Timestamp 输出
+        if (value instanceof Date && !(value instanceof java.sql.Date || value instanceof java.sql.Time || value instanceof Timestamp)) {
+            return new Timestamp(((Date) value).getTime()).toString();
+        }
+        return value.toString();
+    }
+
+}
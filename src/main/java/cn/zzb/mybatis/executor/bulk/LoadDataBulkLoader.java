@@ -0,0 +1,163 @@
+package cn.zzb.mybatis.executor.bulk;
+
+import cn.zzb.mybatis.session.BulkLoad;
+import cn.zzb.mybatis.session.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * MySQL / MariaDB 批量导入：LOAD DATA LOCAL INFILE
+ * <p>
+ * 驱动的 Statement 可以设置一个输入流（setLocalInfileInputStream），执行 LOAD DATA LOCAL INFILE 时从这个流读取文件内容，
+ * SQL 中的文件名不再使用。对象由 {@link DelimitedRowInputStream} 边读边编码，驱动按需读取发送，数据不落盘。
+ * <p>
+ * 需要服务端开启 local_infile，Connector/J 8.x 的连接 URL 上加 allowLoadLocalInfile=true。
+ * 驱动不提供这个方法时（如 MariaDB Connector/J 3.x）退回 {@link BatchInsertBulkLoader}；
+ * 有属性不能编码成文本（getter 类型不是数字、字符串、日期、枚举、byte[] 等，需要类型处理器绑定）时也退回批量插入，两种方式写入的值相同。
+ * byte[] 属性读进用户变量，再由 SET col = UNHEX(@变量) 写入列。
+ * <p>
+ * LOAD DATA LOCAL 隐含 IGNORE：即使在严格模式下，主键冲突、数据转换失败的行也只产生警告并被丢弃（或截断后写入）。
+ * 为了和批量插入的行为一致，写入的行数少于发送的行数、或者有警告时抛出 SQLException，已写入的行需要调用方回滚。
+ */
+public class LoadDataBulkLoader implements BulkLoader {
+
+    public static final LoadDataBulkLoader INSTANCE = new LoadDataBulkLoader();
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadDataBulkLoader.class);
+
+    // 各版本驱动上带有 setLocalInfileInputStream(InputStream) 的类型
+    private static final String[] DRIVER_STATEMENT_TYPES = {
+            "com.mysql.cj.jdbc.JdbcStatement",
+            "com.mysql.jdbc.Statement",
+            "org.mariadb.jdbc.MariaDbStatement"
+    };
+
+    @Override
+    public <T> long load(Configuration configuration, Connection connection, BulkLoad<T> bulkLoad, Iterator<? extends T> rows) throws SQLException {
+        String nonText = new BulkLoadRows(bulkLoad).findNonTextProperty();
+        if (nonText != null) {
+            logger.debug("Property {} can not be written as LOAD DATA text, falling back to batch inserts", nonText);
+            return BatchInsertBulkLoader.INSTANCE.load(configuration, connection, bulkLoad, rows);
+        }
+        try (Statement stmt = connection.createStatement()) {
+            DelimitedRowInputStream in = new DelimitedRowInputStream(bulkLoad, rows);
+            if (!setLocalInfileInputStream(stmt, in)) {
+                logger.debug("Driver does not support a local infile input stream, falling back to batch inserts");
+                return BatchInsertBulkLoader.INSTANCE.load(configuration, connection, bulkLoad, rows);
+            }
+            long loaded;
+            try {
+                loaded = stmt.executeUpdate(loadDataSql(bulkLoad));
+            } catch (SQLException e) {
+                throw new SQLException(e.getMessage() + " (LOAD DATA LOCAL INFILE requires local_infile on the server and allowLoadLocalInfile=true on the connection)",
+                        e.getSQLState(), e.getErrorCode(), e);
+            } finally {
+                setLocalInfileInputStream(stmt, null);
+            }
+            checkLoaded(bulkLoad, in.getRowCount(), loaded, stmt.getWarnings());
+            return loaded;
+        }
+    }
+
+    /**
+     * LOAD DATA 把出错的行降级为警告，这里把丢行、警告重新变成异常
+     */
+    static void checkLoaded(BulkLoad<?> bulkLoad, long sent, long loaded, SQLWarning warnings) throws SQLException {
+        if (loaded == sent && warnings == null) {
+            return;
+        }
+        StringBuilder message = new StringBuilder("LOAD DATA into ").append(bulkLoad.getTable()).append(" loaded ").append(loaded)
+                .append(" of ").append(sent).append(" rows");
+        int count = 0;
+        for (SQLWarning warning = warnings; warning != null; warning = warning.getNextWarning()) {
+            if (count++ == 5) {
+                message.append("; ...");
+                break;
+            }
+            message.append(count == 1 ? ". Warnings: " : "; ").append(warning.getMessage());
+        }
+        SQLException exception = new SQLException(message.toString());
+        if (warnings != null) {
+            exception.setNextException(warnings);
+        }
+        throw exception;
+    }
+
+    static String loadDataSql(BulkLoad<?> bulkLoad) {
+        StringBuilder sql = new StringBuilder("LOAD DATA LOCAL INFILE 'bulk-load' INTO TABLE ").append(bulkLoad.getTable())
+                .append(" CHARACTER SET ").append(mysqlCharset(bulkLoad.getCharset()));
+        if (bulkLoad.getFormat() == BulkLoad.Format.CSV) {
+            sql.append(" FIELDS TERMINATED BY ',' ENCLOSED BY '\"' ESCAPED BY '\\\\'");
+        } else {
+            sql.append(" FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\'");
+        }
+        BulkLoadRows values = new BulkLoadRows(bulkLoad);
+        List<String> columns = bulkLoad.getColumns();
+        StringBuilder set = new StringBuilder();
+        sql.append(" LINES TERMINATED BY '\\n' (");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            if (values.isBinary(i)) {
+                sql.append("@bulk_").append(i);
+                set.append(set.length() == 0 ? " SET " : ", ").append(columns.get(i)).append(" = UNHEX(@bulk_").append(i).append(')');
+            } else {
+                sql.append(columns.get(i));
+            }
+        }
+        return sql.append(')').append(set).toString();
+    }
+
+    private static String mysqlCharset(Charset charset) {
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            return "utf8mb4";
+        }
+        if (StandardCharsets.ISO_8859_1.equals(charset)) {
+            return "latin1";
+        }
+        if (StandardCharsets.US_ASCII.equals(charset)) {
+            return "ascii";
+        }
+        // GBK → gbk，GB18030 → gb18030，Big5 → big5
+        return charset.name().replace("-", "").toLowerCase(Locale.ENGLISH);
+    }
+
+    private static boolean setLocalInfileInputStream(Statement stmt, InputStream in) throws SQLException {
+        for (String typeName : DRIVER_STATEMENT_TYPES) {
+            Class<?> type;
+            try {
+                type = Class.forName(typeName);
+            } catch (ClassNotFoundException e) {
+                continue;
+            }
+            if (!stmt.isWrapperFor(type)) {
+                continue;
+            }
+            try {
+                Method method = type.getMethod("setLocalInfileInputStream", InputStream.class);
+                method.invoke(stmt.unwrap(type), in);
+                return true;
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                return false;
+            } catch (InvocationTargetException e) {
+                throw new SQLException("Could not set local infile input stream. Cause: " + e.getCause(), e.getCause());
+            }
+        }
+        return false;
+    }
+
+}
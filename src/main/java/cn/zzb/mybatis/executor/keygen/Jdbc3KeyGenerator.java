@@ -0,0 +1,145 @@
+package cn.zzb.mybatis.executor.keygen;
+
+import cn.zzb.mybatis.executor.Executor;
+import cn.zzb.mybatis.mapping.MappedStatement;
+import cn.zzb.mybatis.reflection.MetaObject;
+import cn.zzb.mybatis.session.Configuration;
+import cn.zzb.mybatis.type.TypeHandler;
+import cn.zzb.mybatis.type.TypeHandlerRegistry;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 使用 JDBC 3 的 Statement#getGeneratedKeys() 取得数据库自增主键（useGeneratedKeys="true"）
+ * <p>
+ * 生成的主键按行的顺序返回：单条 insert 写回参数对象；参数是集合或数组（多行 insert）时按顺序写回每个元素；
+ * 批量执行时由执行器把这一批的参数对象按 addBatch 的顺序传给 {@link #processBatch}。
+ * keyProperty 有多个时（逗号分隔）依次对应结果集的各列。
+ * <p>
+ * 只有所有行都插入时才能按顺序对应：影响行数与参数行数不同时（如 INSERT IGNORE 跳过了重复行，
+ * ON DUPLICATE KEY UPDATE 更新了已有的行），无法知道主键属于哪些参数，不写回任何主键。
+ * 驱动没有返回影响行数（Statement.SUCCESS_NO_INFO）时无法检查，仍按顺序写回。
+ */
+public class Jdbc3KeyGenerator implements KeyGenerator {
+
+    public static final Jdbc3KeyGenerator INSTANCE = new Jdbc3KeyGenerator();
+
+    @Override
+    public void processBefore(Executor executor, MappedStatement ms, Statement stmt, Object parameter) {
+        // Do Nothing
+    }
+
+    @Override
+    public void processAfter(Executor executor, MappedStatement ms, Statement stmt, Object parameter) {
+        int updateCount;
+        try {
+            updateCount = stmt.getUpdateCount();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting update count of " + ms.getId() + ". Cause: " + e, e);
+        }
+        processBatch(ms, stmt, Collections.singletonList(parameter), new int[]{updateCount});
+    }
+
+    /**
+     * 把一次执行（单条或一个 JDBC 批次）生成的主键按顺序写回各个参数对象，集合或数组参数的每个元素各占一行
+     *
+     * @param updateCounts 这次执行的影响行数，合计与参数行数不同时不写回
+     */
+    public void processBatch(MappedStatement ms, Statement stmt, List<?> parameterObjects, int[] updateCounts) {
+        String[] keyProperties = ms.getKeyProperties();
+        if (keyProperties == null || keyProperties.length == 0) {
+            return;
+        }
+        List<Object> parameters = new ArrayList<>();
+        for (Object parameterObject : parameterObjects) {
+            parameters.addAll(collectRows(parameterObject));
+        }
+        if (parameters.isEmpty()) {
+            return;
+        }
+        long rows = affectedRows(updateCounts);
+        if (rows >= 0 && rows != parameters.size()) {
+            return;
+        }
+        Configuration configuration = ms.getConfiguration();
+        try (ResultSet rs = stmt.getGeneratedKeys()) {
+            if (rs == null) {
+                return;
+            }
+            int columnCount = rs.getMetaData().getColumnCount();
+            if (columnCount < keyProperties.length) {
+                throw new RuntimeException("Too many keyProperty " + Arrays.toString(keyProperties) + " for " + columnCount
+                        + " generated key column(s) of " + ms.getId());
+            }
+            TypeHandler<?>[] typeHandlers = null;
+            for (Object parameter : parameters) {
+                // 驱动没有返回影响行数时，生成的主键可能少于参数行数
+                if (!rs.next()) {
+                    break;
+                }
+                MetaObject metaParam = configuration.newMetaObject(parameter);
+                if (typeHandlers == null) {
+                    typeHandlers = typeHandlers(configuration, metaParam, keyProperties);
+                }
+                for (int i = 0; i < keyProperties.length; i++) {
+                    Object value = typeHandlers[i].getResult(rs, i + 1);
+                    if (value != null) {
+                        metaParam.setValue(keyProperties[i], value);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting generated key or setting result to parameter object of " + ms.getId() + ". Cause: " + e, e);
+        }
+    }
+
+    /**
+     * @return 影响行数的合计，有未知的（Statement.SUCCESS_NO_INFO 等负数）时返回 -1
+     */
+    private static long affectedRows(int[] updateCounts) {
+        long rows = 0;
+        for (int count : updateCounts) {
+            if (count < 0) {
+                return -1;
+            }
+            rows += count;
+        }
+        return rows;
+    }
+
+    // 按属性的 setter 类型选择类型处理器，驱动返回的 BigInteger 等类型会转换成属性的类型
+    private static TypeHandler<?>[] typeHandlers(Configuration configuration, MetaObject metaParam, String[] keyProperties) {
+        TypeHandlerRegistry registry = configuration.getTypeHandlerRegistry();
+        TypeHandler<?>[] typeHandlers = new TypeHandler<?>[keyProperties.length];
+        for (int i = 0; i < keyProperties.length; i++) {
+            TypeHandler<?> typeHandler = null;
+            if (metaParam.hasSetter(keyProperties[i])) {
+                typeHandler = registry.getTypeHandler(metaParam.getSetterType(keyProperties[i]), null);
+            }
+            typeHandlers[i] = typeHandler == null ? registry.getUnknownTypeHandler() : typeHandler;
+        }
+        return typeHandlers;
+    }
+
+    /**
+     * 参数对象对应的行：集合和数组的每个元素是一行，其余参数本身是一行
+     */
+    private static List<?> collectRows(Object parameter) {
+        if (parameter instanceof Collection) {
+            return new ArrayList<>((Collection<?>) parameter);
+        } else if (parameter instanceof Object[]) {
+            return Arrays.asList((Object[]) parameter);
+        } else if (parameter == null) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(parameter);
+    }
+
+}
@@ -0,0 +1,23 @@
+package cn.zzb.mybatis.executor.keygen;
+
+import cn.zzb.mybatis.executor.Executor;
+import cn.zzb.mybatis.mapping.MappedStatement;
+
+import java.sql.Statement;
+
+/**
+ * 主键生成器：insert 执行前或执行后取得主键，写回参数对象的 keyProperty 属性
+ */
+public interface KeyGenerator {
+
+    /**
+     * 语句执行之前调用（selectKey order="BEFORE"），stmt 为 null
+     */
+    void processBefore(Executor executor, MappedStatement ms, Statement stmt, Object parameter);
+
+    /**
+     * 语句执行之后调用：读取数据库生成的主键（useGeneratedKeys）或执行 selectKey order="AFTER"
+     */
+    void processAfter(Executor executor, MappedStatement ms, Statement stmt, Object parameter);
+
+}
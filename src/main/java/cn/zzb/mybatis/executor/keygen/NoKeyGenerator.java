@@ -0,0 +1,25 @@
+package cn.zzb.mybatis.executor.keygen;
+
+import cn.zzb.mybatis.executor.Executor;
+import cn.zzb.mybatis.mapping.MappedStatement;
+
+import java.sql.Statement;
+
+/**
+ * 不生成主键，没有配置 useGeneratedKeys 和 selectKey 的语句使用
+ */
+public class NoKeyGenerator implements KeyGenerator {
+
+    public static final NoKeyGenerator INSTANCE = new NoKeyGenerator();
+
+    @Override
+    public void processBefore(Executor executor, MappedStatement ms, Statement stmt, Object parameter) {
+        // Do Nothing
+    }
+
+    @Override
+    public void processAfter(Executor executor, MappedStatement ms, Statement stmt, Object parameter) {
+        // Do Nothing
+    }
+
+}
@@ -0,0 +1,79 @@
+package cn.zzb.mybatis.executor.keygen;
+
+import cn.zzb.mybatis.executor.Executor;
+import cn.zzb.mybatis.mapping.MappedStatement;
+import cn.zzb.mybatis.reflection.MetaObject;
+import cn.zzb.mybatis.session.Configuration;
+import cn.zzb.mybatis.session.RowBounds;
+
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * 通过 &lt;selectKey&gt; 查询主键，用于没有自增主键或驱动不支持 getGeneratedKeys 的数据库
+ * <pre>
+ * &lt;insert id="insert"&gt;
+ *   &lt;selectKey keyProperty="id" resultType="java.lang.Long" order="BEFORE"&gt;SELECT NEXTVAL('user_seq')&lt;/selectKey&gt;
+ *   INSERT INTO user (id, userId) VALUES (#{id}, #{userId})
+ * &lt;/insert&gt;
+ * </pre>
+ * order="BEFORE" 在 insert 之前取序列值写回参数；order="AFTER" 在 insert 之后查询（如 SELECT LAST_INSERT_ID()），
+ * 批量执行器中 AFTER 的语句不加入批次，逐条执行并查询（批次执行完再查只能查到最后一行的主键）。查询和 insert 使用同一个事务的主库连接。
+ */
+public class SelectKeyGenerator implements KeyGenerator {
+
+    public static final String SELECT_KEY_SUFFIX = "!selectKey";
+
+    private final MappedStatement keyStatement;
+    private final boolean executeBefore;
+
+    public SelectKeyGenerator(MappedStatement keyStatement, boolean executeBefore) {
+        this.keyStatement = keyStatement;
+        this.executeBefore = executeBefore;
+    }
+
+    @Override
+    public void processBefore(Executor executor, MappedStatement ms, Statement stmt, Object parameter) {
+        if (executeBefore) {
+            processGeneratedKeys(executor, ms, parameter);
+        }
+    }
+
+    @Override
+    public void processAfter(Executor executor, MappedStatement ms, Statement stmt, Object parameter) {
+        if (!executeBefore) {
+            processGeneratedKeys(executor, ms, parameter);
+        }
+    }
+
+    public boolean isExecuteBefore() {
+        return executeBefore;
+    }
+
+    private void processGeneratedKeys(Executor executor, MappedStatement ms, Object parameter) {
+        String[] keyProperties = keyStatement.getKeyProperties();
+        if (parameter == null || keyProperties == null || keyProperties.length == 0) {
+            return;
+        }
+        Configuration configuration = ms.getConfiguration();
+        // 用一个简单执行器在同一个事务上查询，不影响批量执行器里还没有执行的批次
+        Executor keyExecutor = configuration.newExecutor(executor.getTransaction());
+        List<Object> values = keyExecutor.query(keyStatement, parameter, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER,
+                keyStatement.getSqlSource().getBoundSql(parameter));
+        if (values.size() != 1) {
+            throw new RuntimeException("SelectKey " + keyStatement.getId() + " returned " + values.size() + " rows, expected exactly one.");
+        }
+        Object value = values.get(0);
+        MetaObject metaParam = configuration.newMetaObject(parameter);
+        if (keyProperties.length == 1 && configuration.getTypeHandlerRegistry().hasTypeHandler(value.getClass())) {
+            metaParam.setValue(keyProperties[0], value);
+            return;
+        }
+        // 结果是 JavaBean/Map 时按属性名取出各个主键
+        MetaObject metaResult = configuration.newMetaObject(value);
+        for (String keyProperty : keyProperties) {
+            metaParam.setValue(keyProperty, metaResult.getValue(keyProperty));
+        }
+    }
+
+}
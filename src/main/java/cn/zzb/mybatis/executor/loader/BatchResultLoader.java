@@ -0,0 +1,228 @@
+package cn.zzb.mybatis.executor.loader;
+
+import cn.zzb.mybatis.executor.Executor;
+import cn.zzb.mybatis.mapping.BoundSql;
+import cn.zzb.mybatis.mapping.MappedStatement;
+import cn.zzb.mybatis.mapping.ResultMap;
+import cn.zzb.mybatis.mapping.ResultMapping;
+import cn.zzb.mybatis.parsing.SqlClauseParser;
+import cn.zzb.mybatis.parsing.SqlClauses;
+import cn.zzb.mybatis.reflection.MetaObject;
+import cn.zzb.mybatis.reflection.Reflector;
+import cn.zzb.mybatis.session.Configuration;
+import cn.zzb.mybatis.session.RowBounds;
+
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 嵌套查询的批量加载器（DataLoader 风格）
+ * <p>
+ * 映射一个结果集时，&lt;association select="..."/&gt;、&lt;collection select="..."/&gt; 不逐行执行嵌套查询，
+ * 只记下父对象和列值（{@link #add}）；整个结果集映射完后（{@link #load}），每个嵌套查询把去重后的键
+ * 合并成一条 列 IN (?, ?, ...) 查询（键多时按 {@link Configuration#getNestedQueryBatchSize()} 分成多条），
+ * 再按子对象上对应的属性值分回各个父对象。N 个父对象的关联从 N 条查询变成 1 条；子查询自己的嵌套查询在它的结果集上同样批量加载。
+ * <p>
+ * 嵌套查询必须只有一个占位符，且是顶层的 列 = #{...} 条件，查询的列中要包含这一列（映射到子对象的属性上）；
+ * 不满足时（如带有 LIMIT、GROUP BY、OR，或者子对象上取不到键）按去重后的键逐个执行，结果相同。
+ * <p>
+ * 延迟加载的嵌套查询（{@link ResultMapping#isLazy()}）不执行：结果对象由 {@link #createResultObject} 创建为代理，
+ * {@link #load} 时把每个属性的 {@link ResultLoader} 登记到代理上，第一次访问属性时才查询。
+ * 登记放在映射和立即加载都完成之后，映射过程中调用代理的 setter 不会触发加载。
+ */
+public class BatchResultLoader {
+
+    private final Configuration configuration;
+    private final Executor executor;
+    // 嵌套查询映射 → 等待加载的父对象
+    private final Map<ResultMapping, List<PendingLoad>> pendingLoads = new LinkedHashMap<>();
+    // 延迟加载的嵌套查询 → 等待登记的父对象
+    private final Map<ResultMapping, List<PendingLoad>> lazyLoads = new LinkedHashMap<>();
+    // 这一批创建的延迟加载代理 → 它的延迟属性
+    private final Map<Object, ResultLoaderMap> lazyLoaders = new IdentityHashMap<>();
+
+    public BatchResultLoader(Configuration configuration, Executor executor) {
+        this.configuration = configuration;
+        this.executor = executor;
+    }
+
+    /**
+     * 创建结果对象：结果映射中有延迟加载的嵌套查询时创建延迟加载代理，final 类不能生成子类，仍然立即加载
+     */
+    public Object createResultObject(ResultMap resultMap) {
+        Class<?> type = resultMap.getType();
+        if (!resultMap.hasLazyNestedQueries() || Modifier.isFinal(type.getModifiers())) {
+            return configuration.getObjectFactory().create(type);
+        }
+        ResultLoaderMap lazyLoader = new ResultLoaderMap();
+        Object proxy = configuration.getProxyFactory().createProxy(type, lazyLoader, configuration);
+        lazyLoaders.put(proxy, lazyLoader);
+        return proxy;
+    }
+
+    /**
+     * 记下一个等待加载的属性
+     *
+     * @param resultMapping 嵌套查询映射
+     * @param target        父对象
+     * @param key           嵌套查询的参数（父对象这一行 column 列的值），不能为 null
+     */
+    public void add(ResultMapping resultMapping, MetaObject target, Object key) {
+        boolean lazy = resultMapping.isLazy() && lazyLoaders.containsKey(target.getOriginalObject());
+        (lazy ? lazyLoads : pendingLoads).computeIfAbsent(resultMapping, k -> new ArrayList<>()).add(new PendingLoad(target, key));
+    }
+
+    public boolean isEmpty() {
+        return pendingLoads.isEmpty() && lazyLoads.isEmpty() && lazyLoaders.isEmpty();
+    }
+
+    /**
+     * 执行所有等待中的嵌套查询，把结果设置到父对象上
+     */
+    public void load() {
+        Map<ResultMapping, List<PendingLoad>> loads = new LinkedHashMap<>(pendingLoads);
+        pendingLoads.clear();
+        Map<ResultMapping, List<PendingLoad>> lazy = new LinkedHashMap<>(lazyLoads);
+        lazyLoads.clear();
+        Map<Object, ResultLoaderMap> loaders = new IdentityHashMap<>(lazyLoaders);
+        lazyLoaders.clear();
+        for (Map.Entry<ResultMapping, List<PendingLoad>> entry : loads.entrySet()) {
+            load(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<ResultMapping, List<PendingLoad>> entry : lazy.entrySet()) {
+            ResultMapping resultMapping = entry.getKey();
+            for (PendingLoad load : entry.getValue()) {
+                loaders.get(load.target.getOriginalObject())
+                        .addLoader(resultMapping.getProperty(), load.target, new ResultLoader(configuration, executor, resultMapping, load.key));
+            }
+        }
+    }
+
+    private void load(ResultMapping resultMapping, List<PendingLoad> loads) {
+        MappedStatement ms = configuration.getMappedStatement(resultMapping.getNestedQueryId());
+        if (ms == null) {
+            throw new RuntimeException("Could not find nested query " + resultMapping.getNestedQueryId() + " of property '" + resultMapping.getProperty() + "'");
+        }
+        // 按键去重，同一个键只查一次
+        Map<Object, Object> keys = new LinkedHashMap<>();
+        for (PendingLoad load : loads) {
+            keys.putIfAbsent(normalizeKey(load.key), load.key);
+        }
+        Map<Object, List<Object>> results = query(ms, new ArrayList<>(keys.values()));
+        for (PendingLoad load : loads) {
+            List<Object> rows = results.get(normalizeKey(load.key));
+            ResultLoader.setValue(configuration, resultMapping, load.target, rows == null ? Collections.emptyList() : rows);
+        }
+    }
+
+    /**
+     * @return 规范化的键 → 这个键查到的子对象
+     */
+    private Map<Object, List<Object>> query(MappedStatement ms, List<Object> keys) {
+        Map<Object, List<Object>> results = new HashMap<>();
+        BoundSql boundSql = ms.getSqlSource().getBoundSql(keys.get(0));
+        String sql = boundSql.getSql();
+        int[] predicate = keys.size() > 1 ? SqlClauseParser.findKeyPredicate(sql) : null;
+        String keyProperty = predicate == null ? null : keyPropertyOf(ms, sql, sql.substring(predicate[0], predicate[1]));
+        int batchSize = configuration.getNestedQueryBatchSize();
+        for (int from = 0; from < keys.size(); from += batchSize) {
+            List<Object> chunk = keys.subList(from, Math.min(keys.size(), from + batchSize));
+            if (keyProperty == null || chunk.size() == 1 || !queryChunk(ms, sql, predicate, keyProperty, chunk, results)) {
+                for (Object key : chunk) {
+                    List<Object> rows = executor.query(ms, key, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, ms.getSqlSource().getBoundSql(key));
+                    results.put(normalizeKey(key), rows);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 用一条 IN 查询查出这一块键的子对象
+     *
+     * @return 是否成功按键分组；有子对象取不到键或者键不在这一块中时返回 false，由调用方逐个查询
+     */
+    private boolean queryChunk(MappedStatement ms, String sql, int[] predicate, String keyProperty, List<Object> chunk, Map<Object, List<Object>> results) {
+        StringBuilder in = new StringBuilder(sql.length() + chunk.size() * 3);
+        in.append(sql, 0, predicate[1]).append(" IN (");
+        for (int i = 0; i < chunk.size(); i++) {
+            in.append(i == 0 ? "?" : ", ?");
+        }
+        in.append(')').append(sql, predicate[2], sql.length());
+        String inSql = in.toString();
+        BoundSql boundSql = new BoundSql(configuration, inSql, Collections.emptyList(), chunk).withAppendedParameters(inSql, chunk);
+        List<Object> rows = executor.query(ms, chunk, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, boundSql);
+
+        Map<Object, List<Object>> grouped = new HashMap<>();
+        for (Object key : chunk) {
+            grouped.put(normalizeKey(key), new ArrayList<>());
+        }
+        for (Object row : rows) {
+            Object key = row == null ? null : configuration.newMetaObject(row).getValue(keyProperty);
+            List<Object> group = key == null ? null : grouped.get(normalizeKey(key));
+            if (group == null) {
+                return false;
+            }
+            group.add(row);
+        }
+        results.putAll(grouped);
+        return true;
+    }
+
+    /**
+     * 找到键列映射到的子对象属性：结果映射中显式映射这一列的属性，否则是和列标签同名的属性
+     */
+    private String keyPropertyOf(MappedStatement ms, String sql, String column) {
+        SqlClauses clauses = SqlClauseParser.parse(sql);
+        String label = clauses == null ? SqlClauseParser.simpleName(column) : clauses.propertyOf(column);
+        ResultMap resultMap = ms.getResultMap();
+        if (resultMap != null) {
+            for (ResultMapping resultMapping : resultMap.getResultMappings()) {
+                if (resultMapping.getNestedQueryId() == null && resultMapping.getColumn() != null
+                        && SqlClauseParser.simpleName(resultMapping.getColumn()).equalsIgnoreCase(label)) {
+                    return resultMapping.getProperty();
+                }
+            }
+        }
+        Class<?> resultType = ms.getResultType();
+        if (resultType == null || configuration.getTypeHandlerRegistry().hasTypeHandler(resultType)) {
+            return null;
+        }
+        String property = Reflector.forClass(resultType).findPropertyName(label);
+        return property != null && Reflector.forClass(resultType).hasGetter(property) ? property : null;
+    }
+
+    /**
+     * 父对象的列值和子对象的属性值类型可能不同（如 Integer 和 Long），数字统一成去掉末尾 0 的 BigDecimal 再比较
+     */
+    private static Object normalizeKey(Object key) {
+        if (key instanceof Number) {
+            try {
+                return new BigDecimal(key.toString()).stripTrailingZeros();
+            } catch (NumberFormatException e) {
+                return key;
+            }
+        }
+        return key;
+    }
+
+    private static final class PendingLoad {
+
+        private final MetaObject target;
+        private final Object key;
+
+        PendingLoad(MetaObject target, Object key) {
+            this.target = target;
+            this.key = key;
+        }
+
+    }
+
+}
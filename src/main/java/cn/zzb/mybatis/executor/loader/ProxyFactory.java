@@ -0,0 +1,20 @@
+package cn.zzb.mybatis.executor.loader;
+
+import cn.zzb.mybatis.session.Configuration;
+
+/**
+ * 延迟加载代理工厂：创建结果类型的子类实例，访问延迟属性时由 {@link ResultLoaderMap} 执行嵌套查询
+ */
+public interface ProxyFactory {
+
+    /**
+     * 创建结果类型的延迟加载代理
+     *
+     * @param type          结果类型，需要有无参构造函数
+     * @param lazyLoader    这个对象的延迟属性，创建时为空，结果集映射完之后才登记
+     * @param configuration 全局配置，提供对象工厂和 aggressiveLazyLoading 等设置
+     * @return 结果类型的子类实例
+     */
+    Object createProxy(Class<?> type, ResultLoaderMap lazyLoader, Configuration configuration);
+
+}
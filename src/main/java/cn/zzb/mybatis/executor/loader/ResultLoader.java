@@ -0,0 +1,101 @@
+package cn.zzb.mybatis.executor.loader;
+
+import cn.zzb.mybatis.executor.Executor;
+import cn.zzb.mybatis.mapping.Environment;
+import cn.zzb.mybatis.mapping.MappedStatement;
+import cn.zzb.mybatis.mapping.ResultMapping;
+import cn.zzb.mybatis.reflection.MetaObject;
+import cn.zzb.mybatis.session.Configuration;
+import cn.zzb.mybatis.session.RowBounds;
+import cn.zzb.mybatis.session.TransactionIsolationLevel;
+import cn.zzb.mybatis.transaction.Transaction;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * 一个延迟加载的嵌套查询：记下查询和参数（父对象这一行 column 列的值），第一次访问属性时执行
+ * <p>
+ * 创建结果对象的会话没有关闭、并且在同一个线程中访问时用会话的执行器；会话已经关闭或者在其他线程中访问时，
+ * 从环境的数据源开一个新事务执行，执行完关闭。
+ */
+public class ResultLoader {
+
+    private final Configuration configuration;
+    private final Executor executor;
+    private final ResultMapping resultMapping;
+    private final Object parameterObject;
+    private final long creatorThreadId;
+
+    public ResultLoader(Configuration configuration, Executor executor, ResultMapping resultMapping, Object parameterObject) {
+        this.configuration = configuration;
+        this.executor = executor;
+        this.resultMapping = resultMapping;
+        this.parameterObject = parameterObject;
+        this.creatorThreadId = Thread.currentThread().getId();
+    }
+
+    /**
+     * 执行嵌套查询，把结果设置到父对象的属性上
+     */
+    public void load(MetaObject target) {
+        MappedStatement ms = configuration.getMappedStatement(resultMapping.getNestedQueryId());
+        if (ms == null) {
+            throw new RuntimeException("Could not find nested query " + resultMapping.getNestedQueryId() + " of property '" + resultMapping.getProperty() + "'");
+        }
+        setValue(configuration, resultMapping, target, selectList(ms));
+    }
+
+    private List<Object> selectList(MappedStatement ms) {
+        Executor localExecutor = executor;
+        if (Thread.currentThread().getId() != creatorThreadId || localExecutor.isClosed()) {
+            localExecutor = newExecutor();
+        }
+        try {
+            return localExecutor.query(ms, parameterObject, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, ms.getSqlSource().getBoundSql(parameterObject));
+        } finally {
+            if (localExecutor != executor) {
+                localExecutor.close(false);
+            }
+        }
+    }
+
+    private Executor newExecutor() {
+        Environment environment = configuration.getEnvironment();
+        if (environment == null) {
+            throw new RuntimeException("Cannot lazy load property '" + resultMapping.getProperty() + "': the session is closed and no environment is configured");
+        }
+        Transaction transaction = environment.getTransactionFactory().newTransaction(environment.getDataSource(), TransactionIsolationLevel.READ_COMMITTED, false);
+        return configuration.newExecutor(transaction);
+    }
+
+    /**
+     * 把嵌套查询的结果设置到父对象上：collection 设置为集合，association 设置为唯一的一行（没有时保持 null）
+     */
+    static void setValue(Configuration configuration, ResultMapping resultMapping, MetaObject target, List<Object> rows) {
+        String property = resultMapping.getProperty();
+        if (resultMapping.isCollection()) {
+            Collection<Object> collection = newCollection(configuration, target.getSetterType(property));
+            collection.addAll(rows);
+            target.setValue(property, collection);
+        } else if (rows.size() > 1) {
+            throw new RuntimeException("Expected one result (or null) for property '" + property + "' from " + resultMapping.getNestedQueryId() + ", but found: " + rows.size());
+        } else if (!rows.isEmpty()) {
+            target.setValue(property, rows.get(0));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> newCollection(Configuration configuration, Class<?> type) {
+        if (type == null || type.isAssignableFrom(ArrayList.class)) {
+            return new ArrayList<>();
+        }
+        if (type.isAssignableFrom(LinkedHashSet.class)) {
+            return new LinkedHashSet<>();
+        }
+        return (Collection<Object>) configuration.getObjectFactory().create(type);
+    }
+
+}
@@ -0,0 +1,83 @@
+package cn.zzb.mybatis.executor.loader;
+
+import cn.zzb.mybatis.reflection.MetaObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一个延迟加载对象还没有加载的属性：属性名（大写）→ 加载器
+ * <p>
+ * 属性加载之前先从表中移除，加载过程中再访问这个属性不会重复查询；调用方自己调用 setter 赋值的属性也移除，不再加载。
+ */
+public class ResultLoaderMap {
+
+    private final Map<String, LoadPair> loaderMap = new HashMap<>();
+
+    public void addLoader(String property, MetaObject metaResultObject, ResultLoader resultLoader) {
+        String upperFirst = property.toUpperCase(Locale.ENGLISH);
+        if (loaderMap.containsKey(upperFirst)) {
+            throw new RuntimeException("Nested lazy loaded result property '" + property + "' already exists in the result map. The leftmost property of all lazy loaded properties must be unique.");
+        }
+        loaderMap.put(upperFirst, new LoadPair(metaResultObject, resultLoader));
+    }
+
+    public int size() {
+        return loaderMap.size();
+    }
+
+    public boolean hasLoader(String property) {
+        return loaderMap.containsKey(property.toUpperCase(Locale.ENGLISH));
+    }
+
+    public Set<String> getProperties() {
+        return Collections.unmodifiableSet(loaderMap.keySet());
+    }
+
+    /**
+     * 加载一个属性
+     *
+     * @return 这个属性是否还没有加载过
+     */
+    public boolean load(String property) {
+        LoadPair pair = loaderMap.remove(property.toUpperCase(Locale.ENGLISH));
+        if (pair == null) {
+            return false;
+        }
+        pair.load();
+        return true;
+    }
+
+    public void remove(String property) {
+        loaderMap.remove(property.toUpperCase(Locale.ENGLISH));
+    }
+
+    public void loadAll() {
+        List<String> properties = new ArrayList<>(loaderMap.keySet());
+        for (String property : properties) {
+            load(property);
+        }
+    }
+
+    private static final class LoadPair {
+
+        private final MetaObject metaResultObject;
+        private final ResultLoader resultLoader;
+
+        LoadPair(MetaObject metaResultObject, ResultLoader resultLoader) {
+            this.metaResultObject = metaResultObject;
+            this.resultLoader = resultLoader;
+        }
+
+        void load() {
+            resultLoader.load(metaResultObject);
+        }
+
+    }
+
+}
@@ -0,0 +1,92 @@
+package cn.zzb.mybatis.executor.loader.javassist;
+
+import cn.zzb.mybatis.executor.loader.ProxyFactory;
+import cn.zzb.mybatis.executor.loader.ResultLoaderMap;
+import cn.zzb.mybatis.reflection.Reflector;
+import cn.zzb.mybatis.reflection.property.PropertyNamer;
+import cn.zzb.mybatis.session.Configuration;
+import javassist.util.proxy.MethodHandler;
+import javassist.util.proxy.Proxy;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 用 javassist 生成结果类型的子类作为延迟加载代理
+ * <p>
+ * 每个结果类型只生成一次子类，实例由 {@link cn.zzb.mybatis.reflection.factory.ObjectFactory} 用无参构造函数创建。
+ * 代理拦截所有可覆盖的方法：
+ * <ul>
+ *   <li>aggressiveLazyLoading 打开，或者调用 equals/hashCode/toString/clone（lazyLoadTriggerMethods）时加载全部延迟属性</li>
+ *   <li>调用延迟属性的 getter 时只加载这个属性</li>
+ *   <li>调用延迟属性的 setter 时这个属性不再加载，保留调用方设置的值</li>
+ * </ul>
+ * 所有延迟属性加载完之后，代理只多一次 Map 的 size 判断，直接调用父类方法。
+ */
+public class JavassistProxyFactory implements ProxyFactory {
+
+    private static final String FINALIZE_METHOD = "finalize";
+
+    // 结果类型 → 生成的子类
+    private final Map<Class<?>, Class<?>> proxyClasses = new ConcurrentHashMap<>();
+
+    @Override
+    public Object createProxy(Class<?> type, ResultLoaderMap lazyLoader, Configuration configuration) {
+        Class<?> proxyClass = proxyClasses.computeIfAbsent(type, JavassistProxyFactory::createProxyClass);
+        Object enhanced = configuration.getObjectFactory().create(proxyClass);
+        ((Proxy) enhanced).setHandler(new EnhancedResultObjectProxyImpl(lazyLoader, configuration));
+        return enhanced;
+    }
+
+    private static Class<?> createProxyClass(Class<?> type) {
+        if (!Reflector.forClass(type).hasDefaultConstructor()) {
+            throw new RuntimeException("Cannot create lazy loading proxy of " + type.getName() + ": a no-argument constructor is required");
+        }
+        javassist.util.proxy.ProxyFactory enhancer = new javassist.util.proxy.ProxyFactory();
+        enhancer.setSuperclass(type);
+        try {
+            return enhancer.createClass();
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Error creating lazy loading proxy of " + type.getName() + ". Cause: " + e, e);
+        }
+    }
+
+    private static final class EnhancedResultObjectProxyImpl implements MethodHandler {
+
+        private final ResultLoaderMap lazyLoader;
+        private final boolean aggressive;
+        private final Set<String> lazyLoadTriggerMethods;
+
+        EnhancedResultObjectProxyImpl(ResultLoaderMap lazyLoader, Configuration configuration) {
+            this.lazyLoader = lazyLoader;
+            this.aggressive = configuration.isAggressiveLazyLoading();
+            this.lazyLoadTriggerMethods = configuration.getLazyLoadTriggerMethods();
+        }
+
+        @Override
+        public Object invoke(Object enhanced, Method method, Method methodProxy, Object[] args) throws Throwable {
+            String methodName = method.getName();
+            synchronized (lazyLoader) {
+                if (lazyLoader.size() > 0 && !FINALIZE_METHOD.equals(methodName)) {
+                    if (aggressive || lazyLoadTriggerMethods.contains(methodName)) {
+                        lazyLoader.loadAll();
+                    } else if (PropertyNamer.isSetter(methodName) && args.length == 1) {
+                        lazyLoader.remove(PropertyNamer.methodToProperty(methodName));
+                    } else if (PropertyNamer.isGetter(methodName) && args.length == 0) {
+                        lazyLoader.load(PropertyNamer.methodToProperty(methodName));
+                    }
+                }
+            }
+            try {
+                return methodProxy.invoke(enhanced, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,15 @@
+package cn.zzb.mybatis.executor.parameter;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * 参数处理器：把参数对象的值绑定到 PreparedStatement 的 ? 占位符上
+ */
+public interface ParameterHandler {
+
+    Object getParameterObject();
+
+    void setParameters(PreparedStatement ps) throws SQLException;
+
+}
@@ -0,0 +1,186 @@
+package cn.zzb.mybatis.executor.resultset;
+
+import cn.zzb.mybatis.mapping.ResultMap;
+import cn.zzb.mybatis.mapping.ResultMapping;
+import cn.zzb.mybatis.parsing.SqlClauseParser;
+import cn.zzb.mybatis.reflection.Reflector;
+import cn.zzb.mybatis.reflection.invoker.ConstructorInvoker;
+import cn.zzb.mybatis.session.Configuration;
+import cn.zzb.mybatis.type.TypeHandler;
+
+import java.lang.reflect.Constructor;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 通过构造函数创建结果对象：&lt;constructor&gt; 中的参数，或者记录类的规范构造函数
+ * <p>
+ * 构造函数由 {@link Reflector#getConstructorInvoker} 按类型解析一次并缓存为 MethodHandle；
+ * 对一个结果集编译一次参数 → 列序号、类型处理器，每行只按序号取值后调用构造函数。
+ * <p>
+ * &lt;constructor&gt; 的参数按顺序对应构造函数的参数，都写了 javaType 时按这些类型找构造函数，否则取参数个数相同的唯一构造函数。
+ * 记录类没有 &lt;constructor&gt; 时，每个组件取结果映射中同名属性的列，没有时取和组件名相同（忽略大小写）的列。
+ * 结果集中没有的列传 null，基本类型的参数传默认值。
+ */
+final class ConstructorMapper {
+
+    private final Class<?> type;
+    private final ConstructorInvoker constructor;
+    // 参数 → 列序号，0 表示结果集中没有这一列
+    private final int[] argColumns;
+    private final TypeHandler<?>[] typeHandlers;
+    // 基本类型参数在列值为 NULL 时的默认值
+    private final Object[] defaults;
+    // 作为构造函数参数映射的结果映射，不再调用 setter
+    private final Set<ResultMapping> argumentMappings = new HashSet<>();
+
+    private ConstructorMapper(Configuration configuration, Class<?> type, ConstructorInvoker constructor, int[] argColumns, ResultMapping[] argMappings) {
+        this.type = type;
+        this.constructor = constructor;
+        this.argColumns = argColumns;
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        this.typeHandlers = new TypeHandler<?>[parameterTypes.length];
+        this.defaults = new Object[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            ResultMapping argMapping = argMappings[i];
+            TypeHandler<?> typeHandler = argMapping == null ? null : argMapping.getTypeHandler();
+            if (typeHandler == null) {
+                typeHandler = configuration.getTypeHandlerRegistry().getTypeHandler(parameterTypes[i], null);
+            }
+            typeHandlers[i] = typeHandler != null ? typeHandler : configuration.getTypeHandlerRegistry().getUnknownTypeHandler();
+            defaults[i] = defaultValue(parameterTypes[i]);
+            if (argMapping != null) {
+                argumentMappings.add(argMapping);
+            }
+        }
+    }
+
+    /**
+     * 编译结果映射（或者没有结果映射的结果类型）的构造函数映射
+     *
+     * @param resultMap     结果映射，resultType 时为 null
+     * @param columnPrefix  嵌套结果映射的列名前缀，没有时为 null
+     * @param columnIndexes 结果集的列标签（大写）→ 列序号
+     * @return 不需要通过构造函数创建（没有 &lt;constructor&gt; 也不是记录类）时返回 null
+     */
+    static ConstructorMapper compile(Configuration configuration, Class<?> type, ResultMap resultMap, String columnPrefix, Map<String, Integer> columnIndexes) {
+        String prefix = columnPrefix == null ? "" : columnPrefix;
+        Reflector reflector = Reflector.forClass(type);
+        List<ResultMapping> constructorMappings = resultMap == null ? null : resultMap.getConstructorResultMappings();
+        if (constructorMappings != null && !constructorMappings.isEmpty()) {
+            int size = constructorMappings.size();
+            int[] argColumns = new int[size];
+            ResultMapping[] argMappings = constructorMappings.toArray(new ResultMapping[size]);
+            for (int i = 0; i < size; i++) {
+                argColumns[i] = columnIndex(columnIndexes, prefix, argMappings[i].getColumn());
+            }
+            return new ConstructorMapper(configuration, type, reflector.getConstructorInvoker(parameterTypes(reflector, resultMap)), argColumns, argMappings);
+        }
+        if (!reflector.isRecord()) {
+            return null;
+        }
+        String[] names = reflector.getRecordComponentNames();
+        int[] argColumns = new int[names.length];
+        ResultMapping[] argMappings = new ResultMapping[names.length];
+        for (int i = 0; i < names.length; i++) {
+            argMappings[i] = resultMap == null ? null : propertyMapping(resultMap, names[i]);
+            argColumns[i] = columnIndex(columnIndexes, prefix, argMappings[i] != null ? argMappings[i].getColumn() : names[i]);
+        }
+        return new ConstructorMapper(configuration, type, reflector.getConstructorInvoker(reflector.getRecordComponentTypes()), argColumns, argMappings);
+    }
+
+    Object create(ResultSet resultSet) throws SQLException {
+        Object[] args = new Object[argColumns.length];
+        for (int i = 0; i < args.length; i++) {
+            Object value = argColumns[i] == 0 ? null : typeHandlers[i].getResult(resultSet, argColumns[i]);
+            args[i] = value != null ? value : defaults[i];
+        }
+        try {
+            return constructor.invoke(null, args);
+        } catch (Exception e) {
+            throw new RuntimeException("Error instantiating " + type.getName() + " with constructor arguments " + Arrays.toString(args) + ". Cause: " + e, e);
+        }
+    }
+
+    /**
+     * 这个结果映射是否已经作为构造函数参数映射
+     */
+    boolean isArgument(ResultMapping resultMapping) {
+        return argumentMappings.contains(resultMapping);
+    }
+
+    private static Class<?>[] parameterTypes(Reflector reflector, ResultMap resultMap) {
+        List<ResultMapping> constructorMappings = resultMap.getConstructorResultMappings();
+        Class<?>[] types = new Class<?>[constructorMappings.size()];
+        boolean allTyped = true;
+        for (int i = 0; i < types.length; i++) {
+            types[i] = constructorMappings.get(i).getJavaType();
+            allTyped = allTyped && types[i] != null;
+        }
+        if (allTyped) {
+            return types;
+        }
+        if (reflector.isRecord() && reflector.getRecordComponentTypes().length == types.length) {
+            return reflector.getRecordComponentTypes();
+        }
+        Constructor<?> constructor = reflector.findConstructor(types.length);
+        if (constructor == null) {
+            throw new RuntimeException("Could not choose a constructor of " + reflector.getType().getName() + " with " + types.length
+                    + " arguments for " + resultMap.getId() + ", specify javaType on every <arg>");
+        }
+        return constructor.getParameterTypes();
+    }
+
+    private static ResultMapping propertyMapping(ResultMap resultMap, String property) {
+        for (ResultMapping resultMapping : resultMap.getResultMappings()) {
+            if (property.equals(resultMapping.getProperty()) && resultMapping.getColumn() != null
+                    && resultMapping.getNestedQueryId() == null && resultMapping.getNestedResultMapId() == null) {
+                return resultMapping;
+            }
+        }
+        return null;
+    }
+
+    private static int columnIndex(Map<String, Integer> columnIndexes, String prefix, String column) {
+        if (column == null) {
+            return 0;
+        }
+        Integer index = columnIndexes.get((prefix + SqlClauseParser.simpleName(column)).toUpperCase(Locale.ENGLISH));
+        return index == null ? 0 : index;
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0D;
+        }
+        if (type == float.class) {
+            return 0F;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        return 0;
+    }
+
+}
@@ -1,61 +1,399 @@
 package cn.zzb.mybatis.executor.resultset;
 
 
+import cn.zzb.mybatis.cursor.Cursor;
+import cn.zzb.mybatis.cursor.defaults.DefaultCursor;
 import cn.zzb.mybatis.executor.Executor;
+import cn.zzb.mybatis.executor.loader.BatchResultLoader;
 import cn.zzb.mybatis.mapping.BoundSql;
 import cn.zzb.mybatis.mapping.MappedStatement;
+import cn.zzb.mybatis.mapping.ResultMap;
+import cn.zzb.mybatis.mapping.ResultMapping;
+import cn.zzb.mybatis.parsing.SqlClauseParser;
+import cn.zzb.mybatis.reflection.MetaObject;
+import cn.zzb.mybatis.session.Configuration;
+import cn.zzb.mybatis.session.ResultSetSink;
+import cn.zzb.mybatis.session.RowBounds;
+import cn.zzb.mybatis.type.TypeHandler;
 
 import java.lang.reflect.Method;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 默认Map结果处理器
+ * <p>
+ * 映射按行进行（{@link #handleRow}）：一次性查询把所有行收集到 List，游标/流式查询每次只映射一行。
+ * <p>
+ * 语句配置了 {@link ResultMap} 时先按其中的映射取值，其余列仍自动映射；嵌套查询（association/collection 的 select）
+ * 交给 {@link BatchResultLoader}，一次性查询在整个结果集映射完、结果集关闭之后批量执行，游标查询每映射一行就执行。
+ * <p>
+ * 结果映射中有嵌套结果映射（association/collection 的 resultMap）时，由 {@link JoinedResultMapper} 把 JOIN 的多行
+ * 合并成对象图，RowBounds 的 limit 按根对象计数。游标按根对象逐个返回，要求结果按根对象的 id 排序（ORDER BY）。
  */
 public class DefaultResultSetHandler implements ResultSetHandler {
 
+    private final Configuration configuration;
     private final BoundSql boundSql;
     private final MappedStatement mappedStatement;
+    private final RowBounds rowBounds;
+    private final BatchResultLoader batchResultLoader;
 
-    public DefaultResultSetHandler(Executor executor, MappedStatement mappedStatement, BoundSql boundSql) {
+    // 当前结果集的列标签（大写）→ 列序号，结果映射按列名取值时使用
+    private ResultSetMetaData indexedMetaData;
+    private Map<String, Integer> columnIndexes;
+    // 通过构造函数创建结果对象时，按结果集编译的参数映射（不需要时为 null）
+    private Map<String, Integer> constructorColumnIndexes;
+    private ConstructorMapper constructorMapper;
+    // resultType="map" 时按结果集共用的列标签
+    private Map<String, Integer> rowMapColumnIndexes;
+    private RowMap.Columns rowMapColumns;
+    // 嵌套结果映射：按结果集编译的映射器，游标中还没有读完的根对象
+    private JoinedResultMapper joinedResultMapper;
+    private ResultSet joinedResultSet;
+    private Object pendingObject;
+    private boolean exhausted;
+
+    public DefaultResultSetHandler(Executor executor, MappedStatement mappedStatement, RowBounds rowBounds, BoundSql boundSql) {
+        this.configuration = mappedStatement.getConfiguration();
         this.boundSql = boundSql;
         this.mappedStatement = mappedStatement;
+        this.rowBounds = rowBounds;
+        this.batchResultLoader = new BatchResultLoader(configuration, executor);
     }
 
     @Override
     public <E> List<E> handleResultSets(Statement stmt) throws SQLException {
         ResultSet resultSet = stmt.getResultSet();
-        return resultSet2Obj(resultSet, mappedStatement.getResultType());
+        // 语句没有返回结果集（如对写语句调用了查询）
+        if (resultSet == null) {
+            return new ArrayList<>();
+        }
+        List<E> list;
+        try {
+            list = resultSet2Obj(resultSet);
+        } finally {
+            resultSet.close();
+        }
+        // 所有行映射完之后，每个嵌套查询按收集到的键批量执行一次
+        if (!batchResultLoader.isEmpty()) {
+            batchResultLoader.load();
+        }
+        return list;
+    }
+
+    @Override
+    public <E> Cursor<E> handleCursorResultSets(Statement stmt) throws SQLException {
+        return new DefaultCursor<>(this, stmt.getResultSet());
+    }
+
+    /**
+     * 结果集交给接收器：跳过 offset 行后最多读 limit 行，结果映射和嵌套查询都不生效
+     */
+    @Override
+    public <T> T handleResultSetSink(Statement stmt, ResultSetSink<T> sink) throws SQLException {
+        ResultSet resultSet = stmt.getResultSet();
+        if (resultSet == null) {
+            throw new RuntimeException("Statement " + mappedStatement.getId() + " did not return a result set");
+        }
+        try {
+            return sink.consume(resultSet, skipRows(resultSet) ? rowBounds.getLimit() : 0);
+        } finally {
+            resultSet.close();
+        }
     }
 
-    private <T> List<T> resultSet2Obj(ResultSet resultSet, Class<?> clazz) {
+    private <T> List<T> resultSet2Obj(ResultSet resultSet) throws SQLException {
         List<T> list = new ArrayList<>();
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        // 跳过 offset 行（驱动已经按 offset + limit 限制了最大行数）
+        if (!skipRows(resultSet)) {
+            return list;
+        }
+        if (hasNestedResultMaps()) {
+            return handleJoinedRows(resultSet, metaData, list);
+        }
+        // 每次遍历行值
+        while (list.size() < rowBounds.getLimit() && resultSet.next()) {
+            list.add(mapRow(resultSet, metaData));
+        }
+        return list;
+    }
+
+    /**
+     * JOIN 结果映射成对象图：同一个根对象的多行合并，只有新的根对象加入结果列表
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> handleJoinedRows(ResultSet resultSet, ResultSetMetaData metaData, List<T> list) throws SQLException {
+        JoinedResultMapper mapper = joinedResultMapper(resultSet, metaData);
+        while (resultSet.next()) {
+            // 已经有 limit 个根对象时，只继续读属于这些根对象的行
+            if (list.size() >= rowBounds.getLimit() && !mapper.isMapped(resultSet)) {
+                break;
+            }
+            Object object = mapper.mapRow(resultSet);
+            if (mapper.isNewObject()) {
+                list.add((T) object);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 结果映射中是否有嵌套结果映射，有时游标通过 {@link #nextJoinedObject} 按根对象读取
+     */
+    public boolean hasNestedResultMaps() {
+        return mappedStatement.hasNestedResultMaps();
+    }
+
+    /**
+     * 游标读取下一个根对象：一直读到下一个根对象的第一行，再交出前一个；结果必须按根对象排序
+     *
+     * @return 下一个根对象，读完时返回 null
+     */
+    public Object nextJoinedObject(ResultSet resultSet) throws SQLException {
+        if (exhausted) {
+            return null;
+        }
+        JoinedResultMapper mapper = joinedResultMapper(resultSet, null);
+        Object result = null;
+        while (result == null) {
+            if (!resultSet.next()) {
+                exhausted = true;
+                result = pendingObject;
+                pendingObject = null;
+                break;
+            }
+            if (pendingObject != null && !mapper.isMapped(resultSet)) {
+                result = pendingObject;
+                // 交出的根对象不会再出现，已映射的对象不再保留
+                mapper.clear();
+            }
+            Object object = mapper.mapRow(resultSet);
+            if (mapper.isNewObject()) {
+                pendingObject = object;
+            }
+        }
+        if (!batchResultLoader.isEmpty()) {
+            batchResultLoader.load();
+        }
+        return result;
+    }
+
+    /**
+     * 按结果集缓存映射器（驱动每次 getMetaData() 可能返回新的对象，不能按元数据判断），游标的多次读取共用一个标识映射
+     */
+    private JoinedResultMapper joinedResultMapper(ResultSet resultSet, ResultSetMetaData metaData) throws SQLException {
+        if (joinedResultMapper == null || resultSet != joinedResultSet) {
+            if (metaData == null) {
+                metaData = resultSet.getMetaData();
+            }
+            int[] columnTypes = new int[metaData.getColumnCount() + 1];
+            for (int i = 1; i < columnTypes.length; i++) {
+                columnTypes[i] = metaData.getColumnType(i);
+            }
+            joinedResultMapper = new JoinedResultMapper(configuration, mappedStatement.getResultMap(), null, columnIndexes(metaData), columnTypes, batchResultLoader);
+            joinedResultSet = resultSet;
+        }
+        return joinedResultMapper;
+    }
+
+    /**
+     * 跳过 offset 行：可滚动结果集直接 absolute(offset) 定位，只能前进的结果集逐行 next()
+     *
+     * @return 跳过之后是否还可能有数据
+     */
+    private boolean skipRows(ResultSet resultSet) throws SQLException {
+        int offset = rowBounds.getOffset();
+        if (offset == RowBounds.NO_ROW_OFFSET) {
+            return true;
+        }
+        if (resultSet.getType() != ResultSet.TYPE_FORWARD_ONLY) {
+            return resultSet.absolute(offset);
+        }
+        for (int skipped = 0; skipped < offset; skipped++) {
+            if (!resultSet.next()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 把结果集当前行映射为结果对象，不移动游标；这一行的嵌套查询立即执行
+     */
+    public <T> T handleRow(ResultSet resultSet, ResultSetMetaData metaData) throws SQLException {
+        T row = mapRow(resultSet, metaData);
+        if (!batchResultLoader.isEmpty()) {
+            batchResultLoader.load();
+        }
+        return row;
+    }
+
+    /**
+     * 把结果集当前行映射为结果对象，嵌套查询只登记到批量加载器中
+     * <p>
+     * 有结果映射时按结果映射取值；结果类型是有类型处理器的简单类型（Long、String 等）时直接取第一列；
+     * 结果类型是 Map 接口（resultType="map"）时返回共用列标签的 {@link RowMap}，其他 Map 类型逐列 put；
+     * 否则按列名调用 setter，值为 NULL 的列不调用 setter，保留属性的默认值；结果类型中没有对应 setter 的列忽略。
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T mapRow(ResultSet resultSet, ResultSetMetaData metaData) throws SQLException {
+        ResultMap resultMap = mappedStatement.getResultMap();
+        if (resultMap != null) {
+            return (T) applyResultMap(resultSet, metaData, resultMap);
+        }
+        Class<?> clazz = mappedStatement.getResultType();
+        // 结果类型是 Long、String 等简单类型时取第一列
+        TypeHandler<?> simpleTypeHandler = mappedStatement.getConfiguration().getTypeHandlerRegistry().getTypeHandler(clazz, null);
+        if (simpleTypeHandler != null) {
+            return (T) simpleTypeHandler.getResult(resultSet, 1);
+        }
+        if (clazz == Map.class) {
+            return (T) RowMap.read(rowMapColumns(metaData), resultSet);
+        }
+        // 记录类按组件名取列，调用规范构造函数
+        ConstructorMapper constructorMapper = constructorMapper(clazz, null, metaData);
+        if (constructorMapper != null) {
+            return (T) constructorMapper.create(resultSet);
+        }
         try {
-            ResultSetMetaData metaData = resultSet.getMetaData();
-            int columnCount = metaData.getColumnCount();
-            // 每次遍历行值
-            while (resultSet.next()) {
-                T obj = (T) clazz.newInstance();
-                for (int i = 1; i <= columnCount; i++) {
-                    Object value = resultSet.getObject(i);
-                    String columnName = metaData.getColumnName(i);
-                    String setMethod = "set" + columnName.substring(0, 1).toUpperCase() + columnName.substring(1);
-                    Method method;
-                    if (value instanceof Timestamp) {
-                        method = clazz.getMethod(setMethod, java.util.Date.class);
-                        value = new java.util.Date(((Timestamp) value).getTime());
-                    } else {
-                        method = clazz.getMethod(setMethod, value.getClass());
-                    }
-                    method.invoke(obj, value);
+            T obj = (T) configuration.getObjectFactory().create(clazz);
+            autoMapColumns(obj, resultSet, metaData, Collections.emptySet());
+            return obj;
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Error mapping row of " + mappedStatement.getId() + " to " + clazz.getName() + ". Cause: " + e, e);
+        }
+    }
+
+    /**
+     * 按结果映射取值：显式映射的列用属性类型的类型处理器取值，嵌套查询登记这一行的键，其余列自动映射；
+     * 有 &lt;constructor&gt; 或者结果类型是记录类时先用构造函数参数创建对象，作为参数的映射不再调用 setter
+     */
+    private Object applyResultMap(ResultSet resultSet, ResultSetMetaData metaData, ResultMap resultMap) throws SQLException {
+        ConstructorMapper constructorMapper = constructorMapper(resultMap.getType(), resultMap, metaData);
+        Object obj = constructorMapper != null ? constructorMapper.create(resultSet) : batchResultLoader.createResultObject(resultMap);
+        MetaObject metaObject = configuration.newMetaObject(obj);
+        for (ResultMapping resultMapping : resultMap.getResultMappings()) {
+            if (constructorMapper != null && constructorMapper.isArgument(resultMapping)) {
+                continue;
+            }
+            int index = columnIndex(metaData, resultMapping.getColumn());
+            if (index < 0) {
+                continue;
+            }
+            if (resultMapping.getNestedQueryId() != null) {
+                Object key = resultSet.getObject(index);
+                if (key != null) {
+                    batchResultLoader.add(resultMapping, metaObject, key);
                 }
-                list.add(obj);
+                continue;
+            }
+            TypeHandler<?> typeHandler = resultMapping.getTypeHandler();
+            Object value = (typeHandler != null ? typeHandler : configuration.getTypeHandlerRegistry().getUnknownTypeHandler()).getResult(resultSet, index);
+            if (value != null) {
+                metaObject.setValue(resultMapping.getProperty(), value);
             }
-        } catch (Exception e) {
-            e.printStackTrace();
         }
-        return list;
+        try {
+            autoMapColumns(obj, resultSet, metaData, resultMap.getMappedColumns());
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Error mapping row of " + mappedStatement.getId() + " with " + resultMap.getId() + ". Cause: " + e, e);
+        }
+        return obj;
     }
-}
 
+    /**
+     * 当前结果集的构造函数映射，每个结果集编译一次
+     */
+    private ConstructorMapper constructorMapper(Class<?> type, ResultMap resultMap, ResultSetMetaData metaData) throws SQLException {
+        Map<String, Integer> indexes = columnIndexes(metaData);
+        if (indexes != constructorColumnIndexes) {
+            constructorMapper = ConstructorMapper.compile(configuration, type, resultMap, null, indexes);
+            constructorColumnIndexes = indexes;
+        }
+        return constructorMapper;
+    }
+
+    /**
+     * 当前结果集 resultType="map" 的列标签，每个结果集计算一次，所有行共用
+     */
+    private RowMap.Columns rowMapColumns(ResultSetMetaData metaData) throws SQLException {
+        Map<String, Integer> indexes = columnIndexes(metaData);
+        if (indexes != rowMapColumnIndexes) {
+            rowMapColumns = RowMap.Columns.of(metaData);
+            rowMapColumnIndexes = indexes;
+        }
+        return rowMapColumns;
+    }
+
+    /**
+     * 按列名调用同名属性的 setter，跳过 mappedColumns 中的列（大写）；结果对象是 Map 时按列标签 put，NULL 也放入
+     */
+    @SuppressWarnings("unchecked")
+    private void autoMapColumns(Object obj, ResultSet resultSet, ResultSetMetaData metaData, Set<String> mappedColumns) throws SQLException, ReflectiveOperationException {
+        Class<?> clazz = obj.getClass();
+        int columnCount = metaData.getColumnCount();
+        for (int i = 1; i <= columnCount; i++) {
+            // 列标签即 AS 别名，没有别名时就是列名
+            String columnName = metaData.getColumnLabel(i);
+            if (!mappedColumns.isEmpty() && mappedColumns.contains(columnName.toUpperCase(Locale.ENGLISH))) {
+                continue;
+            }
+            Object value = resultSet.getObject(i);
+            if (obj instanceof Map) {
+                ((Map<String, Object>) obj).put(columnName, value);
+                continue;
+            }
+            if (value == null) {
+                continue;
+            }
+            String setMethod = "set" + columnName.substring(0, 1).toUpperCase() + columnName.substring(1);
+            Method method;
+            try {
+                if (value instanceof Timestamp) {
+                    method = clazz.getMethod(setMethod, java.util.Date.class);
+                    value = new java.util.Date(((Timestamp) value).getTime());
+                } else {
+                    method = clazz.getMethod(setMethod, value.getClass());
+                }
+            } catch (NoSuchMethodException e) {
+                continue;
+            }
+            method.invoke(obj, value);
+        }
+    }
+
+    /**
+     * 按列名（忽略大小写和表名前缀）找到列序号，结果集中没有这一列时返回 -1
+     */
+    private int columnIndex(ResultSetMetaData metaData, String column) throws SQLException {
+        if (column == null) {
+            return -1;
+        }
+        Integer index = columnIndexes(metaData).get(SqlClauseParser.simpleName(column).toUpperCase(Locale.ENGLISH));
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * 当前结果集的列标签（大写）→ 列序号，同名的列取第一个
+     */
+    private Map<String, Integer> columnIndexes(ResultSetMetaData metaData) throws SQLException {
+        if (metaData != indexedMetaData) {
+            Map<String, Integer> indexes = new HashMap<>();
+            for (int i = metaData.getColumnCount(); i >= 1; i--) {
+                indexes.put(metaData.getColumnLabel(i).toUpperCase(Locale.ENGLISH), i);
+            }
+            columnIndexes = indexes;
+            indexedMetaData = metaData;
+        }
+        return columnIndexes;
+    }
+
+}
@@ -0,0 +1,311 @@
+package cn.zzb.mybatis.executor.resultset;
+
+import cn.zzb.mybatis.executor.loader.BatchResultLoader;
+import cn.zzb.mybatis.mapping.ResultMap;
+import cn.zzb.mybatis.mapping.ResultMapping;
+import cn.zzb.mybatis.parsing.SqlClauseParser;
+import cn.zzb.mybatis.reflection.Reflector;
+import cn.zzb.mybatis.reflection.invoker.Invoker;
+import cn.zzb.mybatis.session.Configuration;
+import cn.zzb.mybatis.type.TypeHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 把一个 JOIN 查询的结果集映射成对象图（带嵌套结果映射的 &lt;association resultMap="..."/&gt;、&lt;collection resultMap="..."/&gt;）
+ * <p>
+ * 对一个结果集编译一次：列序号、类型处理器、setter 都在构造时解析好，每行只按序号取值、调用缓存的 setter。
+ * 每个对象按行键（id 列；没有 id 时为所有显式映射的列）记入 {@link RowIdentityMap}，同一个对象在后续行中再出现时直接复用，
+ * 只继续映射它下面的嵌套对象；子对象按 (父对象, 子对象行键) 去重，一个集合中不会重复加入同一个子对象。
+ * 子对象的行键全为 NULL（LEFT JOIN 没有匹配）时不创建子对象，集合属性保持为空集合。
+ * <p>
+ * 和 MyBatis 的 PARTIAL 自动映射一致，带嵌套结果映射时只映射显式写出的属性，JOIN 的各表列名容易重复，不再按列名自动映射。
+ */
+final class JoinedResultMapper {
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final Configuration configuration;
+    private final ResultMap resultMap;
+    private final BatchResultLoader batchResultLoader;
+    private final RowIdentityMap identityMap = new RowIdentityMap();
+    // 有 <constructor> 或者结果类型是记录类时通过构造函数创建对象
+    private final ConstructorMapper constructorMapper;
+
+    // 显式映射的属性
+    private final int[] propertyColumns;
+    private final TypeHandler<?>[] typeHandlers;
+    private final String[] properties;
+    private final Invoker[] setters;
+
+    // 行键：单个整数列时按 long 读取，否则读到 keyValues 中
+    private final int[] keyColumns;
+    private final boolean integralKey;
+    private final Object[] keyValues;
+    private long keyId;
+
+    // 嵌套结果映射、嵌套查询
+    private final List<Nested> nestedResults = new ArrayList<>();
+    private final List<ResultMapping> nestedQueries = new ArrayList<>();
+    private final List<Integer> nestedQueryColumns = new ArrayList<>();
+
+    // 最近一次 mapRow 是否创建了新的根对象
+    private boolean newObject;
+
+    /**
+     * @param columnIndexes 结果集的列标签（大写）→ 列序号
+     * @param columnTypes   列序号 → java.sql.Types
+     */
+    JoinedResultMapper(Configuration configuration, ResultMap resultMap, String columnPrefix, Map<String, Integer> columnIndexes,
+                       int[] columnTypes, BatchResultLoader batchResultLoader) {
+        this(configuration, resultMap, columnPrefix, columnIndexes, columnTypes, batchResultLoader, new HashSet<>());
+    }
+
+    private JoinedResultMapper(Configuration configuration, ResultMap resultMap, String columnPrefix, Map<String, Integer> columnIndexes,
+                               int[] columnTypes, BatchResultLoader batchResultLoader, Set<String> ancestors) {
+        this.configuration = configuration;
+        this.resultMap = resultMap;
+        this.batchResultLoader = batchResultLoader;
+        if (!ancestors.add(resultMap.getId())) {
+            throw new RuntimeException("Circular nested result map " + resultMap.getId() + " is not supported");
+        }
+        String prefix = columnPrefix == null ? "" : columnPrefix;
+        Reflector reflector = Reflector.forClass(resultMap.getType());
+
+        constructorMapper = ConstructorMapper.compile(configuration, resultMap.getType(), resultMap, columnPrefix, columnIndexes);
+        List<ResultMapping> mapped = new ArrayList<>();
+        List<Integer> mappedColumns = new ArrayList<>();
+        // 行键的候选列：显式映射的列，包括构造函数参数
+        List<Integer> keyCandidates = new ArrayList<>();
+        List<Integer> idColumns = new ArrayList<>();
+        for (ResultMapping resultMapping : resultMap.getResultMappings()) {
+            if (resultMapping.getNestedResultMapId() != null) {
+                ResultMap nestedResultMap = configuration.getResultMap(resultMapping.getNestedResultMapId());
+                if (nestedResultMap == null) {
+                    throw new RuntimeException("Could not find result map " + resultMapping.getNestedResultMapId() + " of property '" + resultMapping.getProperty() + "' in " + resultMap.getId());
+                }
+                String nestedPrefix = prefix + (resultMapping.getColumnPrefix() == null ? "" : resultMapping.getColumnPrefix());
+                JoinedResultMapper mapper = new JoinedResultMapper(configuration, nestedResultMap, nestedPrefix, columnIndexes, columnTypes, batchResultLoader, new HashSet<>(ancestors));
+                nestedResults.add(new Nested(resultMapping, mapper, reflector));
+                continue;
+            }
+            Integer index = resultMapping.getColumn() == null ? null
+                    : columnIndexes.get((prefix + SqlClauseParser.simpleName(resultMapping.getColumn())).toUpperCase(Locale.ENGLISH));
+            if (index == null) {
+                continue;
+            }
+            if (resultMapping.getNestedQueryId() != null) {
+                nestedQueries.add(resultMapping);
+                nestedQueryColumns.add(index);
+                continue;
+            }
+            keyCandidates.add(index);
+            if (resultMap.getIdResultMappings().contains(resultMapping)) {
+                idColumns.add(index);
+            }
+            if (constructorMapper == null || !constructorMapper.isArgument(resultMapping)) {
+                mapped.add(resultMapping);
+                mappedColumns.add(index);
+            }
+        }
+
+        int size = mapped.size();
+        propertyColumns = new int[size];
+        typeHandlers = new TypeHandler<?>[size];
+        properties = new String[size];
+        setters = new Invoker[size];
+        for (int i = 0; i < size; i++) {
+            ResultMapping resultMapping = mapped.get(i);
+            propertyColumns[i] = mappedColumns.get(i);
+            typeHandlers[i] = resultMapping.getTypeHandler() != null ? resultMapping.getTypeHandler() : configuration.getTypeHandlerRegistry().getUnknownTypeHandler();
+            properties[i] = resultMapping.getProperty();
+            // 嵌套属性路径（a.b）交给 MetaObject
+            setters[i] = reflector.hasSetter(properties[i]) ? reflector.getSetInvoker(properties[i]) : null;
+        }
+
+        List<Integer> keys = idColumns.isEmpty() ? keyCandidates : idColumns;
+        keyColumns = new int[keys.size()];
+        for (int i = 0; i < keyColumns.length; i++) {
+            keyColumns[i] = keys.get(i);
+        }
+        integralKey = keyColumns.length == 1 && isIntegral(columnTypes[keyColumns[0]]);
+        keyValues = integralKey ? null : new Object[keyColumns.length];
+    }
+
+    /**
+     * 映射根对象的一行
+     *
+     * @return 这一行的根对象，已经在前面的行中创建过时返回同一个对象，{@link #isNewObject()} 为 false
+     */
+    Object mapRow(ResultSet resultSet) throws SQLException {
+        RowIdentityMap.Entry entry = null;
+        boolean hasKey = readKey(resultSet);
+        if (hasKey) {
+            entry = identityMap.get(null, keyId, keyValues);
+        }
+        newObject = entry == null;
+        if (entry == null) {
+            Object object = createObject(resultSet);
+            // 根对象的行键全为 NULL 时每一行都是新对象，不去重
+            entry = hasKey ? identityMap.put(null, keyId, keyValues, object) : new RowIdentityMap.Entry(null, 0, null, object);
+        }
+        applyNestedResults(resultSet, entry);
+        return entry.getObject();
+    }
+
+    boolean isNewObject() {
+        return newObject;
+    }
+
+    /**
+     * 当前行的根对象是否已经映射过，游标按根对象分组时用来判断一个根对象的行是否已经读完
+     */
+    boolean isMapped(ResultSet resultSet) throws SQLException {
+        return readKey(resultSet) && identityMap.get(null, keyId, keyValues) != null;
+    }
+
+    /**
+     * 清空所有已映射的对象，游标交出一个根对象之后调用，内存不随行数增长
+     */
+    void clear() {
+        identityMap.clear();
+        for (Nested nested : nestedResults) {
+            nested.mapper.clear();
+        }
+    }
+
+    private void applyNestedResults(ResultSet resultSet, RowIdentityMap.Entry parent) throws SQLException {
+        for (Nested nested : nestedResults) {
+            JoinedResultMapper mapper = nested.mapper;
+            // LEFT JOIN 没有匹配的行
+            if (!mapper.readKey(resultSet)) {
+                nested.ensureCollection(parent.getObject());
+                continue;
+            }
+            RowIdentityMap.Entry entry = mapper.identityMap.get(parent, mapper.keyId, mapper.keyValues);
+            if (entry == null) {
+                Object child = mapper.createObject(resultSet);
+                entry = mapper.identityMap.put(parent, mapper.keyId, mapper.keyValues, child);
+                nested.link(parent.getObject(), child);
+            }
+            mapper.applyNestedResults(resultSet, entry);
+        }
+    }
+
+    /**
+     * 读出当前行的行键
+     *
+     * @return 行键是否不全为 NULL
+     */
+    private boolean readKey(ResultSet resultSet) throws SQLException {
+        if (keyColumns.length == 0) {
+            return false;
+        }
+        if (integralKey) {
+            keyId = resultSet.getLong(keyColumns[0]);
+            return !resultSet.wasNull();
+        }
+        boolean hasValue = false;
+        for (int i = 0; i < keyColumns.length; i++) {
+            keyValues[i] = resultSet.getObject(keyColumns[i]);
+            hasValue = hasValue || keyValues[i] != null;
+        }
+        return hasValue;
+    }
+
+    private Object createObject(ResultSet resultSet) throws SQLException {
+        Object object = constructorMapper != null ? constructorMapper.create(resultSet) : batchResultLoader.createResultObject(resultMap);
+        for (int i = 0; i < propertyColumns.length; i++) {
+            Object value = typeHandlers[i].getResult(resultSet, propertyColumns[i]);
+            if (value == null) {
+                continue;
+            }
+            if (setters[i] == null) {
+                configuration.newMetaObject(object).setValue(properties[i], value);
+                continue;
+            }
+            try {
+                setters[i].invoke(object, new Object[]{value});
+            } catch (Exception e) {
+                throw new RuntimeException("Error setting property '" + properties[i] + "' of " + resultMap.getId() + ". Cause: " + e, e);
+            }
+        }
+        for (int i = 0; i < nestedQueries.size(); i++) {
+            Object key = resultSet.getObject(nestedQueryColumns.get(i));
+            if (key != null) {
+                batchResultLoader.add(nestedQueries.get(i), configuration.newMetaObject(object), key);
+            }
+        }
+        return object;
+    }
+
+    private static boolean isIntegral(int sqlType) {
+        return sqlType == Types.BIGINT || sqlType == Types.INTEGER || sqlType == Types.SMALLINT || sqlType == Types.TINYINT;
+    }
+
+    /**
+     * 一个嵌套结果映射的属性
+     */
+    private final class Nested {
+
+        private final ResultMapping resultMapping;
+        private final JoinedResultMapper mapper;
+        private final Invoker getter;
+        private final Invoker setter;
+
+        Nested(ResultMapping resultMapping, JoinedResultMapper mapper, Reflector reflector) {
+            this.resultMapping = resultMapping;
+            this.mapper = mapper;
+            String property = resultMapping.getProperty();
+            this.setter = reflector.getSetInvoker(property);
+            this.getter = resultMapping.isCollection() ? reflector.getGetInvoker(property) : null;
+        }
+
+        void link(Object parent, Object child) {
+            try {
+                if (resultMapping.isCollection()) {
+                    collection(parent).add(child);
+                } else {
+                    setter.invoke(parent, new Object[]{child});
+                }
+            } catch (Exception e) {
+                throw new RuntimeException("Error setting nested property '" + resultMapping.getProperty() + "' of " + resultMap.getId() + ". Cause: " + e, e);
+            }
+        }
+
+        /**
+         * 集合属性在没有子对象时也初始化为空集合
+         */
+        void ensureCollection(Object parent) {
+            if (!resultMapping.isCollection()) {
+                return;
+            }
+            try {
+                collection(parent);
+            } catch (Exception e) {
+                throw new RuntimeException("Error initializing collection property '" + resultMapping.getProperty() + "' of " + resultMap.getId() + ". Cause: " + e, e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Collection<Object> collection(Object parent) throws Exception {
+            Object collection = getter.invoke(parent, NO_ARGS);
+            if (collection == null) {
+                collection = configuration.getObjectFactory().create(setter.getType());
+                setter.invoke(parent, new Object[]{collection});
+            }
+            return (Collection<Object>) collection;
+        }
+
+    }
+
+}
@@ -1,5 +1,8 @@
 package cn.zzb.mybatis.executor.resultset;
 
+import cn.zzb.mybatis.cursor.Cursor;
+import cn.zzb.mybatis.session.ResultSetSink;
+
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
@@ -11,4 +14,10 @@ public interface ResultSetHandler {
 
     <E> List<E> handleResultSets(Statement stmt) throws SQLException;
 
+    /** 按需逐行映射，游标关闭时一并关闭语句 */
+    <E> Cursor<E> handleCursorResultSets(Statement stmt) throws SQLException;
+
+    /** 结果集交给接收器直接读取，不映射结果对象 */
+    <T> T handleResultSetSink(Statement stmt, ResultSetSink<T> sink) throws SQLException;
+
 }
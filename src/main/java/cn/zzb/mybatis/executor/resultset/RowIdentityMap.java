@@ -0,0 +1,140 @@
+package cn.zzb.mybatis.executor.resultset;
+
+import java.util.Arrays;
+
+/**
+ * 行标识映射：按 (父条目, 行键) 找到已经创建的结果对象，JOIN 结果中重复出现的行复用同一个对象
+ * <p>
+ * 行键是单个整数列时直接按 long 比较，查找时不装箱；组合键、字符串键等按列值数组比较。
+ * 底层是以 long 哈希为键的开放寻址表，哈希相同的条目挂在同一个槽的链表上。
+ * 父条目按引用比较：子对象只在同一个父对象下去重，不同父对象下相同键的子对象是不同的对象。
+ */
+final class RowIdentityMap {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] hashes = new long[INITIAL_CAPACITY];
+    private Entry[] slots = new Entry[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * @param parent 父条目，根对象为 null
+     * @param id     整数行键，values 不为 null 时不使用
+     * @param values 行键的列值，整数行键时为 null
+     * @return 已有的条目，没有时返回 null
+     */
+    Entry get(Entry parent, long id, Object[] values) {
+        long hash = hash(parent, id, values);
+        int mask = slots.length - 1;
+        for (int i = mix(hash) & mask; slots[i] != null; i = (i + 1) & mask) {
+            if (hashes[i] == hash) {
+                for (Entry entry = slots[i]; entry != null; entry = entry.next) {
+                    if (entry.matches(parent, id, values)) {
+                        return entry;
+                    }
+                }
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 加入一个新对象，调用方保证 get 返回了 null；values 会被复制，调用方可以继续复用这个数组
+     */
+    Entry put(Entry parent, long id, Object[] values, Object object) {
+        if (size * 2 >= slots.length) {
+            resize();
+        }
+        Entry entry = new Entry(parent, id, values == null ? null : values.clone(), object);
+        long hash = hash(parent, id, values);
+        int mask = slots.length - 1;
+        int i = mix(hash) & mask;
+        while (slots[i] != null) {
+            if (hashes[i] == hash) {
+                entry.next = slots[i];
+                slots[i] = entry;
+                return entry;
+            }
+            i = (i + 1) & mask;
+        }
+        hashes[i] = hash;
+        slots[i] = entry;
+        size++;
+        return entry;
+    }
+
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(slots, null);
+            size = 0;
+        }
+    }
+
+    private void resize() {
+        long[] oldHashes = hashes;
+        Entry[] oldSlots = slots;
+        hashes = new long[oldSlots.length * 2];
+        slots = new Entry[oldSlots.length * 2];
+        int mask = slots.length - 1;
+        for (int j = 0; j < oldSlots.length; j++) {
+            if (oldSlots[j] == null) {
+                continue;
+            }
+            int i = mix(oldHashes[j]) & mask;
+            while (slots[i] != null) {
+                i = (i + 1) & mask;
+            }
+            hashes[i] = oldHashes[j];
+            slots[i] = oldSlots[j];
+        }
+    }
+
+    private static long hash(Entry parent, long id, Object[] values) {
+        long hash = parent == null ? 0 : System.identityHashCode(parent);
+        if (values == null) {
+            return hash * 31 + id;
+        }
+        for (Object value : values) {
+            hash = hash * 31 + (value == null ? 0 : value.hashCode());
+        }
+        return hash;
+    }
+
+    // 64 位哈希混合成槽位下标，连续的主键也能均匀分布
+    private static int mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return (int) hash;
+    }
+
+    static final class Entry {
+
+        private final Entry parent;
+        private final long id;
+        private final Object[] values;
+        private final Object object;
+        private Entry next;
+
+        Entry(Entry parent, long id, Object[] values, Object object) {
+            this.parent = parent;
+            this.id = id;
+            this.values = values;
+            this.object = object;
+        }
+
+        Object getObject() {
+            return object;
+        }
+
+        private boolean matches(Entry parent, long id, Object[] values) {
+            if (this.parent != parent) {
+                return false;
+            }
+            return values == null ? this.values == null && this.id == id : Arrays.equals(this.values, values);
+        }
+
+    }
+
+}
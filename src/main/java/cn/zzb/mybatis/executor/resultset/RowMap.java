@@ -0,0 +1,294 @@
+package cn.zzb.mybatis.executor.resultset;
+
+import java.io.Serializable;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * resultType="map" 的一行结果
+ * <p>
+ * 同一个结果集的所有行共用一个 {@link Columns}（列标签 → 槽位），每行只有一个 Object[] 存列值，
+ * 不像 HashMap 那样每行都分配桶数组、条目和重复的键。列标签在 Columns 中 intern，不同查询的同名列也共用一个键字符串。
+ * <p>
+ * 按列的顺序迭代，值为 NULL 的列也有这个键。可以修改：put 结果集中没有的键（如嵌套结果、MetaObject 设置的属性）
+ * 放在每行自己的附加 Map 中，排在列之后；remove 列只标记这一行没有这个键。
+ * 序列化时替换成内容相同的 LinkedHashMap。
+ */
+public final class RowMap extends AbstractMap<String, Object> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // 被 remove 的列
+    private static final Object REMOVED = new Object();
+
+    private final transient Columns columns;
+    private final transient Object[] values;
+    private transient int removed;
+    private transient Map<String, Object> extra;
+
+    RowMap(Columns columns, Object[] values) {
+        this.columns = columns;
+        this.values = values;
+    }
+
+    /**
+     * 读取结果集当前行
+     */
+    static RowMap read(Columns columns, ResultSet resultSet) throws SQLException {
+        int[] slots = columns.slots;
+        Object[] values = new Object[columns.names.length];
+        for (int i = 0; i < slots.length; i++) {
+            // 同名的列后面的覆盖前面的，和逐个 put 进 HashMap 的结果相同
+            values[slots[i]] = resultSet.getObject(i + 1);
+        }
+        return new RowMap(columns, values);
+    }
+
+    @Override
+    public int size() {
+        return values.length - removed + (extra == null ? 0 : extra.size());
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int slot = columns.slotOf(key);
+        if (slot >= 0) {
+            return values[slot] != REMOVED;
+        }
+        return extra != null && extra.containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        int slot = columns.slotOf(key);
+        if (slot >= 0) {
+            Object value = values[slot];
+            return value == REMOVED ? null : value;
+        }
+        return extra == null ? null : extra.get(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int slot = columns.slotOf(key);
+        if (slot >= 0) {
+            Object old = values[slot];
+            values[slot] = value;
+            if (old == REMOVED) {
+                removed--;
+                return null;
+            }
+            return old;
+        }
+        if (extra == null) {
+            extra = new LinkedHashMap<>();
+        }
+        return extra.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int slot = columns.slotOf(key);
+        if (slot >= 0) {
+            return removeSlot(slot);
+        }
+        return extra == null ? null : extra.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, REMOVED);
+        removed = values.length;
+        extra = null;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return RowMap.this.size();
+            }
+
+        };
+    }
+
+    private Object removeSlot(int slot) {
+        Object old = values[slot];
+        if (old == REMOVED) {
+            return null;
+        }
+        values[slot] = REMOVED;
+        removed++;
+        return old;
+    }
+
+    private Object writeReplace() {
+        return new LinkedHashMap<>(this);
+    }
+
+    /**
+     * 一个结果集的列：去重、intern 之后的列标签，以及每一列对应的槽位
+     */
+    static final class Columns {
+
+        // 槽位 → 列标签
+        private final String[] names;
+        // 列序号 - 1 → 槽位
+        private final int[] slots;
+        private final Map<String, Integer> indexes;
+
+        private Columns(String[] names, int[] slots, Map<String, Integer> indexes) {
+            this.names = names;
+            this.slots = slots;
+            this.indexes = indexes;
+        }
+
+        static Columns of(ResultSetMetaData metaData) throws SQLException {
+            int columnCount = metaData.getColumnCount();
+            int[] slots = new int[columnCount];
+            Map<String, Integer> indexes = new HashMap<>();
+            String[] names = new String[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                String label = metaData.getColumnLabel(i + 1).intern();
+                Integer slot = indexes.get(label);
+                if (slot == null) {
+                    slot = indexes.size();
+                    indexes.put(label, slot);
+                    names[slot] = label;
+                }
+                slots[i] = slot;
+            }
+            return new Columns(Arrays.copyOf(names, indexes.size()), slots, indexes);
+        }
+
+        private int slotOf(Object key) {
+            Integer slot = indexes.get(key);
+            return slot == null ? -1 : slot;
+        }
+
+    }
+
+    /**
+     * 先按槽位迭代列，再迭代附加的键；条目的 setValue 写回这一行
+     */
+    private final class EntryIterator implements Iterator<Entry<String, Object>> {
+
+        private int next = advance(0);
+        private int last = -1;
+        private Iterator<Entry<String, Object>> extraIterator;
+
+        private int advance(int slot) {
+            while (slot < values.length && values[slot] == REMOVED) {
+                slot++;
+            }
+            return slot;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next < values.length) {
+                return true;
+            }
+            if (extraIterator == null && extra != null) {
+                extraIterator = extra.entrySet().iterator();
+            }
+            return extraIterator != null && extraIterator.hasNext();
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (next < values.length) {
+                last = next;
+                next = advance(next + 1);
+                return new SlotEntry(last);
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = -1;
+            return extraIterator.next();
+        }
+
+        @Override
+        public void remove() {
+            if (last >= 0) {
+                removeSlot(last);
+                last = -1;
+            } else if (extraIterator != null) {
+                extraIterator.remove();
+            } else {
+                throw new IllegalStateException();
+            }
+        }
+
+    }
+
+    private final class SlotEntry implements Entry<String, Object> {
+
+        private final int slot;
+
+        SlotEntry(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public String getKey() {
+            return columns.names[slot];
+        }
+
+        @Override
+        public Object getValue() {
+            Object value = values[slot];
+            return value == REMOVED ? null : value;
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            Object old = getValue();
+            if (values[slot] == REMOVED) {
+                removed--;
+            }
+            values[slot] = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            return getKey().equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+
+    }
+
+}
@@ -2,11 +2,13 @@ package cn.zzb.mybatis.executor.statement;
 
 
 import cn.zzb.mybatis.executor.Executor;
+import cn.zzb.mybatis.executor.parameter.ParameterHandler;
 import cn.zzb.mybatis.executor.resultset.ResultSetHandler;
 import cn.zzb.mybatis.mapping.BoundSql;
 import cn.zzb.mybatis.mapping.MappedStatement;
 import cn.zzb.mybatis.session.Configuration;
 import cn.zzb.mybatis.session.ResultHandler;
+import cn.zzb.mybatis.session.RowBounds;
 
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -23,17 +25,21 @@ public abstract class BaseStatementHandler implements StatementHandler {
 
     protected final Object parameterObject;
     protected final ResultSetHandler resultSetHandler;
+    protected final ParameterHandler parameterHandler;
 
+    protected final RowBounds rowBounds;
     protected BoundSql boundSql;
 
-    public BaseStatementHandler(Executor executor, MappedStatement mappedStatement, Object parameterObject, ResultHandler resultHandler, BoundSql boundSql) {
+    public BaseStatementHandler(Executor executor, MappedStatement mappedStatement, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) {
         this.configuration = mappedStatement.getConfiguration();
         this.executor = executor;
         this.mappedStatement = mappedStatement;
+        this.rowBounds = rowBounds == null ? RowBounds.DEFAULT : rowBounds;
         this.boundSql = boundSql;
 
         this.parameterObject = parameterObject;
-        this.resultSetHandler = configuration.newResultSetHandler(executor, mappedStatement, boundSql);
+        this.parameterHandler = configuration.newParameterHandler(mappedStatement, parameterObject, boundSql);
+        this.resultSetHandler = configuration.newResultSetHandler(executor, mappedStatement, this.rowBounds, boundSql);
     }
 
     @Override
@@ -45,12 +51,28 @@ public abstract class BaseStatementHandler implements StatementHandler {
             // 参数设置，可以被抽取，提供配置
             statement.setQueryTimeout(350);
             statement.setFetchSize(10000);
+            // 有分页边界时让驱动最多返回 offset + limit 行，多余的行不会从数据库传过来
+            int maxRows = mappedStatement.hasNestedResultMaps() ? 0 : rowBounds.getMaxRows();
+            if (maxRows > 0) {
+                statement.setMaxRows(maxRows);
+            }
             return statement;
         } catch (Exception e) {
             throw new RuntimeException("Error preparing statement.  Cause: " + e, e);
         }
     }
 
+    /**
+     * 游标查询、接收器读取前调用：MySQL 驱动只有 fetchSize 为 Integer.MIN_VALUE 时才逐行从网络读取，
+     * 否则会先把整个结果集读进内存；其他驱动按 prepare() 设置的 fetchSize 分批读取
+     */
+    protected void enableStreaming(Statement statement) throws SQLException {
+        String productName = statement.getConnection().getMetaData().getDatabaseProductName();
+        if ("MySQL".equalsIgnoreCase(productName)) {
+            statement.setFetchSize(Integer.MIN_VALUE);
+        }
+    }
+
     protected abstract Statement instantiateStatement(Connection connection) throws SQLException;
 
 }
@@ -1,12 +1,17 @@
 package cn.zzb.mybatis.executor.statement;
 
+import cn.zzb.mybatis.cursor.Cursor;
 import cn.zzb.mybatis.executor.Executor;
+import cn.zzb.mybatis.executor.keygen.Jdbc3KeyGenerator;
 import cn.zzb.mybatis.mapping.BoundSql;
 import cn.zzb.mybatis.mapping.MappedStatement;
 import cn.zzb.mybatis.session.ResultHandler;
+import cn.zzb.mybatis.session.ResultSetSink;
+import cn.zzb.mybatis.session.RowBounds;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
@@ -39,11 +44,12 @@ public class PreparedStatementHandler extends BaseStatementHandler{
      * @param executor        SQL 执行器
      * @param mappedStatement SQL 映射语句对象
      * @param parameterObject SQL 参数对象
+     * @param rowBounds       分页边界
      * @param resultHandler   结果处理器
      * @param boundSql        绑定的 SQL 对象
      */
-    public PreparedStatementHandler(Executor executor, MappedStatement mappedStatement, Object parameterObject, ResultHandler resultHandler, BoundSql boundSql) {
-        super(executor, mappedStatement, parameterObject, resultHandler, boundSql);
+    public PreparedStatementHandler(Executor executor, MappedStatement mappedStatement, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) {
+        super(executor, mappedStatement, parameterObject, rowBounds, resultHandler, boundSql);
     }
 
     /**
@@ -64,28 +70,35 @@ public class PreparedStatementHandler extends BaseStatementHandler{
     @Override
     protected Statement instantiateStatement(Connection connection) throws SQLException {
         String sql = boundSql.getSql();
+        // useGeneratedKeys：指定了 keyColumn 时按列名取主键（PostgreSQL 等需要），否则让驱动返回自增列
+        if (mappedStatement.getKeyGenerator() instanceof Jdbc3KeyGenerator) {
+            String[] keyColumnNames = mappedStatement.getKeyColumns();
+            if (keyColumnNames == null) {
+                return connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            }
+            return connection.prepareStatement(sql, keyColumnNames);
+        }
+        // 没能改写成 LIMIT/OFFSET 又需要跳过行时使用可滚动结果集，结果集处理器直接 absolute(offset) 定位
+        if (rowBounds.getOffset() > 0) {
+            return connection.prepareStatement(sql, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        }
         return connection.prepareStatement(sql);
     }
 
     /**
      * 设置 SQL 参数
      * <p>
-     * 将参数对象中的值绑定到 PreparedStatement 的 ? 占位符上。
-     * 当前实现为简化版本，仅支持 Long 类型参数的硬编码绑定。
-     * <p>
-     * 完整版本应该：
+     * 将参数对象中的值绑定到 PreparedStatement 的 ? 占位符上，由 ParameterHandler 完成：
      * 1. 根据 BoundSql 中的 ParameterMapping 获取参数信息
-     * 2. 通过 TypeHandler 进行类型转换
-     * 3. 支持多种 Java 类型到 JDBC 类型的映射
+     * 2. 从参数对象（简单类型、JavaBean 或 Map）中取值
+     * 3. 通过 TypeHandler 按 Java 类型设置到对应位置
      *
      * @param statement Statement 对象（实际为 PreparedStatement）
      * @throws SQLException SQL 异常
      */
     @Override
     public void parameterize(Statement statement) throws SQLException {
-        PreparedStatement ps = (PreparedStatement) statement;
-        // TODO: 当前为硬编码实现，应改为通过 TypeHandler 动态设置参数
-        ps.setLong(1, Long.parseLong(((Object[]) parameterObject)[0].toString()));
+        parameterHandler.setParameters((PreparedStatement) statement);
     }
 
     /**
@@ -117,4 +130,71 @@ public class PreparedStatementHandler extends BaseStatementHandler{
         return resultSetHandler.<E> handleResultSets(ps);
     }
 
+    /**
+     * 执行更新语句（insert/update/delete）
+     * <p>
+     * 执行后由主键生成器取回主键（getGeneratedKeys 或 selectKey AFTER）写回参数对象。
+     *
+     * @param statement Statement 对象（实际为 PreparedStatement）
+     * @return 影响的行数
+     * @throws SQLException SQL 异常
+     */
+    @Override
+    public int update(Statement statement) throws SQLException {
+        PreparedStatement ps = (PreparedStatement) statement;
+        ps.execute();
+        int rows = ps.getUpdateCount();
+        mappedStatement.getKeyGenerator().processAfter(executor, mappedStatement, ps, parameterObject);
+        return rows;
+    }
+
+    /**
+     * 把当前绑定的参数加入批次
+     *
+     * @param statement Statement 对象（实际为 PreparedStatement）
+     * @throws SQLException SQL 异常
+     */
+    @Override
+    public void batch(Statement statement) throws SQLException {
+        PreparedStatement ps = (PreparedStatement) statement;
+        ps.addBatch();
+    }
+
+    /**
+     * 执行查询并返回游标
+     * <p>
+     * 结果集保持打开，由游标在迭代时逐行读取、映射，游标关闭时关闭语句。
+     *
+     * @param statement Statement 对象（实际为 PreparedStatement）
+     * @param <E>       返回结果的元素类型
+     * @return 游标
+     * @throws SQLException SQL 异常
+     */
+    @Override
+    public <E> Cursor<E> queryCursor(Statement statement) throws SQLException {
+        PreparedStatement ps = (PreparedStatement) statement;
+        enableStreaming(ps);
+        ps.execute();
+        return resultSetHandler.<E> handleCursorResultSets(ps);
+    }
+
+    /**
+     * 执行查询，结果集交给接收器读取
+     * <p>
+     * 和游标一样让驱动逐行读取，行数据不在驱动中缓存一份。
+     *
+     * @param statement Statement 对象（实际为 PreparedStatement）
+     * @param sink      结果集接收器
+     * @param <T>       接收器读取的结果类型
+     * @return 接收器读取的结果
+     * @throws SQLException SQL 异常
+     */
+    @Override
+    public <T> T queryToSink(Statement statement, ResultSetSink<T> sink) throws SQLException {
+        PreparedStatement ps = (PreparedStatement) statement;
+        enableStreaming(ps);
+        ps.execute();
+        return resultSetHandler.handleResultSetSink(ps, sink);
+    }
+
 }
@@ -1,10 +1,15 @@
 package cn.zzb.mybatis.executor.statement;
 
 
+import cn.zzb.mybatis.cursor.Cursor;
 import cn.zzb.mybatis.executor.Executor;
+import cn.zzb.mybatis.executor.keygen.Jdbc3KeyGenerator;
+import cn.zzb.mybatis.executor.keygen.KeyGenerator;
 import cn.zzb.mybatis.mapping.BoundSql;
 import cn.zzb.mybatis.mapping.MappedStatement;
 import cn.zzb.mybatis.session.ResultHandler;
+import cn.zzb.mybatis.session.ResultSetSink;
+import cn.zzb.mybatis.session.RowBounds;
 
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -16,8 +21,8 @@ import java.util.List;
  */
 public class SimpleStatementHandler extends BaseStatementHandler {
 
-    public SimpleStatementHandler(Executor executor, MappedStatement mappedStatement, Object parameterObject, ResultHandler resultHandler, BoundSql boundSql) {
-        super(executor, mappedStatement, parameterObject, resultHandler, boundSql);
+    public SimpleStatementHandler(Executor executor, MappedStatement mappedStatement, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) {
+        super(executor, mappedStatement, parameterObject, rowBounds, resultHandler, boundSql);
     }
 
     @Override
@@ -37,4 +42,36 @@ public class SimpleStatementHandler extends BaseStatementHandler {
         return resultSetHandler.handleResultSets(statement);
     }
 
+    @Override
+    public int update(Statement statement) throws SQLException {
+        KeyGenerator keyGenerator = mappedStatement.getKeyGenerator();
+        if (keyGenerator instanceof Jdbc3KeyGenerator) {
+            statement.execute(boundSql.getSql(), Statement.RETURN_GENERATED_KEYS);
+        } else {
+            statement.execute(boundSql.getSql());
+        }
+        int rows = statement.getUpdateCount();
+        keyGenerator.processAfter(executor, mappedStatement, statement, parameterObject);
+        return rows;
+    }
+
+    @Override
+    public void batch(Statement statement) throws SQLException {
+        statement.addBatch(boundSql.getSql());
+    }
+
+    @Override
+    public <E> Cursor<E> queryCursor(Statement statement) throws SQLException {
+        enableStreaming(statement);
+        statement.execute(boundSql.getSql());
+        return resultSetHandler.handleCursorResultSets(statement);
+    }
+
+    @Override
+    public <T> T queryToSink(Statement statement, ResultSetSink<T> sink) throws SQLException {
+        enableStreaming(statement);
+        statement.execute(boundSql.getSql());
+        return resultSetHandler.handleResultSetSink(statement, sink);
+    }
+
 }
@@ -1,7 +1,9 @@
 package cn.zzb.mybatis.executor.statement;
 
 
+import cn.zzb.mybatis.cursor.Cursor;
 import cn.zzb.mybatis.session.ResultHandler;
+import cn.zzb.mybatis.session.ResultSetSink;
 
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -22,4 +24,16 @@ public interface StatementHandler {
     /** 执行查询 */
     <E> List<E> query(Statement statement, ResultHandler resultHandler) throws SQLException;
 
+    /** 执行更新（insert/update/delete），返回影响行数 */
+    int update(Statement statement) throws SQLException;
+
+    /** 加入批次，由批量执行器统一执行 */
+    void batch(Statement statement) throws SQLException;
+
+    /** 执行查询，返回逐行读取的游标 */
+    <E> Cursor<E> queryCursor(Statement statement) throws SQLException;
+
+    /** 执行查询，结果集交给接收器读取 */
+    <T> T queryToSink(Statement statement, ResultSetSink<T> sink) throws SQLException;
+
 }
@@ -3,6 +3,7 @@ package cn.zzb.mybatis.mapping;
 import cn.zzb.mybatis.reflection.MetaObject;
 import cn.zzb.mybatis.session.Configuration;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -12,6 +13,10 @@ import java.util.Map;
  */
 public class BoundSql {
 
+    // 改写时追加的参数名前缀，不会和 #{} 中的属性名冲突
+    private static final String APPENDED_PARAMETER_PREFIX = "__appended_";
+
+    private Configuration configuration;
     private String sql;
     private List<ParameterMapping> parameterMappings;
     private Object parameterObject;
@@ -19,6 +24,7 @@ public class BoundSql {
     private MetaObject metaParameters;
 
     public BoundSql(Configuration configuration, String sql, List<ParameterMapping> parameterMappings, Object parameterObject) {
+        this.configuration = configuration;
         this.sql = sql;
         this.parameterMappings = parameterMappings;
         this.parameterObject = parameterObject;
@@ -26,6 +32,51 @@ public class BoundSql {
         this.metaParameters = configuration.newMetaObject(additionalParameters);
     }
 
+    /**
+     * 复制一份只替换 SQL 文本的 BoundSql（参数映射和附加参数不变），用于分片改写表名等场景
+     */
+    public BoundSql withSql(String sql) {
+        BoundSql copy = new BoundSql(configuration, sql, parameterMappings, parameterObject);
+        copy.additionalParameters.putAll(additionalParameters);
+        return copy;
+    }
+
+    /**
+     * 复制一份在 SQL 末尾追加了 ? 占位符的 BoundSql，追加的参数值作为附加参数按顺序绑定，用于分页改写
+     *
+     * @param sql    改写后的 SQL，原有占位符的顺序不变
+     * @param values 追加的占位符对应的参数值
+     */
+    public BoundSql withAppendedParameters(String sql, List<Object> values) {
+        return withInsertedParameters(sql, parameterMappings.size(), values);
+    }
+
+    /**
+     * 复制一份在第 index 个原有占位符之前插入了 ? 占位符的 BoundSql，插入的参数值作为附加参数按顺序绑定，
+     * 用于在 WHERE 中追加条件等改写
+     *
+     * @param sql    改写后的 SQL
+     * @param index  插入的占位符之前原有占位符的个数
+     * @param values 插入的占位符对应的参数值
+     */
+    public BoundSql withInsertedParameters(String sql, int index, List<Object> values) {
+        List<ParameterMapping> mappings = new ArrayList<>(parameterMappings.size() + values.size());
+        mappings.addAll(parameterMappings.subList(0, index));
+        BoundSql copy = new BoundSql(configuration, sql, mappings, parameterObject);
+        copy.additionalParameters.putAll(additionalParameters);
+        int sequence = 0;
+        while (copy.additionalParameters.containsKey(APPENDED_PARAMETER_PREFIX + sequence)) {
+            sequence++;
+        }
+        for (Object value : values) {
+            String property = APPENDED_PARAMETER_PREFIX + sequence++;
+            mappings.add(new ParameterMapping.Builder(configuration, property, value.getClass()).build());
+            copy.additionalParameters.put(property, value);
+        }
+        mappings.addAll(parameterMappings.subList(index, parameterMappings.size()));
+        return copy;
+    }
+
     public String getSql() {
         return sql;
     }
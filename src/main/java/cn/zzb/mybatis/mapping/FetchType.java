@@ -0,0 +1,19 @@
+package cn.zzb.mybatis.mapping;
+
+/**
+ * 嵌套查询的加载方式（association/collection 的 fetchType 属性）
+ */
+public enum FetchType {
+    /**
+     * 第一次访问属性时才执行嵌套查询
+     */
+    LAZY,
+    /**
+     * 随结果对象立即加载
+     */
+    EAGER,
+    /**
+     * 没有写 fetchType，按全局的 lazyLoadingEnabled
+     */
+    DEFAULT
+}
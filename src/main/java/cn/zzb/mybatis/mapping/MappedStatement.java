@@ -1,6 +1,8 @@
 package cn.zzb.mybatis.mapping;
 
 
+import cn.zzb.mybatis.executor.keygen.KeyGenerator;
+import cn.zzb.mybatis.executor.keygen.NoKeyGenerator;
 import cn.zzb.mybatis.session.Configuration;
 
 
@@ -14,6 +16,20 @@ public class MappedStatement {
     private SqlCommandType sqlCommandType;
     private SqlSource sqlSource;
     Class<?> resultType;
+    // 结果映射，为 null 时按 resultType 自动映射
+    private ResultMap resultMap;
+    // 读写分离时强制走主库
+    private boolean forcePrimary;
+    // 主键生成器：useGeneratedKeys 或 selectKey，默认不生成
+    private KeyGenerator keyGenerator = NoKeyGenerator.INSTANCE;
+    // 主键写回参数对象的属性，多个时逗号分隔
+    private String[] keyProperties;
+    // 生成主键的列名，部分驱动（如 PostgreSQL）需要指定列名才返回主键
+    private String[] keyColumns;
+    // upsert 判断冲突的唯一键列
+    private String[] conflictColumns;
+    // upsert 冲突时更新的列，为 null 时更新除冲突列以外的所有列
+    private String[] updateColumns;
 
     MappedStatement() {
         // constructor disabled
@@ -34,6 +50,47 @@ public class MappedStatement {
             mappedStatement.resultType = resultType;
         }
 
+        /**
+         * 使用结果映射，结果类型取结果映射的 type
+         */
+        public Builder resultMap(ResultMap resultMap) {
+            mappedStatement.resultMap = resultMap;
+            if (resultMap != null) {
+                mappedStatement.resultType = resultMap.getType();
+            }
+            return this;
+        }
+
+        public Builder forcePrimary(boolean forcePrimary) {
+            mappedStatement.forcePrimary = forcePrimary;
+            return this;
+        }
+
+        public Builder keyGenerator(KeyGenerator keyGenerator) {
+            mappedStatement.keyGenerator = keyGenerator;
+            return this;
+        }
+
+        public Builder keyProperty(String keyProperty) {
+            mappedStatement.keyProperties = delimitedStringToArray(keyProperty);
+            return this;
+        }
+
+        public Builder keyColumn(String keyColumn) {
+            mappedStatement.keyColumns = delimitedStringToArray(keyColumn);
+            return this;
+        }
+
+        public Builder conflictColumn(String conflictColumn) {
+            mappedStatement.conflictColumns = delimitedStringToArray(conflictColumn);
+            return this;
+        }
+
+        public Builder updateColumn(String updateColumn) {
+            mappedStatement.updateColumns = delimitedStringToArray(updateColumn);
+            return this;
+        }
+
         public MappedStatement build() {
             assert mappedStatement.configuration != null;
             assert mappedStatement.id != null;
@@ -62,4 +119,50 @@ public class MappedStatement {
         return resultType;
     }
 
+    public ResultMap getResultMap() {
+        return resultMap;
+    }
+
+    /**
+     * 结果映射中是否有嵌套结果映射：一个结果对象对应多行，分页边界按结果对象计数，不能在 SQL 上限制行数
+     */
+    public boolean hasNestedResultMaps() {
+        return resultMap != null && resultMap.hasNestedResultMaps();
+    }
+
+    public boolean isForcePrimary() {
+        return forcePrimary;
+    }
+
+    public KeyGenerator getKeyGenerator() {
+        return keyGenerator;
+    }
+
+    public String[] getKeyProperties() {
+        return keyProperties;
+    }
+
+    public String[] getKeyColumns() {
+        return keyColumns;
+    }
+
+    public String[] getConflictColumns() {
+        return conflictColumns;
+    }
+
+    public String[] getUpdateColumns() {
+        return updateColumns;
+    }
+
+    private static String[] delimitedStringToArray(String in) {
+        if (in == null || in.trim().length() == 0) {
+            return null;
+        }
+        String[] items = in.split(",");
+        for (int i = 0; i < items.length; i++) {
+            items[i] = items[i].trim();
+        }
+        return items;
+    }
+
 }
@@ -0,0 +1,15 @@
+package cn.zzb.mybatis.mapping;
+
+/**
+ * 结果映射的标记
+ */
+public enum ResultFlag {
+    /**
+     * &lt;id&gt;、&lt;idArg&gt; 元素映射的主键列
+     */
+    ID,
+    /**
+     * &lt;constructor&gt; 中的 &lt;idArg&gt;、&lt;arg&gt;：按顺序作为构造函数的参数
+     */
+    CONSTRUCTOR
+}
@@ -0,0 +1,133 @@
+package cn.zzb.mybatis.mapping;
+
+import cn.zzb.mybatis.parsing.SqlClauseParser;
+import cn.zzb.mybatis.session.Configuration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 结果映射 &lt;resultMap id="userMap" type="User"&gt;
+ * <p>
+ * 显式映射的列按 {@link ResultMapping} 取值，其余列仍按列名自动映射到同名属性。
+ * 有嵌套结果映射时（一个 JOIN 查询映射成对象图）只映射显式写出的属性，按 id 列把重复的行合并成同一个对象。
+ * &lt;constructor&gt; 中的参数按顺序传给构造函数创建对象，不经过 setter；结果类型是记录类时按组件名映射到规范构造函数。
+ */
+public class ResultMap {
+
+    private Configuration configuration;
+    private String id;
+    private Class<?> type;
+    private List<ResultMapping> resultMappings;
+    private List<ResultMapping> idResultMappings;
+    private List<ResultMapping> propertyResultMappings;
+    private List<ResultMapping> constructorResultMappings;
+    // 显式映射的列名（大写，去掉表名前缀），自动映射时跳过
+    private Set<String> mappedColumns;
+    private boolean hasNestedQueries;
+    private boolean hasNestedResultMaps;
+
+    private ResultMap() {
+    }
+
+    public static class Builder {
+
+        private ResultMap resultMap = new ResultMap();
+
+        public Builder(Configuration configuration, String id, Class<?> type, List<ResultMapping> resultMappings) {
+            resultMap.configuration = configuration;
+            resultMap.id = id;
+            resultMap.type = type;
+            resultMap.resultMappings = resultMappings;
+        }
+
+        public ResultMap build() {
+            if (resultMap.id == null) {
+                throw new IllegalArgumentException("ResultMaps must have an id");
+            }
+            resultMap.mappedColumns = new HashSet<>();
+            resultMap.idResultMappings = new ArrayList<>();
+            resultMap.propertyResultMappings = new ArrayList<>();
+            resultMap.constructorResultMappings = new ArrayList<>();
+            for (ResultMapping resultMapping : resultMap.resultMappings) {
+                resultMap.hasNestedQueries = resultMap.hasNestedQueries || resultMapping.getNestedQueryId() != null;
+                resultMap.hasNestedResultMaps = resultMap.hasNestedResultMaps || resultMapping.getNestedResultMapId() != null;
+                // 嵌套查询的列只是参数，仍然参与自动映射
+                if (resultMapping.getColumn() != null && resultMapping.getNestedQueryId() == null && resultMapping.getNestedResultMapId() == null) {
+                    resultMap.mappedColumns.add(SqlClauseParser.simpleName(resultMapping.getColumn()).toUpperCase(Locale.ENGLISH));
+                }
+                if (resultMapping.getFlags().contains(ResultFlag.ID)) {
+                    resultMap.idResultMappings.add(resultMapping);
+                }
+                if (resultMapping.getFlags().contains(ResultFlag.CONSTRUCTOR)) {
+                    resultMap.constructorResultMappings.add(resultMapping);
+                } else if (!resultMapping.getFlags().contains(ResultFlag.ID)) {
+                    resultMap.propertyResultMappings.add(resultMapping);
+                }
+            }
+            resultMap.resultMappings = Collections.unmodifiableList(resultMap.resultMappings);
+            resultMap.idResultMappings = Collections.unmodifiableList(resultMap.idResultMappings);
+            resultMap.propertyResultMappings = Collections.unmodifiableList(resultMap.propertyResultMappings);
+            resultMap.constructorResultMappings = Collections.unmodifiableList(resultMap.constructorResultMappings);
+            resultMap.mappedColumns = Collections.unmodifiableSet(resultMap.mappedColumns);
+            return resultMap;
+        }
+
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public List<ResultMapping> getResultMappings() {
+        return resultMappings;
+    }
+
+    public List<ResultMapping> getIdResultMappings() {
+        return idResultMappings;
+    }
+
+    public List<ResultMapping> getPropertyResultMappings() {
+        return propertyResultMappings;
+    }
+
+    public List<ResultMapping> getConstructorResultMappings() {
+        return constructorResultMappings;
+    }
+
+    public Set<String> getMappedColumns() {
+        return mappedColumns;
+    }
+
+    public boolean hasNestedQueries() {
+        return hasNestedQueries;
+    }
+
+    public boolean hasNestedResultMaps() {
+        return hasNestedResultMaps;
+    }
+
+    /**
+     * 是否有延迟加载的嵌套查询，有时结果对象创建为延迟加载代理；fetchType 为 DEFAULT 的映射随全局设置变化，不缓存
+     */
+    public boolean hasLazyNestedQueries() {
+        if (!hasNestedQueries) {
+            return false;
+        }
+        for (ResultMapping resultMapping : propertyResultMappings) {
+            if (resultMapping.isLazy()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,149 @@
+package cn.zzb.mybatis.mapping;
+
+import cn.zzb.mybatis.session.Configuration;
+import cn.zzb.mybatis.type.TypeHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 结果映射中的一项 &lt;id property="id" column="id"/&gt;、&lt;result property="userId" column="user_id"/&gt;，
+ * 或者按列值执行另一条查询的 &lt;association select="..."/&gt;、&lt;collection select="..."/&gt;，
+ * 或者从同一行中映射关联对象的 &lt;association resultMap="..." columnPrefix="..."/&gt;、&lt;collection resultMap="..."/&gt;，
+ * 或者构造函数的一个参数 &lt;arg column="id" javaType="long"/&gt;（property 为可选的 name 属性）
+ */
+public class ResultMapping {
+
+    private Configuration configuration;
+    private String property;
+    private String column;
+    private Class<?> javaType;
+    private TypeHandler<?> typeHandler;
+    // 嵌套查询的语句 ID（namespace.id），按 column 的值作为参数执行
+    private String nestedQueryId;
+    // 嵌套结果映射的 ID（namespace.id），从 JOIN 查询的同一行中映射关联对象
+    private String nestedResultMapId;
+    // 嵌套结果映射的列名前缀，如 order_ 时 id 列取 order_id
+    private String columnPrefix;
+    // collection 映射为集合属性
+    private boolean collection;
+    // 嵌套查询的加载方式（fetchType 属性）
+    private FetchType fetchType = FetchType.DEFAULT;
+    private List<ResultFlag> flags = new ArrayList<>();
+
+    ResultMapping() {
+    }
+
+    public static class Builder {
+
+        private ResultMapping resultMapping = new ResultMapping();
+
+        public Builder(Configuration configuration, String property, String column, Class<?> javaType) {
+            resultMapping.configuration = configuration;
+            resultMapping.property = property;
+            resultMapping.column = column;
+            resultMapping.javaType = javaType;
+        }
+
+        public Builder typeHandler(TypeHandler<?> typeHandler) {
+            resultMapping.typeHandler = typeHandler;
+            return this;
+        }
+
+        public Builder nestedQueryId(String nestedQueryId) {
+            resultMapping.nestedQueryId = nestedQueryId;
+            return this;
+        }
+
+        public Builder nestedResultMapId(String nestedResultMapId) {
+            resultMapping.nestedResultMapId = nestedResultMapId;
+            return this;
+        }
+
+        public Builder columnPrefix(String columnPrefix) {
+            resultMapping.columnPrefix = columnPrefix;
+            return this;
+        }
+
+        public Builder collection(boolean collection) {
+            resultMapping.collection = collection;
+            return this;
+        }
+
+        public Builder fetchType(FetchType fetchType) {
+            resultMapping.fetchType = fetchType;
+            return this;
+        }
+
+        public Builder flags(List<ResultFlag> flags) {
+            resultMapping.flags = flags;
+            return this;
+        }
+
+        public ResultMapping build() {
+            if (resultMapping.property == null && !resultMapping.flags.contains(ResultFlag.CONSTRUCTOR)) {
+                throw new IllegalStateException("Result mapping requires a property");
+            }
+            // 没有指定类型处理器时按属性类型查找，嵌套查询、嵌套结果映射的结果不经过类型处理器
+            if (resultMapping.typeHandler == null && resultMapping.nestedQueryId == null && resultMapping.nestedResultMapId == null
+                    && resultMapping.javaType != null) {
+                resultMapping.typeHandler = resultMapping.configuration.getTypeHandlerRegistry().getTypeHandler(resultMapping.javaType, null);
+            }
+            return resultMapping;
+        }
+
+    }
+
+    public Configuration getConfiguration() {
+        return configuration;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public Class<?> getJavaType() {
+        return javaType;
+    }
+
+    public TypeHandler<?> getTypeHandler() {
+        return typeHandler;
+    }
+
+    public String getNestedQueryId() {
+        return nestedQueryId;
+    }
+
+    public String getNestedResultMapId() {
+        return nestedResultMapId;
+    }
+
+    public String getColumnPrefix() {
+        return columnPrefix;
+    }
+
+    public boolean isCollection() {
+        return collection;
+    }
+
+    public FetchType getFetchType() {
+        return fetchType;
+    }
+
+    /**
+     * 是否延迟加载：只对嵌套查询有效，fetchType 为 DEFAULT 时按全局的 lazyLoadingEnabled
+     */
+    public boolean isLazy() {
+        return nestedQueryId != null
+                && (fetchType == FetchType.LAZY || fetchType == FetchType.DEFAULT && configuration.isLazyLoadingEnabled());
+    }
+
+    public List<ResultFlag> getFlags() {
+        return flags;
+    }
+
+}
@@ -24,6 +24,10 @@ public enum SqlCommandType {
     /**
      * 查找
      */
-    SELECT;
+    SELECT,
+    /**
+     * 插入或更新：语句中写 INSERT，执行时由方言渲染成数据库自己的 upsert 语法
+     */
+    UPSERT;
 
 }
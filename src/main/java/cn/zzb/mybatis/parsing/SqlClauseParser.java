@@ -0,0 +1,403 @@
+package cn.zzb.mybatis.parsing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 轻量的 SELECT 子句解析器
+ * <p>
+ * 不是完整的 SQL 解析：先把字符串常量、反引号标识符、注释和括号内的内容替换成空格（长度不变），
+ * 再在这个"掩码"上找顶层关键字的位置，据此切出各个子句的原文。子查询、函数参数里的关键字不会干扰顶层结构。
+ * 顶层出现 UNION 或者不是以 SELECT 开头的语句返回 null。另外提供定位单行 INSERT 的 VALUES 行的方法，用于多行插入改写；
+ * 以及定位嵌套查询中按键过滤的等值条件的方法，用于批量加载。
+ */
+public final class SqlClauseParser {
+
+    private static final Pattern KEYWORD = Pattern.compile(
+            "\\b(SELECT|FROM|WHERE|GROUP\\s+BY|HAVING|ORDER\\s+BY|LIMIT|UNION|FOR\\s+UPDATE|LOCK\\s+IN\\s+SHARE\\s+MODE)\\b");
+    private static final Pattern AGGREGATE = Pattern.compile("^(COUNT|SUM|MIN|MAX|AVG)\\s*\\(\\s*(DISTINCT\\b)?", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ALIAS = Pattern.compile("^(.*?\\S)\\s+(?:AS\\s+)?([`\"]?)([\\w$]+)\\2$", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern LIMIT_COMMA = Pattern.compile("^\\s*(\\d+|\\?)\\s*(?:,\\s*(\\d+|\\?))?\\s*$");
+    private static final Pattern LIMIT_OFFSET = Pattern.compile("^\\s*(\\d+|\\?)\\s+OFFSET\\s+(\\d+|\\?)\\s*$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SIMPLE_COLUMN = Pattern.compile("^[\\w$`.]+$");
+    private static final Pattern TOP_LEVEL_OR = Pattern.compile("\\bOR\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern LOCKING = Pattern.compile("\\b(FOR\\s+(UPDATE|SHARE)|LOCK\\s+IN\\s+SHARE\\s+MODE)\\b");
+    private static final Pattern INSERT_VALUES = Pattern.compile("^\\s*(?:INSERT|REPLACE)\\b[^(]*(?:\\([^)]*\\)\\s*)?VALUES?\\s*\\(");
+
+    private SqlClauseParser() {
+    }
+
+    public static SqlClauses parse(String sql) {
+        String masked = mask(sql);
+        String upper = masked.toUpperCase(Locale.ENGLISH);
+        Matcher matcher = KEYWORD.matcher(upper);
+
+        List<String> keywords = new ArrayList<>();
+        List<int[]> positions = new ArrayList<>();
+        while (matcher.find()) {
+            String keyword = matcher.group(1).replaceAll("\\s+", " ");
+            if ("UNION".equals(keyword)) {
+                return null;
+            }
+            if ("SELECT".equals(keyword) && !keywords.isEmpty()) {
+                continue;
+            }
+            keywords.add(keyword);
+            positions.add(new int[]{matcher.start(), matcher.end()});
+        }
+        if (keywords.isEmpty() || !"SELECT".equals(keywords.get(0)) || !upper.substring(0, positions.get(0)[0]).trim().isEmpty()) {
+            return null;
+        }
+
+        String selectClause = null;
+        String groupByClause = null;
+        boolean having = false;
+        String orderByClause = null;
+        SqlClauses.Limit limit = null;
+        boolean locking = false;
+        int selectStart = 0;
+        int fromEnd = -1;
+        int[] where = null;
+        int[] orderBy = null;
+        for (int i = 0; i < keywords.size(); i++) {
+            int bodyStart = positions.get(i)[1];
+            int bodyEnd = i + 1 < keywords.size() ? positions.get(i + 1)[0] : sql.length();
+            String body = sql.substring(bodyStart, bodyEnd);
+            switch (keywords.get(i)) {
+                case "SELECT":
+                    selectClause = body;
+                    selectStart = bodyStart;
+                    break;
+                case "FROM":
+                    fromEnd = bodyEnd;
+                    break;
+                case "WHERE":
+                    where = new int[]{bodyStart, bodyEnd};
+                    break;
+                case "GROUP BY":
+                    groupByClause = body;
+                    break;
+                case "HAVING":
+                    having = true;
+                    break;
+                case "ORDER BY":
+                    orderByClause = body;
+                    orderBy = new int[]{positions.get(i)[0], bodyEnd};
+                    break;
+                case "LIMIT":
+                    limit = parseLimit(body, positions.get(i)[0], bodyEnd);
+                    if (limit == null) {
+                        return null;
+                    }
+                    break;
+                case "FOR UPDATE":
+                case "LOCK IN SHARE MODE":
+                    locking = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (selectClause == null) {
+            return null;
+        }
+
+        boolean distinct = false;
+        String trimmedSelect = selectClause.trim();
+        if (trimmedSelect.toUpperCase(Locale.ENGLISH).startsWith("DISTINCT ")) {
+            distinct = true;
+        }
+
+        List<SqlClauses.SelectItem> selectItems = new ArrayList<>();
+        for (String item : splitTopLevel(selectClause, masked.substring(selectStart, selectStart + selectClause.length()))) {
+            String text = item.trim();
+            if (distinct && selectItems.isEmpty()) {
+                text = text.substring("DISTINCT".length()).trim();
+            }
+            selectItems.add(parseSelectItem(text));
+        }
+
+        List<String> groupBy = new ArrayList<>();
+        if (groupByClause != null) {
+            for (String item : splitTopLevel(groupByClause, mask(groupByClause))) {
+                groupBy.add(item.trim());
+            }
+        }
+
+        List<SqlClauses.OrderItem> orderByItems = new ArrayList<>();
+        if (orderByClause != null) {
+            for (String item : splitTopLevel(orderByClause, mask(orderByClause))) {
+                String text = item.trim();
+                String upperText = text.toUpperCase(Locale.ENGLISH);
+                boolean ascending = true;
+                if (upperText.endsWith(" DESC")) {
+                    ascending = false;
+                    text = text.substring(0, text.length() - 5).trim();
+                } else if (upperText.endsWith(" ASC")) {
+                    text = text.substring(0, text.length() - 4).trim();
+                }
+                orderByItems.add(new SqlClauses.OrderItem(text, ascending));
+            }
+        }
+
+        return new SqlClauses(sql, distinct, selectItems, groupBy, having, orderByItems, limit, locking, fromEnd, where, orderBy);
+    }
+
+    /**
+     * 去掉表名前缀和反引号，如 u.`user_id` → user_id
+     */
+    public static String simpleName(String expression) {
+        String text = expression.trim();
+        if (!SIMPLE_COLUMN.matcher(text).matches()) {
+            return text;
+        }
+        int dot = text.lastIndexOf('.');
+        return (dot >= 0 ? text.substring(dot + 1) : text).replace("`", "");
+    }
+
+    /**
+     * 统计 sql 中 [0, end) 范围内的 ? 占位符个数，字符串常量、引号标识符和注释里的 ? 不算
+     */
+    public static int countPlaceholders(String sql, int end) {
+        String masked = mask(sql, false);
+        int count = 0;
+        for (int i = 0; i < end; i++) {
+            if (masked.charAt(i) == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 找到单行 INSERT ... VALUES (...) 中那一行值的位置，用于把多条单行插入合并成一条多行插入
+     *
+     * @return {行开始的 '(' 位置, 行结束的 ')' 之后的位置}；不是 INSERT、没有 VALUES（如 INSERT ... SELECT）
+     * 或者已经是多行 VALUES 时返回 null
+     */
+    public static int[] findValuesRow(String sql) {
+        String masked = mask(sql);
+        String upper = masked.toUpperCase(Locale.ENGLISH);
+        Matcher matcher = INSERT_VALUES.matcher(upper);
+        if (!matcher.find()) {
+            return null;
+        }
+        int start = matcher.end() - 1;
+        int depth = 0;
+        int end = -1;
+        for (int i = start; i < masked.length(); i++) {
+            char c = masked.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                end = i + 1;
+                break;
+            }
+        }
+        if (end < 0) {
+            return null;
+        }
+        String rest = upper.substring(end).trim();
+        if (rest.startsWith(",")) {
+            return null;
+        }
+        return new int[]{start, end};
+    }
+
+    /**
+     * 找到单行 INSERT ... (列, ...) VALUES (...) 中列清单的位置，用于把 INSERT 渲染成 upsert
+     *
+     * @return {列清单的 '(' 位置, 列清单的 ')' 之后的位置}；不是单行 INSERT ... VALUES 或没有写列清单时返回 null
+     */
+    public static int[] findInsertColumns(String sql) {
+        int[] row = findValuesRow(sql);
+        if (row == null) {
+            return null;
+        }
+        String masked = mask(sql);
+        int close = masked.lastIndexOf(')', row[0] - 1);
+        int open = close < 0 ? -1 : masked.lastIndexOf('(', close);
+        if (open < 0) {
+            return null;
+        }
+        return new int[]{open, close + 1};
+    }
+
+    /**
+     * 找到只有一个占位符的查询中顶层的 列 = ? 条件，用于把按一个键的嵌套查询改写成 列 IN (?, ?, ...) 一次查多个键
+     *
+     * @return {列开始的位置, 列结束的位置, ? 之后的位置}；占位符不止一个、在括号或子查询里、不是等值条件，
+     * 或者语句带有 LIMIT、GROUP BY、聚合函数、加锁子句、顶层 OR（按键合并后结果会不同）时返回 null
+     */
+    public static int[] findKeyPredicate(String sql) {
+        if (countPlaceholders(sql, sql.length()) != 1) {
+            return null;
+        }
+        SqlClauses clauses = parse(sql);
+        if (clauses == null || clauses.getLimit() != null || !clauses.getGroupBy().isEmpty() || clauses.hasAggregate() || clauses.isLocking()) {
+            return null;
+        }
+        String masked = mask(sql);
+        int placeholder = masked.indexOf('?');
+        if (placeholder < 0 || TOP_LEVEL_OR.matcher(masked).find()) {
+            return null;
+        }
+        int i = placeholder - 1;
+        while (i >= 0 && Character.isWhitespace(masked.charAt(i))) {
+            i--;
+        }
+        // 只接受 =，排除 <=、>=、!=、:= 等
+        if (i < 1 || masked.charAt(i) != '=' || "<>!:".indexOf(masked.charAt(i - 1)) >= 0) {
+            return null;
+        }
+        i--;
+        while (i >= 0 && Character.isWhitespace(masked.charAt(i))) {
+            i--;
+        }
+        int columnEnd = i + 1;
+        while (i >= 0 && (Character.isLetterOrDigit(sql.charAt(i)) || "_$.`".indexOf(sql.charAt(i)) >= 0)) {
+            i--;
+        }
+        int columnStart = i + 1;
+        if (columnStart == columnEnd || !SIMPLE_COLUMN.matcher(sql.substring(columnStart, columnEnd)).matches()) {
+            return null;
+        }
+        return new int[]{columnStart, columnEnd, placeholder + 1};
+    }
+
+    private static SqlClauses.SelectItem parseSelectItem(String text) {
+        String expression = text;
+        String alias = null;
+        Matcher aliasMatcher = ALIAS.matcher(text);
+        // 别名只能出现在括号之外，CASE ... END 的 END 不是别名
+        if (aliasMatcher.matches() && mask(text).lastIndexOf(')') < aliasMatcher.start(3)
+                && !"END".equalsIgnoreCase(aliasMatcher.group(3)) && !aliasMatcher.group(1).trim().endsWith(".")) {
+            String candidate = aliasMatcher.group(1).trim();
+            // "a b" 形式里 a 必须是完整的表达式，而不是以运算符结尾
+            if (!candidate.matches(".*[-+*/,=<>(]$")) {
+                expression = candidate;
+                alias = aliasMatcher.group(3);
+            }
+        }
+        Matcher aggregate = AGGREGATE.matcher(expression);
+        if (!aggregate.find()) {
+            return new SqlClauses.SelectItem(expression, alias, null, false);
+        }
+        return new SqlClauses.SelectItem(expression, alias, aggregate.group(1).toUpperCase(Locale.ENGLISH), aggregate.group(2) != null);
+    }
+
+    private static SqlClauses.Limit parseLimit(String body, int start, int end) {
+        Matcher comma = LIMIT_COMMA.matcher(body);
+        if (comma.matches()) {
+            if (comma.group(2) == null) {
+                return new SqlClauses.Limit(null, toLong(comma.group(1)), "?".equals(comma.group(1)), start, end);
+            }
+            boolean parameterized = "?".equals(comma.group(1)) || "?".equals(comma.group(2));
+            return new SqlClauses.Limit(toLong(comma.group(1)), toLong(comma.group(2)), parameterized, start, end);
+        }
+        Matcher offset = LIMIT_OFFSET.matcher(body);
+        if (offset.matches()) {
+            boolean parameterized = "?".equals(offset.group(1)) || "?".equals(offset.group(2));
+            return new SqlClauses.Limit(toLong(offset.group(2)), toLong(offset.group(1)), parameterized, start, end);
+        }
+        return null;
+    }
+
+    private static Long toLong(String token) {
+        return "?".equals(token) ? null : Long.valueOf(token);
+    }
+
+    /**
+     * 按顶层逗号切分，masked 与 text 等长
+     */
+    private static List<String> splitTopLevel(String text, String masked) {
+        List<String> items = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < masked.length(); i++) {
+            if (masked.charAt(i) == ',') {
+                items.add(text.substring(start, i));
+                start = i + 1;
+            }
+        }
+        items.add(text.substring(start));
+        return items;
+    }
+
+    /**
+     * 顶层是否有 FOR UPDATE / FOR SHARE / LOCK IN SHARE MODE 加锁子句；不要求语句能被 {@link #parse} 解析（如 UNION）
+     */
+    public static boolean isLocking(String sql) {
+        return LOCKING.matcher(mask(sql).toUpperCase(Locale.ENGLISH)).find();
+    }
+
+    /**
+     * 把字符串常量、反引号标识符、注释以及括号内的内容替换为空格，括号本身保留
+     */
+    static String mask(String sql) {
+        return mask(sql, true);
+    }
+
+    /**
+     * @param parentheses 是否把括号内的内容也替换为空格
+     */
+    private static String mask(String sql, boolean parentheses) {
+        char[] chars = sql.toCharArray();
+        int depth = 0;
+        int i = 0;
+        while (i < chars.length) {
+            char c = chars[i];
+            if (c == '\'' || c == '"' || c == '`') {
+                int end = i + 1;
+                while (end < chars.length) {
+                    if (chars[end] == '\\' && c != '`') {
+                        end += 2;
+                        continue;
+                    }
+                    if (chars[end] == c) {
+                        if (end + 1 < chars.length && chars[end + 1] == c) {
+                            end += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    end++;
+                }
+                end = Math.min(end, chars.length - 1);
+                // 引号内容置空，引号本身保留，便于识别别名
+                for (int k = i + 1; k < end; k++) {
+                    chars[k] = ' ';
+                }
+                i = end + 1;
+                continue;
+            }
+            if (c == '-' && i + 1 < chars.length && chars[i + 1] == '-') {
+                while (i < chars.length && chars[i] != '\n') {
+                    chars[i++] = ' ';
+                }
+                continue;
+            }
+            if (c == '/' && i + 1 < chars.length && chars[i + 1] == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                end = end < 0 ? chars.length : end + 2;
+                for (int k = i; k < end; k++) {
+                    chars[k] = ' ';
+                }
+                i = end;
+                continue;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth = Math.max(0, depth - 1);
+            } else if (depth > 0 && parentheses) {
+                chars[i] = ' ';
+            }
+            i++;
+        }
+        return new String(chars);
+    }
+
+}
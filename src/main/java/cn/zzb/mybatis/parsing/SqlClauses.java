@@ -0,0 +1,284 @@
+package cn.zzb.mybatis.parsing;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一条单表/多表 SELECT 的顶层子句，由 {@link SqlClauseParser} 解析得到
+ * <p>
+ * 只记录合并结果、改写 LIMIT 需要的信息：查询列（含聚合函数）、GROUP BY、是否有 HAVING、ORDER BY、LIMIT 的位置以及是否加锁。
+ */
+public class SqlClauses {
+
+    private final String sql;
+    private final boolean distinct;
+    private final List<SelectItem> selectItems;
+    private final List<String> groupBy;
+    private final boolean having;
+    private final List<OrderItem> orderBy;
+    private final Limit limit;
+    private final boolean locking;
+    // FROM 子句结束的位置，没有 WHERE 时在这里插入 WHERE
+    private final int fromEnd;
+    // WHERE 条件体的起止位置，没有 WHERE 时为 null
+    private final int[] where;
+    // ORDER BY 子句（含关键字）的起止位置，没有 ORDER BY 时为 null
+    private final int[] orderByRange;
+
+    SqlClauses(String sql, boolean distinct, List<SelectItem> selectItems, List<String> groupBy, boolean having, List<OrderItem> orderBy, Limit limit, boolean locking,
+               int fromEnd, int[] where, int[] orderByRange) {
+        this.sql = sql;
+        this.distinct = distinct;
+        this.selectItems = Collections.unmodifiableList(selectItems);
+        this.groupBy = Collections.unmodifiableList(groupBy);
+        this.having = having;
+        this.orderBy = Collections.unmodifiableList(orderBy);
+        this.limit = limit;
+        this.locking = locking;
+        this.fromEnd = fromEnd;
+        this.where = where;
+        this.orderByRange = orderByRange;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public boolean isDistinct() {
+        return distinct;
+    }
+
+    public List<SelectItem> getSelectItems() {
+        return selectItems;
+    }
+
+    public List<String> getGroupBy() {
+        return groupBy;
+    }
+
+    /**
+     * 带有 HAVING 子句
+     */
+    public boolean hasHaving() {
+        return having;
+    }
+
+    public List<OrderItem> getOrderBy() {
+        return orderBy;
+    }
+
+    public Limit getLimit() {
+        return limit;
+    }
+
+    /**
+     * 带有 FOR UPDATE / LOCK IN SHARE MODE 加锁子句，LIMIT 只能写在加锁子句之前
+     */
+    public boolean isLocking() {
+        return locking;
+    }
+
+    public boolean hasAggregate() {
+        for (SelectItem item : selectItems) {
+            if (item.getAggregate() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按查询列的别名或表达式找到结果对象上的属性名，找不到时去掉表名前缀和反引号
+     */
+    public String propertyOf(String expression) {
+        String normalized = normalize(expression);
+        for (SelectItem item : selectItems) {
+            if (normalize(item.getExpression()).equalsIgnoreCase(normalized)
+                    || (item.getAlias() != null && item.getAlias().equalsIgnoreCase(normalized))) {
+                return item.getPropertyName();
+            }
+        }
+        return SqlClauseParser.simpleName(expression);
+    }
+
+    /**
+     * 去掉 LIMIT 子句
+     */
+    public String withoutLimit() {
+        if (limit == null) {
+            return sql;
+        }
+        return sql.substring(0, limit.start) + sql.substring(limit.end);
+    }
+
+    /**
+     * 替换 LIMIT 子句为 LIMIT rowCount（不带偏移量）
+     */
+    public String withLimit(long rowCount) {
+        if (limit == null) {
+            return sql + " LIMIT " + rowCount;
+        }
+        return sql.substring(0, limit.start) + "LIMIT " + rowCount + " " + sql.substring(limit.end);
+    }
+
+    /**
+     * 追加 seek 条件的位置：WHERE 条件体的末尾，没有 WHERE 时为 FROM 子句的末尾；
+     * 这个位置之前的 ? 占位符个数就是 seek 条件参数插入的下标
+     */
+    public int getSeekPosition() {
+        return where != null ? where[1] : fromEnd;
+    }
+
+    /**
+     * 键集（seek）分页改写：把 predicate 以 AND 追加到 WHERE（没有 WHERE 时新增），并把 ORDER BY 替换为 orderBy
+     * <p>
+     * 只适用于没有 LIMIT 和加锁子句的语句，ORDER BY 是最后一个子句，直接截掉再拼接新的排序。
+     *
+     * @param predicate seek 条件，如 (id) > (?)；为 null 时（第一页）只替换排序
+     * @param orderBy   排序表达式，不含 ORDER BY 关键字
+     */
+    public String withSeek(String predicate, String orderBy) {
+        if (limit != null || locking || fromEnd < 0) {
+            throw new IllegalStateException("Keyset pagination requires a SELECT ... FROM without LIMIT or locking clause: " + sql);
+        }
+        String body = orderByRange == null ? sql : sql.substring(0, orderByRange[0]);
+        StringBuilder seek = new StringBuilder(sql.length() + orderBy.length() + 64);
+        if (predicate == null) {
+            return seek.append(body.trim()).append(" ORDER BY ").append(orderBy).toString();
+        }
+        if (where != null) {
+            seek.append(body, 0, where[0]).append(" (").append(body.substring(where[0], where[1]).trim()).append(") AND ").append(predicate).append(' ');
+        } else {
+            seek.append(body, 0, fromEnd).append(" WHERE ").append(predicate).append(' ');
+        }
+        int tail = getSeekPosition();
+        if (tail < body.length()) {
+            seek.append(body.substring(tail).trim()).append(' ');
+        }
+        return seek.append("ORDER BY ").append(orderBy).toString();
+    }
+
+    private static String normalize(String expression) {
+        return expression.replace("`", "").replaceAll("\\s+", "");
+    }
+
+    /**
+     * 查询列
+     */
+    public static class SelectItem {
+
+        private final String expression;
+        private final String alias;
+        private final String aggregate;
+        private final boolean distinctAggregate;
+
+        SelectItem(String expression, String alias, String aggregate, boolean distinctAggregate) {
+            this.expression = expression;
+            this.alias = alias;
+            this.aggregate = aggregate;
+            this.distinctAggregate = distinctAggregate;
+        }
+
+        public String getExpression() {
+            return expression;
+        }
+
+        public String getAlias() {
+            return alias;
+        }
+
+        /**
+         * 聚合函数名（COUNT/SUM/MIN/MAX/AVG，大写），不是聚合列时为 null
+         */
+        public String getAggregate() {
+            return aggregate;
+        }
+
+        /**
+         * 聚合函数的参数带 DISTINCT，如 COUNT(DISTINCT user_id)
+         */
+        public boolean isDistinctAggregate() {
+            return distinctAggregate;
+        }
+
+        public String getPropertyName() {
+            return alias != null ? alias : SqlClauseParser.simpleName(expression);
+        }
+
+        @Override
+        public String toString() {
+            return alias == null ? expression : expression + " AS " + alias;
+        }
+    }
+
+    /**
+     * 排序项
+     */
+    public static class OrderItem {
+
+        private final String expression;
+        private final boolean ascending;
+
+        OrderItem(String expression, boolean ascending) {
+            this.expression = expression;
+            this.ascending = ascending;
+        }
+
+        public String getExpression() {
+            return expression;
+        }
+
+        public boolean isAscending() {
+            return ascending;
+        }
+
+        @Override
+        public String toString() {
+            return expression + (ascending ? " ASC" : " DESC");
+        }
+    }
+
+    /**
+     * LIMIT 子句，offset/rowCount 是占位符 ? 时为 null
+     */
+    public static class Limit {
+
+        private final Long offset;
+        private final Long rowCount;
+        private final boolean parameterized;
+        private final int start;
+        private final int end;
+
+        Limit(Long offset, Long rowCount, boolean parameterized, int start, int end) {
+            this.offset = offset;
+            this.rowCount = rowCount;
+            this.parameterized = parameterized;
+            this.start = start;
+            this.end = end;
+        }
+
+        public long getOffset() {
+            return offset == null ? 0 : offset;
+        }
+
+        public Long getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * 偏移量或行数使用了 ? 占位符
+         */
+        public boolean isParameterized() {
+            return parameterized;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+    }
+
+}
@@ -1,6 +1,7 @@
 package cn.zzb.mybatis.reflection;
 
 
+import cn.zzb.mybatis.reflection.invoker.ConstructorInvoker;
 import cn.zzb.mybatis.reflection.invoker.GetFieldInvoker;
 import cn.zzb.mybatis.reflection.invoker.Invoker;
 import cn.zzb.mybatis.reflection.invoker.MethodInvoker;
@@ -37,6 +38,11 @@ public class Reflector {
     private Map<String, Class<?>> getTypes = new HashMap<>();
     // 构造函数
     private Constructor<?> defaultConstructor;
+    // 参数类型 → 构造函数调用者，第一次使用时解析
+    private final Map<List<Class<?>>, ConstructorInvoker> constructorInvokers = new ConcurrentHashMap<>();
+    // 记录类（Java 16+）的组件名和类型，按声明顺序；不是记录类时为 null
+    private String[] recordComponentNames;
+    private Class<?>[] recordComponentTypes;
 
     private Map<String, String> caseInsensitivePropertyMap = new HashMap<>();
 
@@ -50,8 +56,13 @@ public class Reflector {
         addSetMethods(clazz);
         // 加入字段
         addFields(clazz);
-        readablePropertyNames = getMethods.keySet().toArray(new String[getMethods.keySet().size()]);
-        writeablePropertyNames = setMethods.keySet().toArray(new String[setMethods.keySet().size()]);
+        // 记录类的组件
+        addRecordComponents(clazz);
+        // 属性按字段的声明顺序排列（父类在前），批量导入等按属性顺序输出列的场景结果稳定
+        List<String> declarationOrder = new ArrayList<>();
+        addFieldNames(declarationOrder, clazz);
+        readablePropertyNames = sortByDeclarationOrder(getMethods.keySet(), declarationOrder);
+        writeablePropertyNames = sortByDeclarationOrder(setMethods.keySet(), declarationOrder);
         for (String propName : readablePropertyNames) {
             caseInsensitivePropertyMap.put(propName.toUpperCase(Locale.ENGLISH), propName);
         }
@@ -78,6 +89,36 @@ public class Reflector {
         }
     }
 
+    /**
+     * 源码按 Java 8 编译，记录类通过反射调用 Class.isRecord()、Class.getRecordComponents() 识别
+     */
+    private void addRecordComponents(Class<?> clazz) {
+        Object[] components;
+        try {
+            if (!(Boolean) Class.class.getMethod("isRecord").invoke(clazz)) {
+                return;
+            }
+            components = (Object[]) Class.class.getMethod("getRecordComponents").invoke(clazz);
+        } catch (NoSuchMethodException e) {
+            // Java 16 之前没有记录类
+            return;
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Error reading record components of " + clazz.getName() + ". Cause: " + e, e);
+        }
+        String[] names = new String[components.length];
+        Class<?>[] types = new Class<?>[components.length];
+        try {
+            for (int i = 0; i < components.length; i++) {
+                names[i] = (String) components[i].getClass().getMethod("getName").invoke(components[i]);
+                types[i] = (Class<?>) components[i].getClass().getMethod("getType").invoke(components[i]);
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Error reading record components of " + clazz.getName() + ". Cause: " + e, e);
+        }
+        recordComponentNames = names;
+        recordComponentTypes = types;
+    }
+
     private void addGetMethods(Class<?> clazz) {
         Map<String, List<Method>> conflictingGetters = new HashMap<>();
         Method[] methods = getClassMethods(clazz);
@@ -188,6 +229,34 @@ public class Reflector {
         }
     }
 
+    private static void addFieldNames(List<String> names, Class<?> clazz) {
+        if (clazz.getSuperclass() != null) {
+            addFieldNames(names, clazz.getSuperclass());
+        }
+        for (Field field : clazz.getDeclaredFields()) {
+            if (!names.contains(field.getName())) {
+                names.add(field.getName());
+            }
+        }
+    }
+
+    /**
+     * 有字段的属性按字段声明顺序在前，只有 getter/setter 的属性按名字排在后面
+     */
+    private static String[] sortByDeclarationOrder(Set<String> propertyNames, List<String> declarationOrder) {
+        List<String> sorted = new ArrayList<>(propertyNames.size());
+        for (String name : declarationOrder) {
+            if (propertyNames.contains(name)) {
+                sorted.add(name);
+            }
+        }
+        List<String> others = new ArrayList<>(propertyNames);
+        others.removeAll(sorted);
+        Collections.sort(others);
+        sorted.addAll(others);
+        return sorted.toArray(new String[0]);
+    }
+
     private void addSetField(Field field) {
         if (isValidPropertyName(field.getName())) {
             setMethods.put(field.getName(), new SetFieldInvoker(field));
@@ -343,6 +412,63 @@ public class Reflector {
         return defaultConstructor != null;
     }
 
+    /**
+     * 按参数类型找到构造函数，解析成 MethodHandle 之后缓存，之后创建对象不再查找
+     */
+    public ConstructorInvoker getConstructorInvoker(Class<?>... parameterTypes) {
+        List<Class<?>> key = Arrays.asList(parameterTypes);
+        ConstructorInvoker invoker = constructorInvokers.get(key);
+        if (invoker == null) {
+            try {
+                invoker = new ConstructorInvoker(type.getDeclaredConstructor(parameterTypes));
+            } catch (NoSuchMethodException e) {
+                throw new RuntimeException("There is no constructor " + key + " in '" + type + "'", e);
+            }
+            ConstructorInvoker existing = constructorInvokers.putIfAbsent(key, invoker);
+            if (existing != null) {
+                invoker = existing;
+            }
+        }
+        return invoker;
+    }
+
+    /**
+     * 参数个数为 parameterCount 的唯一构造函数，没有或者有多个时返回 null
+     */
+    public Constructor<?> findConstructor(int parameterCount) {
+        Constructor<?> found = null;
+        for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+            if (constructor.getParameterCount() == parameterCount) {
+                if (found != null) {
+                    return null;
+                }
+                found = constructor;
+            }
+        }
+        return found;
+    }
+
+    public boolean isRecord() {
+        return recordComponentNames != null;
+    }
+
+    /**
+     * 记录类的组件名，按声明顺序（即规范构造函数的参数顺序）
+     */
+    public String[] getRecordComponentNames() {
+        if (recordComponentNames == null) {
+            throw new RuntimeException(type + " is not a record");
+        }
+        return recordComponentNames;
+    }
+
+    public Class<?>[] getRecordComponentTypes() {
+        if (recordComponentTypes == null) {
+            throw new RuntimeException(type + " is not a record");
+        }
+        return recordComponentTypes;
+    }
+
     public Class<?> getSetterType(String propertyName) {
         Class<?> clazz = setTypes.get(propertyName);
         if (clazz == null) {
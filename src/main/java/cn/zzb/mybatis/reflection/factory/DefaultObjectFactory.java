@@ -1,7 +1,8 @@
 package cn.zzb.mybatis.reflection.factory;
 
+import cn.zzb.mybatis.reflection.Reflector;
+
 import java.io.Serializable;
-import java.lang.reflect.Constructor;
 import java.util.*;
 
 /**
@@ -30,23 +31,17 @@ public class DefaultObjectFactory implements ObjectFactory, Serializable {
         return (T) instantiateClass(classToCreate, constructorArgTypes, constructorArgs);
     }
 
+    @SuppressWarnings("unchecked")
     private <T> T instantiateClass(Class<T> type, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
         try {
-            Constructor<T> constructor;
-            //如果没有传入constructor，调用空构造函数，核心是调用Constructor.newInstance
+            // 构造函数由 Reflector 按参数类型解析一次并缓存为 MethodHandle，每次创建不再查找构造函数、调用 setAccessible
+            //如果没有传入constructor，调用空构造函数
             if (constructorArgTypes == null || constructorArgs == null) {
-                constructor = type.getDeclaredConstructor();
-                if (!constructor.isAccessible()) {
-                    constructor.setAccessible(true);
-                }
-                return constructor.newInstance();
-            }
-            // 如果传入constructor，调用传入的构造函数，核心是调用Constructor.newInstance
-            constructor = type.getDeclaredConstructor(constructorArgTypes.toArray(new Class[constructorArgTypes.size()]));
-            if (!constructor.isAccessible()) {
-                constructor.setAccessible(true);
+                return (T) Reflector.forClass(type).getConstructorInvoker().invoke(null, new Object[0]);
             }
-            return constructor.newInstance(constructorArgs.toArray(new Object[constructorArgs.size()]));
+            // 如果传入constructor，调用传入的构造函数
+            return (T) Reflector.forClass(type).getConstructorInvoker(constructorArgTypes.toArray(new Class[constructorArgTypes.size()]))
+                    .invoke(null, constructorArgs.toArray(new Object[constructorArgs.size()]));
         } catch (Exception e) {
             // 如果出错，包装一下，重新抛出自己的异常
             StringBuilder argTypes = new StringBuilder();
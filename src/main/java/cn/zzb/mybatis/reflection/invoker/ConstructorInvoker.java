@@ -0,0 +1,54 @@
+package cn.zzb.mybatis.reflection.invoker;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.UndeclaredThrowableException;
+
+/**
+ * 构造函数调用者：构造函数只解析一次，转换成 (Object[]) -> Object 的 MethodHandle，
+ * 每次创建对象不再查找构造函数、检查访问权限，参数按位置传入（target 不使用）
+ */
+public class ConstructorInvoker implements Invoker {
+
+    private final Constructor<?> constructor;
+    private final MethodHandle handle;
+
+    public ConstructorInvoker(Constructor<?> constructor) {
+        this.constructor = constructor;
+        try {
+            constructor.setAccessible(true);
+        } catch (RuntimeException ignore) {
+            // 模块不开放时只能调用公有的构造函数
+        }
+        try {
+            this.handle = MethodHandles.lookup().unreflectConstructor(constructor)
+                    .asSpreader(Object[].class, constructor.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Cannot access constructor " + constructor + ". Cause: " + e, e);
+        }
+    }
+
+    @Override
+    public Object invoke(Object target, Object[] args) throws Exception {
+        try {
+            return (Object) handle.invokeExact(args);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    public Class<?>[] getParameterTypes() {
+        return constructor.getParameterTypes();
+    }
+
+    @Override
+    public Class<?> getType() {
+        return constructor.getDeclaringClass();
+    }
+
+}
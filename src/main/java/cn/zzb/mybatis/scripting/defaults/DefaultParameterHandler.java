@@ -0,0 +1,110 @@
+package cn.zzb.mybatis.scripting.defaults;
+
+import cn.zzb.mybatis.executor.parameter.ParameterHandler;
+import cn.zzb.mybatis.mapping.BoundSql;
+import cn.zzb.mybatis.mapping.MappedStatement;
+import cn.zzb.mybatis.mapping.ParameterMapping;
+import cn.zzb.mybatis.reflection.MetaObject;
+import cn.zzb.mybatis.session.Configuration;
+import cn.zzb.mybatis.type.JdbcType;
+import cn.zzb.mybatis.type.TypeHandler;
+import cn.zzb.mybatis.type.TypeHandlerRegistry;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 默认参数处理器
+ * <p>
+ * 按 BoundSql 中参数映射的顺序取值：附加参数优先；参数本身是简单类型（有类型处理器）时直接使用它；
+ * 否则把参数当作 JavaBean 或 Map，用 MetaObject 按属性名取值。值用对应 Java 类型的 TypeHandler 绑定，
+ * 没有注册处理器的类型交给驱动（setObject）。
+ */
+public class DefaultParameterHandler implements ParameterHandler {
+
+    private final TypeHandlerRegistry typeHandlerRegistry;
+
+    private final MappedStatement mappedStatement;
+    private final Object parameterObject;
+    private final BoundSql boundSql;
+    private final Configuration configuration;
+
+    public DefaultParameterHandler(MappedStatement mappedStatement, Object parameterObject, BoundSql boundSql) {
+        this.mappedStatement = mappedStatement;
+        this.configuration = mappedStatement.getConfiguration();
+        this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+        this.parameterObject = parameterObject;
+        this.boundSql = boundSql;
+    }
+
+    @Override
+    public Object getParameterObject() {
+        return parameterObject;
+    }
+
+    @Override
+    public void setParameters(PreparedStatement ps) throws SQLException {
+        setParameters(ps, 0, getParameterValues());
+    }
+
+    /**
+     * 按参数映射的顺序取出要绑定的参数值
+     */
+    public List<Object> getParameterValues() {
+        List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+        if (parameterMappings == null || parameterMappings.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Object> values = new ArrayList<>(parameterMappings.size());
+        MetaObject metaObject = null;
+        for (ParameterMapping parameterMapping : parameterMappings) {
+            String propertyName = parameterMapping.getProperty();
+            Object value;
+            if (boundSql.hasAdditionalParameter(propertyName)) {
+                value = boundSql.getAdditionalParameter(propertyName);
+            } else if (parameterObject == null) {
+                value = null;
+            } else if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {
+                value = parameterObject;
+            } else {
+                if (metaObject == null) {
+                    metaObject = configuration.newMetaObject(parameterObject);
+                }
+                value = metaObject.getValue(propertyName);
+            }
+            values.add(value);
+        }
+        return values;
+    }
+
+    /**
+     * 把 getParameterValues() 取出的值绑定到第 offset + 1 个起的占位符上，多行插入时每一行按各自的偏移绑定
+     */
+    public void setParameters(PreparedStatement ps, int offset, List<Object> values) throws SQLException {
+        List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+        for (int i = 0; i < values.size(); i++) {
+            ParameterMapping parameterMapping = parameterMappings.get(i);
+            setParameter(ps, offset + i + 1, values.get(i), parameterMapping.getJdbcType(), parameterMapping.getProperty());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void setParameter(PreparedStatement ps, int index, Object value, JdbcType jdbcType, String propertyName) throws SQLException {
+        TypeHandler<Object> typeHandler = null;
+        if (value != null) {
+            typeHandler = (TypeHandler<Object>) typeHandlerRegistry.getTypeHandler(value.getClass(), jdbcType);
+        }
+        if (typeHandler == null) {
+            typeHandler = typeHandlerRegistry.getUnknownTypeHandler();
+        }
+        try {
+            typeHandler.setParameter(ps, index, value, jdbcType);
+        } catch (SQLException | RuntimeException e) {
+            throw new RuntimeException("Could not set parameter #" + index + " (" + propertyName + ") of " + mappedStatement.getId() + ". Cause: " + e, e);
+        }
+    }
+
+}
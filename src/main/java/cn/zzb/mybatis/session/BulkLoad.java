@@ -0,0 +1,162 @@
+package cn.zzb.mybatis.session;
+
+import cn.zzb.mybatis.reflection.Reflector;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 批量导入：把一批对象按属性顺序写入一张表
+ * <p>
+ * MySQL 上把对象边读边编码成 TSV/CSV，通过 LOAD DATA LOCAL INFILE 由驱动直接读取这个输入流，不落临时文件；
+ * 其它数据库按 batchSize 分块执行 JDBC 批量插入。没有指定属性时，取类型上所有简单类型（数字、字符串、日期等）的可读属性，
+ * 按 {@link Reflector} 的属性顺序（字段声明顺序）排列，列名与属性名相同。
+ * <pre>
+ * BulkLoad&lt;User&gt; load = new BulkLoad.Builder&lt;&gt;("user", User.class).property("userId").property("userName", "user_name").build();
+ * long rows = sqlSession.bulkLoad(load, users.iterator());
+ * </pre>
+ *
+ * @param <T> 导入的对象类型
+ */
+public class BulkLoad<T> {
+
+    /**
+     * 传给 LOAD DATA 的文本格式
+     */
+    public enum Format {
+        /**
+         * 制表符分隔，\ 转义，NULL 写作 \N（LOAD DATA 的默认格式）
+         */
+        TSV,
+        /**
+         * 逗号分隔，值用双引号括起来，NULL 写作 \N
+         */
+        CSV
+    }
+
+    private String table;
+    private Class<T> type;
+    private List<String> properties;
+    private List<String> columns;
+    private Format format = Format.TSV;
+    private Charset charset = StandardCharsets.UTF_8;
+    private int batchSize = 1000;
+
+    private BulkLoad() {
+    }
+
+    public static class Builder<T> {
+
+        private final BulkLoad<T> bulkLoad = new BulkLoad<>();
+        private final List<String> properties = new ArrayList<>();
+        private final List<String> columns = new ArrayList<>();
+
+        public Builder(String table, Class<T> type) {
+            bulkLoad.table = table;
+            bulkLoad.type = type;
+        }
+
+        /**
+         * 导入一个属性，列名与属性名相同
+         */
+        public Builder<T> property(String property) {
+            return property(property, property);
+        }
+
+        /**
+         * 导入一个属性到指定的列，多个属性按添加顺序对应表的列
+         */
+        public Builder<T> property(String property, String column) {
+            properties.add(property);
+            columns.add(column);
+            return this;
+        }
+
+        public Builder<T> format(Format format) {
+            bulkLoad.format = format;
+            return this;
+        }
+
+        public Builder<T> charset(Charset charset) {
+            bulkLoad.charset = charset;
+            return this;
+        }
+
+        /**
+         * 不支持 LOAD DATA 的数据库上，每执行一次批量插入的行数
+         */
+        public Builder<T> batchSize(int batchSize) {
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("Bulk load batch size must be greater than 0, but was " + batchSize);
+            }
+            bulkLoad.batchSize = batchSize;
+            return this;
+        }
+
+        public BulkLoad<T> build() {
+            Reflector reflector = Reflector.forClass(bulkLoad.type);
+            if (properties.isEmpty()) {
+                for (String property : reflector.getGetablePropertyNames()) {
+                    if (isSimpleType(reflector.getGetterType(property))) {
+                        properties.add(property);
+                        columns.add(property);
+                    }
+                }
+            }
+            if (properties.isEmpty()) {
+                throw new IllegalStateException("No properties to load for " + bulkLoad.type.getName());
+            }
+            for (String property : properties) {
+                if (!reflector.hasGetter(property)) {
+                    throw new IllegalStateException("There is no getter for property named '" + property + "' in '" + bulkLoad.type.getName() + "'");
+                }
+            }
+            bulkLoad.properties = Collections.unmodifiableList(new ArrayList<>(properties));
+            bulkLoad.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+            return bulkLoad;
+        }
+
+        private static boolean isSimpleType(Class<?> type) {
+            return type.isPrimitive() || type.isEnum()
+                    || Number.class.isAssignableFrom(type)
+                    || CharSequence.class.isAssignableFrom(type)
+                    || type == Boolean.class || type == Character.class
+                    || Date.class.isAssignableFrom(type) || Temporal.class.isAssignableFrom(type);
+        }
+
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    public List<String> getProperties() {
+        return properties;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+}
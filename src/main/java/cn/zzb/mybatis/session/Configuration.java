@@ -1,11 +1,20 @@
 package cn.zzb.mybatis.session;
 
+import cn.zzb.mybatis.columnar.arrow.DirectBufferPool;
 import cn.zzb.mybatis.binding.MapperRegistry;
 import cn.zzb.mybatis.datasource.druid.DruidDataSourceFactory;
 import cn.zzb.mybatis.datasource.pooled.PooledDataSourceFactory;
 import cn.zzb.mybatis.datasource.unpooled.UnpooledDataSourceFactory;
+import cn.zzb.mybatis.dialect.DialectRegistry;
+import cn.zzb.mybatis.executor.BatchExecutor;
 import cn.zzb.mybatis.executor.Executor;
+import cn.zzb.mybatis.executor.MultiRowInsertRewriter;
+import cn.zzb.mybatis.executor.RewriteBatchExecutor;
 import cn.zzb.mybatis.executor.SimpleExecutor;
+import cn.zzb.mybatis.executor.ThreadPools;
+import cn.zzb.mybatis.executor.loader.ProxyFactory;
+import cn.zzb.mybatis.executor.loader.javassist.JavassistProxyFactory;
+import cn.zzb.mybatis.executor.parameter.ParameterHandler;
 import cn.zzb.mybatis.executor.resultset.DefaultResultSetHandler;
 import cn.zzb.mybatis.executor.resultset.ResultSetHandler;
 import cn.zzb.mybatis.executor.statement.PreparedStatementHandler;
@@ -13,22 +22,28 @@ import cn.zzb.mybatis.executor.statement.StatementHandler;
 import cn.zzb.mybatis.mapping.BoundSql;
 import cn.zzb.mybatis.mapping.Environment;
 import cn.zzb.mybatis.mapping.MappedStatement;
+import cn.zzb.mybatis.mapping.ResultMap;
 import cn.zzb.mybatis.reflection.MetaObject;
 import cn.zzb.mybatis.reflection.factory.DefaultObjectFactory;
 import cn.zzb.mybatis.reflection.factory.ObjectFactory;
 import cn.zzb.mybatis.reflection.wrapper.DefaultObjectWrapperFactory;
 import cn.zzb.mybatis.reflection.wrapper.ObjectWrapperFactory;
 import cn.zzb.mybatis.scripting.LanguageDriverRegistry;
+import cn.zzb.mybatis.scripting.defaults.DefaultParameterHandler;
 import cn.zzb.mybatis.scripting.xmltags.XMLLanguageDriver;
+import cn.zzb.mybatis.sharding.ShardingExecutor;
+import cn.zzb.mybatis.sharding.ShardingTransaction;
 import cn.zzb.mybatis.transaction.Transaction;
 import cn.zzb.mybatis.transaction.jdbc.JdbcTransactionFactory;
 import cn.zzb.mybatis.type.TypeAliasRegistry;
 import cn.zzb.mybatis.type.TypeHandlerRegistry;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 
 /**
@@ -61,6 +76,9 @@ public class Configuration {
     /** MappedStatement 存储容器：key 为 namespace.id，value 为 SQL 映射语句对象 */
     protected final Map<String, MappedStatement> mappedStatements = new HashMap<>();
 
+    /** ResultMap 存储容器：key 为 namespace.id */
+    protected final Map<String, ResultMap> resultMaps = new HashMap<>();
+
     /** 类型别名注册器：管理 Java 类型的简短别名（如 string -> java.lang.String） */
     protected final TypeAliasRegistry typeAliasRegistry = new TypeAliasRegistry();
 
@@ -70,6 +88,30 @@ public class Configuration {
     /** 类型处理器注册器：管理 Java 类型与 JDBC 类型之间的转换 */
     protected final TypeHandlerRegistry typeHandlerRegistry = new TypeHandlerRegistry();
 
+    /** 方言注册器：按数据库产品名找到分页方言，把 RowBounds 改写成 LIMIT/OFFSET */
+    protected final DialectRegistry dialectRegistry = new DialectRegistry();
+
+    /** 多行插入改写器：REWRITE_BATCH 执行器合并单行 INSERT 时使用，缓存拆分结果并控制每条语句的行数 */
+    protected final MultiRowInsertRewriter multiRowInsertRewriter = new MultiRowInsertRewriter();
+
+    /** 批量加载嵌套查询时，一条 IN (...) 查询最多带的键数 */
+    protected int nestedQueryBatchSize = 1000;
+
+    /** 嵌套查询默认延迟加载（association/collection 没有写 fetchType 时） */
+    protected boolean lazyLoadingEnabled;
+
+    /** 调用延迟加载对象的任意方法都加载它的全部延迟属性，关闭时只有访问属性的 getter 才加载这个属性 */
+    protected boolean aggressiveLazyLoading;
+
+    /** 调用时加载全部延迟属性的方法 */
+    protected Set<String> lazyLoadTriggerMethods = new HashSet<>(Arrays.asList("equals", "clone", "hashCode", "toString"));
+
+    /** 代理工厂：创建延迟加载的结果对象（生成的子类） */
+    protected ProxyFactory proxyFactory = new JavassistProxyFactory();
+
+    /** 直接内存缓冲区池：导出 Arrow 流时各列的缓冲区从这里取用，最多保留 64MB 空闲缓冲区 */
+    protected DirectBufferPool directBufferPool = new DirectBufferPool(64L << 20);
+
     /** 对象工厂：用于创建结果对象实例 */
     protected ObjectFactory objectFactory = new DefaultObjectFactory();
 
@@ -82,6 +124,12 @@ public class Configuration {
     /** 数据库厂商标识：用于支持多数据库 SQL 方言 */
     protected String databaseId;
 
+    /** 异步会话（返回 CompletableFuture 的 Mapper 方法）使用的执行器，未设置时第一次使用才创建 */
+    protected volatile ExecutorService asyncExecutor;
+
+    /** 默认异步执行器的线程数 */
+    protected int asyncParallelism = 32;
+
     /**
      * 构造函数：初始化默认配置
      * <p>
@@ -167,6 +215,20 @@ public class Configuration {
         return mappedStatements.get(id);
     }
 
+    public void addResultMap(ResultMap resultMap) {
+        resultMaps.put(resultMap.getId(), resultMap);
+    }
+
+    /**
+     * 根据 id 获取结果映射
+     *
+     * @param id 结果映射的唯一标识（namespace.id）
+     * @return ResultMap 对象，不存在时返回 null
+     */
+    public ResultMap getResultMap(String id) {
+        return resultMaps.get(id);
+    }
+
     /**
      * 获取类型别名注册器
      *
@@ -211,11 +273,26 @@ public class Configuration {
      *
      * @param executor        SQL 执行器
      * @param mappedStatement SQL 映射语句对象
+     * @param rowBounds       分页边界，跳过 offset 行、最多映射 limit 行
      * @param boundSql        绑定的 SQL 对象（包含最终 SQL 和参数映射）
      * @return ResultSetHandler 实例
      */
-    public ResultSetHandler newResultSetHandler(Executor executor, MappedStatement mappedStatement, BoundSql boundSql) {
-        return new DefaultResultSetHandler(executor, mappedStatement, boundSql);
+    public ResultSetHandler newResultSetHandler(Executor executor, MappedStatement mappedStatement, RowBounds rowBounds, BoundSql boundSql) {
+        return new DefaultResultSetHandler(executor, mappedStatement, rowBounds, boundSql);
+    }
+
+    /**
+     * 创建参数处理器（工厂方法）
+     * <p>
+     * ParameterHandler 负责按参数映射把参数值通过 TypeHandler 绑定到 PreparedStatement。
+     *
+     * @param mappedStatement SQL 映射语句对象
+     * @param parameterObject SQL 参数对象
+     * @param boundSql        绑定的 SQL 对象
+     * @return ParameterHandler 实例
+     */
+    public ParameterHandler newParameterHandler(MappedStatement mappedStatement, Object parameterObject, BoundSql boundSql) {
+        return new DefaultParameterHandler(mappedStatement, parameterObject, boundSql);
     }
 
     /**
@@ -227,12 +304,37 @@ public class Configuration {
      * 3. 管理一级缓存（当前简化版未实现）
      * <p>
      * 当前实现返回 SimpleExecutor，每次执行都创建新的 Statement。
-     * 未来可扩展为 ReuseExecutor（复用 Statement）或 BatchExecutor（批处理）。
+     * 未来可扩展为 ReuseExecutor（复用 Statement）。
+     * 数据源是分片数据源时返回 ShardingExecutor，按分片键路由并改写表名。
      *
      * @param transaction 事务对象，用于获取数据库连接
      * @return Executor 实例
      */
     public Executor newExecutor(Transaction transaction) {
+        return newExecutor(transaction, ExecutorType.SIMPLE);
+    }
+
+    /**
+     * 按执行器类型创建 SQL 执行器，BATCH 返回 BatchExecutor（写语句加入 JDBC 批次统一执行），
+     * REWRITE_BATCH 返回 RewriteBatchExecutor（另外把单行 INSERT 合并成多行插入）
+     *
+     * @param transaction  事务对象，用于获取数据库连接
+     * @param executorType 执行器类型
+     * @return Executor 实例
+     */
+    public Executor newExecutor(Transaction transaction, ExecutorType executorType) {
+        if (transaction instanceof ShardingTransaction) {
+            if (executorType != ExecutorType.SIMPLE) {
+                throw new RuntimeException("Batch executor is not supported on a sharding data source");
+            }
+            return new ShardingExecutor(this, (ShardingTransaction) transaction);
+        }
+        if (executorType == ExecutorType.BATCH) {
+            return new BatchExecutor(this, transaction);
+        }
+        if (executorType == ExecutorType.REWRITE_BATCH) {
+            return new RewriteBatchExecutor(this, transaction);
+        }
         return new SimpleExecutor(this, transaction);
     }
 
@@ -250,12 +352,13 @@ public class Configuration {
      * @param executor        SQL 执行器
      * @param mappedStatement SQL 映射语句对象
      * @param parameter       SQL 参数对象
+     * @param rowBounds       分页边界
      * @param resultHandler   结果处理器（当前版本未使用）
      * @param boundSql        绑定的 SQL 对象
      * @return StatementHandler 实例
      */
-    public StatementHandler newStatementHandler(Executor executor, MappedStatement mappedStatement, Object parameter, ResultHandler resultHandler, BoundSql boundSql) {
-        return new PreparedStatementHandler(executor, mappedStatement, parameter, resultHandler, boundSql);
+    public StatementHandler newStatementHandler(Executor executor, MappedStatement mappedStatement, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) {
+        return new PreparedStatementHandler(executor, mappedStatement, parameter, rowBounds, resultHandler, boundSql);
     }
 
     /**
@@ -272,6 +375,15 @@ public class Configuration {
         return MetaObject.forObject(object, objectFactory, objectWrapperFactory);
     }
 
+    /**
+     * 获取对象工厂
+     *
+     * @return 创建结果对象、集合属性实例的 ObjectFactory
+     */
+    public ObjectFactory getObjectFactory() {
+        return objectFactory;
+    }
+
     /**
      * 获取类型处理器注册器
      *
@@ -282,6 +394,28 @@ public class Configuration {
         return typeHandlerRegistry;
     }
 
+    /**
+     * 获取方言注册器
+     * <p>
+     * 带分页边界的查询按连接的数据库找到方言，改写成 LIMIT/OFFSET；可以注册新的数据库或指定固定的方言。
+     *
+     * @return DialectRegistry 对象
+     */
+    public DialectRegistry getDialectRegistry() {
+        return dialectRegistry;
+    }
+
+    /**
+     * 获取多行插入改写器
+     * <p>
+     * 可以按数据库调整每条多行插入的占位符个数、语句大小（max_allowed_packet）和行数上限。
+     *
+     * @return MultiRowInsertRewriter 对象
+     */
+    public MultiRowInsertRewriter getMultiRowInsertRewriter() {
+        return multiRowInsertRewriter;
+    }
+
     /**
      * 判断指定资源是否已加载
      * <p>
@@ -317,4 +451,95 @@ public class Configuration {
         return languageRegistry;
     }
 
+    /**
+     * 获取异步执行器
+     * <p>
+     * 没有通过 setAsyncExecutor 指定时，使用 asyncParallelism 个线程的有界线程池，队列满时拒绝提交，
+     * 返回的 future 以 RejectedExecutionException 失败（见 {@link ThreadPools#newAsyncPool}）。
+     *
+     * @return 异步会话使用的执行器
+     */
+    public ExecutorService getAsyncExecutor() {
+        ExecutorService executor = asyncExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = asyncExecutor;
+                if (executor == null) {
+                    executor = ThreadPools.newAsyncPool("own-mybatis-async-", asyncParallelism);
+                    asyncExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    public int getNestedQueryBatchSize() {
+        return nestedQueryBatchSize;
+    }
+
+    /**
+     * 设置批量加载嵌套查询时每条 IN (...) 查询最多带的键数，键更多时分成多条查询
+     */
+    public void setNestedQueryBatchSize(int nestedQueryBatchSize) {
+        if (nestedQueryBatchSize <= 0) {
+            throw new IllegalArgumentException("nestedQueryBatchSize must be greater than 0, but was " + nestedQueryBatchSize);
+        }
+        this.nestedQueryBatchSize = nestedQueryBatchSize;
+    }
+
+    public boolean isLazyLoadingEnabled() {
+        return lazyLoadingEnabled;
+    }
+
+    public void setLazyLoadingEnabled(boolean lazyLoadingEnabled) {
+        this.lazyLoadingEnabled = lazyLoadingEnabled;
+    }
+
+    public boolean isAggressiveLazyLoading() {
+        return aggressiveLazyLoading;
+    }
+
+    public void setAggressiveLazyLoading(boolean aggressiveLazyLoading) {
+        this.aggressiveLazyLoading = aggressiveLazyLoading;
+    }
+
+    public Set<String> getLazyLoadTriggerMethods() {
+        return lazyLoadTriggerMethods;
+    }
+
+    public void setLazyLoadTriggerMethods(Set<String> lazyLoadTriggerMethods) {
+        this.lazyLoadTriggerMethods = lazyLoadTriggerMethods;
+    }
+
+    public ProxyFactory getProxyFactory() {
+        return proxyFactory;
+    }
+
+    public void setProxyFactory(ProxyFactory proxyFactory) {
+        this.proxyFactory = proxyFactory;
+    }
+
+    public DirectBufferPool getDirectBufferPool() {
+        return directBufferPool;
+    }
+
+    public void setDirectBufferPool(DirectBufferPool directBufferPool) {
+        this.directBufferPool = directBufferPool;
+    }
+
+    public void setAsyncExecutor(ExecutorService asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    public int getAsyncParallelism() {
+        return asyncParallelism;
+    }
+
+    public void setAsyncParallelism(int asyncParallelism) {
+        if (asyncParallelism <= 0) {
+            throw new IllegalArgumentException("asyncParallelism must be greater than 0, but was " + asyncParallelism);
+        }
+        this.asyncParallelism = asyncParallelism;
+    }
+
 }
@@ -0,0 +1,21 @@
+package cn.zzb.mybatis.session;
+
+/**
+ * 执行器类型
+ */
+public enum ExecutorType {
+
+    /**
+     * 每条语句立即执行
+     */
+    SIMPLE,
+    /**
+     * 写语句加入 JDBC 批次，查询、提交或 flushStatements() 时统一执行
+     */
+    BATCH,
+    /**
+     * 同 BATCH，另外把连续的单行 INSERT 合并成多行 INSERT ... VALUES (...),(...) 再加入批次
+     */
+    REWRITE_BATCH
+
+}
@@ -0,0 +1,142 @@
+package cn.zzb.mybatis.session;
+
+import cn.zzb.mybatis.parsing.SqlClauseParser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 键集（seek）分页边界：按一组有序且唯一的键翻页，而不是跳过 offset 行
+ * <p>
+ * 查询被改写成 WHERE (k1, k2) &gt; (?, ?) ORDER BY k1, k2 LIMIT n，数据库沿着键上的索引直接定位到上一页的末尾，
+ * 无论翻到第几页，代价都只和页大小有关。上一页的末尾由 {@link KeysetPage#getNextToken()} 返回的续页令牌表示。
+ * <pre>
+ * KeysetBounds bounds = new KeysetBounds.Builder(100).key("o.id", "id").after(token).build();
+ * KeysetPage&lt;Order&gt; page = sqlSession.selectKeysetPage("OrderDao.list", param, bounds);
+ * </pre>
+ */
+public class KeysetBounds {
+
+    // 键在 SQL 中的表达式，如 o.id
+    private List<String> columns;
+    // 键在结果对象上的属性名，用来从最后一行取出续页令牌的值
+    private List<String> properties;
+    private boolean descending;
+    private int pageSize;
+    // 上一页返回的续页令牌，第一页为 null
+    private String token;
+
+    private KeysetBounds() {
+    }
+
+    public static class Builder {
+
+        private final KeysetBounds bounds = new KeysetBounds();
+        private final List<String> columns = new ArrayList<>();
+        private final List<String> properties = new ArrayList<>();
+
+        public Builder(int pageSize) {
+            if (pageSize <= 0) {
+                throw new IllegalArgumentException("Keyset page size must be greater than 0, but was " + pageSize);
+            }
+            bounds.pageSize = pageSize;
+        }
+
+        /**
+         * 追加一个排序键，属性名取列名去掉表名前缀的部分
+         */
+        public Builder key(String column) {
+            return key(column, SqlClauseParser.simpleName(column));
+        }
+
+        /**
+         * 追加一个排序键，多个键按添加顺序组成复合键，整体必须唯一
+         */
+        public Builder key(String column, String property) {
+            columns.add(column);
+            properties.add(property);
+            return this;
+        }
+
+        /**
+         * 按键降序翻页
+         */
+        public Builder descending() {
+            bounds.descending = true;
+            return this;
+        }
+
+        /**
+         * 从令牌表示的位置之后开始，null 表示第一页
+         */
+        public Builder after(String token) {
+            bounds.token = token;
+            return this;
+        }
+
+        public KeysetBounds build() {
+            if (columns.isEmpty()) {
+                throw new IllegalStateException("Keyset pagination requires at least one key column");
+            }
+            bounds.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+            bounds.properties = Collections.unmodifiableList(new ArrayList<>(properties));
+            return bounds;
+        }
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public List<String> getProperties() {
+        return properties;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * seek 条件，如 (o.id) &gt; (?)；第一页没有条件，返回 null
+     */
+    public String getSeekPredicate() {
+        if (token == null) {
+            return null;
+        }
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+        return "(" + String.join(", ", columns) + ") " + (descending ? "<" : ">") + " (" + placeholders + ")";
+    }
+
+    /**
+     * 排序表达式（不含 ORDER BY 关键字），所有键方向相同
+     */
+    public String getOrderBy() {
+        String direction = descending ? " DESC" : " ASC";
+        StringBuilder orderBy = new StringBuilder();
+        for (String column : columns) {
+            if (orderBy.length() > 0) {
+                orderBy.append(", ");
+            }
+            orderBy.append(column).append(direction);
+        }
+        return orderBy.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetBounds{columns=" + columns + ", descending=" + descending + ", pageSize=" + pageSize + ", token=" + token + "}";
+    }
+
+}
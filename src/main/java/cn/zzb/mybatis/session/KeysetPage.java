@@ -0,0 +1,35 @@
+package cn.zzb.mybatis.session;
+
+import java.util.List;
+
+/**
+ * 键集分页的一页结果
+ *
+ * @param <E> 结果元素类型
+ */
+public class KeysetPage<E> {
+
+    private final List<E> items;
+    private final String nextToken;
+
+    public KeysetPage(List<E> items, String nextToken) {
+        this.items = items;
+        this.nextToken = nextToken;
+    }
+
+    public List<E> getItems() {
+        return items;
+    }
+
+    /**
+     * 下一页的续页令牌，传给 {@link KeysetBounds.Builder#after(String)}；已经是最后一页时为 null
+     */
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    public boolean hasNext() {
+        return nextToken != null;
+    }
+
+}
@@ -0,0 +1,108 @@
+package cn.zzb.mybatis.session;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * 续页令牌的编解码：把上一页最后一行的键值按类型标记 + 文本写成 URL 安全的 Base64
+ * <p>
+ * 令牌通常会经过客户端再传回来，所以不用 Java 序列化，解码时只认识固定的几种类型。
+ */
+public final class KeysetToken {
+
+    private KeysetToken() {
+    }
+
+    public static String encode(Object[] values) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(values.length);
+            for (Object value : values) {
+                out.writeByte(tagOf(value));
+                out.writeUTF(value instanceof Timestamp || !(value instanceof Date) ? value.toString() : String.valueOf(((Date) value).getTime()));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    public static Object[] decode(String token, int keyCount) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            int count = in.readUnsignedByte();
+            if (count != keyCount) {
+                throw new IllegalArgumentException("Keyset token has " + count + " keys, but " + keyCount + " expected");
+            }
+            Object[] values = new Object[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = valueOf((char) in.readUnsignedByte(), in.readUTF());
+            }
+            return values;
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("Invalid keyset token: " + token, e);
+        }
+    }
+
+    private static char tagOf(Object value) {
+        if (value instanceof Long) {
+            return 'J';
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return 'I';
+        } else if (value instanceof BigDecimal) {
+            return 'N';
+        } else if (value instanceof BigInteger) {
+            return 'G';
+        } else if (value instanceof Double || value instanceof Float) {
+            return 'F';
+        } else if (value instanceof String) {
+            return 'S';
+        } else if (value instanceof Timestamp) {
+            return 'T';
+        } else if (value instanceof Date) {
+            return 'D';
+        } else if (value instanceof LocalDateTime) {
+            return 'L';
+        } else if (value instanceof LocalDate) {
+            return 'A';
+        }
+        throw new IllegalArgumentException("Unsupported keyset key type: " + (value == null ? "null" : value.getClass().getName()));
+    }
+
+    private static Object valueOf(char tag, String text) {
+        switch (tag) {
+            case 'J':
+                return Long.valueOf(text);
+            case 'I':
+                return Integer.valueOf(text);
+            case 'N':
+                return new BigDecimal(text);
+            case 'G':
+                return new BigInteger(text);
+            case 'F':
+                return Double.valueOf(text);
+            case 'S':
+                return text;
+            case 'T':
+                return Timestamp.valueOf(text);
+            case 'D':
+                return new Date(Long.parseLong(text));
+            case 'L':
+                return LocalDateTime.parse(text);
+            case 'A':
+                return LocalDate.parse(text);
+            default:
+                throw new IllegalArgumentException("Unknown keyset key type tag: " + tag);
+        }
+    }
+
+}
@@ -0,0 +1,24 @@
+package cn.zzb.mybatis.session;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 结果集接收器：直接读取 JDBC 结果集，不经过结果映射
+ * <p>
+ * 用于按列读取（{@link cn.zzb.mybatis.columnar.ColumnarResult}）、导出等不需要结果对象的场景，
+ * 由 {@link SqlSession#select(String, Object, RowBounds, ResultSetSink)} 调用。
+ *
+ * @param <T> 读取的结果类型
+ */
+@FunctionalInterface
+public interface ResultSetSink<T> {
+
+    /**
+     * @param resultSet 已经跳过 RowBounds 的 offset 行的结果集，由调用方关闭
+     * @param limit     最多读取的行数
+     * @return 读取的结果
+     */
+    T consume(ResultSet resultSet, int limit) throws SQLException;
+
+}
@@ -0,0 +1,63 @@
+package cn.zzb.mybatis.session;
+
+/**
+ * 分页边界：跳过 offset 行，最多返回 limit 行
+ * <p>
+ * 执行器按连接的数据库方言把查询改写成 LIMIT/OFFSET，数据库只返回这一页；
+ * 不能改写时（没有方言、语句已经带有 LIMIT 等）语句处理器用 setMaxRows(offset + limit) 限制驱动返回的行数，
+ * 结果集处理器用 absolute(offset) 或逐行 next() 跳过前 offset 行。
+ */
+public class RowBounds {
+
+    public static final int NO_ROW_OFFSET = 0;
+    public static final int NO_ROW_LIMIT = Integer.MAX_VALUE;
+    public static final RowBounds DEFAULT = new RowBounds();
+
+    private final int offset;
+    private final int limit;
+
+    public RowBounds() {
+        this.offset = NO_ROW_OFFSET;
+        this.limit = NO_ROW_LIMIT;
+    }
+
+    public RowBounds(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("RowBounds offset and limit must not be negative, but were " + offset + ", " + limit);
+        }
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return 是否需要限制行数，DEFAULT 不限制
+     */
+    public boolean isBounded() {
+        return offset != NO_ROW_OFFSET || limit != NO_ROW_LIMIT;
+    }
+
+    /**
+     * @return 需要从数据库读取的最大行数（offset + limit），不限制时为 0
+     */
+    public int getMaxRows() {
+        if (limit == NO_ROW_LIMIT) {
+            return 0;
+        }
+        long maxRows = (long) offset + limit;
+        return maxRows > Integer.MAX_VALUE ? 0 : (int) maxRows;
+    }
+
+    @Override
+    public String toString() {
+        return "RowBounds{offset=" + offset + ", limit=" + limit + "}";
+    }
+
+}
@@ -1,5 +1,17 @@
 package cn.zzb.mybatis.session;
 
+import cn.zzb.mybatis.columnar.ColumnarResult;
+import cn.zzb.mybatis.cursor.Cursor;
+import cn.zzb.mybatis.executor.BatchResult;
+
+import java.nio.channels.WritableByteChannel;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
 /**
  * @description SqlSession 用来执行SQL，获取映射器，管理事务。
  * PS：通常情况下，我们在应用程序中使用的Mybatis的API就是这个接口定义的方法。
@@ -28,6 +40,258 @@ public interface SqlSession {
      */
     <T> T selectOne(String statement, Object parameter);
 
+    /**
+     * Retrieve a list of mapped objects from the statement key.
+     * 获取多条记录
+     *
+     * @param <E>       the returned list element type
+     * @param statement Unique identifier matching the statement to use.
+     * @return List of mapped object
+     */
+    <E> List<E> selectList(String statement);
+
+    /**
+     * Retrieve a list of mapped objects from the statement key and parameter.
+     * 获取多条记录，可以给 sql 传递参数
+     *
+     * @param <E>       the returned list element type
+     * @param statement Unique identifier matching the statement to use.
+     * @param parameter A parameter object to pass to the statement.
+     * @return List of mapped object
+     */
+    <E> List<E> selectList(String statement, Object parameter);
+
+    /**
+     * Retrieve a list of mapped objects from the statement key and parameter, within the specified row bounds.
+     * 分页获取多条记录：按数据库方言改写成 LIMIT/OFFSET，只查询这一页
+     *
+     * @param <E>       the returned list element type
+     * @param statement Unique identifier matching the statement to use.
+     * @param parameter A parameter object to pass to the statement.
+     * @param rowBounds Bounds to limit object retrieval
+     * @return List of mapped object
+     */
+    <E> List<E> selectList(String statement, Object parameter, RowBounds rowBounds);
+
+    /**
+     * Builds a map from a list of result objects based on one of their properties.
+     * 获取多条记录，以结果对象的某个属性为 key 组成 Map
+     *
+     * @param <K>       the returned Map keys type
+     * @param <V>       the returned Map values type
+     * @param statement Unique identifier matching the statement to use.
+     * @param mapKey    The property to use as key for each value in the list.
+     * @return Map containing key pair data.
+     */
+    <K, V> Map<K, V> selectMap(String statement, String mapKey);
+
+    /**
+     * Builds a map from a list of result objects based on one of their properties.
+     * 获取多条记录，以结果对象的某个属性为 key 组成 Map，可以给 sql 传递参数
+     *
+     * @param <K>       the returned Map keys type
+     * @param <V>       the returned Map values type
+     * @param statement Unique identifier matching the statement to use.
+     * @param parameter A parameter object to pass to the statement.
+     * @param mapKey    The property to use as key for each value in the list.
+     * @return Map containing key pair data.
+     */
+    <K, V> Map<K, V> selectMap(String statement, Object parameter, String mapKey);
+
+    /**
+     * Builds a map from a list of result objects based on one of their properties.
+     * 分页获取多条记录，以结果对象的某个属性为 key 组成 Map
+     *
+     * @param <K>       the returned Map keys type
+     * @param <V>       the returned Map values type
+     * @param statement Unique identifier matching the statement to use.
+     * @param parameter A parameter object to pass to the statement.
+     * @param mapKey    The property to use as key for each value in the list.
+     * @param rowBounds Bounds to limit object retrieval
+     * @return Map containing key pair data.
+     */
+    <K, V> Map<K, V> selectMap(String statement, Object parameter, String mapKey, RowBounds rowBounds);
+
+    /**
+     * Retrieve one page of mapped objects using keyset (seek) pagination.
+     * 键集分页：按有序唯一键从上一页的末尾继续查询一页，代价与页码无关，只与页大小有关
+     *
+     * @param <E>          the returned list element type
+     * @param statement    Unique identifier matching the statement to use.
+     * @param parameter    A parameter object to pass to the statement.
+     * @param keysetBounds 排序键、页大小和上一页的续页令牌
+     * @return 这一页的结果和下一页的续页令牌
+     */
+    <E> KeysetPage<E> selectKeysetPage(String statement, Object parameter, KeysetBounds keysetBounds);
+
+    /**
+     * 按列读取查询结果，不映射结果对象
+     *
+     * @param statement Unique identifier matching the statement to use.
+     * @param parameter A parameter object to pass to the statement.
+     * @return 每列一个基本类型数组（字符串列字典编码）的结果
+     */
+    ColumnarResult selectColumnar(String statement, Object parameter);
+
+    /**
+     * 按列读取查询结果，不映射结果对象
+     *
+     * @param statement Unique identifier matching the statement to use.
+     * @param parameter A parameter object to pass to the statement.
+     * @param rowBounds Bounds to limit object retrieval
+     * @return 每列一个基本类型数组（字符串列字典编码）的结果
+     */
+    ColumnarResult selectColumnar(String statement, Object parameter, RowBounds rowBounds);
+
+    /**
+     * 执行查询，结果集交给接收器直接读取，不映射结果对象
+     *
+     * @param <T>       接收器读取的结果类型
+     * @param statement Unique identifier matching the statement to use.
+     * @param parameter A parameter object to pass to the statement.
+     * @param rowBounds Bounds to limit object retrieval
+     * @param sink      结果集接收器
+     * @return 接收器读取的结果
+     */
+    <T> T select(String statement, Object parameter, RowBounds rowBounds, ResultSetSink<T> sink);
+
+    /**
+     * 把查询结果按 Arrow IPC 流格式写进通道，通道由调用方关闭
+     *
+     * @param statement Unique identifier matching the statement to use.
+     * @param parameter A parameter object to pass to the statement.
+     * @param channel   输出通道，如 FileChannel、Channels.newChannel(outputStream)
+     * @return 写出的行数
+     */
+    long exportArrow(String statement, Object parameter, WritableByteChannel channel);
+
+    /**
+     * A Cursor offers the same results as a List, but fetches rows lazily.
+     * 以游标方式查询：迭代时才逐行读取和映射，游标用完需要关闭
+     *
+     * @param <T>       the returned cursor element type.
+     * @param statement Unique identifier matching the statement to use.
+     * @return Cursor of mapped objects
+     */
+    <T> Cursor<T> selectCursor(String statement);
+
+    /**
+     * A Cursor offers the same results as a List, but fetches rows lazily.
+     * 以游标方式查询，游标使用会话的连接，在关闭会话之前必须先读完或关闭游标
+     *
+     * @param <T>       the returned cursor element type.
+     * @param statement Unique identifier matching the statement to use.
+     * @param parameter A parameter object to pass to the statement.
+     * @return Cursor of mapped objects
+     */
+    <T> Cursor<T> selectCursor(String statement, Object parameter);
+
+    /**
+     * Execute an insert statement.
+     * 插入记录
+     *
+     * @param statement Unique identifier matching the statement to execute.
+     * @return int The number of rows affected by the insert. 返回的是受影响的行数
+     */
+    int insert(String statement);
+
+    /**
+     * Execute an insert statement with the given parameter object.
+     * 插入记录，容许传入参数
+     *
+     * @param statement Unique identifier matching the statement to execute.
+     * @param parameter A parameter object to pass to the statement.
+     * @return int The number of rows affected by the insert.
+     */
+    int insert(String statement, Object parameter);
+
+    /**
+     * Execute an update statement. The number of rows affected will be returned.
+     * 更新记录
+     *
+     * @param statement Unique identifier matching the statement to execute.
+     * @return int The number of rows affected by the update.
+     */
+    int update(String statement);
+
+    /**
+     * Execute an update statement. The number of rows affected will be returned.
+     * 更新记录，容许传入参数
+     *
+     * @param statement Unique identifier matching the statement to execute.
+     * @param parameter A parameter object to pass to the statement.
+     * @return int The number of rows affected by the update.
+     */
+    int update(String statement, Object parameter);
+
+    /**
+     * Execute a delete statement. The number of rows affected will be returned.
+     * 删除记录
+     *
+     * @param statement Unique identifier matching the statement to execute.
+     * @return int The number of rows affected by the delete.
+     */
+    int delete(String statement);
+
+    /**
+     * Execute a delete statement. The number of rows affected will be returned.
+     * 删除记录，容许传入参数
+     *
+     * @param statement Unique identifier matching the statement to execute.
+     * @param parameter A parameter object to pass to the statement.
+     * @return int The number of rows affected by the delete.
+     */
+    int delete(String statement, Object parameter);
+
+    /**
+     * 批量导入：把对象按属性顺序写入一张表，MySQL 上使用 LOAD DATA LOCAL INFILE（边读边编码，不落临时文件），
+     * 其它数据库分块执行批量插入。写入属于当前事务，需要 commit。
+     * LOAD DATA LOCAL 会把主键冲突、数据转换失败的行降级为警告并丢弃，这时和批量插入一样抛出异常，已写入的行应回滚
+     *
+     * @param bulkLoad 目标表、属性和列
+     * @param rows     要导入的对象
+     * @return 影响的行数
+     */
+    <T> long bulkLoad(BulkLoad<T> bulkLoad, Iterator<? extends T> rows);
+
+    /**
+     * 同 {@link #bulkLoad(BulkLoad, Iterator)}，导入完成后关闭 stream
+     */
+    <T> long bulkLoad(BulkLoad<T> bulkLoad, Stream<? extends T> rows);
+
+    /**
+     * Flushes batch statements.
+     * 执行批量会话中还没有执行的批次，返回每个批次的执行结果；非批量会话返回空列表
+     *
+     * @return BatchResult list of updated records
+     */
+    List<BatchResult> flushStatements();
+
+    /**
+     * Commits database connection.
+     * 提交事务
+     */
+    void commit();
+
+    /**
+     * Rolls database connection back.
+     * 回滚事务
+     */
+    void rollback();
+
+    /**
+     * Runs the action asynchronously on this session.
+     * 在会话的异步执行器上执行一段数据库操作，返回 CompletableFuture
+     * <p>
+     * 同一个会话上提交的异步操作按提交顺序依次执行，共用会话的事务和连接（事务亲和）；
+     * 同步方法会先等待之前提交的异步操作完成。需要并行的独立查询应该分别使用不同的会话。
+     * 异步执行器已满时操作不会执行，返回的 future 以 RejectedExecutionException 失败。
+     *
+     * @param <T>    the returned object type
+     * @param action 要执行的操作，通常是调用本会话的 selectOne 等方法
+     * @return 操作结果的 future
+     */
+    <T> CompletableFuture<T> submit(Supplier<T> action);
 
     /**
      * Retrieves current configuration
@@ -47,4 +311,10 @@ public interface SqlSession {
      */
     <T> T getMapper(Class<T> type);
 
+    /**
+     * Closes the session.
+     * 关闭会话，归还连接
+     */
+    void close();
+
 }
\ No newline at end of file
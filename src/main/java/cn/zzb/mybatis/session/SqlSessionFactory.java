@@ -3,4 +3,9 @@ package cn.zzb.mybatis.session;
 public interface SqlSessionFactory {
 
     SqlSession openSession();
+
+    /**
+     * 打开指定执行器类型的会话，BATCH 会话的写语句加入 JDBC 批次，查询、提交或 flushStatements() 时统一执行
+     */
+    SqlSession openSession(ExecutorType execType);
 }
@@ -1,11 +1,37 @@
 package cn.zzb.mybatis.session.defaults;
 
+import cn.zzb.mybatis.columnar.ColumnarResult;
+import cn.zzb.mybatis.columnar.arrow.ArrowStreamWriter;
+import cn.zzb.mybatis.cursor.Cursor;
+import cn.zzb.mybatis.executor.BatchResult;
 import cn.zzb.mybatis.executor.Executor;
+import cn.zzb.mybatis.mapping.BoundSql;
 import cn.zzb.mybatis.mapping.MappedStatement;
+import cn.zzb.mybatis.parsing.SqlClauseParser;
+import cn.zzb.mybatis.parsing.SqlClauses;
+import cn.zzb.mybatis.reflection.MetaObject;
+import cn.zzb.mybatis.session.BulkLoad;
 import cn.zzb.mybatis.session.Configuration;
+import cn.zzb.mybatis.session.KeysetBounds;
+import cn.zzb.mybatis.session.KeysetPage;
+import cn.zzb.mybatis.session.KeysetToken;
+import cn.zzb.mybatis.session.ResultSetSink;
+import cn.zzb.mybatis.session.RowBounds;
 import cn.zzb.mybatis.session.SqlSession;
 
+import java.nio.channels.WritableByteChannel;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * SqlSession 的默认实现类
@@ -16,12 +42,17 @@ import java.util.List;
  * 3. 协调 Configuration、Executor、MappedStatement 完成 SQL 执行流程
  * <p>
  * 工作流程：
- * 用户调用 selectOne() → 获取 MappedStatement → 生成 BoundSql →
- * 调用 Executor 执行查询 → 返回结果
+ * 用户调用 selectOne()/selectList() → 获取 MappedStatement → 生成 BoundSql →
+ * 调用 Executor 执行查询 → 返回结果；insert/update/delete 调用 Executor.update() 返回影响行数，
+ * 在 commit() 之前写操作都在会话的事务中，关闭时未提交的写操作会回滚
  * <p>
  * 设计模式：
  * - 外观模式：封装底层复杂的 SQL 执行流程，提供简洁的 API
  * - 委托模式：将实际的 SQL 执行委托给 Executor
+ * <p>
+ * 异步调用：
+ * submit() 提交的操作在 Configuration 的异步执行器上运行，但同一个会话上的操作串成一条链依次执行，
+ * 因此它们始终使用会话唯一的事务和连接（JDBC 连接不是线程安全的）；同步方法先等待链上的操作完成再执行。
  *
  * @author zzb
  */
@@ -33,6 +64,20 @@ public class DefaultSqlSession implements SqlSession {
     /** SQL 执行器，负责实际的 SQL 执行和结果处理 */
     private Executor executor;
 
+    /** 当前线程正在执行的异步操作所属的会话，用于识别异步操作内部的同步调用 */
+    private static final ThreadLocal<DefaultSqlSession> ASYNC_OWNER = new ThreadLocal<>();
+
+    /** 异步调用链的尾部，新提交的操作排在它之后执行 */
+    private CompletableFuture<?> asyncTail = CompletableFuture.completedFuture(null);
+
+    private boolean closed;
+
+    /** 是否有未提交的写操作 */
+    private boolean dirty;
+
+    /** selectOne 只需要知道是否多于一行，最多取两行 */
+    private static final RowBounds SELECT_ONE_BOUNDS = new RowBounds(RowBounds.NO_ROW_OFFSET, 2);
+
     /**
      * 构造函数
      *
@@ -64,26 +109,330 @@ public class DefaultSqlSession implements SqlSession {
      * 核心执行流程：
      * 1. 根据 statement 从 Configuration 获取 MappedStatement（包含 SQL 配置信息）
      * 2. 通过 SqlSource.getBoundSql() 生成可执行的 BoundSql（包含 SQL 和参数映射）
-     * 3. 调用 Executor.query() 执行查询
-     * 4. 从结果列表中取第一条记录返回
+     * 3. 调用 Executor.query() 执行查询，驱动最多返回两行（setMaxRows(2)），不会读完整张表
+     * 4. 只有一条时返回它，没有时返回 null，多于一条时抛出异常
      *
      * @param statement SQL 语句的唯一标识（namespace.id），如 "cn.zzb.mybatis.dao.IUserDao.queryUserInfoById"
      * @param parameter SQL 参数对象，可以是基本类型、POJO 或 Map
      * @param <T>       返回结果类型
-     * @return 查询结果对象，如果发生异常则返回 null
+     * @return 查询结果对象，没有结果时返回 null
      */
     @Override
     public <T> T selectOne(String statement, Object parameter){
-        try {
-            MappedStatement ms = configuration.getMappedStatement(statement);
-            List<T> query = executor.query(ms, parameter, Executor.NO_RESULT_HANDLER, ms.getSqlSource().getBoundSql(parameter));
-            return query.get(0);
-        } catch (Exception e) {
-            e.printStackTrace();
+        List<T> list = selectList(statement, parameter, SELECT_ONE_BOUNDS);
+        if (list.size() == 1) {
+            return list.get(0);
+        } else if (list.size() > 1) {
+            throw new RuntimeException("Expected one result (or null) to be returned by selectOne(), but found more than one: " + statement);
+        } else {
             return null;
         }
     }
 
+    @Override
+    public <E> List<E> selectList(String statement) {
+        return selectList(statement, null);
+    }
+
+    @Override
+    public <E> List<E> selectList(String statement, Object parameter) {
+        return selectList(statement, parameter, RowBounds.DEFAULT);
+    }
+
+    /**
+     * 分页查询：执行器按连接的数据库方言把 SQL 改写成 LIMIT/OFFSET，不能改写时退回 setMaxRows 并跳过 offset 行
+     */
+    @Override
+    public <E> List<E> selectList(String statement, Object parameter, RowBounds rowBounds) {
+        awaitPendingAsync();
+        MappedStatement ms = configuration.getMappedStatement(statement);
+        return executor.query(ms, parameter, rowBounds, Executor.NO_RESULT_HANDLER, ms.getSqlSource().getBoundSql(parameter));
+    }
+
+    @Override
+    public <K, V> Map<K, V> selectMap(String statement, String mapKey) {
+        return selectMap(statement, null, mapKey);
+    }
+
+    @Override
+    public <K, V> Map<K, V> selectMap(String statement, Object parameter, String mapKey) {
+        return selectMap(statement, parameter, mapKey, RowBounds.DEFAULT);
+    }
+
+    /**
+     * 查询多条记录，按结果对象的 mapKey 属性组成 Map（按查询顺序），key 重复时后面的记录覆盖前面的
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> Map<K, V> selectMap(String statement, Object parameter, String mapKey, RowBounds rowBounds) {
+        List<V> list = selectList(statement, parameter, rowBounds);
+        Map<K, V> map = new LinkedHashMap<>(Math.max(16, (int) (list.size() / 0.75f) + 1));
+        for (V value : list) {
+            MetaObject metaObject = configuration.newMetaObject(value);
+            map.put((K) metaObject.getValue(mapKey), value);
+        }
+        return map;
+    }
+
+    /**
+     * 键集分页：改写 WHERE 和 ORDER BY 之后多取一行（LIMIT pageSize + 1，由方言拼接），多出的一行说明还有下一页，
+     * 续页令牌取自这一页最后一行的键属性
+     */
+    @Override
+    public <E> KeysetPage<E> selectKeysetPage(String statement, Object parameter, KeysetBounds keysetBounds) {
+        awaitPendingAsync();
+        MappedStatement ms = configuration.getMappedStatement(statement);
+        BoundSql boundSql = seek(ms, ms.getSqlSource().getBoundSql(parameter), keysetBounds);
+        int pageSize = keysetBounds.getPageSize();
+        List<E> list = executor.query(ms, parameter, new RowBounds(RowBounds.NO_ROW_OFFSET, pageSize + 1), Executor.NO_RESULT_HANDLER, boundSql);
+        if (list.size() <= pageSize) {
+            return new KeysetPage<>(list, null);
+        }
+        List<E> items = list.subList(0, pageSize);
+        MetaObject last = configuration.newMetaObject(items.get(pageSize - 1));
+        List<String> properties = keysetBounds.getProperties();
+        Object[] keys = new Object[properties.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = last.getValue(properties.get(i));
+            if (keys[i] == null) {
+                throw new RuntimeException("Keyset property '" + properties.get(i) + "' of " + statement + " is null, keyset keys must be non-null and unique");
+            }
+        }
+        return new KeysetPage<>(items, KeysetToken.encode(keys));
+    }
+
+    @Override
+    public ColumnarResult selectColumnar(String statement, Object parameter) {
+        return selectColumnar(statement, parameter, RowBounds.DEFAULT);
+    }
+
+    /**
+     * 按列读取查询结果
+     * <p>
+     * 和 selectCursor 一样出错时直接抛出异常。
+     *
+     * @param statement SQL 语句的唯一标识（namespace.id）
+     * @param parameter SQL 参数对象
+     * @param rowBounds 分页边界
+     * @return 按列存放的结果
+     */
+    @Override
+    public ColumnarResult selectColumnar(String statement, Object parameter, RowBounds rowBounds) {
+        return select(statement, parameter, rowBounds, ColumnarResult::read);
+    }
+
+    /**
+     * 执行查询，结果集交给接收器读取
+     * <p>
+     * 和 selectCursor 一样出错时直接抛出异常。
+     *
+     * @param statement SQL 语句的唯一标识（namespace.id）
+     * @param parameter SQL 参数对象
+     * @param rowBounds 分页边界
+     * @param sink      结果集接收器
+     * @param <T>       接收器读取的结果类型
+     * @return 接收器读取的结果
+     */
+    @Override
+    public <T> T select(String statement, Object parameter, RowBounds rowBounds, ResultSetSink<T> sink) {
+        awaitPendingAsync();
+        MappedStatement ms = configuration.getMappedStatement(statement);
+        return executor.queryToSink(ms, parameter, rowBounds, sink, ms.getSqlSource().getBoundSql(parameter));
+    }
+
+    @Override
+    public long exportArrow(String statement, Object parameter, WritableByteChannel channel) {
+        return select(statement, parameter, RowBounds.DEFAULT, new ArrowStreamWriter(channel, configuration.getDirectBufferPool()));
+    }
+
+    private BoundSql seek(MappedStatement ms, BoundSql boundSql, KeysetBounds keysetBounds) {
+        String sql = boundSql.getSql().trim();
+        while (sql.endsWith(";")) {
+            sql = sql.substring(0, sql.length() - 1).trim();
+        }
+        SqlClauses clauses = SqlClauseParser.parse(sql);
+        if (clauses == null) {
+            throw new RuntimeException("Keyset pagination requires a single SELECT statement: " + ms.getId());
+        }
+        String predicate = keysetBounds.getSeekPredicate();
+        List<Object> keys = predicate == null ? Collections.emptyList()
+                : Arrays.asList(KeysetToken.decode(keysetBounds.getToken(), keysetBounds.getColumns().size()));
+        String seekSql;
+        try {
+            seekSql = clauses.withSeek(predicate, keysetBounds.getOrderBy());
+        } catch (IllegalStateException e) {
+            throw new RuntimeException(e.getMessage() + " (" + ms.getId() + ")", e);
+        }
+        // 被替换掉的 ORDER BY 里不能有参数，否则参数下标会错位
+        if (SqlClauseParser.countPlaceholders(seekSql, seekSql.length()) != boundSql.getParameterMappings().size() + keys.size()) {
+            throw new RuntimeException("Keyset pagination cannot replace an ORDER BY that contains parameters: " + ms.getId());
+        }
+        return boundSql.withInsertedParameters(seekSql, SqlClauseParser.countPlaceholders(sql, clauses.getSeekPosition()), keys);
+    }
+
+    @Override
+    public int insert(String statement) {
+        return insert(statement, null);
+    }
+
+    @Override
+    public int insert(String statement, Object parameter) {
+        return update(statement, parameter);
+    }
+
+    @Override
+    public int update(String statement) {
+        return update(statement, null);
+    }
+
+    /**
+     * 执行写操作（insert/update/delete 最终都走这里），返回影响行数
+     *
+     * @param statement SQL 语句的唯一标识（namespace.id）
+     * @param parameter SQL 参数对象
+     * @return 影响的行数
+     */
+    @Override
+    public int update(String statement, Object parameter) {
+        awaitPendingAsync();
+        MappedStatement ms = configuration.getMappedStatement(statement);
+        dirty = true;
+        return executor.update(ms, parameter);
+    }
+
+    @Override
+    public int delete(String statement) {
+        return update(statement, null);
+    }
+
+    @Override
+    public int delete(String statement, Object parameter) {
+        return update(statement, parameter);
+    }
+
+    @Override
+    public <T> long bulkLoad(BulkLoad<T> bulkLoad, Iterator<? extends T> rows) {
+        awaitPendingAsync();
+        dirty = true;
+        return executor.bulkLoad(bulkLoad, rows);
+    }
+
+    @Override
+    public <T> long bulkLoad(BulkLoad<T> bulkLoad, Stream<? extends T> rows) {
+        try {
+            return bulkLoad(bulkLoad, rows.iterator());
+        } finally {
+            rows.close();
+        }
+    }
+
+    @Override
+    public List<BatchResult> flushStatements() {
+        awaitPendingAsync();
+        return executor.flushStatements();
+    }
+
+    @Override
+    public void commit() {
+        awaitPendingAsync();
+        try {
+            executor.commit(true);
+            dirty = false;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error committing transaction. Cause: " + e, e);
+        }
+    }
+
+    @Override
+    public void rollback() {
+        awaitPendingAsync();
+        try {
+            executor.rollback(true);
+            dirty = false;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error rolling back transaction. Cause: " + e, e);
+        }
+    }
+
+    @Override
+    public <T> Cursor<T> selectCursor(String statement) {
+        return selectCursor(statement, null);
+    }
+
+    /**
+     * 以游标方式查询
+     * <p>
+     * 与 selectOne 不同，出错时直接抛出异常：游标是按需读取的，调用方需要知道它是否真的打开了。
+     *
+     * @param statement SQL 语句的唯一标识（namespace.id）
+     * @param parameter SQL 参数对象
+     * @param <T>       返回结果类型
+     * @return 游标
+     */
+    @Override
+    public <T> Cursor<T> selectCursor(String statement, Object parameter) {
+        awaitPendingAsync();
+        MappedStatement ms = configuration.getMappedStatement(statement);
+        return executor.queryCursor(ms, parameter, ms.getSqlSource().getBoundSql(parameter));
+    }
+
+    /**
+     * 异步执行一段数据库操作
+     * <p>
+     * 前一个操作无论成功还是失败，下一个操作都会接着执行；失败只体现在各自返回的 future 上。
+     * 不要在异步操作内部等待同一个会话上后提交的 future，否则会互相等待。
+     *
+     * @param action 要执行的操作
+     * @param <T>    返回结果类型
+     * @return 操作结果的 future
+     */
+    @Override
+    public <T> CompletableFuture<T> submit(Supplier<T> action) {
+        synchronized (this) {
+            CompletableFuture<T> future = asyncTail
+                    .handle((result, error) -> null)
+                    .thenApplyAsync(ignore -> runAsOwner(action), configuration.getAsyncExecutor());
+            asyncTail = future;
+            return future;
+        }
+    }
+
+    private <T> T runAsOwner(Supplier<T> action) {
+        DefaultSqlSession previous = ASYNC_OWNER.get();
+        ASYNC_OWNER.set(this);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                ASYNC_OWNER.remove();
+            } else {
+                ASYNC_OWNER.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 同步调用前等待已经提交的异步操作完成，保证会话上的操作按调用顺序执行且不会并发使用连接
+     * <p>
+     * 异步操作内部的同步调用本身就在链上执行，不需要等待。
+     */
+    private void awaitPendingAsync() {
+        if (ASYNC_OWNER.get() == this) {
+            return;
+        }
+        CompletableFuture<?> tail;
+        synchronized (this) {
+            tail = asyncTail;
+        }
+        if (!tail.isDone()) {
+            try {
+                tail.join();
+            } catch (CompletionException | CancellationException ignore) {
+                // 异步操作的失败已经交给它自己的 future，这里只关心它是否结束
+            }
+        }
+    }
+
     /**
      * 获取全局配置对象
      *
@@ -108,4 +457,18 @@ public class DefaultSqlSession implements SqlSession {
     public <T> T getMapper(Class<T> type) {
         return configuration.getMapper(type, this);
     }
+
+    /**
+     * 关闭会话：等待已提交的异步操作结束，然后关闭执行器（归还事务连接），有未提交的写操作时先回滚
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        awaitPendingAsync();
+        closed = true;
+        executor.close(dirty);
+        dirty = false;
+    }
 }
@@ -4,6 +4,7 @@ import cn.zzb.mybatis.binding.MapperRegistry;
 import cn.zzb.mybatis.executor.Executor;
 import cn.zzb.mybatis.mapping.Environment;
 import cn.zzb.mybatis.session.Configuration;
+import cn.zzb.mybatis.session.ExecutorType;
 import cn.zzb.mybatis.session.SqlSession;
 import cn.zzb.mybatis.session.SqlSessionFactory;
 import cn.zzb.mybatis.session.TransactionIsolationLevel;
@@ -22,6 +23,11 @@ public class DefaultSqlSessionFactory implements SqlSessionFactory {
 
     @Override
     public SqlSession openSession() {
+        return openSession(ExecutorType.SIMPLE);
+    }
+
+    @Override
+    public SqlSession openSession(ExecutorType execType) {
         Transaction tx = null;
         try {
             final Environment environment = configuration.getEnvironment();
@@ -29,7 +35,7 @@ public class DefaultSqlSessionFactory implements SqlSessionFactory {
             //事务操作下沉到Executor执行
             tx = transactionFactory.newTransaction(configuration.getEnvironment().getDataSource(), TransactionIsolationLevel.READ_COMMITTED, false);
             // 创建执行器
-            final Executor executor = configuration.newExecutor(tx);
+            final Executor executor = configuration.newExecutor(tx, execType);
             // 创建DefaultSqlSession
             return new DefaultSqlSession(configuration, executor);
         } catch (Exception e) {
@@ -0,0 +1,367 @@
+package cn.zzb.mybatis.sharding;
+
+import cn.zzb.mybatis.parsing.SqlClauses;
+import cn.zzb.mybatis.reflection.MetaObject;
+import cn.zzb.mybatis.session.Configuration;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 扩散查询的结果合并
+ * <ul>
+ *     <li>下发到分片的 SQL：LIMIT offset, n 改写为 LIMIT offset + n，每个分片最多返回 offset + n 行；有 GROUP BY 聚合时去掉 LIMIT。</li>
+ *     <li>ORDER BY：各分片结果已经有序，用优先队列做 k 路归并，取够 offset + n 行即停止。</li>
+ *     <li>聚合：COUNT/SUM 相加，MIN/MAX 取最值（忽略 NULL）；有 GROUP BY 时按分组列合并同一组的行，再排序、截取。
+ *     以下情况无法由各分片的结果合并，直接拒绝：AVG；COUNT(DISTINCT ...)/SUM(DISTINCT ...)（同一个值可能出现在多个分片上）；
+ *     HAVING（各分片只按自己那部分分组过滤，合计满足条件的分组可能在每个分片上都被滤掉）。
+ *     只选一个聚合列时，结果是简单类型（如 COUNT(*) 映射为 Long）或只有一列的 Map 也可以合并。</li>
+ *     <li>既不排序也不聚合时直接拼接，凑够行数后剩余分片的查询可以取消（见 {@link #getEarlyTerminationRows()}）。</li>
+ * </ul>
+ * DISTINCT 只在各分片内生效，跨分片的重复行不会去重。
+ */
+public class ShardResultMerger {
+
+    private final Configuration configuration;
+    private final SqlClauses clauses;
+    private final List<String> orderProperties = new ArrayList<>();
+    private final List<Boolean> orderAscending = new ArrayList<>();
+
+    public ShardResultMerger(Configuration configuration, SqlClauses clauses) {
+        this.configuration = configuration;
+        this.clauses = clauses;
+        if (clauses != null) {
+            for (SqlClauses.OrderItem item : clauses.getOrderBy()) {
+                orderProperties.add(clauses.propertyOf(item.getExpression()));
+                orderAscending.add(item.isAscending());
+            }
+            for (SqlClauses.SelectItem item : clauses.getSelectItems()) {
+                if ("AVG".equals(item.getAggregate())) {
+                    throw new RuntimeException("AVG can not be merged across shards, select SUM and COUNT instead: " + item);
+                }
+                if (item.isDistinctAggregate() && ("COUNT".equals(item.getAggregate()) || "SUM".equals(item.getAggregate()))) {
+                    throw new RuntimeException(item.getAggregate() + "(DISTINCT ...) can not be merged across shards, values on different shards may repeat: " + item);
+                }
+            }
+            if (clauses.hasHaving()) {
+                throw new RuntimeException("HAVING can not be applied across shards, each shard filters only its partial groups; "
+                        + "filter the merged result instead: " + clauses.getSql());
+            }
+            if (clauses.getLimit() != null && clauses.getLimit().isParameterized()) {
+                throw new RuntimeException("LIMIT with placeholders is not supported across shards: " + clauses.getSql());
+            }
+        }
+    }
+
+    /**
+     * 下发到各分片的 SQL（逻辑表名，尚未改写为物理表）
+     */
+    public String shardSql(String sql) {
+        if (clauses == null || clauses.getLimit() == null) {
+            return sql;
+        }
+        if (clauses.hasAggregate()) {
+            return clauses.withoutLimit();
+        }
+        SqlClauses.Limit limit = clauses.getLimit();
+        return clauses.withLimit(limit.getOffset() + limit.getRowCount());
+    }
+
+    /**
+     * 既不排序也不聚合时，收集到这么多行就可以停止等待其余分片；-1 表示必须等待全部分片
+     */
+    public long getEarlyTerminationRows() {
+        if (clauses == null || clauses.getLimit() == null || clauses.hasAggregate() || !orderProperties.isEmpty()) {
+            return -1;
+        }
+        return clauses.getLimit().getOffset() + clauses.getLimit().getRowCount();
+    }
+
+    public <E> List<E> merge(List<List<E>> shardResults) {
+        if (clauses == null) {
+            return concat(shardResults, Long.MAX_VALUE);
+        }
+        long offset = clauses.getLimit() == null ? 0 : clauses.getLimit().getOffset();
+        long rowCount = clauses.getLimit() == null ? Long.MAX_VALUE : clauses.getLimit().getRowCount();
+        if (clauses.hasAggregate()) {
+            List<E> rows = aggregate(shardResults);
+            if (!orderProperties.isEmpty()) {
+                rows.sort(rowComparator());
+            }
+            return slice(rows, offset, rowCount);
+        }
+        if (!orderProperties.isEmpty()) {
+            return mergeSorted(shardResults, offset, rowCount);
+        }
+        List<E> rows = concat(shardResults, offset + rowCount < 0 ? Long.MAX_VALUE : offset + rowCount);
+        return slice(rows, offset, rowCount);
+    }
+
+    private <E> List<E> concat(List<List<E>> shardResults, long max) {
+        List<E> rows = new ArrayList<>();
+        for (List<E> shard : shardResults) {
+            for (E row : shard) {
+                if (rows.size() >= max) {
+                    return rows;
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private <E> List<E> slice(List<E> rows, long offset, long rowCount) {
+        if (offset == 0 && rowCount >= rows.size()) {
+            return rows;
+        }
+        if (offset >= rows.size()) {
+            return new ArrayList<>();
+        }
+        int end = (int) Math.min(rows.size(), offset + rowCount);
+        return new ArrayList<>(rows.subList((int) offset, end));
+    }
+
+    /**
+     * k 路归并：各分片结果已按 ORDER BY 排好序
+     */
+    private <E> List<E> mergeSorted(List<List<E>> shardResults, long offset, long rowCount) {
+        Comparator<Object> comparator = rowComparator();
+        PriorityQueue<Cursor<E>> queue = new PriorityQueue<>(Math.max(1, shardResults.size()), (a, b) -> {
+            int result = comparator.compare(a.head, b.head);
+            return result != 0 ? result : Integer.compare(a.shard, b.shard);
+        });
+        for (int i = 0; i < shardResults.size(); i++) {
+            Iterator<E> iterator = shardResults.get(i).iterator();
+            if (iterator.hasNext()) {
+                queue.add(new Cursor<>(i, iterator));
+            }
+        }
+        List<E> rows = new ArrayList<>();
+        long skipped = 0;
+        while (!queue.isEmpty() && rows.size() < rowCount) {
+            Cursor<E> cursor = queue.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                rows.add(cursor.head);
+            }
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+        return rows;
+    }
+
+    private <E> List<E> aggregate(List<List<E>> shardResults) {
+        List<String> groupProperties = new ArrayList<>();
+        for (String column : clauses.getGroupBy()) {
+            groupProperties.add(clauses.propertyOf(column));
+        }
+        Map<List<Object>, E> groups = new LinkedHashMap<>();
+        for (List<E> shard : shardResults) {
+            for (E row : shard) {
+                if (!groupProperties.isEmpty() && row != null && isSimpleType(row)) {
+                    throw new RuntimeException("GROUP BY results merged across shards must include the group columns, but rows are mapped to "
+                            + row.getClass().getName() + ": " + clauses.getSql());
+                }
+                List<Object> key = new ArrayList<>(groupProperties.size());
+                for (String property : groupProperties) {
+                    key.add(getValue(row, property));
+                }
+                if (groups.containsKey(key)) {
+                    groups.put(key, combine(groups.get(key), row));
+                } else {
+                    groups.put(key, row);
+                }
+            }
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    /**
+     * 把同一组的 row 合并进 target，返回合并后的行：简单类型的行不可变，返回新值
+     */
+    @SuppressWarnings("unchecked")
+    private <E> E combine(E target, E row) {
+        // 空分片上不带 GROUP BY 的聚合返回 NULL
+        if (target == null) {
+            return row;
+        }
+        if (row == null) {
+            return target;
+        }
+        List<SqlClauses.SelectItem> items = clauses.getSelectItems();
+        if (items.size() == 1 && items.get(0).getAggregate() != null) {
+            SqlClauses.SelectItem item = items.get(0);
+            if (isSimpleType(target)) {
+                return (E) fold(item, target, row);
+            }
+            if (target instanceof Map && ((Map<?, ?>) target).size() == 1 && row instanceof Map && ((Map<?, ?>) row).size() == 1) {
+                // 列标签（如 COUNT(*)）不一定和解析出的属性名一致，只有一列时直接按这一列合并
+                Map<Object, Object> map = (Map<Object, Object>) target;
+                Object column = map.keySet().iterator().next();
+                map.put(column, fold(item, map.get(column), ((Map<?, ?>) row).values().iterator().next()));
+                return target;
+            }
+        }
+        MetaObject metaObject = configuration.newMetaObject(target);
+        for (SqlClauses.SelectItem item : items) {
+            if (item.getAggregate() == null) {
+                continue;
+            }
+            String property = resolveProperty(metaObject, item.getPropertyName());
+            if (!metaObject.hasGetter(property)) {
+                continue;
+            }
+            metaObject.setValue(property, fold(item, metaObject.getValue(property), getValue(row, item.getPropertyName())));
+        }
+        return target;
+    }
+
+    /**
+     * 合并一个聚合列在两个分片上的值；和 SQL 的聚合一样，MIN/MAX 忽略 NULL
+     */
+    private static Object fold(SqlClauses.SelectItem item, Object current, Object value) {
+        switch (item.getAggregate()) {
+            case "COUNT":
+            case "SUM":
+                return add(current, value);
+            case "MIN":
+                if (current == null || value == null) {
+                    return current == null ? value : current;
+                }
+                return compareValues(current, value) <= 0 ? current : value;
+            case "MAX":
+                if (current == null || value == null) {
+                    return current == null ? value : current;
+                }
+                return compareValues(current, value) >= 0 ? current : value;
+            default:
+                throw new RuntimeException("Unsupported aggregate across shards: " + item);
+        }
+    }
+
+    private boolean isSimpleType(Object row) {
+        return configuration.getTypeHandlerRegistry().hasTypeHandler(row.getClass());
+    }
+
+    private Comparator<Object> rowComparator() {
+        return (a, b) -> {
+            for (int i = 0; i < orderProperties.size(); i++) {
+                int result = compareValues(getValue(a, orderProperties.get(i)), getValue(b, orderProperties.get(i)));
+                if (result != 0) {
+                    return orderAscending.get(i) ? result : -result;
+                }
+            }
+            return 0;
+        };
+    }
+
+    private Object getValue(Object row, String property) {
+        MetaObject metaObject = configuration.newMetaObject(row);
+        String resolved = resolveProperty(metaObject, property);
+        return metaObject.hasGetter(resolved) ? metaObject.getValue(resolved) : null;
+    }
+
+    private static String resolveProperty(MetaObject metaObject, String property) {
+        String resolved = metaObject.findProperty(property, false);
+        return resolved != null ? resolved : property;
+    }
+
+    /**
+     * 与 MySQL 一致：NULL 比任何值都小
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static int compareValues(Object a, Object b) {
+        if (a == b) {
+            return 0;
+        }
+        if (a == null) {
+            return -1;
+        }
+        if (b == null) {
+            return 1;
+        }
+        if (a instanceof Number && b instanceof Number && a.getClass() != b.getClass()) {
+            return toBigDecimal((Number) a).compareTo(toBigDecimal((Number) b));
+        }
+        if (a instanceof Comparable) {
+            return ((Comparable) a).compareTo(b);
+        }
+        return a.toString().compareTo(b.toString());
+    }
+
+    /**
+     * 数值相加，结果保持第一个值的类型
+     */
+    static Object add(Object a, Object b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        Number x = (Number) a;
+        Number y = (Number) b;
+        if (a instanceof BigDecimal) {
+            return ((BigDecimal) a).add(toBigDecimal(y));
+        }
+        if (a instanceof BigInteger) {
+            return ((BigInteger) a).add(toBigDecimal(y).toBigInteger());
+        }
+        if (a instanceof Double) {
+            return x.doubleValue() + y.doubleValue();
+        }
+        if (a instanceof Float) {
+            return x.floatValue() + y.floatValue();
+        }
+        if (a instanceof Integer) {
+            return Math.addExact(x.intValue(), y.intValue());
+        }
+        if (a instanceof Short) {
+            return (short) (x.shortValue() + y.shortValue());
+        }
+        return Math.addExact(x.longValue(), y.longValue());
+    }
+
+    private static BigDecimal toBigDecimal(Number number) {
+        if (number instanceof BigDecimal) {
+            return (BigDecimal) number;
+        }
+        if (number instanceof BigInteger) {
+            return new BigDecimal((BigInteger) number);
+        }
+        if (number instanceof Double || number instanceof Float) {
+            return BigDecimal.valueOf(number.doubleValue());
+        }
+        return BigDecimal.valueOf(number.longValue());
+    }
+
+    private static class Cursor<E> {
+        private final int shard;
+        private final Iterator<E> iterator;
+        private E head;
+
+        Cursor(int shard, Iterator<E> iterator) {
+            this.shard = shard;
+            this.iterator = iterator;
+            this.head = iterator.next();
+        }
+
+        boolean advance() {
+            if (iterator.hasNext()) {
+                head = iterator.next();
+                return true;
+            }
+            return false;
+        }
+    }
+
+}
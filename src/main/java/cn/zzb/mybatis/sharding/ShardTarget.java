@@ -0,0 +1,32 @@
+package cn.zzb.mybatis.sharding;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 路由结果：在哪个数据源上执行，以及逻辑表到物理表的替换关系
+ */
+public class ShardTarget {
+
+    private final String dataSourceName;
+    private final Map<String, String> actualTables;
+
+    public ShardTarget(String dataSourceName, Map<String, String> actualTables) {
+        this.dataSourceName = dataSourceName;
+        this.actualTables = Collections.unmodifiableMap(actualTables);
+    }
+
+    public String getDataSourceName() {
+        return dataSourceName;
+    }
+
+    public Map<String, String> getActualTables() {
+        return actualTables;
+    }
+
+    @Override
+    public String toString() {
+        return dataSourceName + actualTables;
+    }
+
+}
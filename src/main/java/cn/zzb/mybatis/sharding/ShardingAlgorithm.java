@@ -0,0 +1,20 @@
+package cn.zzb.mybatis.sharding;
+
+/**
+ * 分片算法：把分片键映射到 [0, shardCount) 之间的物理表序号
+ */
+public interface ShardingAlgorithm {
+
+    /**
+     * 取模分片：整数类型按数值取模，其余类型按 toString() 的哈希取模
+     */
+    ShardingAlgorithm MOD = (shardKey, shardCount) -> {
+        if (shardKey instanceof Number) {
+            return (int) Math.floorMod(((Number) shardKey).longValue(), (long) shardCount);
+        }
+        return Math.floorMod(shardKey.toString().hashCode(), shardCount);
+    };
+
+    int shard(Object shardKey, int shardCount);
+
+}
@@ -0,0 +1,156 @@
+package cn.zzb.mybatis.sharding;
+
+import cn.zzb.mybatis.executor.ThreadPools;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Logger;
+
+/**
+ * 分片数据源：一组具名的数据源加上分片路由
+ * <p>
+ * 作为 Environment 的数据源使用时，JdbcTransactionFactory 会为它创建 {@link ShardingTransaction}，
+ * Configuration 随之创建 {@link ShardingExecutor}，每条 SQL 按路由结果在对应分片上执行。
+ * 直接调用 getConnection() 得到的是默认数据源的连接。
+ * <p>
+ * 扩散到多个分片的查询在 queryExecutor 上并行执行，默认是 queryParallelism 个线程的有界线程池，
+ * useVirtualThreads 为 true 且 JVM 支持时改用虚拟线程，同样最多 queryParallelism 个。
+ */
+public class ShardingDataSource implements DataSource {
+
+    private final Map<String, DataSource> dataSources;
+    private final ShardingRouter router;
+    private int queryParallelism = 16;
+    private boolean useVirtualThreads = false;
+    private volatile ExecutorService queryExecutor;
+
+    public ShardingDataSource(Map<String, DataSource> dataSources, ShardingRouter router) {
+        this.dataSources = Collections.unmodifiableMap(new LinkedHashMap<>(dataSources));
+        this.router = router;
+        if (!this.dataSources.containsKey(router.getDefaultDataSourceName())) {
+            throw new IllegalArgumentException("Default data source " + router.getDefaultDataSourceName() + " is not configured.");
+        }
+        for (ShardingRule rule : router.getRules().values()) {
+            for (String name : rule.getDataSourceNames()) {
+                if (!this.dataSources.containsKey(name)) {
+                    throw new IllegalArgumentException("Data source " + name + " of table " + rule.getLogicTable() + " is not configured.");
+                }
+            }
+        }
+    }
+
+    public DataSource getDataSource(String name) {
+        DataSource dataSource = dataSources.get(name);
+        if (dataSource == null) {
+            throw new RuntimeException("Unknown sharding data source " + name);
+        }
+        return dataSource;
+    }
+
+    public Map<String, DataSource> getDataSources() {
+        return dataSources;
+    }
+
+    public ShardingRouter getRouter() {
+        return router;
+    }
+
+    public ExecutorService getQueryExecutor() {
+        ExecutorService executor = queryExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = queryExecutor;
+                if (executor == null) {
+                    executor = useVirtualThreads
+                            ? ThreadPools.newVirtualThreadPoolOrBounded("own-mybatis-shard-query-", queryParallelism)
+                            : ThreadPools.newBoundedPool("own-mybatis-shard-query-", queryParallelism);
+                    queryExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 使用外部提供的线程池执行扩散查询，生命周期由调用方管理
+     */
+    public void setQueryExecutor(ExecutorService queryExecutor) {
+        this.queryExecutor = queryExecutor;
+    }
+
+    public int getQueryParallelism() {
+        return queryParallelism;
+    }
+
+    public void setQueryParallelism(int queryParallelism) {
+        this.queryParallelism = queryParallelism;
+    }
+
+    public boolean isUseVirtualThreads() {
+        return useVirtualThreads;
+    }
+
+    public void setUseVirtualThreads(boolean useVirtualThreads) {
+        this.useVirtualThreads = useVirtualThreads;
+    }
+
+    private DataSource defaultDataSource() {
+        return dataSources.get(router.getDefaultDataSourceName());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return defaultDataSource().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return defaultDataSource().getConnection(username, password);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException(getClass().getName() + " is not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return defaultDataSource().getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        defaultDataSource().setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        defaultDataSource().setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return defaultDataSource().getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+    }
+
+}
@@ -0,0 +1,289 @@
+package cn.zzb.mybatis.sharding;
+
+import cn.zzb.mybatis.cursor.Cursor;
+import cn.zzb.mybatis.datasource.routing.ReadWriteRoutingDataSource;
+import cn.zzb.mybatis.executor.SimpleExecutor;
+import cn.zzb.mybatis.mapping.BoundSql;
+import cn.zzb.mybatis.mapping.MappedStatement;
+import cn.zzb.mybatis.mapping.SqlCommandType;
+import cn.zzb.mybatis.parsing.SqlClauseParser;
+import cn.zzb.mybatis.session.BulkLoad;
+import cn.zzb.mybatis.session.Configuration;
+import cn.zzb.mybatis.session.ResultHandler;
+import cn.zzb.mybatis.session.ResultSetSink;
+import cn.zzb.mybatis.session.RowBounds;
+import cn.zzb.mybatis.transaction.Transaction;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 分片执行器
+ * <p>
+ * 在创建 StatementHandler 之前先路由：算出目标分片，把 SQL 中的逻辑表名替换为物理表名，
+ * 再用对应分片子事务的连接执行。
+ * <p>
+ * 没有分片键且允许扩散时做 scatter-gather：各分片的查询在 {@link ShardingDataSource#getQueryExecutor()} 上并行执行，
+ * 耗时约等于最慢的分片而不是各分片之和，结果由 {@link ShardResultMerger} 归并（排序、LIMIT、聚合）。
+ * 本会话事务已经用过的数据源复用事务连接（JDBC 连接不能并发使用，同一数据源上的分片依次执行，保证能读到本事务的写入），
+ * 其余分片各自从数据源借一个连接，查完即归还。提前结束（凑够行数或出错）时，独立连接上的任务可以丢下不管，
+ * 事务连接上已经开始的任务必须等它结束才返回，否则调用方的下一条语句会和它并发使用同一个连接。
+ */
+public class ShardingExecutor extends SimpleExecutor {
+
+    private final ShardingTransaction shardingTransaction;
+    private final ShardingRouter router;
+
+    public ShardingExecutor(Configuration configuration, ShardingTransaction transaction) {
+        super(configuration, transaction);
+        this.shardingTransaction = transaction;
+        this.router = transaction.getDataSource().getRouter();
+    }
+
+    @Override
+    protected <E> List<E> doQuery(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) {
+        List<ShardTarget> targets = router.route(configuration, ms, boundSql);
+        if (targets.size() == 1) {
+            return queryShard(targets.get(0), ms, parameter, rowBounds, resultHandler, boundSql);
+        }
+        List<E> merged = scatterGather(targets, ms, parameter, rowBounds, resultHandler, boundSql);
+        // 各分片按 offset + limit 取数，归并后再截取这一页
+        if (rowBounds.isBounded()) {
+            int from = Math.min(rowBounds.getOffset(), merged.size());
+            int to = (int) Math.min((long) from + rowBounds.getLimit(), merged.size());
+            return new ArrayList<>(merged.subList(from, to));
+        }
+        return merged;
+    }
+
+    /**
+     * 写操作只能路由到确定的分片（没有分片键的写操作在路由时就会被拒绝），在该分片子事务的主库连接上执行
+     */
+    @Override
+    protected int doUpdate(MappedStatement ms, Object parameter) {
+        BoundSql boundSql = ms.getSqlSource().getBoundSql(parameter);
+        int rows = 0;
+        for (ShardTarget target : router.route(configuration, ms, boundSql)) {
+            BoundSql shardSql = boundSql.withSql(router.rewrite(boundSql.getSql(), target));
+            try {
+                Connection connection = shardingTransaction.getTransaction(target.getDataSourceName()).getConnection();
+                if (ms.getSqlCommandType() == SqlCommandType.UPSERT) {
+                    // 先按分片连接的方言渲染 upsert，再改写表名
+                    BoundSql upsertSql = getUpdateBoundSql(ms, parameter, connection);
+                    shardSql = boundSql.withSql(router.rewrite(upsertSql.getSql(), target));
+                }
+                rows += doUpdate(ms, parameter, shardSql, connection);
+            } catch (SQLException e) {
+                throw new RuntimeException("Error updating shard " + target + ". Cause: " + e, e);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 批量导入不按行路由，直接写入会全部落到默认数据源，因此不支持
+     */
+    @Override
+    public <T> long bulkLoad(BulkLoad<T> bulkLoad, Iterator<? extends T> rows) {
+        throw new RuntimeException("Bulk load is not supported on a sharding data source");
+    }
+
+    /**
+     * 游标查询只支持路由到单个分片的语句：多个分片的结果需要归并，无法逐行流式返回
+     */
+    @Override
+    protected <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, BoundSql boundSql) {
+        List<ShardTarget> targets = router.route(configuration, ms, boundSql);
+        if (targets.size() != 1) {
+            throw new RuntimeException("Cursor queries must be routed to a single shard, but " + ms.getId() + " was routed to " + targets);
+        }
+        ShardTarget target = targets.get(0);
+        BoundSql shardSql = boundSql.withSql(router.rewrite(boundSql.getSql(), target));
+        try {
+            Connection connection = getConnection(ms, shardSql, shardingTransaction.getTransaction(target.getDataSourceName()));
+            return doQueryCursor(ms, parameter, shardSql, connection);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error opening cursor on shard " + target + ". Cause: " + e, e);
+        }
+    }
+
+    /**
+     * 接收器读取同样只支持路由到单个分片的语句：归并（排序、LIMIT、聚合）是按映射后的行进行的
+     */
+    @Override
+    protected <T> T doQueryToSink(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultSetSink<T> sink, BoundSql boundSql) {
+        List<ShardTarget> targets = router.route(configuration, ms, boundSql);
+        if (targets.size() != 1) {
+            throw new RuntimeException("Result set sink queries must be routed to a single shard, but " + ms.getId() + " was routed to " + targets);
+        }
+        ShardTarget target = targets.get(0);
+        BoundSql shardSql = boundSql.withSql(router.rewrite(boundSql.getSql(), target));
+        try {
+            Connection connection = getConnection(ms, shardSql, shardingTransaction.getTransaction(target.getDataSourceName()));
+            return doQueryToSink(ms, parameter, rowBounds, sink, shardSql, connection);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error querying shard " + target + ". Cause: " + e, e);
+        }
+    }
+
+    protected <E> List<E> queryShard(ShardTarget target, MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) {
+        BoundSql shardSql = boundSql.withSql(router.rewrite(boundSql.getSql(), target));
+        try {
+            Connection connection = getConnection(ms, shardSql, shardingTransaction.getTransaction(target.getDataSourceName()));
+            return doQuery(ms, parameter, rowBounds, resultHandler, shardSql, connection);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error querying shard " + target + ". Cause: " + e, e);
+        }
+    }
+
+    private <E> List<E> scatterGather(List<ShardTarget> targets, MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) {
+        ShardResultMerger merger = new ShardResultMerger(configuration, SqlClauseParser.parse(boundSql.getSql()));
+        BoundSql shardBoundSql = boundSql.withSql(merger.shardSql(boundSql.getSql()));
+        // 路由提示是线程级的，在调用线程上先算好
+        boolean readOnly = isReadOnly(ms, boundSql);
+        // 每个分片都可能贡献这一页的任意行，所以各取前 offset + limit 行
+        RowBounds shardRowBounds = rowBounds.getMaxRows() > 0 ? new RowBounds(RowBounds.NO_ROW_OFFSET, rowBounds.getMaxRows()) : RowBounds.DEFAULT;
+
+        // 按连接分组：会话事务已用过的数据源，其分片共用事务连接、依次执行；其余每个分片一个任务
+        // 分组时就定下每组用哪个事务（null 表示独立借连接），任务里不再查，避免调用方之后开启的事务被丢下的任务用到
+        Map<String, List<Integer>> sessionGroups = new LinkedHashMap<>();
+        List<List<Integer>> groups = new ArrayList<>();
+        List<Transaction> groupTransactions = new ArrayList<>();
+        for (int i = 0; i < targets.size(); i++) {
+            String name = targets.get(i).getDataSourceName();
+            Transaction transaction = shardingTransaction.peekTransaction(name);
+            if (transaction != null) {
+                sessionGroups.computeIfAbsent(name, k -> {
+                    List<Integer> group = new ArrayList<>();
+                    groups.add(group);
+                    groupTransactions.add(transaction);
+                    return group;
+                }).add(i);
+            } else {
+                List<Integer> group = new ArrayList<>(1);
+                group.add(i);
+                groups.add(group);
+                groupTransactions.add(null);
+            }
+        }
+
+        AtomicReferenceArray<List<E>> slots = new AtomicReferenceArray<>(targets.size());
+        AtomicBoolean cancelled = new AtomicBoolean();
+        CompletionService<Integer> completionService = new ExecutorCompletionService<>(shardingTransaction.getDataSource().getQueryExecutor());
+        List<Future<Integer>> futures = new ArrayList<>(groups.size());
+        // 每组任务的状态：0 未开始，1 已开始，-1 已放弃（不会再开始）
+        AtomicIntegerArray states = new AtomicIntegerArray(groups.size());
+        for (int g = 0; g < groups.size(); g++) {
+            int groupIndex = g;
+            List<Integer> group = groups.get(g);
+            Transaction transaction = groupTransactions.get(g);
+            futures.add(completionService.submit(() -> {
+                if (!states.compareAndSet(groupIndex, 0, 1)) {
+                    return 0;
+                }
+                int rows = 0;
+                for (int index : group) {
+                    if (cancelled.get()) {
+                        break;
+                    }
+                    ShardTarget target = targets.get(index);
+                    BoundSql sql = shardBoundSql.withSql(router.rewrite(shardBoundSql.getSql(), target));
+                    List<E> result = queryOnShard(target, transaction, ms, parameter, shardRowBounds, resultHandler, sql, readOnly);
+                    slots.set(index, result);
+                    rows += result.size();
+                }
+                return rows;
+            }));
+        }
+
+        long earlyTerminationRows = merger.getEarlyTerminationRows();
+        long collected = 0;
+        try {
+            for (int completed = 0; completed < futures.size(); completed++) {
+                collected += completionService.take().get();
+                // 不排序也不聚合时，凑够 LIMIT 需要的行数就不再等待其余分片
+                if (earlyTerminationRows >= 0 && collected >= earlyTerminationRows) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while querying shards of " + ms.getId(), e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error querying shards of " + ms.getId() + ". Cause: " + e.getCause(), e.getCause());
+        } finally {
+            cancelled.set(true);
+            for (int g = 0; g < futures.size(); g++) {
+                // 还没开始的任务不再开始；事务连接上已经开始的任务要等它放下连接（分组内的下一个分片会因 cancelled 不再执行）
+                if (states.compareAndSet(g, 0, -1) || groupTransactions.get(g) == null) {
+                    futures.get(g).cancel(false);
+                } else {
+                    awaitUninterruptibly(futures.get(g));
+                }
+            }
+        }
+
+        List<List<E>> shardResults = new ArrayList<>(targets.size());
+        for (int i = 0; i < targets.size(); i++) {
+            List<E> result = slots.get(i);
+            if (result != null) {
+                shardResults.add(result);
+            }
+        }
+        return merger.merge(shardResults);
+    }
+
+    /**
+     * 等待任务结束，忽略它的结果和异常；等待期间被中断时恢复中断标记
+     */
+    private static void awaitUninterruptibly(Future<?> future) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                future.get();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (ExecutionException | CancellationException e) {
+                break;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param transaction 会话事务，为 null 时从分片数据源独立借一个连接
+     */
+    private <E> List<E> queryOnShard(ShardTarget target, Transaction transaction, MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql sql, boolean readOnly) throws SQLException {
+        if (transaction != null) {
+            Connection connection = readOnly ? transaction.getReadConnection() : transaction.getConnection();
+            return doQuery(ms, parameter, rowBounds, resultHandler, sql, connection);
+        }
+        DataSource dataSource = shardingTransaction.getDataSource().getDataSource(target.getDataSourceName());
+        try (Connection connection = readOnly && dataSource instanceof ReadWriteRoutingDataSource
+                ? ((ReadWriteRoutingDataSource) dataSource).getReadConnection() : dataSource.getConnection()) {
+            return doQuery(ms, parameter, rowBounds, resultHandler, sql, connection);
+        }
+    }
+
+    public ShardingRouter getRouter() {
+        return router;
+    }
+
+}
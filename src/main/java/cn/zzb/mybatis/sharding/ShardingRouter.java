@@ -0,0 +1,250 @@
+package cn.zzb.mybatis.sharding;
+
+import cn.zzb.mybatis.mapping.BoundSql;
+import cn.zzb.mybatis.mapping.MappedStatement;
+import cn.zzb.mybatis.mapping.ParameterMapping;
+import cn.zzb.mybatis.mapping.SqlCommandType;
+import cn.zzb.mybatis.reflection.MetaObject;
+import cn.zzb.mybatis.session.Configuration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 分片路由
+ * <p>
+ * 按 SQL 中出现的逻辑表找到分片规则，从参数对象中取出分片键，算出目标数据源和物理表名。
+ * 同一条 SQL 中的多张分片表视为绑定表：使用各自的分片键，但必须落在同一个数据源上。
+ * <p>
+ * 没有分片键时按 {@link MissingShardKeyPolicy} 处理：REJECT 直接报错；FAN_OUT 对 SELECT 路由到全部分片，写操作仍然报错。
+ * <p>
+ * 表名替换是按单词边界的文本替换（跳过单引号、双引号包裹的字符串常量），逻辑表名应避免和列名重名。
+ */
+public class ShardingRouter {
+
+    public enum MissingShardKeyPolicy {
+        /**
+         * 拒绝执行
+         */
+        REJECT,
+        /**
+         * 查询所有分片
+         */
+        FAN_OUT
+    }
+
+    private final String defaultDataSourceName;
+    private final Map<String, ShardingRule> rules = new LinkedHashMap<>();
+    private final Map<String, Pattern> tablePatterns = new HashMap<>();
+    private MissingShardKeyPolicy missingShardKeyPolicy = MissingShardKeyPolicy.REJECT;
+
+    /**
+     * @param defaultDataSourceName 不涉及分片表的 SQL 在这个数据源上执行
+     */
+    public ShardingRouter(String defaultDataSourceName) {
+        this.defaultDataSourceName = defaultDataSourceName;
+    }
+
+    public ShardingRouter addRule(ShardingRule rule) {
+        String key = rule.getLogicTable().toLowerCase();
+        rules.put(key, rule);
+        tablePatterns.put(key, Pattern.compile("(?<![\\w$.])" + Pattern.quote(rule.getLogicTable()) + "(?![\\w$])", Pattern.CASE_INSENSITIVE));
+        return this;
+    }
+
+    public List<ShardTarget> route(Configuration configuration, MappedStatement ms, BoundSql boundSql) {
+        String sql = boundSql.getSql();
+        List<ShardingRule> matched = new ArrayList<>();
+        for (Map.Entry<String, ShardingRule> entry : rules.entrySet()) {
+            if (containsTable(sql, tablePatterns.get(entry.getKey()))) {
+                matched.add(entry.getValue());
+            }
+        }
+        if (matched.isEmpty()) {
+            return Collections.singletonList(new ShardTarget(defaultDataSourceName, Collections.emptyMap()));
+        }
+
+        Object parameter = boundSql.getParameterObject();
+        Map<String, String> actualTables = new LinkedHashMap<>();
+        String dataSourceName = null;
+        for (ShardingRule rule : matched) {
+            Object shardKey = resolveShardKey(configuration, boundSql, parameter, rule.getShardKeyProperty());
+            if (shardKey == null) {
+                return fanOut(ms, matched, rule);
+            }
+            int index = rule.shardIndex(shardKey);
+            String ruleDataSource = rule.dataSourceName(index);
+            if (dataSourceName != null && !dataSourceName.equals(ruleDataSource)) {
+                throw new RuntimeException("Statement " + ms.getId() + " joins sharded tables located on different data sources ("
+                        + dataSourceName + ", " + ruleDataSource + ").");
+            }
+            dataSourceName = ruleDataSource;
+            actualTables.put(rule.getLogicTable(), rule.actualTable(index));
+        }
+        return Collections.singletonList(new ShardTarget(dataSourceName, actualTables));
+    }
+
+    /**
+     * 把 SQL 中的逻辑表名替换成路由结果中的物理表名
+     */
+    public String rewrite(String sql, ShardTarget target) {
+        if (target.getActualTables().isEmpty()) {
+            return sql;
+        }
+        StringBuilder result = new StringBuilder(sql.length() + 16);
+        int start = 0;
+        while (start < sql.length()) {
+            int literalStart = nextLiteral(sql, start);
+            String segment = sql.substring(start, literalStart);
+            for (Map.Entry<String, String> entry : target.getActualTables().entrySet()) {
+                Pattern pattern = tablePatterns.get(entry.getKey().toLowerCase());
+                segment = pattern.matcher(segment).replaceAll(Matcher.quoteReplacement(entry.getValue()));
+            }
+            result.append(segment);
+            int literalEnd = literalEnd(sql, literalStart);
+            result.append(sql, literalStart, literalEnd);
+            start = literalEnd;
+        }
+        return result.toString();
+    }
+
+    private static boolean containsTable(String sql, Pattern pattern) {
+        int start = 0;
+        while (start < sql.length()) {
+            int literalStart = nextLiteral(sql, start);
+            if (pattern.matcher(sql).region(start, literalStart).find()) {
+                return true;
+            }
+            start = literalEnd(sql, literalStart);
+        }
+        return false;
+    }
+
+    /**
+     * 从 from 开始下一个字符串常量的起始位置，没有则返回 sql.length()
+     */
+    private static int nextLiteral(String sql, int from) {
+        for (int i = from; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"') {
+                return i;
+            }
+        }
+        return sql.length();
+    }
+
+    /**
+     * 字符串常量结束后的位置，支持 '' 和反斜杠转义
+     */
+    private static int literalEnd(String sql, int literalStart) {
+        if (literalStart >= sql.length()) {
+            return sql.length();
+        }
+        char quote = sql.charAt(literalStart);
+        int i = literalStart + 1;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return sql.length();
+    }
+
+    private List<ShardTarget> fanOut(MappedStatement ms, List<ShardingRule> matched, ShardingRule missing) {
+        if (missingShardKeyPolicy == MissingShardKeyPolicy.REJECT || ms.getSqlCommandType() != SqlCommandType.SELECT) {
+            throw new RuntimeException("Statement " + ms.getId() + " has no sharding key '" + missing.getShardKeyProperty()
+                    + "' for table " + missing.getLogicTable() + ".");
+        }
+        // 绑定表按相同序号一一对应，分片数必须一致
+        ShardingRule first = matched.get(0);
+        for (ShardingRule rule : matched) {
+            if (rule.getShardCount() != first.getShardCount()) {
+                throw new RuntimeException("Statement " + ms.getId() + " can not fan out over tables with different shard counts ("
+                        + first.getLogicTable() + ", " + rule.getLogicTable() + ").");
+            }
+        }
+        List<ShardTarget> targets = new ArrayList<>(first.getShardCount());
+        for (int i = 0; i < first.getShardCount(); i++) {
+            Map<String, String> actualTables = new LinkedHashMap<>();
+            for (ShardingRule rule : matched) {
+                actualTables.put(rule.getLogicTable(), rule.actualTable(i));
+            }
+            targets.add(new ShardTarget(first.dataSourceName(i), actualTables));
+        }
+        return targets;
+    }
+
+    /**
+     * 从参数对象中取分片键：Map/JavaBean（包括 @Param 参数）按属性名取值；
+     * 单个简单类型参数没有名字，只有 SQL 中的 #{} 都指向分片键（如 #{userId} 或 #{user_id}）时才作为分片键，
+     * 否则视为没有分片键——例如按 user_id 分片的表上的 selectByEmail(String)，不能拿 email 去算分片
+     */
+    static Object resolveShardKey(Configuration configuration, BoundSql boundSql, Object parameter, String property) {
+        if (parameter instanceof Object[]) {
+            Object[] args = (Object[]) parameter;
+            return args.length == 1 ? resolveShardKey(configuration, boundSql, args[0], property) : null;
+        }
+        if (parameter == null) {
+            return null;
+        }
+        if (parameter instanceof Number || parameter instanceof CharSequence) {
+            return isBoundTo(boundSql, property) ? parameter : null;
+        }
+        MetaObject metaObject = configuration.newMetaObject(parameter);
+        return metaObject.hasGetter(property) ? metaObject.getValue(property) : null;
+    }
+
+    /**
+     * SQL 中的占位符是否都绑定到分片键，属性名和列名都可以（忽略大小写和下划线）
+     */
+    private static boolean isBoundTo(BoundSql boundSql, String property) {
+        List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+        if (parameterMappings == null || parameterMappings.isEmpty()) {
+            return false;
+        }
+        String key = normalize(property);
+        for (ParameterMapping parameterMapping : parameterMappings) {
+            if (!key.equals(normalize(parameterMapping.getProperty()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String normalize(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ENGLISH);
+    }
+
+    public String getDefaultDataSourceName() {
+        return defaultDataSourceName;
+    }
+
+    public Map<String, ShardingRule> getRules() {
+        return Collections.unmodifiableMap(rules);
+    }
+
+    public MissingShardKeyPolicy getMissingShardKeyPolicy() {
+        return missingShardKeyPolicy;
+    }
+
+    public void setMissingShardKeyPolicy(MissingShardKeyPolicy missingShardKeyPolicy) {
+        this.missingShardKeyPolicy = missingShardKeyPolicy;
+    }
+
+}
@@ -0,0 +1,111 @@
+package cn.zzb.mybatis.sharding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一张逻辑表的分片规则
+ * <p>
+ * 逻辑表拆成 dataSourceNames.size() × tablesPerDataSource 张物理表，按序号依次分布在各个数据源上：
+ * 序号 i 的物理表位于 dataSourceNames[i / tablesPerDataSource]，表名为 String.format(tableNameFormat, logicTable, i)，
+ * 例如 user 按默认格式 "%s_%02d" 得到 user_00 ~ user_15。tableNameFormat 为 null 时只分库、不改表名。
+ */
+public class ShardingRule {
+
+    private String logicTable;
+    private String shardKeyProperty;
+    private List<String> dataSourceNames;
+    private int tablesPerDataSource = 1;
+    private String tableNameFormat = "%s_%02d";
+    private ShardingAlgorithm algorithm = ShardingAlgorithm.MOD;
+
+    private ShardingRule() {
+    }
+
+    /**
+     * 建造者
+     */
+    public static class Builder {
+
+        private final ShardingRule rule = new ShardingRule();
+
+        public Builder(String logicTable, String shardKeyProperty) {
+            rule.logicTable = logicTable;
+            rule.shardKeyProperty = shardKeyProperty;
+        }
+
+        public Builder dataSources(String... dataSourceNames) {
+            rule.dataSourceNames = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(dataSourceNames)));
+            return this;
+        }
+
+        public Builder tablesPerDataSource(int tablesPerDataSource) {
+            rule.tablesPerDataSource = tablesPerDataSource;
+            return this;
+        }
+
+        public Builder tableNameFormat(String tableNameFormat) {
+            rule.tableNameFormat = tableNameFormat;
+            return this;
+        }
+
+        public Builder algorithm(ShardingAlgorithm algorithm) {
+            rule.algorithm = algorithm;
+            return this;
+        }
+
+        public ShardingRule build() {
+            if (rule.dataSourceNames == null || rule.dataSourceNames.isEmpty()) {
+                throw new IllegalArgumentException("Sharding rule of table " + rule.logicTable + " has no data source.");
+            }
+            if (rule.tablesPerDataSource < 1) {
+                throw new IllegalArgumentException("tablesPerDataSource of table " + rule.logicTable + " must be positive.");
+            }
+            return rule;
+        }
+
+    }
+
+    public int getShardCount() {
+        return dataSourceNames.size() * tablesPerDataSource;
+    }
+
+    /**
+     * 分片键对应的物理表序号
+     */
+    public int shardIndex(Object shardKey) {
+        int shardCount = getShardCount();
+        int index = algorithm.shard(shardKey, shardCount);
+        if (index < 0 || index >= shardCount) {
+            throw new RuntimeException("Sharding algorithm of table " + logicTable + " returned " + index + " for key " + shardKey + ", expected [0, " + shardCount + ").");
+        }
+        return index;
+    }
+
+    public String dataSourceName(int shardIndex) {
+        return dataSourceNames.get(shardIndex / tablesPerDataSource);
+    }
+
+    public String actualTable(int shardIndex) {
+        return tableNameFormat == null ? logicTable : String.format(tableNameFormat, logicTable, shardIndex);
+    }
+
+    public String getLogicTable() {
+        return logicTable;
+    }
+
+    public String getShardKeyProperty() {
+        return shardKeyProperty;
+    }
+
+    public List<String> getDataSourceNames() {
+        return dataSourceNames;
+    }
+
+    public int getTablesPerDataSource() {
+        return tablesPerDataSource;
+    }
+
+}
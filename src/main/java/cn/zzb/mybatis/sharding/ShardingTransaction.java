@@ -0,0 +1,109 @@
+package cn.zzb.mybatis.sharding;
+
+import cn.zzb.mybatis.session.TransactionIsolationLevel;
+import cn.zzb.mybatis.transaction.Transaction;
+import cn.zzb.mybatis.transaction.TransactionFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 分片事务：每个分片数据源一个子事务，第一次路由到该分片时才创建
+ * <p>
+ * commit/rollback/close 依次作用于所有已创建的子事务。这不是分布式事务：某个分片提交失败时，之前的分片已经提交，
+ * 需要跨分片原子性的写操作应当放在同一个分片键下。
+ */
+public class ShardingTransaction implements Transaction {
+
+    private final TransactionFactory transactionFactory;
+    private final ShardingDataSource dataSource;
+    private final TransactionIsolationLevel level;
+    private final boolean autoCommit;
+    private final Map<String, Transaction> transactions = new LinkedHashMap<>();
+
+    public ShardingTransaction(TransactionFactory transactionFactory, ShardingDataSource dataSource, TransactionIsolationLevel level, boolean autoCommit) {
+        this.transactionFactory = transactionFactory;
+        this.dataSource = dataSource;
+        this.level = level;
+        this.autoCommit = autoCommit;
+    }
+
+    public synchronized Transaction getTransaction(String dataSourceName) {
+        Transaction transaction = transactions.get(dataSourceName);
+        if (transaction == null) {
+            transaction = transactionFactory.newTransaction(dataSource.getDataSource(dataSourceName), level, autoCommit);
+            transactions.put(dataSourceName, transaction);
+        }
+        return transaction;
+    }
+
+    /**
+     * 已经创建的子事务，没有则返回 null
+     */
+    public synchronized Transaction peekTransaction(String dataSourceName) {
+        return transactions.get(dataSourceName);
+    }
+
+    public ShardingDataSource getDataSource() {
+        return dataSource;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getTransaction(dataSource.getRouter().getDefaultDataSourceName()).getConnection();
+    }
+
+    @Override
+    public Connection getReadConnection() throws SQLException {
+        return getTransaction(dataSource.getRouter().getDefaultDataSourceName()).getReadConnection();
+    }
+
+    @Override
+    public synchronized void commit() throws SQLException {
+        for (Transaction transaction : transactions.values()) {
+            transaction.commit();
+        }
+    }
+
+    @Override
+    public synchronized void rollback() throws SQLException {
+        SQLException failure = null;
+        for (Transaction transaction : transactions.values()) {
+            try {
+                transaction.rollback();
+            } catch (SQLException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws SQLException {
+        SQLException failure = null;
+        for (Transaction transaction : transactions.values()) {
+            try {
+                transaction.close();
+            } catch (SQLException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        transactions.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+}
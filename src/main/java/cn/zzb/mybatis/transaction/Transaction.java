@@ -7,6 +7,13 @@ public interface Transaction {
 
     Connection getConnection() throws SQLException;
 
+    /**
+     * 只读查询使用的连接，默认与 getConnection() 相同；支持读写分离的事务可以返回从库连接
+     */
+    default Connection getReadConnection() throws SQLException {
+        return getConnection();
+    }
+
     void commit() throws SQLException;
 
     void rollback() throws SQLException;
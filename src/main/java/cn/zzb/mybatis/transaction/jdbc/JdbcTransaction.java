@@ -1,5 +1,6 @@
 package cn.zzb.mybatis.transaction.jdbc;
 
+import cn.zzb.mybatis.datasource.routing.ReadWriteRoutingDataSource;
 import cn.zzb.mybatis.session.TransactionIsolationLevel;
 import cn.zzb.mybatis.transaction.Transaction;
 
@@ -7,9 +8,21 @@ import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
 
+/**
+ * JDBC 事务
+ * <p>
+ * 一个事务在整个生命周期内只持有一个连接：第一次调用 getConnection() 时才从数据源获取（懒加载），
+ * 之后的每条语句都复用这个连接，保证同一个会话中的多条 SQL 处于同一个数据库事务里；
+ * close() 时把连接归还（池化数据源）或关闭，并且只会执行一次。
+ * <p>
+ * 数据源是 {@link ReadWriteRoutingDataSource} 时，在主库连接打开之前（即还没有写操作），getReadConnection() 返回一个自动提交的从库连接；
+ * 一旦打开了主库连接，后续读也走主库，保证事务内能读到自己的写入。
+ */
 public class JdbcTransaction implements Transaction {
 
     protected Connection conn;
+    // 从库连接，只在读写分离时使用
+    protected Connection readConn;
     protected DataSource dataSource;
     protected TransactionIsolationLevel level = TransactionIsolationLevel.NONE;
     protected boolean autoCommit;
@@ -19,37 +32,78 @@ public class JdbcTransaction implements Transaction {
         this.level = level;
         this.autoCommit = autoCommit;
     }
+
     public JdbcTransaction(Connection conn) {
         this.conn = conn;
     }
 
-
     @Override
     public Connection getConnection() throws SQLException {
-        conn = dataSource.getConnection();
-        conn.setTransactionIsolation(level.getLevel());
-        conn.setAutoCommit(autoCommit);
+        // 同一个事务内复用同一个连接，只有第一次才真正去数据源取
+        if (conn == null) {
+            openConnection();
+        }
         return conn;
     }
 
+    @Override
+    public Connection getReadConnection() throws SQLException {
+        // 已经在写事务中，或者没有配置读写分离，读也走主库连接
+        if (conn != null || !(dataSource instanceof ReadWriteRoutingDataSource)) {
+            return getConnection();
+        }
+        if (readConn == null) {
+            Connection connection = ((ReadWriteRoutingDataSource) dataSource).getReadConnection();
+            // 从库只读，不需要事务；自动提交也避免长时间持有一个过期的一致性快照
+            if (!connection.getAutoCommit()) {
+                connection.setAutoCommit(true);
+            }
+            readConn = connection;
+        }
+        return readConn;
+    }
+
     @Override
     public void commit() throws SQLException {
-        if(conn != null && !conn.getAutoCommit()){
+        if (conn != null && !conn.getAutoCommit()) {
             conn.commit();
         }
     }
 
     @Override
     public void rollback() throws SQLException {
-        if(conn != null && !conn.getAutoCommit()){
+        if (conn != null && !conn.getAutoCommit()) {
             conn.rollback();
         }
     }
 
     @Override
     public void close() throws SQLException {
-        if(conn != null && !conn.getAutoCommit()){
-            conn.close();
+        try {
+            if (readConn != null) {
+                Connection connection = readConn;
+                readConn = null;
+                connection.close();
+            }
+        } finally {
+            if (conn != null) {
+                Connection connection = conn;
+                // 先置空，保证即使 close 抛异常也不会被关闭第二次
+                conn = null;
+                connection.close();
+            }
+        }
+    }
+
+    protected void openConnection() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        if (level != null && level != TransactionIsolationLevel.NONE) {
+            connection.setTransactionIsolation(level.getLevel());
+        }
+        if (connection.getAutoCommit() != autoCommit) {
+            connection.setAutoCommit(autoCommit);
         }
+        conn = connection;
     }
+
 }
@@ -1,6 +1,8 @@
 package cn.zzb.mybatis.transaction.jdbc;
 
 import cn.zzb.mybatis.session.TransactionIsolationLevel;
+import cn.zzb.mybatis.sharding.ShardingDataSource;
+import cn.zzb.mybatis.sharding.ShardingTransaction;
 import cn.zzb.mybatis.transaction.Transaction;
 import cn.zzb.mybatis.transaction.TransactionFactory;
 
@@ -17,6 +19,10 @@ public class JdbcTransactionFactory implements TransactionFactory {
 
     @Override
     public Transaction newTransaction(DataSource dataSource, TransactionIsolationLevel level, boolean autoCommit) {
+        // 分片数据源：每个分片各自一个 JdbcTransaction
+        if (dataSource instanceof ShardingDataSource) {
+            return new ShardingTransaction(this, (ShardingDataSource) dataSource, level, autoCommit);
+        }
         return new JdbcTransaction(dataSource, level, autoCommit);
     }
 }
@@ -0,0 +1,32 @@
+package cn.zzb.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 类型处理器的基类：统一处理 null 参数和 NULL 列值，子类只需要处理非空值
+ */
+public abstract class BaseTypeHandler<T> implements TypeHandler<T> {
+
+    @Override
+    public void setParameter(PreparedStatement ps, int i, T parameter, JdbcType jdbcType) throws SQLException {
+        if (parameter == null) {
+            ps.setNull(i, jdbcType == null ? JdbcType.NULL.TYPE_CODE : jdbcType.TYPE_CODE);
+        } else {
+            setNonNullParameter(ps, i, parameter, jdbcType);
+        }
+    }
+
+    @Override
+    public T getResult(ResultSet rs, int columnIndex) throws SQLException {
+        T result = getNullableResult(rs, columnIndex);
+        // getLong 等方法遇到 NULL 返回 0，需要用 wasNull 区分
+        return rs.wasNull() ? null : result;
+    }
+
+    protected abstract void setNonNullParameter(PreparedStatement ps, int i, T parameter, JdbcType jdbcType) throws SQLException;
+
+    protected abstract T getNullableResult(ResultSet rs, int columnIndex) throws SQLException;
+
+}
@@ -0,0 +1,23 @@
+package cn.zzb.mybatis.type;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * BigDecimal 类型处理器
+ */
+public class BigDecimalTypeHandler extends BaseTypeHandler<BigDecimal> {
+
+    @Override
+    protected void setNonNullParameter(PreparedStatement ps, int i, BigDecimal parameter, JdbcType jdbcType) throws SQLException {
+        ps.setBigDecimal(i, parameter);
+    }
+
+    @Override
+    protected BigDecimal getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getBigDecimal(columnIndex);
+    }
+
+}
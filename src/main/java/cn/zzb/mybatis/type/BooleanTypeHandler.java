@@ -0,0 +1,22 @@
+package cn.zzb.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Boolean 类型处理器
+ */
+public class BooleanTypeHandler extends BaseTypeHandler<Boolean> {
+
+    @Override
+    protected void setNonNullParameter(PreparedStatement ps, int i, Boolean parameter, JdbcType jdbcType) throws SQLException {
+        ps.setBoolean(i, parameter);
+    }
+
+    @Override
+    protected Boolean getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getBoolean(columnIndex);
+    }
+
+}
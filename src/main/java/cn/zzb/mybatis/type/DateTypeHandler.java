@@ -0,0 +1,25 @@
+package cn.zzb.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * java.util.Date 类型处理器
+ */
+public class DateTypeHandler extends BaseTypeHandler<Date> {
+
+    @Override
+    protected void setNonNullParameter(PreparedStatement ps, int i, Date parameter, JdbcType jdbcType) throws SQLException {
+        ps.setTimestamp(i, new Timestamp(parameter.getTime()));
+    }
+
+    @Override
+    protected Date getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(columnIndex);
+        return timestamp == null ? null : new Date(timestamp.getTime());
+    }
+
+}
@@ -0,0 +1,22 @@
+package cn.zzb.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Double 类型处理器
+ */
+public class DoubleTypeHandler extends BaseTypeHandler<Double> {
+
+    @Override
+    protected void setNonNullParameter(PreparedStatement ps, int i, Double parameter, JdbcType jdbcType) throws SQLException {
+        ps.setDouble(i, parameter);
+    }
+
+    @Override
+    protected Double getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getDouble(columnIndex);
+    }
+
+}
@@ -0,0 +1,22 @@
+package cn.zzb.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Integer 类型处理器
+ */
+public class IntegerTypeHandler extends BaseTypeHandler<Integer> {
+
+    @Override
+    protected void setNonNullParameter(PreparedStatement ps, int i, Integer parameter, JdbcType jdbcType) throws SQLException {
+        ps.setInt(i, parameter);
+    }
+
+    @Override
+    protected Integer getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getInt(columnIndex);
+    }
+
+}
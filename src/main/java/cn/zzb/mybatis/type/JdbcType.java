@@ -6,14 +6,18 @@ import java.util.Map;
 
 public enum JdbcType {
 
+    BIGINT(Types.BIGINT),
     INTEGER(Types.INTEGER),
     FLOAT(Types.FLOAT),
     DOUBLE(Types.DOUBLE),
     DECIMAL(Types.DECIMAL),
     VARCHAR(Types.VARCHAR),
-    TIMESTAMP(Types.TIMESTAMP);
+    TIMESTAMP(Types.TIMESTAMP),
+    BOOLEAN(Types.BOOLEAN),
+    NULL(Types.NULL),
+    OTHER(Types.OTHER);
 
-    private final int TYPE_CODE;
+    public final int TYPE_CODE;
     private static final Map<Integer, JdbcType> codeLookup = new HashMap<>();
 
     JdbcType(int typeCode) {
@@ -0,0 +1,22 @@
+package cn.zzb.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Long 类型处理器
+ */
+public class LongTypeHandler extends BaseTypeHandler<Long> {
+
+    @Override
+    protected void setNonNullParameter(PreparedStatement ps, int i, Long parameter, JdbcType jdbcType) throws SQLException {
+        ps.setLong(i, parameter);
+    }
+
+    @Override
+    protected Long getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getLong(columnIndex);
+    }
+
+}
@@ -23,6 +23,10 @@ public class TypeAliasRegistry {
         registerAlias("double", Double.class);
         registerAlias("float", Float.class);
         registerAlias("boolean", Boolean.class);
+
+        // 集合类型：resultType="map" 的每行是共用列标签的轻量 Map
+        registerAlias("map", Map.class);
+        registerAlias("hashmap", HashMap.class);
     }
 
     public void registerAlias(String alias, Class<?> value){
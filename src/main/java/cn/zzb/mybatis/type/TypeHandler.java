@@ -1,6 +1,7 @@
 package cn.zzb.mybatis.type;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 
 /**
@@ -13,4 +14,9 @@ public interface TypeHandler<T> {
      */
     void setParameter(PreparedStatement ps, int i, T parameter, JdbcType jdbcType) throws SQLException;
 
+    /**
+     * 取得结果，列值为 NULL 时返回 null
+     */
+    T getResult(ResultSet rs, int columnIndex) throws SQLException;
+
 }
@@ -1,6 +1,8 @@
 package cn.zzb.mybatis.type;
 
 import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.Date;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
@@ -14,8 +16,58 @@ public final class TypeHandlerRegistry {
     private final Map<Type, Map<JdbcType, TypeHandler<?>>> TYPE_HANDLER_MAP = new HashMap<>();
     private final Map<Class<?>, TypeHandler<?>> ALL_TYPE_HANDLERS_MAP = new HashMap<>();
 
+    // 未注册的类型交给驱动处理
+    private final TypeHandler<Object> unknownTypeHandler = new ObjectTypeHandler();
+
     public TypeHandlerRegistry() {
+        register(Long.class, new LongTypeHandler());
+        register(long.class, new LongTypeHandler());
+
+        register(Integer.class, new IntegerTypeHandler());
+        register(int.class, new IntegerTypeHandler());
+
+        register(Boolean.class, new BooleanTypeHandler());
+        register(boolean.class, new BooleanTypeHandler());
+
+        register(Double.class, new DoubleTypeHandler());
+        register(double.class, new DoubleTypeHandler());
+
+        register(String.class, new StringTypeHandler());
+        register(String.class, JdbcType.VARCHAR, new StringTypeHandler());
+
+        register(BigDecimal.class, new BigDecimalTypeHandler());
+        register(Date.class, new DateTypeHandler());
+    }
+
+    public <T> void register(Class<T> javaType, TypeHandler<? extends T> typeHandler) {
+        register(javaType, null, typeHandler);
+    }
+
+    /**
+     * 是否有对应 Java 类型的处理器，用来判断参数是不是可以直接绑定的简单类型
+     */
+    public boolean hasTypeHandler(Class<?> javaType) {
+        return javaType != null && TYPE_HANDLER_MAP.containsKey(javaType);
+    }
+
+    /**
+     * 按 Java 类型和 JDBC 类型查找处理器，找不到指定 JDBC 类型时用该 Java 类型的默认处理器
+     */
+    @SuppressWarnings("unchecked")
+    public <T> TypeHandler<T> getTypeHandler(Class<T> javaType, JdbcType jdbcType) {
+        Map<JdbcType, TypeHandler<?>> jdbcHandlerMap = TYPE_HANDLER_MAP.get(javaType);
+        TypeHandler<?> handler = null;
+        if (jdbcHandlerMap != null) {
+            handler = jdbcHandlerMap.get(jdbcType);
+            if (handler == null) {
+                handler = jdbcHandlerMap.get(null);
+            }
+        }
+        return (TypeHandler<T>) handler;
+    }
 
+    public TypeHandler<Object> getUnknownTypeHandler() {
+        return unknownTypeHandler;
     }
 
     private void register(Type javaType, JdbcType jdbcType, TypeHandler<?> handler) {
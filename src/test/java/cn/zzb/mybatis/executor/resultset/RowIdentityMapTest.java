@@ -0,0 +1,89 @@
+package cn.zzb.mybatis.executor.resultset;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * RowIdentityMap 是包内可见的，测试放在同一个包中
+ */
+public class RowIdentityMapTest {
+
+    @Test
+    public void test_collidingHashes() {
+        RowIdentityMap map = new RowIdentityMap();
+        // "Aa" 和 "BB" 的 hashCode 相同；(1, 0) 和 (0, 31) 的组合哈希都是 31
+        Assert.assertEquals("Aa".hashCode(), "BB".hashCode());
+        RowIdentityMap.Entry aa = map.put(null, 0, new Object[]{"Aa"}, "aa");
+        RowIdentityMap.Entry bb = map.put(null, 0, new Object[]{"BB"}, "bb");
+        RowIdentityMap.Entry first = map.put(null, 0, new Object[]{1, 0}, "first");
+        RowIdentityMap.Entry second = map.put(null, 0, new Object[]{0, 31}, "second");
+
+        Assert.assertSame(aa, map.get(null, 0, new Object[]{"Aa"}));
+        Assert.assertSame(bb, map.get(null, 0, new Object[]{"BB"}));
+        Assert.assertSame(first, map.get(null, 0, new Object[]{1, 0}));
+        Assert.assertSame(second, map.get(null, 0, new Object[]{0, 31}));
+        Assert.assertNull(map.get(null, 0, new Object[]{"Ab"}));
+        Assert.assertNull(map.get(null, 0, new Object[]{31, 0}));
+    }
+
+    @Test
+    public void test_resize() {
+        RowIdentityMap map = new RowIdentityMap();
+        RowIdentityMap.Entry[] ids = new RowIdentityMap.Entry[5000];
+        RowIdentityMap.Entry[] colliding = new RowIdentityMap.Entry[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = map.put(null, i, null, "id-" + i);
+            // 同一个哈希槽上的链表在扩容后仍然完整
+            colliding[i] = map.put(null, 0, new Object[]{"Aa", i}, "aa-" + i);
+            map.put(null, 0, new Object[]{"BB", i}, "bb-" + i);
+        }
+        for (int i = 0; i < ids.length; i++) {
+            Assert.assertSame(ids[i], map.get(null, i, null));
+            Assert.assertSame(colliding[i], map.get(null, 0, new Object[]{"Aa", i}));
+            Assert.assertEquals("bb-" + i, map.get(null, 0, new Object[]{"BB", i}).getObject());
+        }
+        Assert.assertNull(map.get(null, ids.length, null));
+
+        map.clear();
+        Assert.assertNull(map.get(null, 1, null));
+        Assert.assertNull(map.get(null, 0, new Object[]{"Aa", 1}));
+        Assert.assertEquals("again", map.put(null, 1, null, "again").getObject());
+        Assert.assertEquals("again", map.get(null, 1, null).getObject());
+    }
+
+    @Test
+    public void test_compositeKey() {
+        RowIdentityMap map = new RowIdentityMap();
+        Object[] key = {7L, "a", null};
+        RowIdentityMap.Entry entry = map.put(null, 0, key, "row");
+        // put 复制了列值，调用方复用数组读下一行不影响已有的条目
+        key[1] = "b";
+        Assert.assertNull(map.get(null, 0, key));
+        Assert.assertSame(entry, map.get(null, 0, new Object[]{7L, "a", null}));
+        Assert.assertNull(map.get(null, 0, new Object[]{7L, "a"}));
+        Assert.assertNull(map.get(null, 0, new Object[]{7, "a", null}));
+        // 整数行键和列值数组互不相同
+        Assert.assertNull(map.get(null, 0, null));
+        Assert.assertNull(map.get(null, 7, null));
+    }
+
+    @Test
+    public void test_sameKeyUnderDifferentParents() {
+        RowIdentityMap parents = new RowIdentityMap();
+        RowIdentityMap.Entry order1 = parents.put(null, 1, null, "order-1");
+        RowIdentityMap.Entry order2 = parents.put(null, 2, null, "order-2");
+
+        RowIdentityMap children = new RowIdentityMap();
+        RowIdentityMap.Entry line1 = children.put(order1, 1, null, "order-1/line-1");
+        Assert.assertNull(children.get(order2, 1, null));
+        RowIdentityMap.Entry line2 = children.put(order2, 1, null, "order-2/line-1");
+        Assert.assertSame(line1, children.get(order1, 1, null));
+        Assert.assertSame(line2, children.get(order2, 1, null));
+        Assert.assertNull(children.get(null, 1, null));
+
+        RowIdentityMap.Entry sku1 = children.put(order1, 0, new Object[]{"sku"}, "order-1/sku");
+        Assert.assertNull(children.get(order2, 0, new Object[]{"sku"}));
+        Assert.assertSame(sku1, children.get(order1, 0, new Object[]{"sku"}));
+    }
+
+}
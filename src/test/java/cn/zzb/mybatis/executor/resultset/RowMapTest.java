@@ -0,0 +1,183 @@
+package cn.zzb.mybatis.executor.resultset;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RowMap 和 HashMap 在 Map 约定上的行为一致；RowMap.read 是包内可见的，测试放在同一个包中
+ */
+public class RowMapTest {
+
+    private Connection connection;
+    private final List<RowMap> rows = new ArrayList<>();
+
+    @Before
+    public void init() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:own_mybatis;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_UPPER=FALSE", "sa", "");
+        // label 出现两次，note 为 NULL
+        String sql = "SELECT 1 AS id, 'x' AS label, 'y' AS label, CAST(NULL AS VARCHAR) AS note"
+                + " UNION ALL SELECT 2, 'u', 'v', 'n'";
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+            RowMap.Columns columns = RowMap.Columns.of(resultSet.getMetaData());
+            while (resultSet.next()) {
+                rows.add(RowMap.read(columns, resultSet));
+            }
+        }
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    // 按列的顺序逐个 put 进 HashMap 的结果
+    private static Map<String, Object> expected(Object id, Object label, Object note) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", id);
+        map.put("label", label);
+        map.put("note", note);
+        return map;
+    }
+
+    @Test
+    public void test_readAsHashMap() {
+        Assert.assertEquals(2, rows.size());
+        RowMap row = rows.get(0);
+        Map<String, Object> expected = expected(1, "y", null);
+        // 同名的列后面的覆盖前面的
+        Assert.assertEquals("y", row.get("label"));
+        // NULL 的列保留键
+        Assert.assertEquals(3, row.size());
+        Assert.assertTrue(row.containsKey("note"));
+        Assert.assertNull(row.get("note"));
+        Assert.assertFalse(row.containsKey("missing"));
+        Assert.assertEquals(expected, row);
+        Assert.assertEquals(row, expected);
+        Assert.assertEquals(expected.hashCode(), row.hashCode());
+        Assert.assertEquals(Arrays.asList("id", "label", "note"), new ArrayList<>(row.keySet()));
+        Assert.assertEquals(expected(2, "v", "n"), rows.get(1));
+        Assert.assertNotEquals(rows.get(0), rows.get(1));
+    }
+
+    @Test
+    public void test_removeThenPut() {
+        RowMap row = rows.get(0);
+        Assert.assertEquals("y", row.remove("label"));
+        Assert.assertNull(row.remove("label"));
+        Assert.assertNull(row.remove("missing"));
+        Assert.assertEquals(2, row.size());
+        Assert.assertFalse(row.containsKey("label"));
+        Map<String, Object> expected = expected(1, "y", null);
+        expected.remove("label");
+        Assert.assertEquals(expected, row);
+        Assert.assertEquals(expected.hashCode(), row.hashCode());
+
+        Assert.assertNull(row.put("label", "z"));
+        Assert.assertEquals("z", row.put("label", "w"));
+        // 结果集中没有的键排在列之后
+        Assert.assertNull(row.put("extra", 7));
+        Assert.assertNull(row.put("note", "set"));
+        Assert.assertEquals(4, row.size());
+        Assert.assertEquals(Arrays.asList("id", "label", "note", "extra"), new ArrayList<>(row.keySet()));
+        expected.put("label", "w");
+        expected.put("note", "set");
+        expected.put("extra", 7);
+        Assert.assertEquals(expected, row);
+        Assert.assertEquals(expected.hashCode(), row.hashCode());
+        Assert.assertEquals(7, row.remove("extra"));
+        Assert.assertEquals(3, row.size());
+        // 共用列的其他行不受影响
+        Assert.assertEquals(expected(2, "v", "n"), rows.get(1));
+    }
+
+    @Test
+    public void test_clear() {
+        RowMap row = rows.get(0);
+        row.put("extra", 7);
+        row.clear();
+        Assert.assertTrue(row.isEmpty());
+        Assert.assertFalse(row.containsKey("id"));
+        Assert.assertFalse(row.containsKey("extra"));
+        Assert.assertFalse(row.entrySet().iterator().hasNext());
+        Assert.assertEquals(new HashMap<String, Object>(), row);
+        Assert.assertEquals(0, row.hashCode());
+        Assert.assertNull(row.put("note", null));
+        Assert.assertEquals(1, row.size());
+        Assert.assertTrue(row.containsKey("note"));
+    }
+
+    @Test
+    public void test_iteratorRemove() {
+        RowMap row = rows.get(0);
+        row.put("extra", 7);
+        Iterator<Map.Entry<String, Object>> iterator = row.entrySet().iterator();
+        try {
+            iterator.remove();
+            Assert.fail("remove before next");
+        } catch (IllegalStateException expected) {
+            // 和 HashMap 的迭代器一致
+        }
+        while (iterator.hasNext()) {
+            Map.Entry<String, Object> entry = iterator.next();
+            if (entry.getKey().equals("id") || entry.getKey().equals("extra")) {
+                iterator.remove();
+            } else if (entry.getKey().equals("note")) {
+                // setValue 写回这一行
+                Assert.assertNull(entry.setValue("set"));
+            }
+        }
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("label", "y");
+        expected.put("note", "set");
+        Assert.assertEquals(expected, row);
+        Assert.assertEquals(2, row.size());
+
+        Iterator<String> keys = row.keySet().iterator();
+        Assert.assertEquals("label", keys.next());
+        keys.remove();
+        try {
+            keys.remove();
+            Assert.fail("remove twice");
+        } catch (IllegalStateException again) {
+            Assert.assertEquals(1, row.size());
+        }
+    }
+
+    @Test
+    public void test_serializeAsLinkedHashMap() throws Exception {
+        RowMap row = rows.get(0);
+        row.put("extra", 7);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(row);
+        }
+        Object copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = in.readObject();
+        }
+        Assert.assertEquals(LinkedHashMap.class, copy.getClass());
+        Assert.assertEquals(row, copy);
+        Assert.assertEquals(Arrays.asList("id", "label", "note", "extra"), new ArrayList<>(((Map<?, ?>) copy).keySet()));
+        Assert.assertTrue(((Map<?, ?>) copy).containsKey("note"));
+    }
+
+}
@@ -0,0 +1,333 @@
+package cn.zzb.mybatis.test;
+
+import cn.zzb.mybatis.columnar.arrow.ArrowStreamWriter;
+import cn.zzb.mybatis.columnar.arrow.DirectBufferPool;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 按字节检查 Arrow IPC 流：测试里带了一个最小的 FlatBuffers/Arrow 读取器，把写出的流读回来对比
+ */
+public class ArrowStreamWriterTest {
+
+    private static final int CONTINUATION = 0xFFFFFFFF;
+    private static final String QUERY = "SELECT id, name, amount FROM arrow_row ORDER BY id";
+
+    private Connection connection;
+    private final DirectBufferPool pool = new DirectBufferPool(1 << 20);
+
+    @Before
+    public void init() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:own_mybatis;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_UPPER=FALSE", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS arrow_row");
+            statement.execute("CREATE TABLE arrow_row (id INT, name VARCHAR(16), amount DECIMAL(10,2))");
+            statement.execute("INSERT INTO arrow_row VALUES (1, 'a', 1.25), (2, 'bb', -2.5), (3, NULL, 3.5)");
+        }
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    private byte[] write(int batchRows) throws SQLException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(QUERY)) {
+            Long rows = new ArrowStreamWriter(Channels.newChannel(out), pool, batchRows).consume(resultSet, Integer.MAX_VALUE);
+            Assert.assertEquals(Long.valueOf(3), rows);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void test_messageLayout() throws SQLException {
+        // 两行一个批次：第一个批次没有 NULL，第二个批次只有一行，name 为 NULL
+        ByteBuffer stream = ByteBuffer.wrap(write(2)).order(ByteOrder.LITTLE_ENDIAN);
+
+        Message schema = Message.read(stream);
+        Assert.assertEquals(1, schema.headerType);
+        Assert.assertEquals(0, schema.bodyLength);
+        List<Table> fields = schema.header.tables(1);
+        Assert.assertEquals(3, fields.size());
+        assertField(fields.get(0), "id", 2);
+        Assert.assertEquals(32, fields.get(0).table(3).getInt(0, 0));
+        Assert.assertTrue(fields.get(0).table(3).getBool(1));
+        assertField(fields.get(1), "name", 5);
+        assertField(fields.get(2), "amount", 7);
+        Assert.assertEquals(10, fields.get(2).table(3).getInt(0, 0));
+        Assert.assertEquals(2, fields.get(2).table(3).getInt(1, 0));
+        Assert.assertEquals(128, fields.get(2).table(3).getInt(2, 128));
+
+        Message first = Message.read(stream);
+        Assert.assertEquals(3, first.headerType);
+        Assert.assertEquals(2, first.header.getLong(0));
+        Assert.assertArrayEquals(new long[]{2, 0, 2, 0, 2, 0}, first.header.longPairs(1));
+        // 没有 NULL 的列省略有效位图（长度 0），每个缓冲区从 8 字节对齐的位置开始
+        Assert.assertArrayEquals(new long[]{
+                0, 0, 0, 8,
+                8, 0, 8, 12, 24, 3,
+                32, 0, 32, 32}, first.header.longPairs(2));
+        Assert.assertEquals(64, first.bodyLength);
+        ByteBuffer body = first.body;
+        Assert.assertEquals(1, body.getInt(0));
+        Assert.assertEquals(2, body.getInt(4));
+        Assert.assertArrayEquals(new int[]{0, 1, 3}, new int[]{body.getInt(8), body.getInt(12), body.getInt(16)});
+        Assert.assertEquals(0, body.getInt(20));
+        Assert.assertEquals("abb", string(body, 24, 3));
+        Assert.assertArrayEquals(new byte[5], bytes(body, 27, 5));
+        Assert.assertEquals(new BigDecimal("1.25"), decimal(body, 32, 2));
+        Assert.assertEquals(new BigDecimal("-2.50"), decimal(body, 48, 2));
+
+        Message second = Message.read(stream);
+        Assert.assertEquals(1, second.header.getLong(0));
+        Assert.assertArrayEquals(new long[]{1, 0, 1, 1, 1, 0}, second.header.longPairs(1));
+        // name 的有效位图只有 1 字节，补齐到 8；空的数据缓冲区不占消息体
+        Assert.assertArrayEquals(new long[]{
+                0, 0, 0, 4,
+                8, 1, 16, 8, 24, 0,
+                24, 0, 24, 16}, second.header.longPairs(2));
+        Assert.assertEquals(40, second.bodyLength);
+        Assert.assertEquals(3, second.body.getInt(0));
+        Assert.assertEquals(0, second.body.get(8));
+        Assert.assertEquals(0, second.body.getLong(16));
+        Assert.assertEquals(new BigDecimal("3.50"), decimal(second.body, 24, 2));
+
+        // 结束标记：续接标记后跟长度 0，之后没有其他字节
+        Assert.assertEquals(CONTINUATION, stream.getInt());
+        Assert.assertEquals(0, stream.getInt());
+        Assert.assertFalse(stream.hasRemaining());
+    }
+
+    @Test
+    public void test_roundTrip() throws Exception {
+        byte[] bytes = write(ArrowStreamWriter.DEFAULT_BATCH_ROWS);
+        ByteBuffer stream = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        Message.read(stream);
+        Message batch = Message.read(stream);
+        Assert.assertEquals(3, batch.header.getLong(0));
+        long[] buffers = batch.header.longPairs(2);
+        List<Object> ids = new ArrayList<>();
+        List<Object> names = new ArrayList<>();
+        List<Object> amounts = new ArrayList<>();
+        for (int row = 0; row < 3; row++) {
+            ids.add(valid(batch.body, buffers, 0, row) ? batch.body.getInt((int) buffers[2] + row * 4) : null);
+            if (valid(batch.body, buffers, 4, row)) {
+                int offsets = (int) buffers[6];
+                int start = batch.body.getInt(offsets + row * 4);
+                int end = batch.body.getInt(offsets + row * 4 + 4);
+                names.add(string(batch.body, (int) buffers[8] + start, end - start));
+            } else {
+                names.add(null);
+            }
+            amounts.add(valid(batch.body, buffers, 10, row) ? decimal(batch.body, (int) buffers[12] + row * 16, 2) : null);
+        }
+        Assert.assertEquals(Arrays.<Object>asList(1, 2, 3), ids);
+        Assert.assertEquals(Arrays.<Object>asList("a", "bb", null), names);
+        Assert.assertEquals(Arrays.<Object>asList(new BigDecimal("1.25"), new BigDecimal("-2.50"), new BigDecimal("3.50")), amounts);
+        Assert.assertEquals(CONTINUATION, stream.getInt());
+        Assert.assertEquals(0, stream.getInt());
+        Assert.assertFalse(stream.hasRemaining());
+
+        // 通过 FileChannel 的 gather 写入得到相同的字节
+        File file = File.createTempFile("arrow", ".arrows");
+        try {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(QUERY)) {
+                new ArrowStreamWriter(channel, pool).consume(resultSet, Integer.MAX_VALUE);
+            }
+            Assert.assertArrayEquals(bytes, Files.readAllBytes(file.toPath()));
+        } finally {
+            Assert.assertTrue(file.delete());
+        }
+    }
+
+    private static void assertField(Table field, String name, int typeType) {
+        Assert.assertEquals(name, field.string(0));
+        Assert.assertTrue(field.getBool(1));
+        Assert.assertEquals(typeType, field.getByte(2));
+        Assert.assertTrue(field.tables(5).isEmpty());
+    }
+
+    // 有效位图长度为 0 表示没有 NULL
+    private static boolean valid(ByteBuffer body, long[] buffers, int validityIndex, int row) {
+        if (buffers[validityIndex + 1] == 0) {
+            return true;
+        }
+        return (body.get((int) buffers[validityIndex] + (row >>> 3)) >> (row & 7) & 1) != 0;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return bytes;
+    }
+
+    private static String string(ByteBuffer buffer, int offset, int length) {
+        return new String(bytes(buffer, offset, length), StandardCharsets.UTF_8);
+    }
+
+    // 128 位小端补码的非标度值
+    private static BigDecimal decimal(ByteBuffer buffer, int offset, int scale) {
+        byte[] bigEndian = new byte[16];
+        for (int i = 0; i < 16; i++) {
+            bigEndian[15 - i] = buffer.get(offset + i);
+        }
+        return new BigDecimal(new BigInteger(bigEndian), scale);
+    }
+
+    /**
+     * 封装的消息：续接标记、消息头长度、Message 表、消息体
+     */
+    private static final class Message {
+
+        private byte headerType;
+        private Table header;
+        private long bodyLength;
+        private ByteBuffer body;
+
+        static Message read(ByteBuffer stream) {
+            Assert.assertEquals("messages start 8-byte aligned", 0, stream.position() % 8);
+            Assert.assertEquals(CONTINUATION, stream.getInt());
+            int metadataLength = stream.getInt();
+            Assert.assertTrue(metadataLength > 0);
+            Assert.assertEquals("metadata is padded to 8 bytes", 0, metadataLength % 8);
+            ByteBuffer metadata = slice(stream, metadataLength);
+            Table message = new Table(metadata, metadata.getInt(0));
+            Assert.assertEquals(4, message.getShort(0));
+            Message result = new Message();
+            result.headerType = message.getByte(1);
+            result.header = message.table(2);
+            result.bodyLength = message.getLong(3);
+            Assert.assertEquals("body is padded to 8 bytes", 0, result.bodyLength % 8);
+            result.body = slice(stream, (int) result.bodyLength);
+            return result;
+        }
+
+        private static ByteBuffer slice(ByteBuffer stream, int length) {
+            ByteBuffer slice = stream.slice().order(ByteOrder.LITTLE_ENDIAN);
+            slice.limit(length);
+            stream.position(stream.position() + length);
+            return slice;
+        }
+
+    }
+
+    /**
+     * FlatBuffers 表：开头是指向 vtable 的有符号偏移量，vtable 中记录每个字段相对表开头的偏移量，0 表示缺省
+     */
+    private static final class Table {
+
+        private final ByteBuffer buffer;
+        private final int position;
+        private final int vtable;
+
+        Table(ByteBuffer buffer, int position) {
+            Assert.assertEquals("tables are 4-byte aligned", 0, position % 4);
+            this.buffer = buffer;
+            this.position = position;
+            this.vtable = position - buffer.getInt(position);
+        }
+
+        private int field(int index) {
+            int entry = 4 + index * 2;
+            return entry < buffer.getShort(vtable) ? buffer.getShort(vtable + entry) : 0;
+        }
+
+        private int aligned(int index, int size) {
+            int offset = field(index);
+            Assert.assertEquals("field " + index + " is aligned", 0, (position + offset) % size);
+            return offset == 0 ? -1 : position + offset;
+        }
+
+        byte getByte(int index) {
+            int at = aligned(index, 1);
+            return at < 0 ? 0 : buffer.get(at);
+        }
+
+        boolean getBool(int index) {
+            return getByte(index) != 0;
+        }
+
+        short getShort(int index) {
+            int at = aligned(index, 2);
+            return at < 0 ? 0 : buffer.getShort(at);
+        }
+
+        int getInt(int index, int defaultValue) {
+            int at = aligned(index, 4);
+            return at < 0 ? defaultValue : buffer.getInt(at);
+        }
+
+        long getLong(int index) {
+            int at = aligned(index, 8);
+            return at < 0 ? 0 : buffer.getLong(at);
+        }
+
+        private int reference(int index) {
+            int at = aligned(index, 4);
+            Assert.assertTrue("field " + index + " is present", at >= 0);
+            return at + buffer.getInt(at);
+        }
+
+        Table table(int index) {
+            return new Table(buffer, reference(index));
+        }
+
+        String string(int index) {
+            int at = reference(index);
+            int length = buffer.getInt(at);
+            Assert.assertEquals("strings are zero-terminated", 0, buffer.get(at + 4 + length));
+            return ArrowStreamWriterTest.string(buffer, at + 4, length);
+        }
+
+        List<Table> tables(int index) {
+            int at = reference(index);
+            int length = buffer.getInt(at);
+            List<Table> tables = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                int element = at + 4 + i * 4;
+                tables.add(new Table(buffer, element + buffer.getInt(element)));
+            }
+            return tables;
+        }
+
+        // FieldNode、Buffer 都是两个 long 的结构体，向量内容按 8 字节对齐
+        long[] longPairs(int index) {
+            int at = reference(index);
+            int length = buffer.getInt(at);
+            Assert.assertEquals("struct vector is 8-byte aligned", 0, (at + 4) % 8);
+            long[] values = new long[length * 2];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = buffer.getLong(at + 4 + i * 8);
+            }
+            return values;
+        }
+
+    }
+
+}
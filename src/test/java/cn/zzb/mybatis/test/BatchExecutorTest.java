@@ -0,0 +1,288 @@
+package cn.zzb.mybatis.test;
+
+import cn.zzb.mybatis.SqlSessionFactoryBuilder;
+import cn.zzb.mybatis.executor.BatchResult;
+import cn.zzb.mybatis.executor.MultiRowInsertRewriter;
+import cn.zzb.mybatis.io.Resources;
+import cn.zzb.mybatis.session.ExecutorType;
+import cn.zzb.mybatis.session.SqlSession;
+import cn.zzb.mybatis.session.SqlSessionFactory;
+import cn.zzb.mybatis.test.dao.IBatchDao;
+import cn.zzb.mybatis.test.po.User;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+public class BatchExecutorTest {
+
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Before
+    public void init() throws Exception {
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(Resources.getResourceAsReader("mybatis-config-h2.xml"));
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:own_mybatis;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_UPPER=FALSE", "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS batch_user");
+            statement.execute("CREATE TABLE batch_user (id BIGINT AUTO_INCREMENT PRIMARY KEY, userId VARCHAR(32), userHead VARCHAR(32))");
+            statement.execute("DROP SEQUENCE IF EXISTS batch_user_seq");
+            statement.execute("CREATE SEQUENCE batch_user_seq START WITH 100");
+        }
+    }
+
+    @Test
+    public void test_selectKeyAfter() {
+        SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH);
+        try {
+            IBatchDao batchDao = sqlSession.getMapper(IBatchDao.class);
+            User first = user("a");
+            User second = user("b");
+            User third = user("c");
+            batchDao.insertUser(user("batched"));
+            batchDao.insertSelectKeyAfter(first);
+            batchDao.insertSelectKeyAfter(second);
+            batchDao.insertUser(user("batched"));
+            batchDao.insertSelectKeyAfter(third);
+
+            // 每个参数拿到的是自己那一行的主键，而不是批次中最后一行的
+            Assert.assertEquals(Long.valueOf(2), first.getId());
+            Assert.assertEquals(Long.valueOf(3), second.getId());
+            Assert.assertEquals(Long.valueOf(5), third.getId());
+
+            List<BatchResult> results = sqlSession.flushStatements();
+            Assert.assertEquals(5, results.size());
+            Assert.assertEquals("insertUser", simpleId(results.get(0)));
+            Assert.assertEquals("insertSelectKeyAfter", simpleId(results.get(1)));
+            Assert.assertSame(first, results.get(1).getParameterObjects().get(0));
+            Assert.assertArrayEquals(new int[]{1}, results.get(4).getUpdateCounts());
+            Assert.assertTrue(sqlSession.flushStatements().isEmpty());
+            Assert.assertEquals(Arrays.asList("batched", "a", "b", "batched", "c"), batchDao.queryUserIds());
+            sqlSession.commit();
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void test_rewriteBatchChunks() {
+        SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.REWRITE_BATCH);
+        try {
+            sqlSession.getConfiguration().getMultiRowInsertRewriter().setMaxRows(2);
+            IBatchDao batchDao = sqlSession.getMapper(IBatchDao.class);
+            for (String userId : Arrays.asList("a", "b", "c", "d", "e")) {
+                batchDao.insertUser(user(userId));
+            }
+
+            // 两个满块共用一条两行的语句，剩下的一行单独一条
+            List<BatchResult> results = sqlSession.flushStatements();
+            Assert.assertEquals(2, results.size());
+            Assert.assertEquals(2, rows(results.get(0)));
+            Assert.assertEquals(4, results.get(0).getParameterObjects().size());
+            Assert.assertArrayEquals(new int[]{2, 2}, results.get(0).getUpdateCounts());
+            Assert.assertEquals(1, rows(results.get(1)));
+            Assert.assertEquals(1, results.get(1).getParameterObjects().size());
+            Assert.assertArrayEquals(new int[]{1}, results.get(1).getUpdateCounts());
+            Assert.assertEquals(Arrays.asList("a", "b", "c", "d", "e"), batchDao.queryUserIds());
+            sqlSession.commit();
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void test_rewriteBatchParameterBudget() {
+        SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.REWRITE_BATCH);
+        try {
+            // 每行 2 个占位符，最多 7 个占位符：每块 3 行
+            sqlSession.getConfiguration().getMultiRowInsertRewriter().setMaxParameters(7);
+            IBatchDao batchDao = sqlSession.getMapper(IBatchDao.class);
+            for (int i = 0; i < 7; i++) {
+                batchDao.insertUser(user("u" + i));
+            }
+            // 其它语句打断攒下的行
+            batchDao.insertSelectKeyAfter(user("after"));
+            batchDao.insertUser(user("last"));
+
+            List<BatchResult> results = sqlSession.flushStatements();
+            Assert.assertEquals(4, results.size());
+            Assert.assertEquals(3, rows(results.get(0)));
+            Assert.assertArrayEquals(new int[]{3, 3}, results.get(0).getUpdateCounts());
+            Assert.assertEquals(1, rows(results.get(1)));
+            Assert.assertEquals("insertSelectKeyAfter", simpleId(results.get(2)));
+            Assert.assertEquals(1, rows(results.get(3)));
+            Assert.assertEquals(9, batchDao.queryUserIds().size());
+            sqlSession.commit();
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void test_rowsPerStatement() {
+        MultiRowInsertRewriter rewriter = new MultiRowInsertRewriter();
+        MultiRowInsertRewriter.InsertShape shape = rewriter.getShape("INSERT INTO t (a, b) VALUES (?, ?);");
+        Assert.assertEquals("INSERT INTO t (a, b) VALUES (?, ?),(?, ?)", shape.getSql(2));
+        Assert.assertEquals(MultiRowInsertRewriter.DEFAULT_MAX_ROWS, rewriter.rowsPerStatement(shape, 10));
+
+        rewriter.setMaxRows(50);
+        Assert.assertEquals(50, rewriter.rowsPerStatement(shape, 10));
+        rewriter.setMaxParameters(9);
+        Assert.assertEquals(4, rewriter.rowsPerStatement(shape, 10));
+
+        // 每行还要算上一个逗号：预算够 3 行 25 字节的值
+        rewriter.setMaxPacketBytes(shape.getFixedLength() + 3 * 26);
+        Assert.assertEquals(3, rewriter.rowsPerStatement(shape, 25));
+        // 最大的一行决定整块的行数，一行都放不下时仍然每条一行
+        Assert.assertEquals(1, rewriter.rowsPerStatement(shape, 60));
+        Assert.assertEquals(1, rewriter.rowsPerStatement(shape, 1000));
+
+        // 前缀或后缀里有占位符时不改写
+        Assert.assertNull(rewriter.getShape("INSERT INTO t (a, b) VALUES (?, ?) ON DUPLICATE KEY UPDATE b = ?"));
+        Assert.assertNull(rewriter.getShape("INSERT INTO t (a, b) SELECT a, b FROM s WHERE a = ?"));
+    }
+
+    @Test
+    public void test_rewriteBatchPacketBudget() {
+        SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.REWRITE_BATCH);
+        try {
+            MultiRowInsertRewriter rewriter = sqlSession.getConfiguration().getMultiRowInsertRewriter();
+            MultiRowInsertRewriter.InsertShape shape = rewriter.getShape("INSERT INTO batch_user (userId, userHead) VALUES (?, ?)");
+            // "u0"、"head" 两个值估算 8 + 14 字节，预算够 2 行
+            long rowBytes = shape.getRowLength() + MultiRowInsertRewriter.estimateBytes("u0") + MultiRowInsertRewriter.estimateBytes("head");
+            rewriter.setMaxPacketBytes(shape.getFixedLength() + 2 * (rowBytes + 1));
+            IBatchDao batchDao = sqlSession.getMapper(IBatchDao.class);
+            for (int i = 0; i < 4; i++) {
+                batchDao.insertUser(user("u" + i));
+            }
+            List<BatchResult> results = sqlSession.flushStatements();
+            Assert.assertEquals(1, results.size());
+            Assert.assertArrayEquals(new int[]{2, 2}, results.get(0).getUpdateCounts());
+
+            // 一行更大的值让整批的块变小
+            for (int i = 4; i < 8; i++) {
+                batchDao.insertUser(user(i == 5 ? "u" + i + "-longer" : "u" + i));
+            }
+            results = sqlSession.flushStatements();
+            Assert.assertEquals(1, results.size());
+            Assert.assertEquals(1, rows(results.get(0)));
+            Assert.assertArrayEquals(new int[]{1, 1, 1, 1}, results.get(0).getUpdateCounts());
+            Assert.assertEquals(8, batchDao.queryUserIds().size());
+            sqlSession.commit();
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void test_rewriteBatchGeneratedKeys() {
+        SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.REWRITE_BATCH);
+        try {
+            sqlSession.getConfiguration().getMultiRowInsertRewriter().setMaxRows(2);
+            IBatchDao batchDao = sqlSession.getMapper(IBatchDao.class);
+            List<User> users = Arrays.asList(user("a"), user("b"), user("c"));
+            for (User user : users) {
+                batchDao.insertUserGeneratedKeys(user);
+                Assert.assertNull(user.getId());
+            }
+
+            List<BatchResult> results = sqlSession.flushStatements();
+            Assert.assertEquals(2, results.size());
+            // 多行插入的每一行都拿到自己的主键，包括剩下的那一块
+            for (int i = 0; i < users.size(); i++) {
+                Assert.assertEquals(Long.valueOf(i + 1), users.get(i).getId());
+            }
+            sqlSession.commit();
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void test_rewriteBatchSelectKeyBefore() {
+        SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.REWRITE_BATCH);
+        try {
+            sqlSession.getConfiguration().getMultiRowInsertRewriter().setMaxRows(2);
+            IBatchDao batchDao = sqlSession.getMapper(IBatchDao.class);
+            List<User> users = Arrays.asList(user("a"), user("b"), user("c"));
+            for (User user : users) {
+                batchDao.insertSelectKeyBefore(user);
+            }
+            // 主键在攒行之前就已经查好，用来绑定多行插入的参数
+            Assert.assertEquals(Long.valueOf(100), users.get(0).getId());
+            Assert.assertEquals(Long.valueOf(102), users.get(2).getId());
+
+            List<BatchResult> results = sqlSession.flushStatements();
+            Assert.assertEquals(2, results.size());
+            Assert.assertEquals(2, rows(results.get(0)));
+            Assert.assertArrayEquals(new int[]{2}, results.get(0).getUpdateCounts());
+            Assert.assertArrayEquals(new int[]{1}, results.get(1).getUpdateCounts());
+            Assert.assertEquals(Arrays.asList("a", "b", "c"), batchDao.queryUserIds());
+            sqlSession.commit();
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void test_generatedKeysSkippedRows() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:own_mybatis;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_UPPER=FALSE", "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE UNIQUE INDEX batch_user_userId ON batch_user (userId)");
+        }
+        for (ExecutorType executorType : Arrays.asList(ExecutorType.BATCH, ExecutorType.REWRITE_BATCH)) {
+            SqlSession sqlSession = sqlSessionFactory.openSession(executorType);
+            try {
+                IBatchDao batchDao = sqlSession.getMapper(IBatchDao.class);
+                List<User> users = Arrays.asList(user(executorType + "-a"), user(executorType + "-a"), user(executorType + "-b"));
+                for (User user : users) {
+                    batchDao.insertUserIgnore(user);
+                }
+                sqlSession.flushStatements();
+                // 重复的一行被跳过，主键和参数对不上，一个也不写回
+                for (User user : users) {
+                    Assert.assertNull(executorType.toString(), user.getId());
+                }
+                sqlSession.commit();
+            } finally {
+                sqlSession.close();
+            }
+        }
+
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            IBatchDao batchDao = sqlSession.getMapper(IBatchDao.class);
+            User inserted = user("c");
+            batchDao.insertUserIgnore(inserted);
+            Assert.assertNotNull(inserted.getId());
+            User skipped = user("c");
+            batchDao.insertUserIgnore(skipped);
+            Assert.assertNull(skipped.getId());
+            sqlSession.commit();
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    // 一条多行插入语句中的行数
+    private static int rows(BatchResult batchResult) {
+        return batchResult.getSql().split("\\),\\(").length;
+    }
+
+    private static String simpleId(BatchResult batchResult) {
+        String id = batchResult.getMappedStatement().getId();
+        return id.substring(id.lastIndexOf('.') + 1);
+    }
+
+    private static User user(String userId) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setUserHead("head");
+        return user;
+    }
+
+}
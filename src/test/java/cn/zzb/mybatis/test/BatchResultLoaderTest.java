@@ -0,0 +1,133 @@
+package cn.zzb.mybatis.test;
+
+import cn.zzb.mybatis.SqlSessionFactoryBuilder;
+import cn.zzb.mybatis.builder.xml.XMLConfigBuilder;
+import cn.zzb.mybatis.io.Resources;
+import cn.zzb.mybatis.session.Configuration;
+import cn.zzb.mybatis.session.SqlSession;
+import cn.zzb.mybatis.session.SqlSessionFactory;
+import cn.zzb.mybatis.test.dao.INestedDao;
+import cn.zzb.mybatis.test.po.Author;
+import cn.zzb.mybatis.test.po.Post;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class BatchResultLoaderTest {
+
+    private Configuration configuration;
+    private SqlSessionFactory sqlSessionFactory;
+    private RecordingDataSource recorder;
+
+    @Before
+    public void init() throws Exception {
+        configuration = new XMLConfigBuilder(Resources.getResourceAsReader("mybatis-config-h2.xml")).parse();
+        recorder = RecordingDataSource.install(configuration);
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:own_mybatis;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_UPPER=FALSE", "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS nested_author");
+            statement.execute("DROP TABLE IF EXISTS nested_post");
+            statement.execute("CREATE TABLE nested_author (id BIGINT PRIMARY KEY, name VARCHAR(32), featured_post_id BIGINT)");
+            statement.execute("CREATE TABLE nested_post (id BIGINT PRIMARY KEY, author_id INT, title VARCHAR(32))");
+            statement.execute("INSERT INTO nested_author VALUES (1, 'alice', NULL), (2, 'bob', NULL), (3, 'carol', NULL), (4, 'dave', NULL), (5, 'erin', NULL)");
+            // 作者 3 没有文章
+            statement.execute("INSERT INTO nested_post VALUES (11, 1, 'a1'), (12, 1, 'a2'), (21, 2, 'b1'), (41, 4, 'd1'), (51, 5, 'e1')");
+        }
+    }
+
+    @Test
+    public void test_nestedQueriesBatchedIntoIn() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            List<Author> authors = sqlSession.getMapper(INestedDao.class).queryAuthors();
+            assertPosts(authors);
+            // 5 个作者的文章合并成一条 IN 查询
+            List<String> statements = recorder.getStatements();
+            Assert.assertEquals(2, statements.size());
+            Assert.assertTrue(statements.get(1), statements.get(1).contains("author_id IN (?, ?, ?, ?, ?)"));
+            // 父对象的键是 Long，子对象上的 authorId 是 Integer，规范化之后能分回各个父对象
+            Assert.assertEquals(Integer.valueOf(1), authors.get(0).getPosts().get(0).getAuthorId());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void test_nestedQueryBatchSize() {
+        configuration.setNestedQueryBatchSize(2);
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            assertPosts(sqlSession.getMapper(INestedDao.class).queryAuthors());
+            // 5 个键分成 2 + 2 + 1，最后只有一个键的块直接用原来的查询
+            List<String> statements = recorder.getStatements();
+            Assert.assertEquals(4, statements.size());
+            Assert.assertTrue(statements.get(1).contains("author_id IN (?, ?)"));
+            Assert.assertTrue(statements.get(2).contains("author_id IN (?, ?)"));
+            Assert.assertTrue(statements.get(3).contains("author_id = ?"));
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void test_fallbackWhenChildKeyMissing() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            List<Author> authors = sqlSession.getMapper(INestedDao.class).queryAuthorsWithoutPostKey();
+            // 子对象上取不到键，IN 查询的结果没法分组，按键逐个查询
+            List<String> statements = recorder.getStatements();
+            Assert.assertEquals(1 + 1 + 5, statements.size());
+            Assert.assertTrue(statements.get(1).contains(" IN ("));
+            for (String sql : statements.subList(2, statements.size())) {
+                Assert.assertTrue(sql, sql.contains("author_id = ?"));
+            }
+            Assert.assertEquals(Arrays.asList("a1", "a2"), titles(authors.get(0).getPosts()));
+            Assert.assertNull(authors.get(0).getPosts().get(0).getAuthorId());
+            Assert.assertTrue(authors.get(2).getPosts().isEmpty());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void test_fallbackWhenChildKeyNotInChunk() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            List<Author> authors = sqlSession.getMapper(INestedDao.class).queryAuthorsWithShiftedPostKey();
+            // 子对象上的键不在这一块的键中，按键逐个查询，结果和逐行执行嵌套查询相同
+            Assert.assertEquals(1 + 1 + 5, recorder.getStatements().size());
+            Assert.assertEquals(Arrays.asList("a1", "a2"), titles(authors.get(0).getPosts()));
+            Assert.assertEquals(Integer.valueOf(101), authors.get(0).getPosts().get(0).getAuthorId());
+            Assert.assertEquals(Arrays.asList("b1"), titles(authors.get(1).getPosts()));
+            Assert.assertTrue(authors.get(2).getPosts().isEmpty());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    private static void assertPosts(List<Author> authors) {
+        Assert.assertEquals(5, authors.size());
+        Assert.assertEquals(Arrays.asList("a1", "a2"), titles(authors.get(0).getPosts()));
+        Assert.assertEquals(Arrays.asList("b1"), titles(authors.get(1).getPosts()));
+        Assert.assertTrue(authors.get(2).getPosts().isEmpty());
+        Assert.assertEquals(Arrays.asList("d1"), titles(authors.get(3).getPosts()));
+        Assert.assertEquals(Arrays.asList("e1"), titles(authors.get(4).getPosts()));
+    }
+
+    private static List<String> titles(List<Post> posts) {
+        List<String> titles = new ArrayList<>();
+        for (Post post : posts) {
+            titles.add(post.getTitle());
+        }
+        return titles;
+    }
+
+}
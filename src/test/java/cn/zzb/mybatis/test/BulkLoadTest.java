@@ -0,0 +1,187 @@
+package cn.zzb.mybatis.test;
+
+import cn.zzb.mybatis.executor.bulk.DelimitedRowInputStream;
+import cn.zzb.mybatis.executor.bulk.LoadDataBulkLoader;
+import cn.zzb.mybatis.session.BulkLoad;
+import cn.zzb.mybatis.session.Configuration;
+import cn.zzb.mybatis.test.po.User;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class BulkLoadTest {
+
+    public static class Avatar {
+        private Long id;
+        private byte[] avatar;
+        private Object extra;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public byte[] getAvatar() {
+            return avatar;
+        }
+
+        public void setAvatar(byte[] avatar) {
+            this.avatar = avatar;
+        }
+
+        public Object getExtra() {
+            return extra;
+        }
+
+        public void setExtra(Object extra) {
+            this.extra = extra;
+        }
+    }
+
+    @Test
+    public void test_delimitedRows() throws Exception {
+        BulkLoad<User> bulkLoad = new BulkLoad.Builder<>("user", User.class).build();
+        Assert.assertEquals(Arrays.asList("id", "userId", "userHead", "createTime", "updateTime"), bulkLoad.getProperties());
+
+        User first = new User();
+        first.setId(1L);
+        first.setUserId("a\tb\\c");
+        User second = new User();
+        second.setUserId("say \"hi\"\n");
+        List<User> users = Arrays.asList(first, second);
+
+        BulkLoad<User> tsv = new BulkLoad.Builder<>("user", User.class).property("id").property("userId", "user_id").build();
+        Assert.assertEquals("1\ta\\tb\\\\c\n\\N\tsay \"hi\"\\n\n", read(new DelimitedRowInputStream(tsv, users.iterator())));
+
+        BulkLoad<User> csv = new BulkLoad.Builder<>("user", User.class).property("id").property("userId").format(BulkLoad.Format.CSV).build();
+        Assert.assertEquals("\"1\",\"a\\tb\\\\c\"\n\\N,\"say \\\"hi\\\"\\n\"\n", read(new DelimitedRowInputStream(csv, users.iterator())));
+    }
+
+    @Test
+    public void test_loadDataDroppedRows() throws Exception {
+        BulkLoad<User> bulkLoad = new BulkLoad.Builder<>("user", User.class).property("id").property("userId").build();
+        List<User> users = Arrays.asList(new User(), new User());
+        Assert.assertEquals(2, LoadDataBulkLoader.INSTANCE.load(null, loadDataConnection(2, null), bulkLoad, users.iterator()));
+
+        // LOAD DATA LOCAL 隐含 IGNORE：主键冲突的行只有一条警告
+        SQLWarning warning = new SQLWarning("Duplicate entry '1' for key 'PRIMARY'", "23000", 1062);
+        try {
+            LoadDataBulkLoader.INSTANCE.load(null, loadDataConnection(1, warning), bulkLoad, users.iterator());
+            Assert.fail("rows dropped by LOAD DATA must be reported");
+        } catch (SQLException expected) {
+            Assert.assertTrue(expected.getMessage().contains("loaded 1 of 2 rows"));
+            Assert.assertTrue(expected.getMessage().contains("Duplicate entry"));
+        }
+    }
+
+    @Test
+    public void test_loadDataBinary() throws Exception {
+        Avatar first = new Avatar();
+        first.setId(1L);
+        first.setAvatar(new byte[]{0, (byte) 0xFF, '\t', '\\', 0x7F});
+        Avatar second = new Avatar();
+        second.setId(2L);
+        List<Avatar> avatars = Arrays.asList(first, second);
+
+        // byte[] 写成十六进制，读进用户变量后由 UNHEX 还原
+        BulkLoad<Avatar> bulkLoad = new BulkLoad.Builder<>("avatar", Avatar.class).property("id").property("avatar", "image").build();
+        List<String> executed = new ArrayList<>();
+        Assert.assertEquals(2, LoadDataBulkLoader.INSTANCE.load(null, loadDataConnection(2, null, executed), bulkLoad, avatars.iterator()));
+        Assert.assertTrue(executed.get(0), executed.get(0).endsWith(" (id, @bulk_1) SET image = UNHEX(@bulk_1)"));
+        Assert.assertEquals("1\t00FF095C7F\n2\t\\N\n", executed.get(1));
+
+        BulkLoad<Avatar> csv = new BulkLoad.Builder<>("avatar", Avatar.class).property("avatar").property("id").format(BulkLoad.Format.CSV).build();
+        Assert.assertEquals("00FF095C7F,\"1\"\n\\N,\"2\"\n", read(new DelimitedRowInputStream(csv, avatars.iterator())));
+    }
+
+    @Test
+    public void test_loadDataNonTextFallsBack() throws Exception {
+        Avatar avatar = new Avatar();
+        avatar.setId(1L);
+        avatar.setExtra(new byte[]{1, 2});
+        // Object 类型的属性只能由类型处理器绑定，退回批量插入，不发送 LOAD DATA
+        BulkLoad<Avatar> bulkLoad = new BulkLoad.Builder<>("avatar", Avatar.class).property("id").property("extra").build();
+        List<String> executed = new ArrayList<>();
+        Assert.assertEquals(1, LoadDataBulkLoader.INSTANCE.load(new Configuration(), loadDataConnection(1, null, executed), bulkLoad,
+                Collections.singletonList(avatar).iterator()));
+        Assert.assertEquals(Arrays.asList("INSERT INTO avatar (id, extra) VALUES (?, ?)", "1: 1", "2: [1, 2]"), executed);
+    }
+
+    private static Connection loadDataConnection(int loaded, SQLWarning warnings) throws ClassNotFoundException {
+        return loadDataConnection(loaded, warnings, new ArrayList<>());
+    }
+
+    /**
+     * 模拟 MySQL 驱动的连接：LOAD DATA 读完输入流，返回 loaded 行和警告；executed 记录执行的 SQL 和读到的文本，
+     * 批量插入时记录 SQL 和绑定的参数
+     */
+    private static Connection loadDataConnection(int loaded, SQLWarning warnings, List<String> executed) throws ClassNotFoundException {
+        Class<?> statementType;
+        try {
+            statementType = Class.forName("com.mysql.cj.jdbc.JdbcStatement");
+        } catch (ClassNotFoundException e) {
+            statementType = Class.forName("com.mysql.jdbc.Statement");
+        }
+        InputStream[] infile = new InputStream[1];
+        Object statement = Proxy.newProxyInstance(BulkLoadTest.class.getClassLoader(), new Class<?>[]{statementType}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                case "unwrap":
+                    return proxy;
+                case "setLocalInfileInputStream":
+                    infile[0] = (InputStream) args[0];
+                    return null;
+                case "executeUpdate":
+                    executed.add((String) args[0]);
+                    executed.add(read(infile[0]));
+                    return loaded;
+                case "getWarnings":
+                    return warnings;
+                default:
+                    return null;
+            }
+        });
+        PreparedStatement insert = (PreparedStatement) Proxy.newProxyInstance(BulkLoadTest.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("set")) {
+                        executed.add(args[0] + ": " + (args[1] instanceof byte[] ? Arrays.toString((byte[]) args[1]) : args[1]));
+                    } else if ("executeBatch".equals(method.getName())) {
+                        return new int[]{loaded};
+                    }
+                    return null;
+                });
+        return (Connection) Proxy.newProxyInstance(BulkLoadTest.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            if ("prepareStatement".equals(method.getName())) {
+                executed.add((String) args[0]);
+                return insert;
+            }
+            return "createStatement".equals(method.getName()) ? statement : null;
+        });
+    }
+
+    private static String read(InputStream in) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toString("UTF-8");
+    }
+
+}
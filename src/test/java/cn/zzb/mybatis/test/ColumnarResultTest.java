@@ -0,0 +1,173 @@
+package cn.zzb.mybatis.test;
+
+import cn.zzb.mybatis.columnar.ColumnVector;
+import cn.zzb.mybatis.columnar.ColumnarResult;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public class ColumnarResultTest {
+
+    private static final int ROWS = 300;
+
+    private Connection connection;
+
+    @Before
+    public void init() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:own_mybatis;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_UPPER=FALSE", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS columnar_row");
+            statement.execute("CREATE TABLE columnar_row (id INT, amount DECIMAL(18,0), wide DECIMAL(19,0), price DECIMAL(10,2), name VARCHAR(32), score DOUBLE)");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO columnar_row VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < ROWS; i++) {
+                insert.setInt(1, i);
+                // 第 64、127、128 行以及之后每 50 行为 NULL，NULL 位图跨过第一个 long
+                if (isNullRow(i)) {
+                    insert.setNull(2, java.sql.Types.DECIMAL);
+                    insert.setNull(5, java.sql.Types.VARCHAR);
+                    insert.setNull(6, java.sql.Types.DOUBLE);
+                } else {
+                    insert.setBigDecimal(2, i == 1 ? new BigDecimal("999999999999999999") : BigDecimal.valueOf(i));
+                    insert.setString(5, name(i));
+                    insert.setDouble(6, i / 4.0);
+                }
+                insert.setBigDecimal(3, BigDecimal.valueOf(i));
+                insert.setBigDecimal(4, new BigDecimal(i + ".25"));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    private static boolean isNullRow(int row) {
+        return row == 64 || row == 127 || row == 128 || (row > 128 && row % 50 == 0);
+    }
+
+    // 前 150 行各不相同，之后重复前面的值；"Aa" 和 "BB" 的 hashCode 相同
+    private static String name(int row) {
+        if (row == 2) {
+            return "Aa";
+        }
+        if (row == 3) {
+            return "BB";
+        }
+        return "name-" + (row % 150);
+    }
+
+    private ColumnarResult read(String sql, int limit) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+            return ColumnarResult.read(resultSet, limit);
+        }
+    }
+
+    @Test
+    public void test_nullsPastFirstWord() throws SQLException {
+        ColumnarResult result = read("SELECT id, amount, name, score FROM columnar_row ORDER BY id", Integer.MAX_VALUE);
+        Assert.assertEquals(ROWS, result.getRowCount());
+        ColumnVector.LongVector amount = result.getLongColumn("amount");
+        ColumnVector.StringVector name = result.getStringColumn("name");
+        ColumnVector.DoubleVector score = result.getDoubleColumn("score");
+        Assert.assertTrue(amount.hasNulls());
+        Assert.assertFalse(result.getIntColumn("id").hasNulls());
+        Assert.assertEquals(ROWS, amount.values().length);
+        for (int i = 0; i < ROWS; i++) {
+            boolean isNull = isNullRow(i);
+            Assert.assertEquals("row " + i, isNull, amount.isNull(i));
+            Assert.assertEquals("row " + i, isNull, name.isNull(i));
+            Assert.assertEquals("row " + i, isNull, score.isNull(i));
+            Assert.assertFalse(result.getIntColumn("id").isNull(i));
+            if (isNull) {
+                Assert.assertNull(amount.getObject(i));
+                Assert.assertEquals(0L, amount.get(i));
+                Assert.assertEquals(-1, name.codes()[i]);
+                Assert.assertNull(name.get(i));
+            }
+        }
+        try {
+            amount.isNull(ROWS);
+            Assert.fail("row past the end");
+        } catch (IndexOutOfBoundsException expected) {
+            Assert.assertTrue(expected.getMessage().contains("amount"));
+        }
+    }
+
+    @Test
+    public void test_dictionaryRehash() throws SQLException {
+        ColumnVector.StringVector name = read("SELECT name FROM columnar_row ORDER BY id", Integer.MAX_VALUE).getStringColumn("name");
+        // "name-0" ~ "name-149" 加上 "Aa"、"BB"，远超字典的初始容量 16，期间多次扩容、重新散列
+        Assert.assertEquals(152, name.dictionarySize());
+        String[] dictionary = name.dictionary();
+        Assert.assertEquals(152, dictionary.length);
+        for (int i = 0; i < ROWS; i++) {
+            if (isNullRow(i)) {
+                continue;
+            }
+            Assert.assertEquals("row " + i, name(i), name.get(i));
+            Assert.assertEquals(name(i), dictionary[name.codes()[i]]);
+        }
+        // 重复出现的字符串沿用第一次分配的编码，编码按第一次出现的顺序连续分配
+        Assert.assertEquals(name.codes()[10], name.codes()[160]);
+        Assert.assertEquals(0, name.codes()[0]);
+        Assert.assertEquals("Aa", dictionary[2]);
+        Assert.assertEquals("BB", dictionary[3]);
+        Assert.assertNotEquals(name.codes()[2], name.codes()[3]);
+    }
+
+    @Test
+    public void test_decimalStorage() throws SQLException {
+        ColumnarResult result = read("SELECT amount, wide, price FROM columnar_row ORDER BY id", 10);
+        Assert.assertEquals(10, result.getRowCount());
+        // DECIMAL(18,0) 一定能放进 long
+        ColumnVector.LongVector amount = result.getLongColumn("amount");
+        Assert.assertEquals(999999999999999999L, amount.get(1));
+        Assert.assertEquals(Long.valueOf(5), amount.getObject(5));
+        Assert.assertEquals(10, amount.values().length);
+        // DECIMAL(19,0) 和带小数的 DECIMAL 按 BigDecimal 存放
+        ColumnVector wide = result.getColumn("wide");
+        Assert.assertTrue(wide instanceof ColumnVector.ObjectVector);
+        Assert.assertEquals(new BigDecimal("7"), wide.getObject(7));
+        ColumnVector price = result.getColumn(2);
+        Assert.assertTrue(price instanceof ColumnVector.ObjectVector);
+        Assert.assertEquals(new BigDecimal("3.25"), price.getObject(3));
+    }
+
+    @Test
+    public void test_columnTypeMismatch() throws SQLException {
+        ColumnarResult result = read("SELECT id, price, name FROM columnar_row ORDER BY id", 1);
+        Assert.assertSame(result.getColumn(0), result.getIntColumn("ID"));
+        try {
+            result.getLongColumn("id");
+            Assert.fail("an INTEGER column is not stored as long");
+        } catch (RuntimeException expected) {
+            Assert.assertTrue(expected.getMessage().contains("IntVector"));
+        }
+        try {
+            result.getStringColumn("price");
+            Assert.fail("a DECIMAL(10,2) column is not stored as strings");
+        } catch (RuntimeException expected) {
+            Assert.assertTrue(expected.getMessage().contains("ObjectVector"));
+        }
+        try {
+            result.getColumn("missing");
+            Assert.fail("no such column");
+        } catch (RuntimeException expected) {
+            Assert.assertTrue(expected.getMessage().contains("missing"));
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+package cn.zzb.mybatis.test;
+
+import cn.zzb.mybatis.dialect.H2Dialect;
+import cn.zzb.mybatis.dialect.MySqlDialect;
+import cn.zzb.mybatis.dialect.PostgreSqlDialect;
+import cn.zzb.mybatis.session.RowBounds;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class DialectTest {
+
+    @Test
+    public void test_limitSql() {
+        List<Object> parameters = new ArrayList<>();
+        Assert.assertEquals("SELECT id FROM user WHERE id > ? LIMIT ?, ?",
+                new MySqlDialect().getLimitSql("SELECT id FROM user WHERE id > ?;", new RowBounds(20, 10), parameters));
+        Assert.assertEquals(Arrays.<Object>asList(20, 10L), parameters);
+
+        parameters.clear();
+        Assert.assertEquals("SELECT id FROM user LIMIT ? OFFSET ?",
+                new PostgreSqlDialect().getLimitSql("SELECT id FROM user", new RowBounds(20, 10), parameters));
+        Assert.assertEquals(Arrays.<Object>asList(10, 20), parameters);
+
+        parameters.clear();
+        Assert.assertEquals("SELECT id FROM user LIMIT ?",
+                new H2Dialect().getLimitSql("SELECT id FROM user", new RowBounds(0, 5), parameters));
+        Assert.assertEquals(Arrays.<Object>asList(5), parameters);
+    }
+
+    @Test
+    public void test_fallback() {
+        List<Object> parameters = new ArrayList<>();
+        RowBounds rowBounds = new RowBounds(20, 10);
+        Assert.assertNull(new MySqlDialect().getLimitSql("SELECT id FROM user LIMIT 100", rowBounds, parameters));
+        Assert.assertNull(new MySqlDialect().getLimitSql("SELECT id FROM user FOR UPDATE", rowBounds, parameters));
+        Assert.assertNull(new MySqlDialect().getLimitSql("SELECT id FROM a UNION SELECT id FROM b", rowBounds, parameters));
+        Assert.assertNull(new MySqlDialect().getLimitSql("SELECT id FROM user", RowBounds.DEFAULT, parameters));
+        Assert.assertTrue(parameters.isEmpty());
+    }
+
+    @Test
+    public void test_upsertSql() {
+        String sql = "INSERT INTO user (userId, userHead) VALUES (?, ?);";
+        String[] conflictColumns = {"userId"};
+        Assert.assertEquals("INSERT INTO user (userId, userHead) VALUES (?, ?) ON DUPLICATE KEY UPDATE userHead = VALUES(userHead)",
+                new MySqlDialect().getUpsertSql(sql, conflictColumns, null));
+        Assert.assertEquals("INSERT INTO user (userId, userHead) VALUES (?, ?) ON CONFLICT (userId) DO UPDATE SET userHead = EXCLUDED.userHead",
+                new PostgreSqlDialect().getUpsertSql(sql, conflictColumns, null));
+        Assert.assertEquals("MERGE INTO user (userId, userHead) KEY (userId) VALUES (?, ?)",
+                new H2Dialect().getUpsertSql(sql, conflictColumns, null));
+        Assert.assertNull(new H2Dialect().getUpsertSql(sql, new String[0], null));
+
+        // MySQL 插入的行影响 1 行，更新的行影响 2 行
+        Assert.assertArrayEquals(new long[]{2, 1}, new MySqlDialect().countUpserts(new int[]{1, 2, 1}, 3));
+        // 多行语句的合计无法拆分：3 可能是 1 + 2，也可能是值没有变化的行 0 + 1 + 2
+        Assert.assertNull(new MySqlDialect().countUpserts(new int[]{3}, 2));
+        Assert.assertNull(new MySqlDialect().countUpserts(new int[]{Statement.SUCCESS_NO_INFO}, 1));
+    }
+
+    @Test
+    public void test_h2UpsertUpdateColumns() throws SQLException {
+        String sql = "INSERT INTO dialect_user (userId, userHead, note) VALUES (?, ?, ?)";
+        String[] conflictColumns = {"userId"};
+        H2Dialect dialect = new H2Dialect();
+        Assert.assertEquals("MERGE INTO dialect_user (userId, userHead, note) KEY (userId) VALUES (?, ?, ?)",
+                dialect.getUpsertSql(sql, conflictColumns, new String[]{"note", "userHead"}));
+        String partial = dialect.getUpsertSql(sql, conflictColumns, new String[]{"userHead"});
+        Assert.assertEquals("MERGE INTO dialect_user AS target USING (VALUES (?, ?, ?)) AS excluded (userId, userHead, note)"
+                + " ON target.userId = excluded.userId WHEN MATCHED THEN UPDATE SET userHead = excluded.userHead"
+                + " WHEN NOT MATCHED THEN INSERT (userId, userHead, note) VALUES (excluded.userId, excluded.userHead, excluded.note)", partial);
+        String ignore = dialect.getUpsertSql(sql, conflictColumns, new String[0]);
+        Assert.assertFalse(ignore.contains("WHEN MATCHED"));
+
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:dialect_test;MODE=MySQL;DATABASE_TO_UPPER=FALSE", "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE dialect_user (userId BIGINT PRIMARY KEY, userHead VARCHAR(32), note VARCHAR(32))");
+            statement.execute("INSERT INTO dialect_user VALUES (1, 'old', 'old')");
+            // 只更新 userHead，note 保持不变
+            try (PreparedStatement merge = connection.prepareStatement(partial)) {
+                merge.setLong(1, 1);
+                merge.setString(2, "new");
+                merge.setString(3, "new");
+                Assert.assertEquals(1, merge.executeUpdate());
+            }
+            // 不更新：已存在的行保持不变，不存在的行插入
+            try (PreparedStatement merge = connection.prepareStatement(ignore)) {
+                for (long id = 1; id <= 2; id++) {
+                    merge.setLong(1, id);
+                    merge.setString(2, "ignored");
+                    merge.setString(3, "ignored");
+                    merge.addBatch();
+                }
+                Assert.assertArrayEquals(new int[]{0, 1}, merge.executeBatch());
+            }
+            try (ResultSet resultSet = statement.executeQuery("SELECT userHead, note FROM dialect_user ORDER BY userId")) {
+                Assert.assertTrue(resultSet.next());
+                Assert.assertEquals("new", resultSet.getString(1));
+                Assert.assertEquals("old", resultSet.getString(2));
+                Assert.assertTrue(resultSet.next());
+                Assert.assertEquals("ignored", resultSet.getString(1));
+                Assert.assertEquals("ignored", resultSet.getString(2));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package cn.zzb.mybatis.test;
+
+import cn.zzb.mybatis.SqlSessionFactoryBuilder;
+import cn.zzb.mybatis.io.Resources;
+import cn.zzb.mybatis.session.SqlSession;
+import cn.zzb.mybatis.session.SqlSessionFactory;
+import cn.zzb.mybatis.test.dao.IJoinDao;
+import cn.zzb.mybatis.test.po.Order;
+import cn.zzb.mybatis.test.po.OrderLine;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+
+public class JoinedResultMapperTest {
+
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Before
+    public void init() throws Exception {
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(Resources.getResourceAsReader("mybatis-config-h2.xml"));
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:own_mybatis;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_UPPER=FALSE", "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS join_order");
+            statement.execute("DROP TABLE IF EXISTS join_line");
+            statement.execute("CREATE TABLE join_order (id BIGINT PRIMARY KEY, customer VARCHAR(32))");
+            statement.execute("CREATE TABLE join_line (order_id BIGINT, line_no INT, sku VARCHAR(32))");
+            statement.execute("INSERT INTO join_order VALUES (1, 'alice'), (2, 'bob'), (3, 'carol')");
+            // 两个订单都有 line_no = 1、2 的明细，订单 3 没有明细
+            statement.execute("INSERT INTO join_line VALUES (1, 1, 'a'), (1, 2, 'b'), (2, 1, 'c'), (2, 2, 'b')");
+        }
+    }
+
+    @Test
+    public void test_sameChildKeyUnderDifferentParents() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            List<Order> orders = sqlSession.getMapper(IJoinDao.class).queryOrders();
+            assertOrders(orders);
+            // 不同订单下行号相同的明细是不同的对象
+            Assert.assertNotSame(orders.get(0).getLines().get(0), orders.get(1).getLines().get(0));
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void test_compositeChildKey() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            List<Order> orders = sqlSession.getMapper(IJoinDao.class).queryOrdersWithoutLineId();
+            assertOrders(orders);
+            // (2, 'b') 在两个订单下各有一个对象
+            Assert.assertNotSame(orders.get(0).getLines().get(1), orders.get(1).getLines().get(1));
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    private static void assertOrders(List<Order> orders) {
+        Assert.assertEquals(3, orders.size());
+        Order alice = orders.get(0);
+        Assert.assertEquals(Long.valueOf(1), alice.getId());
+        Assert.assertEquals("alice", alice.getCustomer());
+        assertLines(alice.getLines(), "a", "b");
+        Order bob = orders.get(1);
+        Assert.assertEquals("bob", bob.getCustomer());
+        assertLines(bob.getLines(), "c", "b");
+        // LEFT JOIN 没有匹配的明细时集合为空
+        Assert.assertEquals("carol", orders.get(2).getCustomer());
+        Assert.assertTrue(orders.get(2).getLines().isEmpty());
+    }
+
+    private static void assertLines(List<OrderLine> lines, String... skus) {
+        Assert.assertEquals(skus.length, lines.size());
+        for (int i = 0; i < skus.length; i++) {
+            Assert.assertEquals(Integer.valueOf(i + 1), lines.get(i).getLineNo());
+            Assert.assertEquals(skus[i], lines.get(i).getSku());
+        }
+    }
+
+}
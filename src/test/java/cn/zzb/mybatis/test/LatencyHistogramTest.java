@@ -0,0 +1,44 @@
+package cn.zzb.mybatis.test;
+
+import cn.zzb.mybatis.datasource.pooled.metrics.LatencyHistogram;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class LatencyHistogramTest {
+
+    private Logger logger = LoggerFactory.getLogger(LatencyHistogramTest.class);
+
+    @Test
+    public void test_percentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 1ms ~ 100ms 各一次
+        for (int i = 1; i <= 100; i++) {
+            histogram.recordMillis(i);
+        }
+        logger.info("p50：{}，p99：{}，max：{}", histogram.getPercentile(50), histogram.getPercentile(99), histogram.getMax());
+        Assert.assertEquals(100, histogram.getCount());
+        Assert.assertEquals(50.5, histogram.getMean(), 0.001);
+        // 分桶相对误差不超过 12.5%
+        Assert.assertEquals(50, histogram.getPercentile(50), 50 * 0.125);
+        Assert.assertEquals(99, histogram.getPercentile(99), 99 * 0.125);
+        Assert.assertEquals(100, histogram.getMax(), 0.001);
+    }
+
+    @Test
+    public void test_window() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 100; i++) {
+            histogram.recordMillis(1);
+        }
+        LatencyHistogram.Snapshot before = histogram.snapshot();
+        for (int i = 0; i < 10; i++) {
+            histogram.recordMillis(200);
+        }
+        LatencyHistogram.Snapshot window = histogram.snapshot().minus(before);
+        Assert.assertEquals(10, window.getCount());
+        Assert.assertEquals(200, window.getPercentile(50), 200 * 0.125);
+    }
+
+}
@@ -0,0 +1,208 @@
+package cn.zzb.mybatis.test;
+
+import cn.zzb.mybatis.SqlSessionFactoryBuilder;
+import cn.zzb.mybatis.builder.xml.XMLConfigBuilder;
+import cn.zzb.mybatis.io.Resources;
+import cn.zzb.mybatis.session.Configuration;
+import cn.zzb.mybatis.session.SqlSession;
+import cn.zzb.mybatis.session.SqlSessionFactory;
+import cn.zzb.mybatis.test.dao.INestedDao;
+import cn.zzb.mybatis.test.po.Author;
+import cn.zzb.mybatis.test.po.FinalAuthor;
+import cn.zzb.mybatis.test.po.Post;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class LazyLoadingTest {
+
+    private Configuration configuration;
+    private SqlSessionFactory sqlSessionFactory;
+    private RecordingDataSource recorder;
+
+    @Before
+    public void init() throws Exception {
+        configuration = new XMLConfigBuilder(Resources.getResourceAsReader("mybatis-config-h2.xml")).parse();
+        recorder = RecordingDataSource.install(configuration);
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:own_mybatis;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_UPPER=FALSE", "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS nested_author");
+            statement.execute("DROP TABLE IF EXISTS nested_post");
+            statement.execute("CREATE TABLE nested_author (id BIGINT PRIMARY KEY, name VARCHAR(32), featured_post_id BIGINT)");
+            statement.execute("CREATE TABLE nested_post (id BIGINT PRIMARY KEY, author_id INT, title VARCHAR(32))");
+            statement.execute("INSERT INTO nested_author VALUES (1, 'alice', 12), (2, 'bob', 21), (3, 'carol', NULL)");
+            statement.execute("INSERT INTO nested_post VALUES (11, 1, 'a1'), (12, 1, 'a2'), (21, 2, 'b1')");
+        }
+    }
+
+    @Test
+    public void test_loadOnGetter() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            List<Author> authors = sqlSession.getMapper(INestedDao.class).queryLazyAuthors();
+            Assert.assertEquals(1, recorder.getStatements().size());
+            Author alice = authors.get(0);
+            Assert.assertEquals("alice", alice.getName());
+            Assert.assertEquals(1, recorder.getStatements().size());
+
+            // 只加载访问的属性，再次访问不重复查询
+            Assert.assertEquals(titles("a1", "a2"), titles(alice.getPosts()));
+            Assert.assertEquals(2, recorder.getStatements().size());
+            alice.getPosts();
+            Assert.assertEquals(2, recorder.getStatements().size());
+            Assert.assertEquals("a2", alice.getFeaturedPost().getTitle());
+            Assert.assertEquals(3, recorder.getStatements().size());
+
+            // 没有子对象：集合为空，关联为 null
+            Author carol = authors.get(2);
+            Assert.assertTrue(carol.getPosts().isEmpty());
+            Assert.assertNull(carol.getFeaturedPost());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void test_setterCancelsLoad() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Author alice = sqlSession.getMapper(INestedDao.class).queryLazyAuthors().get(0);
+            recorder.clear();
+            alice.setPosts(Collections.emptyList());
+            // 保留调用方设置的值，不再查询
+            Assert.assertTrue(alice.getPosts().isEmpty());
+            Assert.assertTrue(recorder.getStatements().isEmpty());
+            // 其它延迟属性不受影响
+            Assert.assertEquals("a2", alice.getFeaturedPost().getTitle());
+            Assert.assertEquals(1, recorder.getStatements().size());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void test_lazyLoadTriggerMethods() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Author alice = sqlSession.getMapper(INestedDao.class).queryLazyAuthors().get(0);
+            recorder.clear();
+            // 普通方法不触发加载，hashCode 加载全部延迟属性
+            alice.getName();
+            Assert.assertTrue(recorder.getStatements().isEmpty());
+            alice.hashCode();
+            Assert.assertEquals(2, recorder.getStatements().size());
+            Assert.assertEquals(2, alice.getPosts().size());
+            Assert.assertEquals("a2", alice.getFeaturedPost().getTitle());
+            Assert.assertEquals(2, recorder.getStatements().size());
+
+            // 从触发方法中去掉 hashCode 后不再加载
+            configuration.setLazyLoadTriggerMethods(new HashSet<>(Collections.singletonList("toString")));
+            Author bob = sqlSession.getMapper(INestedDao.class).queryLazyAuthors().get(1);
+            recorder.clear();
+            bob.hashCode();
+            Assert.assertTrue(recorder.getStatements().isEmpty());
+            bob.toString();
+            Assert.assertEquals(2, recorder.getStatements().size());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void test_aggressiveLazyLoading() {
+        configuration.setAggressiveLazyLoading(true);
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Author alice = sqlSession.getMapper(INestedDao.class).queryLazyAuthors().get(0);
+            recorder.clear();
+            // 调用任意方法都加载全部延迟属性
+            Assert.assertEquals("alice", alice.getName());
+            Assert.assertEquals(2, recorder.getStatements().size());
+            Assert.assertEquals(2, alice.getPosts().size());
+            Assert.assertEquals("a2", alice.getFeaturedPost().getTitle());
+            Assert.assertEquals(2, recorder.getStatements().size());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void test_loadAfterSessionClosed() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        Author alice;
+        try {
+            alice = sqlSession.getMapper(INestedDao.class).queryLazyAuthors().get(0);
+        } finally {
+            sqlSession.close();
+        }
+        recorder.clear();
+        // 会话已经关闭：从数据源开一个新事务加载
+        Assert.assertEquals(titles("a1", "a2"), titles(alice.getPosts()));
+        Assert.assertEquals(1, recorder.getConnections());
+        Assert.assertEquals(1, recorder.getStatements().size());
+    }
+
+    @Test
+    public void test_loadFromAnotherThread() throws InterruptedException {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Author alice = sqlSession.getMapper(INestedDao.class).queryLazyAuthors().get(0);
+            recorder.clear();
+            // 会话的连接不能跨线程使用：其他线程访问时开一个新事务
+            AtomicReference<List<Post>> posts = new AtomicReference<>();
+            Thread thread = new Thread(() -> posts.set(alice.getPosts()));
+            thread.start();
+            thread.join();
+            Assert.assertEquals(titles("a1", "a2"), titles(posts.get()));
+            Assert.assertEquals(1, recorder.getConnections());
+
+            // 创建线程中访问仍然用会话的连接
+            Assert.assertEquals("a2", alice.getFeaturedPost().getTitle());
+            Assert.assertEquals(1, recorder.getConnections());
+            Assert.assertEquals(2, recorder.getStatements().size());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void test_finalClassLoadsEagerly() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        List<FinalAuthor> authors;
+        try {
+            authors = sqlSession.getMapper(INestedDao.class).queryFinalAuthors();
+            // final 类不能生成代理，映射完立即（批量）加载
+            Assert.assertEquals(2, recorder.getStatements().size());
+        } finally {
+            sqlSession.close();
+        }
+        Assert.assertSame(FinalAuthor.class, authors.get(0).getClass());
+        Assert.assertEquals(titles("a1", "a2"), titles(authors.get(0).getPosts()));
+        Assert.assertEquals(titles("b1"), titles(authors.get(1).getPosts()));
+        Assert.assertTrue(authors.get(2).getPosts().isEmpty());
+    }
+
+    private static List<String> titles(String... titles) {
+        return Arrays.asList(titles);
+    }
+
+    private static List<String> titles(List<Post> posts) {
+        List<String> titles = new ArrayList<>();
+        for (Post post : posts) {
+            titles.add(post.getTitle());
+        }
+        return titles;
+    }
+
+}
@@ -0,0 +1,71 @@
+package cn.zzb.mybatis.test;
+
+import cn.zzb.mybatis.annotations.MapKey;
+import cn.zzb.mybatis.annotations.Param;
+import cn.zzb.mybatis.binding.MapperMethod;
+import cn.zzb.mybatis.session.RowBounds;
+import cn.zzb.mybatis.test.po.User;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public class MapperMethodTest {
+
+    interface Dao {
+        User one(Long id);
+
+        int update(@Param("id") Long id, String head);
+
+        @MapKey("userId")
+        Map<String, User> map();
+
+        CompletableFuture<List<User>> listAsync();
+
+        List<User> page(Long id, RowBounds rowBounds);
+    }
+
+    @Test
+    public void test_convertArgs() throws Exception {
+        MapperMethod.MethodSignature one = new MapperMethod.MethodSignature(Dao.class.getMethod("one", Long.class));
+        Assert.assertEquals(1L, one.convertArgsToSqlCommandParam(new Object[]{1L}));
+        Assert.assertNull(one.convertArgsToSqlCommandParam(null));
+
+        MapperMethod.MethodSignature update = new MapperMethod.MethodSignature(Dao.class.getMethod("update", Long.class, String.class));
+        Map<?, ?> param = (Map<?, ?>) update.convertArgsToSqlCommandParam(new Object[]{2L, "h"});
+        Assert.assertEquals(2L, param.get("id"));
+        Assert.assertEquals(2L, param.get("param1"));
+        Assert.assertEquals("h", param.get("arg1"));
+        Assert.assertEquals("h", param.get("param2"));
+        try {
+            param.get("head");
+            Assert.fail("missing parameter should be reported");
+        } catch (RuntimeException expected) {
+            Assert.assertTrue(expected.getMessage().contains("head"));
+        }
+    }
+
+    @Test
+    public void test_returnTypes() throws Exception {
+        MapperMethod.MethodSignature map = new MapperMethod.MethodSignature(Dao.class.getMethod("map"));
+        Assert.assertTrue(map.returnsMap());
+        Assert.assertEquals("userId", map.getMapKey());
+
+        MapperMethod.MethodSignature listAsync = new MapperMethod.MethodSignature(Dao.class.getMethod("listAsync"));
+        Assert.assertTrue(listAsync.returnsFuture());
+        Assert.assertTrue(listAsync.returnsMany());
+    }
+
+    @Test
+    public void test_rowBounds() throws Exception {
+        MapperMethod.MethodSignature page = new MapperMethod.MethodSignature(Dao.class.getMethod("page", Long.class, RowBounds.class));
+        RowBounds rowBounds = new RowBounds(20, 10);
+        Object[] args = {3L, rowBounds};
+        Assert.assertEquals(3L, page.convertArgsToSqlCommandParam(args));
+        Assert.assertSame(rowBounds, page.extractRowBounds(args));
+        Assert.assertSame(RowBounds.DEFAULT, page.extractRowBounds(new Object[]{3L, null}));
+    }
+
+}
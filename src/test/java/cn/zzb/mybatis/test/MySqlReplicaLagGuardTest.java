@@ -0,0 +1,132 @@
+package cn.zzb.mybatis.test;
+
+import cn.zzb.mybatis.datasource.routing.MySqlReplicaLagGuard;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+public class MySqlReplicaLagGuardTest {
+
+    @Test
+    public void test_replicaStatus() {
+        // MySQL 8.0.22+：SHOW REPLICA STATUS / Seconds_Behind_Source
+        List<String> executed = new ArrayList<>();
+        DataSource replica = replica(executed, true, "Seconds_Behind_Source", 5L);
+        Assert.assertTrue(new MySqlReplicaLagGuard(10, 0).isAvailable(replica));
+        Assert.assertFalse(new MySqlReplicaLagGuard(3, 0).isAvailable(replica));
+        Assert.assertEquals("SHOW REPLICA STATUS", executed.get(0));
+        Assert.assertFalse(executed.contains("SHOW SLAVE STATUS"));
+
+        // 复制线程停止
+        Assert.assertFalse(new MySqlReplicaLagGuard(10, 0).isAvailable(replica(executed, true, "Seconds_Behind_Source", null)));
+        // MariaDB：SHOW REPLICA STATUS 返回旧列名
+        Assert.assertFalse(new MySqlReplicaLagGuard(3, 0).isAvailable(replica(executed, true, "Seconds_Behind_Master", 5L)));
+    }
+
+    @Test
+    public void test_slaveStatusFallback() throws InterruptedException {
+        // 8.0.22 之前的版本：SHOW REPLICA STATUS 语法错误，退回 SHOW SLAVE STATUS / Seconds_Behind_Master
+        List<String> executed = new ArrayList<>();
+        DataSource replica = replica(executed, false, "Seconds_Behind_Master", 5L);
+        MySqlReplicaLagGuard guard = new MySqlReplicaLagGuard(3, 0);
+        Assert.assertFalse(guard.isAvailable(replica));
+        Assert.assertEquals(2, executed.size());
+        Assert.assertEquals("SHOW SLAVE STATUS", executed.get(1));
+
+        // 记住该从库使用旧语句，不再先试新语句
+        executed.clear();
+        Thread.sleep(5);
+        guard.isAvailable(replica);
+        Assert.assertEquals(1, executed.size());
+        Assert.assertEquals("SHOW SLAVE STATUS", executed.get(0));
+    }
+
+    @Test
+    public void test_queryFailed() {
+        DataSource replica = dataSource(() -> {
+            throw new SQLException("Communications link failure");
+        });
+        Assert.assertFalse(new MySqlReplicaLagGuard(10, 0).isAvailable(replica));
+    }
+
+    private static DataSource replica(List<String> executed, boolean supportsReplicaStatus, String lagColumn, Long lag) {
+        ResultSetMetaData metaData = proxy(ResultSetMetaData.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getColumnCount":
+                    return 2;
+                case "getColumnLabel":
+                    return (int) args[0] == 1 ? "Replica_IO_Running" : lagColumn;
+                default:
+                    return null;
+            }
+        });
+        boolean[] wasNull = new boolean[1];
+        Statement statement = proxy(Statement.class, (proxy, method, args) -> {
+            if (!"executeQuery".equals(method.getName())) {
+                return null;
+            }
+            String sql = (String) args[0];
+            executed.add(sql);
+            if (!supportsReplicaStatus && sql.contains("REPLICA")) {
+                throw new SQLSyntaxErrorException("You have an error in your SQL syntax", "42000", 1064);
+            }
+            boolean[] next = {true};
+            return proxy(ResultSet.class, (rs, m, a) -> {
+                switch (m.getName()) {
+                    case "next":
+                        boolean hasNext = next[0];
+                        next[0] = false;
+                        return hasNext;
+                    case "getMetaData":
+                        return metaData;
+                    case "getLong":
+                        if (!lagColumn.equals(a[0])) {
+                            throw new SQLException("Column '" + a[0] + "' not found.");
+                        }
+                        wasNull[0] = lag == null;
+                        return lag == null ? 0L : lag;
+                    case "wasNull":
+                        return wasNull[0];
+                    default:
+                        return null;
+                }
+            });
+        });
+        Connection connection = proxy(Connection.class, (proxy, method, args) -> "createStatement".equals(method.getName()) ? statement : null);
+        return dataSource(() -> connection);
+    }
+
+    private static DataSource dataSource(Callable<Connection> connection) {
+        return proxy(DataSource.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getConnection":
+                    return connection.call();
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "replica";
+                default:
+                    return null;
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, java.lang.reflect.InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(MySqlReplicaLagGuardTest.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+}
@@ -0,0 +1,77 @@
+package cn.zzb.mybatis.test;
+
+import cn.zzb.mybatis.mapping.Environment;
+import cn.zzb.mybatis.session.Configuration;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 包装环境的数据源，记录打开的连接数和预编译的 SQL，测试用来确认执行了哪些语句、是否开了新事务
+ */
+public class RecordingDataSource {
+
+    private final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger connections = new AtomicInteger();
+
+    public static RecordingDataSource install(Configuration configuration) {
+        RecordingDataSource recorder = new RecordingDataSource();
+        Environment environment = configuration.getEnvironment();
+        DataSource target = environment.getDataSource();
+        DataSource dataSource = proxy(DataSource.class, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            if ("getConnection".equals(method.getName())) {
+                recorder.connections.incrementAndGet();
+                return recorder.wrap((Connection) result);
+            }
+            return result;
+        });
+        configuration.setEnvironment(new Environment(environment.getId(), environment.getTransactionFactory(), dataSource));
+        return recorder;
+    }
+
+    public List<String> getStatements() {
+        synchronized (statements) {
+            return new ArrayList<>(statements);
+        }
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    public void clear() {
+        statements.clear();
+        connections.set(0);
+    }
+
+    private Connection wrap(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            if ("prepareStatement".equals(method.getName())) {
+                statements.add((String) args[0]);
+            }
+            return invoke(connection, method, args);
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(RecordingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+}
@@ -2,8 +2,11 @@ package cn.zzb.mybatis.test;
 
 
 import cn.zzb.mybatis.reflection.MetaObject;
+import cn.zzb.mybatis.reflection.Reflector;
 import cn.zzb.mybatis.reflection.SystemMetaObject;
+import cn.zzb.mybatis.reflection.invoker.ConstructorInvoker;
 import com.alibaba.fastjson.JSON;
+import org.junit.Assert;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,6 +42,32 @@ public class ReflectionTest {
         logger.info("对象的序列化：{}", JSON.toJSONString(teacher));
     }
 
+    @Test
+    public void test_constructorInvoker() throws Exception {
+        Reflector reflector = Reflector.forClass(Point.class);
+        ConstructorInvoker invoker = reflector.getConstructorInvoker(long.class, String.class);
+        // 同一组参数类型只解析一次
+        Assert.assertSame(invoker, reflector.getConstructorInvoker(long.class, String.class));
+        Point point = (Point) invoker.invoke(null, new Object[]{7L, "p"});
+        Assert.assertEquals(7L, point.x);
+        Assert.assertEquals("p", point.name);
+        Assert.assertFalse(reflector.isRecord());
+        Assert.assertEquals(2, reflector.findConstructor(2).getParameterCount());
+        Assert.assertNull(reflector.findConstructor(1));
+    }
+
+    static class Point {
+
+        private final long x;
+        private final String name;
+
+        private Point(long x, String name) {
+            this.x = x;
+            this.name = name;
+        }
+
+    }
+
     static class Teacher {
 
         private String name;
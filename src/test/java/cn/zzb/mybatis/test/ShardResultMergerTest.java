@@ -0,0 +1,176 @@
+package cn.zzb.mybatis.test;
+
+import cn.zzb.mybatis.parsing.SqlClauseParser;
+import cn.zzb.mybatis.session.Configuration;
+import cn.zzb.mybatis.sharding.ShardResultMerger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ShardResultMergerTest {
+
+    private final Configuration configuration = new Configuration();
+
+    public static class Stat {
+        private String dept;
+        private Long cnt;
+        private BigDecimal total;
+        private Integer low;
+        private Integer high;
+
+        public Stat() {
+        }
+
+        Stat(String dept, Long cnt, BigDecimal total, Integer low, Integer high) {
+            this.dept = dept;
+            this.cnt = cnt;
+            this.total = total;
+            this.low = low;
+            this.high = high;
+        }
+
+        public String getDept() {
+            return dept;
+        }
+
+        public void setDept(String dept) {
+            this.dept = dept;
+        }
+
+        public Long getCnt() {
+            return cnt;
+        }
+
+        public void setCnt(Long cnt) {
+            this.cnt = cnt;
+        }
+
+        public BigDecimal getTotal() {
+            return total;
+        }
+
+        public void setTotal(BigDecimal total) {
+            this.total = total;
+        }
+
+        public Integer getLow() {
+            return low;
+        }
+
+        public void setLow(Integer low) {
+            this.low = low;
+        }
+
+        public Integer getHigh() {
+            return high;
+        }
+
+        public void setHigh(Integer high) {
+            this.high = high;
+        }
+    }
+
+    private <E> List<E> merge(String sql, List<List<E>> shardResults) {
+        return new ShardResultMerger(configuration, SqlClauseParser.parse(sql)).merge(shardResults);
+    }
+
+    @SafeVarargs
+    private static <E> List<List<E>> shards(List<E>... shards) {
+        return new ArrayList<>(Arrays.asList(shards));
+    }
+
+    @Test
+    public void test_scalarAggregates() {
+        Assert.assertEquals(Collections.singletonList(23L),
+                merge("SELECT COUNT(*) FROM user", shards(Collections.singletonList(5L), Collections.singletonList(7L), Collections.singletonList(11L))));
+        Assert.assertEquals(Collections.singletonList(new BigDecimal("4.50")),
+                merge("SELECT SUM(amount) FROM orders", shards(Collections.singletonList(new BigDecimal("1.25")), Collections.singletonList((BigDecimal) null),
+                        Collections.singletonList(new BigDecimal("3.25")))));
+        Assert.assertEquals(Collections.singletonList(2),
+                merge("SELECT MIN(age) FROM user", shards(Collections.singletonList(9), Collections.singletonList((Integer) null), Collections.singletonList(2))));
+        Assert.assertEquals(Collections.singletonList(9),
+                merge("SELECT MAX(age) AS oldest FROM user", shards(Collections.singletonList(9), Collections.singletonList((Integer) null), Collections.singletonList(2))));
+    }
+
+    @Test
+    public void test_singleColumnMap() {
+        List<List<Map<String, Object>>> shardResults = shards(Collections.singletonList(row("COUNT(*)", 5L)), Collections.singletonList(row("COUNT(*)", 7L)));
+        List<Map<String, Object>> merged = merge("SELECT COUNT(*) FROM user", shardResults);
+        Assert.assertEquals(1, merged.size());
+        Assert.assertEquals(12L, merged.get(0).get("COUNT(*)"));
+    }
+
+    @Test
+    public void test_beanAggregates() {
+        String sql = "SELECT dept, COUNT(*) AS cnt, SUM(amount) AS total, MIN(age) AS low, MAX(age) AS high FROM user GROUP BY dept ORDER BY cnt DESC";
+        List<List<Stat>> shardResults = shards(
+                Arrays.asList(new Stat("a", 2L, new BigDecimal("10"), 30, 40), new Stat("b", 1L, new BigDecimal("1"), 20, 20)),
+                Arrays.asList(new Stat("b", 4L, new BigDecimal("2.5"), 18, 50)),
+                Arrays.asList(new Stat("a", 1L, null, null, null), new Stat("c", 1L, new BigDecimal("7"), 60, 60)));
+        List<Stat> merged = merge(sql, shardResults);
+        Assert.assertEquals(3, merged.size());
+        Stat b = merged.get(0);
+        Assert.assertEquals("b", b.getDept());
+        Assert.assertEquals(Long.valueOf(5), b.getCnt());
+        Assert.assertEquals(new BigDecimal("3.5"), b.getTotal());
+        Assert.assertEquals(Integer.valueOf(18), b.getLow());
+        Assert.assertEquals(Integer.valueOf(50), b.getHigh());
+        Stat a = merged.get(1);
+        Assert.assertEquals("a", a.getDept());
+        Assert.assertEquals(Long.valueOf(3), a.getCnt());
+        Assert.assertEquals(new BigDecimal("10"), a.getTotal());
+        Assert.assertEquals(Integer.valueOf(30), a.getLow());
+        Assert.assertEquals(Integer.valueOf(40), a.getHigh());
+        Assert.assertEquals("c", merged.get(2).getDept());
+    }
+
+    @Test
+    public void test_scalarGroupByRejected() {
+        try {
+            merge("SELECT COUNT(*) FROM user GROUP BY dept", shards(Collections.singletonList(5L), Collections.singletonList(7L)));
+            Assert.fail("group rows without the group columns can not be merged");
+        } catch (RuntimeException expected) {
+            Assert.assertTrue(expected.getMessage().contains("GROUP BY"));
+        }
+    }
+
+    @Test
+    public void test_havingRejected() {
+        // 8 + 7 = 15 > 10，但每个分片上的部分分组都不满足条件
+        try {
+            merge("SELECT dept, COUNT(*) AS cnt FROM user GROUP BY dept HAVING COUNT(*) > 10", shards(new ArrayList<Stat>(), new ArrayList<Stat>()));
+            Assert.fail("HAVING filters partial groups on each shard");
+        } catch (RuntimeException expected) {
+            Assert.assertTrue(expected.getMessage().contains("HAVING"));
+        }
+    }
+
+    @Test
+    public void test_distinctAggregateRejected() {
+        for (String sql : Arrays.asList("SELECT COUNT(DISTINCT user_id) FROM orders", "SELECT dept, sum( distinct amount ) AS total FROM orders GROUP BY dept")) {
+            try {
+                merge(sql, shards(Collections.singletonList(5L), Collections.singletonList(7L)));
+                Assert.fail("distinct values may repeat across shards: " + sql);
+            } catch (RuntimeException expected) {
+                Assert.assertTrue(expected.getMessage().contains("(DISTINCT ...)"));
+            }
+        }
+        // MIN/MAX 不受重复值影响
+        Assert.assertEquals(Collections.singletonList(2),
+                merge("SELECT MIN(DISTINCT age) FROM user", shards(Collections.singletonList(9), Collections.singletonList(2))));
+    }
+
+    private static Map<String, Object> row(String column, Object value) {
+        Map<String, Object> row = new HashMap<>();
+        row.put(column, value);
+        return row;
+    }
+
+}
@@ -0,0 +1,73 @@
+package cn.zzb.mybatis.test;
+
+import cn.zzb.mybatis.mapping.BoundSql;
+import cn.zzb.mybatis.mapping.MappedStatement;
+import cn.zzb.mybatis.mapping.ParameterMapping;
+import cn.zzb.mybatis.mapping.SqlCommandType;
+import cn.zzb.mybatis.session.Configuration;
+import cn.zzb.mybatis.sharding.ShardTarget;
+import cn.zzb.mybatis.sharding.ShardingRouter;
+import cn.zzb.mybatis.sharding.ShardingRule;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ShardingRouterTest {
+
+    private final Configuration configuration = new Configuration();
+
+    private ShardingRouter router() {
+        return new ShardingRouter("ds0").addRule(new ShardingRule.Builder("user", "userId").dataSources("ds0", "ds1").tablesPerDataSource(2).build());
+    }
+
+    private MappedStatement select(String id) {
+        return new MappedStatement.Builder(configuration, id, SqlCommandType.SELECT, null, Object.class).build();
+    }
+
+    private BoundSql boundSql(String sql, Object parameter, String... properties) {
+        List<ParameterMapping> parameterMappings = new ArrayList<>();
+        for (String property : properties) {
+            parameterMappings.add(new ParameterMapping.Builder(configuration, property, Object.class).build());
+        }
+        return new BoundSql(configuration, sql, parameterMappings, parameter);
+    }
+
+    @Test
+    public void test_scalarShardKey() {
+        ShardingRouter router = router();
+        List<ShardTarget> byId = router.route(configuration, select("byId"), boundSql("SELECT * FROM user WHERE user_id = ?", 7L, "userId"));
+        Assert.assertEquals(1, byId.size());
+        Assert.assertEquals("user_03", byId.get(0).getActualTables().get("user"));
+
+        List<ShardTarget> byColumn = router.route(configuration, select("byColumn"), boundSql("SELECT * FROM user WHERE user_id = ? OR parent_id = ?", 7L, "user_id", "user_id"));
+        Assert.assertEquals("user_03", byColumn.get(0).getActualTables().get("user"));
+
+        Map<String, Object> param = new HashMap<>();
+        param.put("userId", 7L);
+        List<ShardTarget> byParam = router.route(configuration, select("byParam"), boundSql("SELECT * FROM user WHERE user_id = ?", param, "userId"));
+        Assert.assertEquals("user_03", byParam.get(0).getActualTables().get("user"));
+    }
+
+    @Test
+    public void test_scalarNotShardKey() {
+        ShardingRouter router = router();
+        BoundSql byEmail = boundSql("SELECT * FROM user WHERE email = ?", "a@b.c", "email");
+        try {
+            router.route(configuration, select("byEmail"), byEmail);
+            Assert.fail("a scalar bound to another column must not be used as the sharding key");
+        } catch (RuntimeException expected) {
+            Assert.assertTrue(expected.getMessage().contains("userId"));
+        }
+
+        router.setMissingShardKeyPolicy(ShardingRouter.MissingShardKeyPolicy.FAN_OUT);
+        List<ShardTarget> targets = router.route(configuration, select("byEmail"), byEmail);
+        Assert.assertEquals(4, targets.size());
+        Assert.assertEquals("ds1", targets.get(3).getDataSourceName());
+        Assert.assertEquals(4, router.route(configuration, select("mixed"), boundSql("SELECT * FROM user WHERE user_id = ? AND email = ?", 7L, "userId", "email")).size());
+    }
+
+}
@@ -0,0 +1,89 @@
+package cn.zzb.mybatis.test;
+
+import cn.zzb.mybatis.executor.MultiRowInsertRewriter;
+import cn.zzb.mybatis.parsing.SqlClauseParser;
+import cn.zzb.mybatis.parsing.SqlClauses;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SqlClauseParserTest {
+
+    @Test
+    public void test_parse() {
+        SqlClauses clauses = SqlClauseParser.parse("SELECT u.userId AS uid, COUNT(*) cnt, CASE WHEN x > 1 THEN 'a,b' END FROM user u "
+                + "WHERE id IN (SELECT id FROM t ORDER BY id LIMIT 1) GROUP BY u.userId ORDER BY uid DESC LIMIT 10, 20");
+        Assert.assertNotNull(clauses);
+        Assert.assertEquals(3, clauses.getSelectItems().size());
+        Assert.assertEquals("uid", clauses.getSelectItems().get(0).getPropertyName());
+        Assert.assertEquals("COUNT", clauses.getSelectItems().get(1).getAggregate());
+        Assert.assertEquals("uid", clauses.propertyOf(clauses.getGroupBy().get(0)));
+        Assert.assertFalse(clauses.getOrderBy().get(0).isAscending());
+        Assert.assertEquals(10, clauses.getLimit().getOffset());
+        Assert.assertEquals(Long.valueOf(20), clauses.getLimit().getRowCount());
+        Assert.assertTrue(clauses.withLimit(30).endsWith("ORDER BY uid DESC LIMIT 30 "));
+    }
+
+    @Test
+    public void test_unsupported() {
+        Assert.assertNull(SqlClauseParser.parse("SELECT id FROM a UNION SELECT id FROM b"));
+        Assert.assertNull(SqlClauseParser.parse("UPDATE user SET name = 'x'"));
+        Assert.assertTrue(SqlClauseParser.parse("SELECT id FROM t LIMIT ? OFFSET ?").getLimit().isParameterized());
+    }
+
+    @Test
+    public void test_seek() {
+        SqlClauses clauses = SqlClauseParser.parse("SELECT id FROM t WHERE a = ? OR b = '?' GROUP BY id HAVING COUNT(*) > ? ORDER BY name");
+        Assert.assertEquals("SELECT id FROM t WHERE (a = ? OR b = '?') AND (id) > (?) GROUP BY id HAVING COUNT(*) > ? ORDER BY id ASC",
+                clauses.withSeek("(id) > (?)", "id ASC"));
+        Assert.assertEquals(1, SqlClauseParser.countPlaceholders(clauses.getSql(), clauses.getSeekPosition()));
+        Assert.assertEquals("SELECT id FROM t WHERE (id) > (?) ORDER BY id DESC",
+                SqlClauseParser.parse("SELECT id FROM t").withSeek("(id) > (?)", "id DESC"));
+        Assert.assertEquals("SELECT id FROM t ORDER BY id ASC", SqlClauseParser.parse("SELECT id FROM t ORDER BY x").withSeek(null, "id ASC"));
+        Assert.assertTrue(SqlClauseParser.parse("SELECT id FROM t FOR UPDATE").isLocking());
+    }
+
+    @Test
+    public void test_locking() {
+        Assert.assertTrue(SqlClauseParser.isLocking("SELECT id FROM t WHERE id = ? FOR UPDATE"));
+        Assert.assertTrue(SqlClauseParser.isLocking("select id from t lock in share mode"));
+        Assert.assertTrue(SqlClauseParser.isLocking("SELECT id FROM a UNION SELECT id FROM b FOR SHARE"));
+        Assert.assertFalse(SqlClauseParser.isLocking("SELECT 'for update' FROM t -- for update"));
+        Assert.assertFalse(SqlClauseParser.isLocking("SELECT id FROM t"));
+    }
+
+    @Test
+    public void test_multiRowInsert() {
+        MultiRowInsertRewriter rewriter = new MultiRowInsertRewriter();
+        MultiRowInsertRewriter.InsertShape shape = rewriter.getShape("INSERT INTO user (a, b) VALUES (?, CONCAT(?, '),(')) ON DUPLICATE KEY UPDATE b = VALUES(b);");
+        Assert.assertNotNull(shape);
+        Assert.assertEquals(2, shape.getParametersPerRow());
+        Assert.assertEquals("INSERT INTO user (a, b) VALUES (?, CONCAT(?, '),(')),(?, CONCAT(?, '),(')) ON DUPLICATE KEY UPDATE b = VALUES(b)", shape.getSql(2));
+        Assert.assertSame(shape.getSql(3), shape.getSql(3));
+        Assert.assertNull(rewriter.getShape("INSERT INTO user (a) VALUES (?), (?)"));
+        Assert.assertNull(rewriter.getShape("INSERT INTO user (a) SELECT a FROM t"));
+        Assert.assertNull(rewriter.getShape("INSERT INTO user (a) VALUES (?) ON DUPLICATE KEY UPDATE a = ?"));
+
+        rewriter.setMaxParameters(100);
+        Assert.assertEquals(50, rewriter.rowsPerStatement(shape, 10));
+        rewriter.setMaxPacketBytes(1000);
+        Assert.assertTrue(rewriter.rowsPerStatement(shape, 100) < 10);
+        Assert.assertEquals(1, rewriter.rowsPerStatement(shape, 10000));
+    }
+
+    @Test
+    public void test_keyPredicate() {
+        String sql = "SELECT o.id, o.amount FROM orders o WHERE o.deleted = 0 AND o.`user_id` = ? ORDER BY o.id";
+        int[] predicate = SqlClauseParser.findKeyPredicate(sql);
+        Assert.assertNotNull(predicate);
+        Assert.assertEquals("o.`user_id`", sql.substring(predicate[0], predicate[1]));
+        Assert.assertEquals(" ORDER BY o.id", sql.substring(predicate[2]));
+
+        Assert.assertNull(SqlClauseParser.findKeyPredicate("SELECT id FROM t WHERE a = ? AND b = ?"));
+        Assert.assertNull(SqlClauseParser.findKeyPredicate("SELECT id FROM t WHERE a >= ?"));
+        Assert.assertNull(SqlClauseParser.findKeyPredicate("SELECT id FROM t WHERE a = ? OR b = 1"));
+        Assert.assertNull(SqlClauseParser.findKeyPredicate("SELECT id FROM t WHERE a IN (SELECT a FROM s WHERE b = ?)"));
+        Assert.assertNull(SqlClauseParser.findKeyPredicate("SELECT id FROM t WHERE a = ? LIMIT 1"));
+        Assert.assertNull(SqlClauseParser.findKeyPredicate("SELECT COUNT(*) FROM t WHERE a = ?"));
+    }
+
+}
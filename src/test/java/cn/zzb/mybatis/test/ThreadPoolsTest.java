@@ -0,0 +1,80 @@
+package cn.zzb.mybatis.test;
+
+import cn.zzb.mybatis.executor.ThreadPools;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class ThreadPoolsTest {
+
+    @Test
+    public void test_asyncPoolRejectsWhenFull() throws Exception {
+        ExecutorService pool = ThreadPools.newAsyncPool("test-async-", 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // 1 个线程 + 16 个排队的任务把线程池占满
+            List<CompletableFuture<String>> accepted = new ArrayList<>();
+            for (int i = 0; i < 17; i++) {
+                accepted.add(CompletableFuture.supplyAsync(() -> {
+                    await(release);
+                    return Thread.currentThread().getName();
+                }, pool));
+            }
+            // 和 DefaultSqlSession.submit 一样接在已完成的 future 后面提交
+            Thread caller = Thread.currentThread();
+            CompletableFuture<Boolean> rejected = CompletableFuture.completedFuture(null)
+                    .thenApplyAsync(ignore -> Thread.currentThread() == caller, pool);
+            Assert.assertTrue(rejected.isCompletedExceptionally());
+            try {
+                rejected.get();
+                Assert.fail("a full async pool must not run the task on the caller thread");
+            } catch (ExecutionException expected) {
+                Assert.assertTrue(expected.getCause() instanceof RejectedExecutionException);
+            }
+
+            release.countDown();
+            for (CompletableFuture<String> future : accepted) {
+                Assert.assertTrue(future.get(10, TimeUnit.SECONDS).startsWith("test-async-"));
+            }
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void test_boundedPoolRunsOnCallerWhenFull() throws Exception {
+        ExecutorService pool = ThreadPools.newBoundedPool("test-bounded-", 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < 17; i++) {
+                pool.execute(() -> await(release));
+            }
+            // 扩散查询的调用方本来就在等待结果，满了由调用线程执行
+            Thread caller = Thread.currentThread();
+            boolean[] ranOnCaller = new boolean[1];
+            pool.execute(() -> ranOnCaller[0] = Thread.currentThread() == caller);
+            Assert.assertTrue(ranOnCaller[0]);
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
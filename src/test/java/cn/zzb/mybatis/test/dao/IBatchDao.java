@@ -0,0 +1,21 @@
+package cn.zzb.mybatis.test.dao;
+
+import cn.zzb.mybatis.test.po.User;
+
+import java.util.List;
+
+public interface IBatchDao {
+
+    int insertSelectKeyAfter(User user);
+
+    int insertUser(User user);
+
+    int insertUserGeneratedKeys(User user);
+
+    int insertUserIgnore(User user);
+
+    int insertSelectKeyBefore(User user);
+
+    List<String> queryUserIds();
+
+}
@@ -0,0 +1,13 @@
+package cn.zzb.mybatis.test.dao;
+
+import cn.zzb.mybatis.test.po.Order;
+
+import java.util.List;
+
+public interface IJoinDao {
+
+    List<Order> queryOrders();
+
+    List<Order> queryOrdersWithoutLineId();
+
+}
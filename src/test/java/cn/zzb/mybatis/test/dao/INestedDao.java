@@ -0,0 +1,25 @@
+package cn.zzb.mybatis.test.dao;
+
+import cn.zzb.mybatis.test.po.Author;
+import cn.zzb.mybatis.test.po.FinalAuthor;
+import cn.zzb.mybatis.test.po.Post;
+
+import java.util.List;
+
+public interface INestedDao {
+
+    List<Author> queryAuthors();
+
+    List<Author> queryLazyAuthors();
+
+    List<FinalAuthor> queryFinalAuthors();
+
+    List<Author> queryAuthorsWithoutPostKey();
+
+    List<Author> queryAuthorsWithShiftedPostKey();
+
+    List<Post> queryPostsByAuthor(Long authorId);
+
+    Post queryPost(Long id);
+
+}
@@ -0,0 +1,42 @@
+package cn.zzb.mybatis.test.po;
+
+import java.util.List;
+
+public class Author {
+    private Long id;
+    private String name;
+    private List<Post> posts;
+    private Post featuredPost;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public List<Post> getPosts() {
+        return posts;
+    }
+
+    public void setPosts(List<Post> posts) {
+        this.posts = posts;
+    }
+
+    public Post getFeaturedPost() {
+        return featuredPost;
+    }
+
+    public void setFeaturedPost(Post featuredPost) {
+        this.featuredPost = featuredPost;
+    }
+}
@@ -0,0 +1,36 @@
+package cn.zzb.mybatis.test.po;
+
+import java.util.List;
+
+/**
+ * final 类不能生成延迟加载代理
+ */
+public final class FinalAuthor {
+    private Long id;
+    private String name;
+    private List<Post> posts;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public List<Post> getPosts() {
+        return posts;
+    }
+
+    public void setPosts(List<Post> posts) {
+        this.posts = posts;
+    }
+}
@@ -0,0 +1,33 @@
+package cn.zzb.mybatis.test.po;
+
+import java.util.List;
+
+public class Order {
+    private Long id;
+    private String customer;
+    private List<OrderLine> lines;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCustomer() {
+        return customer;
+    }
+
+    public void setCustomer(String customer) {
+        this.customer = customer;
+    }
+
+    public List<OrderLine> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<OrderLine> lines) {
+        this.lines = lines;
+    }
+}
@@ -0,0 +1,22 @@
+package cn.zzb.mybatis.test.po;
+
+public class OrderLine {
+    private Integer lineNo;
+    private String sku;
+
+    public Integer getLineNo() {
+        return lineNo;
+    }
+
+    public void setLineNo(Integer lineNo) {
+        this.lineNo = lineNo;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+}
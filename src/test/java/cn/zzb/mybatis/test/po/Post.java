@@ -0,0 +1,32 @@
+package cn.zzb.mybatis.test.po;
+
+public class Post {
+    private Long id;
+    // 与作者的 id（Long）类型不同
+    private Integer authorId;
+    private String title;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Integer getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(Integer authorId) {
+        this.authorId = authorId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+}